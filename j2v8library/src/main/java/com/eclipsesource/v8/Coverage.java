@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.eclipsesource.v8.CoverageRange.Kind;
+
+/**
+ * The code coverage collected by {@link V8#takeCoverage()}. Only scripts
+ * that were executed with a script name while coverage was started
+ * are included.
+ */
+public class Coverage {
+
+    private final CoverageMode         mode;
+    private final List<ScriptCoverage> scripts;
+
+    Coverage(final CoverageMode mode, final List<ScriptCoverage> scripts) {
+        this.mode = mode;
+        this.scripts = Collections.unmodifiableList(scripts);
+    }
+
+    /**
+     * Returns the mode in which the coverage was collected.
+     *
+     * @return The coverage mode.
+     */
+    public CoverageMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the coverage of all scripts.
+     *
+     * @return The coverage of all scripts.
+     */
+    public List<ScriptCoverage> getScripts() {
+        return scripts;
+    }
+
+    /**
+     * Returns the coverage of the script that was executed with the given
+     * name. If the name was used more than once, the first script is
+     * returned.
+     *
+     * @param scriptName The name of the script.
+     * @return The coverage of the script, or null if there is none.
+     */
+    public ScriptCoverage getScript(final String scriptName) {
+        for (ScriptCoverage script : scripts) {
+            if (script.getScriptName().equals(scriptName)) {
+                return script;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Formats the coverage as an lcov tracefile, with one record per
+     * script. Line numbers in the tracefile are 1 based.
+     *
+     * @return The coverage in lcov format.
+     */
+    public String toLcov() {
+        StringBuilder result = new StringBuilder();
+        for (ScriptCoverage script : scripts) {
+            result.append("TN:\nSF:").append(script.getScriptName()).append('\n');
+            List<CoverageRange> ranges = script.getRanges();
+            String[] names = getFunctionNames(ranges);
+            int functions = 0;
+            int functionsHit = 0;
+            for (int i = 0; i < ranges.size(); i++) {
+                if (names[i] != null) {
+                    result.append("FN:").append(ranges.get(i).getStartLine() + 1).append(',').append(names[i]).append('\n');
+                }
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                if (names[i] != null) {
+                    long count = ranges.get(i).getCount();
+                    result.append("FNDA:").append(count).append(',').append(names[i]).append('\n');
+                    functions++;
+                    functionsHit += count > 0 ? 1 : 0;
+                }
+            }
+            result.append("FNF:").append(functions).append('\n');
+            result.append("FNH:").append(functionsHit).append('\n');
+            int first = script.getLineNumber();
+            for (int line = first; line < (first + script.getLineCount()); line++) {
+                long count = script.getExecutionCount(line);
+                if (count >= 0) {
+                    result.append("DA:").append(line + 1).append(',').append(count).append('\n');
+                }
+            }
+            result.append("LF:").append(script.getExecutableLineCount()).append('\n');
+            result.append("LH:").append(script.getCoveredLineCount()).append('\n');
+            result.append("end_of_record\n");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats the coverage in the JSON format used by Istanbul, keyed by
+     * script name. Every executable line is reported as a statement, and
+     * every function range as a function. Lines are 1 based and columns
+     * are 0 based.
+     *
+     * @return The coverage as Istanbul JSON.
+     */
+    public String toIstanbulJson() {
+        StringBuilder result = new StringBuilder("{");
+        for (int i = 0; i < scripts.size(); i++) {
+            ScriptCoverage script = scripts.get(i);
+            if (i > 0) {
+                result.append(',');
+            }
+            appendString(result, script.getScriptName());
+            result.append(":{\"path\":");
+            appendString(result, script.getScriptName());
+            StringBuilder statementMap = new StringBuilder();
+            StringBuilder statements = new StringBuilder();
+            int first = script.getLineNumber();
+            int statement = 0;
+            for (int line = first; line < (first + script.getLineCount()); line++) {
+                long count = script.getExecutionCount(line);
+                if (count < 0) {
+                    continue;
+                }
+                if (statement > 0) {
+                    statementMap.append(',');
+                    statements.append(',');
+                }
+                statementMap.append('"').append(statement).append("\":");
+                appendLocation(statementMap, line, 0, line, script.getLineLength(line));
+                statements.append('"').append(statement).append("\":").append(count);
+                statement++;
+            }
+            StringBuilder fnMap = new StringBuilder();
+            StringBuilder functions = new StringBuilder();
+            List<CoverageRange> ranges = script.getRanges();
+            String[] names = getFunctionNames(ranges);
+            int function = 0;
+            for (int j = 0; j < ranges.size(); j++) {
+                if (names[j] == null) {
+                    continue;
+                }
+                CoverageRange range = ranges.get(j);
+                if (function > 0) {
+                    fnMap.append(',');
+                    functions.append(',');
+                }
+                fnMap.append('"').append(function).append("\":{\"name\":");
+                appendString(fnMap, names[j]);
+                fnMap.append(",\"decl\":");
+                appendLocation(fnMap, range.getStartLine(), range.getStartColumn(), range.getStartLine(), range.getStartColumn());
+                fnMap.append(",\"loc\":");
+                appendLocation(fnMap, range.getStartLine(), range.getStartColumn(), range.getEndLine(), range.getEndColumn());
+                fnMap.append(",\"line\":").append(range.getStartLine() + 1).append('}');
+                functions.append('"').append(function).append("\":").append(range.getCount());
+                function++;
+            }
+            result.append(",\"statementMap\":{").append(statementMap);
+            result.append("},\"fnMap\":{").append(fnMap);
+            result.append("},\"branchMap\":{},\"s\":{").append(statements);
+            result.append("},\"f\":{").append(functions);
+            result.append("},\"b\":{}}");
+        }
+        return result.append('}').toString();
+    }
+
+    private static String[] getFunctionNames(final List<CoverageRange> ranges) {
+        String[] result = new String[ranges.size()];
+        Set<String> used = new HashSet<String>();
+        for (int i = 0; i < ranges.size(); i++) {
+            CoverageRange range = ranges.get(i);
+            if (range.getKind() != Kind.FUNCTION) {
+                continue;
+            }
+            String name = range.getFunctionName();
+            if (name.length() == 0) {
+                name = "(anonymous_" + i + ")";
+            }
+            if (!used.add(name)) {
+                name = name + "_" + i;
+                used.add(name);
+            }
+            result[i] = name;
+        }
+        return result;
+    }
+
+    private static void appendLocation(final StringBuilder builder, final int startLine, final int startColumn, final int endLine, final int endColumn) {
+        builder.append("{\"start\":{\"line\":").append(startLine + 1).append(",\"column\":").append(startColumn);
+        builder.append("},\"end\":{\"line\":").append(endLine + 1).append(",\"column\":").append(endColumn).append("}}");
+    }
+
+    private static void appendString(final StringBuilder builder, final String string) {
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.v8.CoverageRange.Kind;
+
+/**
+ * Collects code coverage with the V8 runtime functions used by V8's own
+ * coverage tests, and maps the reported scripts back to the names they
+ * were executed with. V8 identifies a script only by its source, so the
+ * sources executed while coverage is started are remembered by their
+ * hash code, which the collector script computes the same way. Each of
+ * these sources is kept in memory until coverage is stopped.
+ *
+ * The runtime functions require --allow-natives-syntax. V8 flags are
+ * process wide, so every script in every runtime of the process can then
+ * call %-intrinsics, including untrusted code. Coverage is meant for test
+ * and development builds only.
+ *
+ * This class is not considered API.
+ */
+class CoverageCollector {
+
+    private static final String MODE_SCRIPT     = "(function(mode) {\n"
+            + "  if (mode === 2) {\n"
+            + "    %DebugToggleBlockCoverage(true);\n"
+            + "  } else {\n"
+            + "    %DebugTogglePreciseCoverage(mode === 1);\n"
+            + "  }\n"
+            + "})";
+    private static final String COLLECT_SCRIPT  = "(function(blocks) {\n"
+            + "  var numbers = [];\n"
+            + "  var names = [];\n"
+            + "  var scripts = %DebugCollectCoverage();\n"
+            + "  for (var i = 0; i < scripts.length; i++) {\n"
+            + "    var ranges = scripts[i];\n"
+            + "    var source = ranges.script;\n"
+            + "    if ((source !== null) && (typeof source === 'object')) {\n"
+            + "      source = source.source;\n"
+            + "    }\n"
+            + "    if (typeof source !== 'string') {\n"
+            + "      continue;\n"
+            + "    }\n"
+            + "    var hash = 0;\n"
+            + "    for (var j = 0; j < source.length; j++) {\n"
+            + "      hash = (Math.imul(hash, 31) + source.charCodeAt(j)) | 0;\n"
+            + "    }\n"
+            + "    var starts = [0];\n"
+            + "    var position = source.indexOf('\\n');\n"
+            + "    while (position >= 0) {\n"
+            + "      starts.push(position + 1);\n"
+            + "      position = source.indexOf('\\n', position + 1);\n"
+            + "    }\n"
+            + "    var anchors = [];\n"
+            + "    var lines = [];\n"
+            + "    var counts = [];\n"
+            + "    var lengths = [];\n"
+            + "    for (j = 0; j < starts.length; j++) {\n"
+            + "      var end = j + 1 < starts.length ? starts[j + 1] : source.length;\n"
+            + "      var anchor = starts[j];\n"
+            + "      while ((anchor < end) && /\\s/.test(source.charAt(anchor))) {\n"
+            + "        anchor++;\n"
+            + "      }\n"
+            + "      counts.push(-1);\n"
+            + "      lengths.push((end > starts[j]) && (source.charAt(end - 1) === '\\n') ? end - starts[j] - 1 : end - starts[j]);\n"
+            + "      if (anchor < end) {\n"
+            + "        anchors.push(anchor);\n"
+            + "        lines.push(j);\n"
+            + "      }\n"
+            + "    }\n"
+            + "    var sorted = Array.prototype.slice.call(ranges).sort(function(a, b) {\n"
+            + "      return (a.start - b.start) || (b.end - a.end);\n"
+            + "    });\n"
+            + "    for (j = 0; j < sorted.length; j++) {\n"
+            + "      var range = sorted[j];\n"
+            + "      var low = 0;\n"
+            + "      var high = anchors.length;\n"
+            + "      while (low < high) {\n"
+            + "        var middle = (low + high) >>> 1;\n"
+            + "        if (anchors[middle] < range.start) {\n"
+            + "          low = middle + 1;\n"
+            + "        } else {\n"
+            + "          high = middle;\n"
+            + "        }\n"
+            + "      }\n"
+            + "      for (var k = low; (k < anchors.length) && (anchors[k] < range.end); k++) {\n"
+            + "        counts[lines[k]] = range.count;\n"
+            + "      }\n"
+            + "    }\n"
+            + "    numbers.push(hash, source.length, counts.length);\n"
+            + "    for (j = 0; j < counts.length; j++) {\n"
+            + "      numbers.push(counts[j], lengths[j]);\n"
+            + "    }\n"
+            + "    numbers.push(ranges.length);\n"
+            + "    for (j = 0; j < ranges.length; j++) {\n"
+            + "      var start = locate(starts, ranges[j].start);\n"
+            + "      var stop = locate(starts, ranges[j].end);\n"
+            + "      var kind = ((ranges[j].start === 0) && (ranges[j].end >= source.length)) ? 0 : (blocks ? 2 : 1);\n"
+            + "      numbers.push(kind, start, ranges[j].start - starts[start], stop, ranges[j].end - starts[stop], ranges[j].count);\n"
+            + "      var match = /^(?:async\\s+)?function\\s*\\*?\\s*([\\w$]+)|^(?:(?:get|set|static|async)\\s+)*([\\w$]+)\\s*\\(/.exec(source.substr(ranges[j].start, 200));\n"
+            + "      names.push(((kind === 1) && match) ? (match[1] || match[2]) : '');\n"
+            + "    }\n"
+            + "  }\n"
+            + "  function locate(starts, offset) {\n"
+            + "    var low = 0;\n"
+            + "    var high = starts.length - 1;\n"
+            + "    while (low < high) {\n"
+            + "      var middle = (low + high + 1) >>> 1;\n"
+            + "      if (starts[middle] <= offset) {\n"
+            + "        low = middle;\n"
+            + "      } else {\n"
+            + "        high = middle - 1;\n"
+            + "      }\n"
+            + "    }\n"
+            + "    return low;\n"
+            + "  }\n"
+            + "  return { numbers: numbers, names: names };\n"
+            + "})";
+    private static final String NUMBERS         = "numbers";
+    private static final String NAMES           = "names";
+    private static final String FLAG            = "--allow-natives-syntax";
+
+    private final V8                               runtime;
+    private final CoverageMode                     mode;
+    private final Map<Integer, List<ScriptSource>> sources         = new HashMap<Integer, List<ScriptSource>>();
+
+    private static class ScriptSource {
+        String source;
+        String name;
+        int    lineNumber;
+    }
+
+    CoverageCollector(final V8 runtime, final CoverageMode mode) {
+        this.runtime = runtime;
+        this.mode = mode;
+        selectMode(mode.ordinal());
+    }
+
+    void scriptExecuted(final String source, final String scriptName, final int lineNumber) {
+        if (scriptName == null) {
+            return;
+        }
+        List<ScriptSource> list = sources.get(source.hashCode());
+        if (list == null) {
+            list = new ArrayList<ScriptSource>(1);
+            sources.put(source.hashCode(), list);
+        }
+        for (ScriptSource existing : list) {
+            if (existing.source.equals(source)) {
+                existing.name = scriptName;
+                existing.lineNumber = lineNumber;
+                return;
+            }
+        }
+        ScriptSource script = new ScriptSource();
+        script.source = source;
+        script.name = scriptName;
+        script.lineNumber = lineNumber;
+        list.add(script);
+    }
+
+    Coverage collect() {
+        double[] numbers;
+        String[] names;
+        V8Function collector = null;
+        V8Array parameters = null;
+        V8Object result = null;
+        V8Array array = null;
+        try {
+            collector = (V8Function) compile(COLLECT_SCRIPT);
+            parameters = new V8Array(runtime).push(mode == CoverageMode.PRECISE_BLOCK);
+            result = (V8Object) collector.call(null, parameters);
+            array = result.getArray(NUMBERS);
+            numbers = array.length() == 0 ? new double[0] : array.getDoubles(0, array.length());
+            array.close();
+            array = result.getArray(NAMES);
+            names = array.length() == 0 ? new String[0] : array.getStrings(0, array.length());
+        } finally {
+            release(array);
+            release(result);
+            release(parameters);
+            release(collector);
+        }
+        return new Coverage(mode, parse(numbers, names));
+    }
+
+    void stop() {
+        selectMode(CoverageMode.BEST_EFFORT.ordinal());
+        sources.clear();
+    }
+
+    private List<ScriptCoverage> parse(final double[] numbers, final String[] names) {
+        List<ScriptCoverage> result = new ArrayList<ScriptCoverage>();
+        int index = 0;
+        int nameIndex = 0;
+        while (index < numbers.length) {
+            int hash = (int) numbers[index++];
+            int length = (int) numbers[index++];
+            int lineCount = (int) numbers[index++];
+            long[] lineCounts = new long[lineCount];
+            int[] lineLengths = new int[lineCount];
+            for (int i = 0; i < lineCount; i++) {
+                lineCounts[i] = (long) numbers[index++];
+                lineLengths[i] = (int) numbers[index++];
+            }
+            int rangeCount = (int) numbers[index++];
+            ScriptSource script = find(hash, length);
+            int offset = script != null ? script.lineNumber : 0;
+            List<CoverageRange> ranges = new ArrayList<CoverageRange>(rangeCount);
+            for (int i = 0; i < rangeCount; i++) {
+                Kind kind = Kind.values()[(int) numbers[index++]];
+                int startLine = (int) numbers[index++] + offset;
+                int startColumn = (int) numbers[index++];
+                int endLine = (int) numbers[index++] + offset;
+                int endColumn = (int) numbers[index++];
+                long count = (long) numbers[index++];
+                String name = names[nameIndex++];
+                ranges.add(new CoverageRange(kind, kind == Kind.FUNCTION ? name : null, startLine, startColumn, endLine, endColumn, count));
+            }
+            if (script != null) {
+                result.add(new ScriptCoverage(script.name, offset, lineCounts, lineLengths, ranges));
+            }
+        }
+        return result;
+    }
+
+    private ScriptSource find(final int hash, final int length) {
+        List<ScriptSource> list = sources.get(hash);
+        if (list != null) {
+            for (ScriptSource script : list) {
+                if (script.source.length() == length) {
+                    return script;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void selectMode(final int mode) {
+        V8Function function = (V8Function) compile(MODE_SCRIPT);
+        V8Array parameters = new V8Array(runtime).push(mode);
+        try {
+            function.call(null, parameters);
+        } finally {
+            parameters.close();
+            function.close();
+        }
+    }
+
+    private V8Object compile(final String script) {
+        try {
+            return runtime.executeObjectScript(script);
+        } catch (V8ScriptCompilationException e) {
+            throw new IllegalStateException("Code coverage requires V8.setFlags(\"" + FLAG + "\")", e);
+        }
+    }
+
+    private static void release(final Releasable releasable) {
+        if (releasable != null) {
+            releasable.close();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * The modes in which a runtime can collect code coverage.
+ *
+ * @see V8#startCoverage(CoverageMode)
+ */
+public enum CoverageMode {
+
+    /**
+     * Reports the functions V8 still has information about, without any
+     * overhead. Functions that were garbage collected are missing, and
+     * counts may be inaccurate.
+     */
+    BEST_EFFORT,
+
+    /**
+     * Counts every invocation of every function.
+     */
+    PRECISE_COUNT,
+
+    /**
+     * Counts every invocation, and also reports blocks within functions
+     * that were executed a different number of times.
+     */
+    PRECISE_BLOCK
+
+}
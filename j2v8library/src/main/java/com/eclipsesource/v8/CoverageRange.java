@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * A range of source code and the number of times it was executed.
+ * Lines and columns are 0 based, and lines include the line number
+ * the script was executed with.
+ */
+public class CoverageRange {
+
+    /**
+     * The kinds of coverage ranges.
+     */
+    public static enum Kind {
+
+        /**
+         * The top level code of a script.
+         */
+        SCRIPT,
+
+        /**
+         * A function.
+         */
+        FUNCTION,
+
+        /**
+         * A range collected in {@link CoverageMode#PRECISE_BLOCK} mode. In this
+         * mode V8 does not distinguish functions from the blocks within them.
+         */
+        BLOCK
+
+    }
+
+    private final Kind   kind;
+    private final String functionName;
+    private final int    startLine;
+    private final int    startColumn;
+    private final int    endLine;
+    private final int    endColumn;
+    private final long   count;
+
+    CoverageRange(final Kind kind, final String functionName, final int startLine, final int startColumn,
+            final int endLine, final int endColumn, final long count) {
+        this.kind = kind;
+        this.functionName = functionName;
+        this.startLine = startLine;
+        this.startColumn = startColumn;
+        this.endLine = endLine;
+        this.endColumn = endColumn;
+        this.count = count;
+    }
+
+    /**
+     * Returns the kind of this range.
+     *
+     * @return The kind of this range.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the function for ranges of kind FUNCTION, or an
+     * empty String if the function is anonymous. Other ranges return null.
+     *
+     * @return The name of the function, or null.
+     */
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * Returns the line on which the range starts.
+     *
+     * @return The first line of the range.
+     */
+    public int getStartLine() {
+        return startLine;
+    }
+
+    /**
+     * Returns the column at which the range starts.
+     *
+     * @return The first column of the range.
+     */
+    public int getStartColumn() {
+        return startColumn;
+    }
+
+    /**
+     * Returns the line on which the range ends.
+     *
+     * @return The last line of the range.
+     */
+    public int getEndLine() {
+        return endLine;
+    }
+
+    /**
+     * Returns the column after the end of the range.
+     *
+     * @return The column after the range.
+     */
+    public int getEndColumn() {
+        return endColumn;
+    }
+
+    /**
+     * Returns the number of times the range was executed.
+     *
+     * @return The execution count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+}
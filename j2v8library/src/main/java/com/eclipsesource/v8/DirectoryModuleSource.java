@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * A module source that reads module files from a directory. Files are
+ * memory mapped and their sources are kept in a {@link ModuleSourceCache},
+ * so runtimes that require the same module share one copy of its source.
+ */
+public class DirectoryModuleSource implements ModuleSource {
+
+    private final File              root;
+    private final ModuleSourceCache cache;
+
+    /**
+     * Creates a module source for a directory, which uses the shared
+     * module source cache.
+     *
+     * @param root The root directory of the modules.
+     */
+    public DirectoryModuleSource(final File root) {
+        this(root, ModuleSourceCache.getShared());
+    }
+
+    /**
+     * Creates a module source for a directory.
+     *
+     * @param root The root directory of the modules.
+     * @param cache The cache in which module sources are kept.
+     */
+    public DirectoryModuleSource(final File root, final ModuleSourceCache cache) {
+        if (!root.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        this.root = root.getAbsoluteFile();
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the root directory of this module source.
+     *
+     * @return The root directory.
+     */
+    public File getRoot() {
+        return root;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#isFile(java.lang.String)
+     */
+    @Override
+    public boolean isFile(final String path) {
+        return getFile(path).isFile();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#isDirectory(java.lang.String)
+     */
+    @Override
+    public boolean isDirectory(final String path) {
+        return getFile(path).isDirectory();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#getSource(java.lang.String)
+     */
+    @Override
+    public String getSource(final String path) throws IOException {
+        File file = getFile(path);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        return cache.load(file);
+    }
+
+    private File getFile(final String path) {
+        return path.length() == 0 ? root : new File(root, path.replace('/', File.separatorChar));
+    }
+
+}
@@ -15,6 +15,15 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileLock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
 
 class LibraryLoader {
 
@@ -23,6 +32,21 @@ class LibraryLoader {
 
     static final String SWT_LIB_DIR = ".j2v8";
 
+    static final String STEP_LOAD_INSTALLED = "loadInstalled";
+    static final String STEP_HASH           = "hash";
+    static final String STEP_CHECK          = "check";
+    static final String STEP_LOCK           = "lock";
+    static final String STEP_EXTRACT        = "extract";
+    static final String STEP_LOAD_EXTRACTED = "loadExtracted";
+
+    private static final String EXTRACT_DIR_PREFIX = "j2v8-";
+    private static final String USER_DIR_PREFIX    = "j2v8-user-";
+    private static final String LOCK_SUFFIX        = ".lock";
+    private static final String STAGING_SUFFIX     = ".tmp";
+    private static final int    BUFFER_SIZE        = 64 * 1024;
+
+    private static final Map<String, Long> times = new LinkedHashMap<String, Long>();
+
     static {
         DELIMITER = System.getProperty("line.separator"); //$NON-NLS-1$
         SEPARATOR = System.getProperty("file.separator"); //$NON-NLS-1$
@@ -85,20 +109,33 @@ class LibraryLoader {
 
         StringBuffer message = new StringBuffer();
 
-        // try loading a vendor-specific library first
-        if (tryLoad(true, message))
-            return;
+        long start = System.nanoTime();
+        try {
+            // try loading a vendor-specific library first
+            if (tryLoad(true, message))
+                return;
 
-        // if there is no vendor-specific library, just try to load the default OS library
-        if (tryLoad(false, message))
-            return;
+            // if there is no vendor-specific library, just try to load the default OS library
+            if (tryLoad(false, message))
+                return;
+        } finally {
+            recordTime(STEP_LOAD_INSTALLED, start);
+        }
 
         String path = null;
             
         if (tempDirectory != null) {
             path = tempDirectory;
         } else {
-            path = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
+            // the shared temporary directory is writable by everyone, so extract into a directory only this user can write
+            File userDirectory = new File(System.getProperty("java.io.tmpdir"), USER_DIR_PREFIX + getUserName()); //$NON-NLS-1$
+            try {
+                createPrivateDirectory(userDirectory);
+            } catch (IOException e) {
+                appendMessage(message, e.toString());
+                throw new UnsatisfiedLinkError("Could not load J2V8 library. Reasons: " + message.toString()); //$NON-NLS-1$
+            }
+            path = userDirectory.getAbsolutePath();
         }
 
         // try extracting a vendor-specific library first
@@ -122,64 +159,253 @@ class LibraryLoader {
             }
             return true;
         } catch (UnsatisfiedLinkError e) {
-            if (message.length() == 0) {
-                message.append(DELIMITER);
-            }
-            message.append('\t');
-            message.append(e.getMessage());
-            message.append(DELIMITER);
+            appendMessage(message, e.getMessage());
         }
         return false;
     }
 
     static boolean extract(String libPath, boolean withLinuxVendor, StringBuffer message) {
         String libFullName = computeLibraryFullName(withLinuxVendor);
-        return extract(libPath + SEPARATOR + libFullName, libFullName, message);
+        URL resource = LibraryLoader.class.getResource("/" + libFullName); //$NON-NLS-1$
+        if (resource == null) {
+            return false;
+        }
+        try {
+            File file = extract(resource, libFullName, new File(libPath));
+            long start = System.nanoTime();
+            try {
+                return load(file.getAbsolutePath(), message);
+            } finally {
+                recordTime(STEP_LOAD_EXTRACTED, start);
+            }
+        } catch (IOException e) {
+            appendMessage(message, e.toString());
+        }
+        return false;
     }
 
-    static boolean extract(final String fileName, final String mappedName, final StringBuffer message) {
-        FileOutputStream os = null;
-        InputStream is = null;
-        File file = new File(fileName);
-        boolean extracted = false;
+    /**
+     * Extracts a native library into a directory that is named after the
+     * CRC32 and size of the library, so each version is extracted only
+     * once. If the directory already contains a library of the right size,
+     * it is returned without extracting it again. Otherwise the library is
+     * written to a staging directory, verified, and renamed into place while
+     * holding a file lock, so concurrent JVMs never see a partial library.
+     *
+     * @param resource The URL of the library.
+     * @param fileName The file name of the extracted library.
+     * @param parent The directory in which the library directory is created.
+     *
+     * @return The extracted library.
+     *
+     * @throws IOException If the library cannot be extracted.
+     */
+    static File extract(final URL resource, final String fileName, final File parent) throws IOException {
+        long start = System.nanoTime();
+        LibraryKey key = computeKey(resource);
+        recordTime(STEP_HASH, start);
+
+        String name = EXTRACT_DIR_PREFIX + key;
+        File directory = new File(parent, name);
+        File file = new File(directory, fileName);
+        start = System.nanoTime();
+        boolean valid = key.matches(file);
+        recordTime(STEP_CHECK, start);
+        if (valid) {
+            return file;
+        }
+
+        parent.mkdirs();
+        start = System.nanoTime();
+        RandomAccessFile lockFile = new RandomAccessFile(new File(parent, name + LOCK_SUFFIX), "rw"); //$NON-NLS-1$
         try {
-            if (file.exists()) {
-                file.delete();
-            }
-            is = LibraryLoader.class.getResourceAsStream("/" + mappedName); //$NON-NLS-1$
-            if (is != null) {
-                extracted = true;
-                int read;
-                byte[] buffer = new byte[4096];
-                os = new FileOutputStream(fileName);
-                while ((read = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, read);
+            FileLock lock = lock(lockFile);
+            recordTime(STEP_LOCK, start);
+            try {
+                // another JVM may have extracted the library while this one waited for the lock
+                if (key.matches(file)) {
+                    return file;
                 }
-                os.close();
-                is.close();
-                chmod("755", fileName);
-                if (load(fileName, message)) {
-                    return true;
+                start = System.nanoTime();
+                File staging = new File(parent, name + STAGING_SUFFIX + System.nanoTime());
+                try {
+                    write(resource, key, new File(staging, fileName));
+                    if (directory.exists()) {
+                        delete(directory);
+                    }
+                    if (!staging.renameTo(directory)) {
+                        throw new IOException("Could not rename " + staging + " to " + directory);
+                    }
+                } finally {
+                    if (staging.exists()) {
+                        delete(staging);
+                    }
                 }
-            }
-        } catch (Throwable e) {
-            try {
-                if (os != null) {
-                    os.close();
+                recordTime(STEP_EXTRACT, start);
+                return file;
+            } finally {
+                if (lock != null) {
+                    lock.release();
                 }
-            } catch (IOException e1) {
             }
+        } finally {
+            lockFile.close();
+        }
+    }
+
+    /**
+     * Creates a directory that only the current user can read, write and
+     * enter. Only the owner of a directory can change its permissions, so
+     * a directory that another user created, or a link to one, is
+     * rejected.
+     *
+     * @param directory The directory to create.
+     *
+     * @throws IOException If the directory cannot be created or is not
+     * owned by the current user.
+     */
+    static void createPrivateDirectory(final File directory) throws IOException {
+        directory.mkdirs();
+        if (!directory.isDirectory()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        if (PlatformDetector.OS.isWindows()) {
+            // the temporary directory is already private to each user
+            return;
+        }
+        boolean restricted = directory.setReadable(false, false) && directory.setReadable(true, true)
+                && directory.setWritable(false, false) && directory.setWritable(true, true)
+                && directory.setExecutable(false, false) && directory.setExecutable(true, true);
+        if (!restricted) {
+            throw new IOException("Directory is not owned by the current user: " + directory);
+        }
+    }
+
+    private static String getUserName() {
+        String name = System.getProperty("user.name"); //$NON-NLS-1$
+        if ((name == null) || (name.length() == 0)) {
+            return "unknown"; //$NON-NLS-1$
+        }
+        return name.replaceAll("[^A-Za-z0-9._-]", "_"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Returns the time spent in each step of loading the native library.
+     *
+     * @return The time in nanoseconds, by step name, in the order in which
+     * the steps were first executed.
+     */
+    static synchronized Map<String, Long> getTimes() {
+        return new LinkedHashMap<String, Long>(times);
+    }
+
+    static LibraryKey computeKey(final URL resource) throws IOException {
+        URLConnection connection = resource.openConnection();
+        if (connection instanceof JarURLConnection) {
+            // the central directory already holds the checksum, so nothing needs to be inflated
+            JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+            if ((entry != null) && (entry.getCrc() >= 0) && (entry.getSize() >= 0)) {
+                return new LibraryKey(entry.getCrc(), entry.getSize());
+            }
+        }
+        CRC32 crc = new CRC32();
+        long size = 0;
+        InputStream is = connection.getInputStream();
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        } finally {
+            is.close();
+        }
+        return new LibraryKey(crc.getValue(), size);
+    }
+
+    private static void write(final URL resource, final LibraryKey key, final File file) throws IOException {
+        file.getParentFile().mkdirs();
+        CRC32 crc = new CRC32();
+        long size = 0;
+        InputStream is = resource.openStream();
+        try {
+            FileOutputStream os = new FileOutputStream(file);
             try {
-                if (is != null) {
-                    is.close();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    os.write(buffer, 0, read);
+                    size += read;
                 }
-            } catch (IOException e1) {
+                os.getFD().sync();
+            } finally {
+                os.close();
             }
-            if (extracted && file.exists()) {
-                file.delete();
+        } finally {
+            is.close();
+        }
+        if ((crc.getValue() != key.crc) || (size != key.size)) {
+            throw new IOException("Extracted library does not match " + key + ": " + file);
+        }
+        chmod("755", file.getAbsolutePath());
+    }
+
+    private static FileLock lock(final RandomAccessFile lockFile) throws IOException {
+        try {
+            return lockFile.getChannel().lock();
+        } catch (IOException e) {
+            // some file systems do not support locks, the rename still keeps partial files hidden
+            return null;
+        }
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
             }
         }
-        return false;
+        file.delete();
+    }
+
+    private static synchronized void recordTime(final String step, final long start) {
+        long elapsed = System.nanoTime() - start;
+        Long previous = times.get(step);
+        times.put(step, previous == null ? elapsed : previous + elapsed);
+    }
+
+    private static void appendMessage(final StringBuffer message, final String reason) {
+        if (message.length() == 0) {
+            message.append(DELIMITER);
+        }
+        message.append('\t');
+        message.append(reason);
+        message.append(DELIMITER);
+    }
+
+    static class LibraryKey {
+
+        final long crc;
+        final long size;
+
+        LibraryKey(final long crc, final long size) {
+            this.crc = crc;
+            this.size = size;
+        }
+
+        boolean matches(final File file) {
+            return file.isFile() && (file.length() == size);
+        }
+
+        @Override
+        public String toString() {
+            String hex = Long.toHexString(crc);
+            return "00000000".substring(hex.length()) + hex + "-" + size; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
     }
 
     static void chmod(final String permision, final String path) {
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Maps absolute paths to the module sources mounted at them, and answers
+ * the file system queries of the NodeJS module loader for those paths.
+ *
+ * This class is not considered API.
+ */
+class ModuleMounts {
+
+    static final int                        NOT_MOUNTED = -1;
+    static final int                        MISSING     = 0;
+    static final int                        FILE        = 1;
+    static final int                        DIRECTORY   = 2;
+
+    private final Map<String, ModuleSource> mounts      = new LinkedHashMap<String, ModuleSource>();
+
+    /**
+     * Mounts a module source at an absolute path, replacing any source
+     * mounted at the same path.
+     *
+     * @param mountPoint The absolute path.
+     * @param source The module source.
+     */
+    void mount(final String mountPoint, final ModuleSource source) {
+        String path = normalize(mountPoint);
+        if (!path.startsWith("/") && !((path.length() > 2) && (path.charAt(1) == ':') && (path.charAt(2) == '/'))) {
+            throw new IllegalArgumentException("Mount point must be absolute: " + mountPoint);
+        }
+        mounts.put(path, source);
+    }
+
+    /**
+     * Removes the module source mounted at a path.
+     *
+     * @param mountPoint The absolute path.
+     *
+     * @return The module source that was mounted, or null.
+     */
+    ModuleSource unmount(final String mountPoint) {
+        return mounts.remove(normalize(mountPoint));
+    }
+
+    /**
+     * Returns whether a path denotes a file or directory of a mounted
+     * module source.
+     *
+     * @param path The absolute path.
+     *
+     * @return One of FILE, DIRECTORY, MISSING or NOT_MOUNTED if no module
+     * source is mounted above the path.
+     */
+    int stat(final String path) {
+        String normalized = normalize(path);
+        Entry<String, ModuleSource> mount = findMount(normalized);
+        if (mount == null) {
+            return NOT_MOUNTED;
+        }
+        String relative = getRelativePath(mount.getKey(), normalized);
+        if (mount.getValue().isFile(relative)) {
+            return FILE;
+        }
+        return mount.getValue().isDirectory(relative) ? DIRECTORY : MISSING;
+    }
+
+    /**
+     * Returns the source of a file of a mounted module source.
+     *
+     * @param path The absolute path.
+     *
+     * @return The source, or null if no module source is mounted above the
+     * path or the file does not exist.
+     *
+     * @throws IOException If the file cannot be read.
+     */
+    String getSource(final String path) throws IOException {
+        String normalized = normalize(path);
+        Entry<String, ModuleSource> mount = findMount(normalized);
+        if (mount == null) {
+            return null;
+        }
+        String relative = getRelativePath(mount.getKey(), normalized);
+        return mount.getValue().isFile(relative) ? mount.getValue().getSource(relative) : null;
+    }
+
+    /**
+     * Returns true if no module source is mounted.
+     *
+     * @return True if no module source is mounted, false otherwise.
+     */
+    boolean isEmpty() {
+        return mounts.isEmpty();
+    }
+
+    private Entry<String, ModuleSource> findMount(final String path) {
+        Entry<String, ModuleSource> result = null;
+        for (Entry<String, ModuleSource> mount : mounts.entrySet()) {
+            String mountPoint = mount.getKey();
+            boolean contained = path.equals(mountPoint)
+                    || (path.startsWith(mountPoint) && ((path.charAt(mountPoint.length()) == '/') || mountPoint.endsWith("/")));
+            if (contained && ((result == null) || (mountPoint.length() > result.getKey().length()))) {
+                result = mount;
+            }
+        }
+        return result;
+    }
+
+    private static String getRelativePath(final String mountPoint, final String path) {
+        if (path.length() == mountPoint.length()) {
+            return "";
+        }
+        return mountPoint.endsWith("/") ? path.substring(mountPoint.length()) : path.substring(mountPoint.length() + 1);
+    }
+
+    private static String normalize(final String path) {
+        String result = path.replace('\\', '/');
+        // keep the root itself, which is the only path ending with a separator
+        while ((result.length() > 1) && result.endsWith("/") && !result.endsWith(":/")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.IOException;
+
+/**
+ * A tree of module files that NodeJS can require without the files being
+ * extracted to disk. A module source is mounted at an absolute path with
+ * {@link NodeJS#mount(String, ModuleSource)}, and require calls that
+ * resolve below that path are answered by the source.
+ *
+ * Paths passed to a module source are relative to its root, use '/' as
+ * separator, and the root itself is the empty path. Module sources can
+ * be shared between NodeJS runtimes, so implementations must be thread
+ * safe.
+ */
+public interface ModuleSource {
+
+    /**
+     * Returns true if a file exists at the given path.
+     *
+     * @param path The relative path of the file.
+     *
+     * @return True if the path denotes a file, false otherwise.
+     */
+    public boolean isFile(String path);
+
+    /**
+     * Returns true if a directory exists at the given path.
+     *
+     * @param path The relative path of the directory.
+     *
+     * @return True if the path denotes a directory, false otherwise.
+     */
+    public boolean isDirectory(String path);
+
+    /**
+     * Returns the contents of a file, decoded as UTF-8.
+     *
+     * @param path The relative path of the file.
+     *
+     * @return The contents of the file.
+     *
+     * @throws IOException If the file does not exist or cannot be read.
+     */
+    public String getSource(String path) throws IOException;
+
+}
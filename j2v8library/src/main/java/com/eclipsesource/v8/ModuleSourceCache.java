@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of module sources that can be shared between NodeJS runtimes.
+ * Modules loaded from files are remembered together with the size and
+ * modification time of the file, so a changed file is read again. Sources
+ * added with {@link #put(String, String)} are kept without a file. Files
+ * are memory mapped while their source is decoded.
+ *
+ * The cache is bounded by the total number of characters it holds. When
+ * the limit is exceeded, the least recently used sources are removed.
+ * All methods are thread safe.
+ */
+public class ModuleSourceCache {
+
+    private static final Charset                      UTF_8             = Charset.forName("UTF-8");
+    private static final long                         DEFAULT_MAX_CHARS = 32 * 1024 * 1024;
+    private static final ModuleSourceCache            shared            = new ModuleSourceCache(DEFAULT_MAX_CHARS);
+
+    private final long                                maxCharacters;
+    private final LinkedHashMap<String, CachedSource> entries           = new LinkedHashMap<String, CachedSource>(16, 0.75f, true);
+    private long                                      characters        = 0;
+    private long                                      hitCount          = 0;
+    private long                                      missCount         = 0;
+
+    private static class CachedSource {
+        String source;
+        long   lastModified;
+        long   length;
+    }
+
+    /**
+     * Returns the cache that is used by all NodeJS runtimes.
+     *
+     * @return The shared cache.
+     */
+    public static ModuleSourceCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Creates a cache that holds up to the given number of characters.
+     *
+     * @param maxCharacters The maximum number of characters to keep.
+     */
+    public ModuleSourceCache(final long maxCharacters) {
+        if (maxCharacters < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maxCharacters);
+        }
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Adds the source of a module that does not need to exist as a file.
+     * The source replaces any cached source for the same path.
+     *
+     * @param path The absolute path of the module.
+     * @param source The source of the module.
+     */
+    public synchronized void put(final String path, final String source) {
+        store(path, source, -1, -1);
+    }
+
+    /**
+     * Returns the source of a module. Sources read from files are only
+     * returned if the file did not change.
+     *
+     * @param path The absolute path of the module.
+     * @return The source, or null if it is not cached.
+     */
+    public synchronized String get(final String path) {
+        CachedSource entry = entries.get(path);
+        if ((entry == null) || !isValid(path, entry)) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.source;
+    }
+
+    /**
+     * Returns the source of a module file, reading it only if it is not
+     * cached or has changed.
+     *
+     * @param file The module file.
+     * @return The source of the module.
+     *
+     * @throws IOException If the file cannot be read.
+     */
+    public String load(final File file) throws IOException {
+        String path = file.getAbsolutePath();
+        String source = get(path);
+        if (source != null) {
+            return source;
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        source = read(file);
+        synchronized (this) {
+            store(path, source, lastModified, length);
+        }
+        return source;
+    }
+
+    /**
+     * Removes the source of a module.
+     *
+     * @param path The absolute path of the module.
+     */
+    public synchronized void invalidate(final String path) {
+        CachedSource entry = entries.remove(path);
+        if (entry != null) {
+            characters -= entry.source.length();
+        }
+    }
+
+    /**
+     * Removes all sources.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        characters = 0;
+    }
+
+    /**
+     * Returns the number of cached sources.
+     *
+     * @return The number of sources.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of characters of all cached sources.
+     *
+     * @return The number of characters.
+     */
+    public synchronized long getCharacterCount() {
+        return characters;
+    }
+
+    /**
+     * Returns how often a source was found in the cache.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns how often a source was not found in the cache.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private void store(final String path, final String source, final long lastModified, final long length) {
+        invalidate(path);
+        if (source.length() > maxCharacters) {
+            return;
+        }
+        CachedSource entry = new CachedSource();
+        entry.source = source;
+        entry.lastModified = lastModified;
+        entry.length = length;
+        entries.put(path, entry);
+        characters += source.length();
+        Iterator<CachedSource> iterator = entries.values().iterator();
+        while ((characters > maxCharacters) && iterator.hasNext()) {
+            characters -= iterator.next().source.length();
+            iterator.remove();
+        }
+    }
+
+    private static boolean isValid(final String path, final CachedSource entry) {
+        if (entry.lastModified < 0) {
+            return true;
+        }
+        File file = new File(path);
+        return (file.lastModified() == entry.lastModified) && (file.length() == entry.length);
+    }
+
+    private static String read(final File file) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            // decode straight from the mapped file instead of copying it to the heap first
+            MappedByteBuffer bytes = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return UTF_8.decode(bytes).toString();
+        } finally {
+            input.close();
+        }
+    }
+
+}
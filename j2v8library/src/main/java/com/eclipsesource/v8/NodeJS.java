@@ -12,7 +12,21 @@ package com.eclipsesource.v8;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.eclipsesource.v8.utils.AsyncResult;
+import com.eclipsesource.v8.utils.V8Runnable;
 
 /**
  * An isolate NodeJS runtime.
@@ -22,19 +36,167 @@ import java.io.PrintWriter;
  */
 public class NodeJS {
 
-    private static final String TMP_JS_EXT          = ".js.tmp";
-    private static final String NEXT_TICK           = "nextTick";
-    private static final String PROCESS             = "process";
-    private static final String GLOBAL              = "global";
-    private static final String STARTUP_CALLBACK    = "__run";
-    private static final String STARTUP_SCRIPT      = "global." + STARTUP_CALLBACK + "(require, exports, module, __filename, __dirname);";
-    private static final String STARTUP_SCRIPT_NAME = "startup";
-    private static final String VERSIONS            = "versions";
-    private static final String NODE                = "node";
-    private String              nodeVersion         = null;
+    private static final String  TMP_JS_EXT           = ".js.tmp";
+    private static final String  NEXT_TICK            = "nextTick";
+    private static final String  PROCESS              = "process";
+    private static final String  GLOBAL               = "global";
+    private static final String  STARTUP_CALLBACK     = "__run";
+    private static final String  LOAD_SOURCE_CALLBACK = "__j2v8_loadSource";
+    private static final String  STAT_CALLBACK        = "__j2v8_statModule";
+    private static final String  STARTUP_SCRIPT       = "(function() {\n"
+            + "  var Module = require('module');\n"
+            + "  var path = require('path');\n"
+            + "  var loadFile = Module._extensions['.js'];\n"
+            + "  function stripBOM(source) {\n"
+            + "    return source.charCodeAt(0) === 0xFEFF ? source.slice(1) : source;\n"
+            + "  }\n"
+            + "  var findPath = Module._findPath;\n"
+            + "  var loadJSON = Module._extensions['.json'];\n"
+            + "  function tryFile(filename) {\n"
+            + "    var extensions = ['', '.js', '.json'];\n"
+            + "    for (var i = 0; i < extensions.length; i++) {\n"
+            + "      if (global." + STAT_CALLBACK + "(filename + extensions[i]) === 1) {\n"
+            + "        return filename + extensions[i];\n"
+            + "      }\n"
+            + "    }\n"
+            + "    return false;\n"
+            + "  }\n"
+            + "  function tryDirectory(dirname) {\n"
+            + "    var json = global." + LOAD_SOURCE_CALLBACK + "(path.join(dirname, 'package.json'));\n"
+            + "    if (typeof json === 'string') {\n"
+            + "      var main = JSON.parse(stripBOM(json)).main;\n"
+            + "      if (main) {\n"
+            + "        var filename = path.resolve(dirname, main);\n"
+            + "        var found = tryFile(filename) || tryFile(path.join(filename, 'index'));\n"
+            + "        if (found) {\n"
+            + "          return found;\n"
+            + "        }\n"
+            + "      }\n"
+            + "    }\n"
+            + "    return tryFile(path.join(dirname, 'index'));\n"
+            + "  }\n"
+            + "  function findMountedPath(request, paths, isMain) {\n"
+            + "    var dirs = path.isAbsolute(request) ? [''] : paths;\n"
+            + "    if (!dirs || (dirs.length === 0)) {\n"
+            + "      return findPath.call(this, request, paths, isMain);\n"
+            + "    }\n"
+            + "    var cacheKey = request + '\\x00' + (dirs.length === 1 ? dirs[0] : dirs.join('\\x00'));\n"
+            + "    var found = Module._pathCache[cacheKey];\n"
+            + "    if (found) {\n"
+            + "      return found;\n"
+            + "    }\n"
+            + "    var start = 0;\n"
+            + "    for (var i = 0; (i < dirs.length) && !found; i++) {\n"
+            + "      var filename = path.resolve(dirs[i], request);\n"
+            + "      var type = global." + STAT_CALLBACK + "(filename);\n"
+            + "      if (type >= 0) {\n"
+            + "        found = ((start < i) && findPath.call(this, request, dirs.slice(start, i), isMain))\n"
+            + "            || tryFile(filename) || ((type === 2) && tryDirectory(filename));\n"
+            + "        start = i + 1;\n"
+            + "      }\n"
+            + "    }\n"
+            + "    if (!found && (start < dirs.length)) {\n"
+            + "      found = findPath.call(this, request, start === 0 ? paths : dirs.slice(start), isMain);\n"
+            + "    }\n"
+            + "    if (found) {\n"
+            + "      Module._pathCache[cacheKey] = found;\n"
+            + "    }\n"
+            + "    return found;\n"
+            + "  }\n"
+            + "  var mountControl = {\n"
+            + "    update: function(mounted) {\n"
+            + "      Module._findPath = mounted ? findMountedPath : findPath;\n"
+            + "      for (var key in Module._pathCache) {\n"
+            + "        delete Module._pathCache[key];\n"
+            + "      }\n"
+            + "    }\n"
+            + "  };\n"
+            + "  Module._extensions['.json'] = function(module, filename) {\n"
+            + "    var source = global." + LOAD_SOURCE_CALLBACK + "(filename);\n"
+            + "    if (typeof source !== 'string') {\n"
+            + "      return loadJSON(module, filename);\n"
+            + "    }\n"
+            + "    module.exports = JSON.parse(stripBOM(source));\n"
+            + "  };\n"
+            + "  Module._extensions['.js'] = function(module, filename) {\n"
+            + "    var source = global." + LOAD_SOURCE_CALLBACK + "(filename);\n"
+            + "    if (typeof source !== 'string') {\n"
+            + "      return loadFile(module, filename);\n"
+            + "    }\n"
+            + "    module._compile(stripBOM(source), filename);\n"
+            + "  };\n"
+            + "  global." + STARTUP_CALLBACK + "(require, exports, module, __filename, __dirname, function(source, filename) {\n"
+            + "    if (typeof source !== 'string') {\n"
+            + "      source = Buffer.from(source).toString('utf8');\n"
+            + "    }\n"
+            + "    var result = new Module(filename, module);\n"
+            + "    result.filename = filename;\n"
+            + "    result.paths = Module._nodeModulePaths(path.dirname(filename));\n"
+            + "    result._compile(stripBOM(source), filename);\n"
+            + "    result.loaded = true;\n"
+            + "    return result.exports;\n"
+            + "  }, mountControl);\n"
+            + "})();";
+    private static final String  STARTUP_SCRIPT_NAME  = "startup";
+    private static final String  VERSIONS             = "versions";
+    private static final String  NODE                 = "node";
+    private static final Charset UTF_8                = Charset.forName("UTF-8");
+    private static final String  NET                  = "net";
+    private static final String  PORT                 = "port";
+    private static final String  ARM                  = "arm";
+    private static final String  CLOSE                = "close";
+    private static final String  UPDATE               = "update";
+    private static final String  LOCALHOST            = "127.0.0.1";
+    private static final int     CONNECT_TIMEOUT      = 1000;
+    private static final long    POLL_INTERVAL        = 100;
+    private static final String  LOOP_CONTROL_SCRIPT  = "(function(net) {\n"
+            + "  var timer = null;\n"
+            + "  var server = net.createServer(function(socket) {\n"
+            + "    server.close();\n"
+            + "    socket.unref();\n"
+            + "    socket.on('data', function() {});\n"
+            + "    socket.on('error', function() {});\n"
+            + "  });\n"
+            + "  server.on('error', function() {});\n"
+            + "  server.listen(0, '127.0.0.1');\n"
+            + "  server.unref();\n"
+            + "  return {\n"
+            + "    port: function() {\n"
+            + "      var address = server.address();\n"
+            + "      return address ? address.port : -1;\n"
+            + "    },\n"
+            + "    arm: function(millis) {\n"
+            + "      if (timer !== null) {\n"
+            + "        clearTimeout(timer);\n"
+            + "      }\n"
+            + "      timer = setTimeout(function() {}, millis);\n"
+            + "      timer.unref();\n"
+            + "    },\n"
+            + "    close: function() {\n"
+            + "      if (timer !== null) {\n"
+            + "        clearTimeout(timer);\n"
+            + "      }\n"
+            + "      server.close();\n"
+            + "    }\n"
+            + "  };\n"
+            + "})";
+    private static File          startupScript        = null;
+    private String               nodeVersion          = null;
+
+    private V8               v8;
+    private V8Function       require;
+    private V8Function       compile;
+    private V8Object         mountControl;
+    private V8Object         loopControl;
+    private volatile Socket  wakeupSocket;
+    private final Object     wakeupLock = new Object();
+    private volatile boolean wakeup     = false;
+    private boolean          released   = false;
+
+    private final AtomicBoolean signalPending = new AtomicBoolean();
 
-    private V8         v8;
-    private V8Function require;
+    private final LinkedList<SubmittedTask> tasks  = new LinkedList<SubmittedTask>();
+    private final ModuleMounts              mounts = new ModuleMounts();
 
     /**
      * Creates a NodeJS Runtime
@@ -88,20 +250,40 @@ public class NodeJS {
             @Override
             public void invoke(final V8Object receiver, final V8Array parameters) {
                 V8Function require = (V8Function) parameters.get(0);
+                V8Function compile = (V8Function) parameters.get(5);
+                V8Object mountControl = parameters.getObject(6);
                 try {
-                    node.init(require.twin());
+                    node.init(require.twin(), compile.twin(), mountControl.twin());
                 } finally {
                     require.close();
+                    compile.close();
+                    mountControl.close();
                 }
             }
         }, STARTUP_CALLBACK);
-        try {
-            File startupScript = createTemporaryScriptFile(STARTUP_SCRIPT, STARTUP_SCRIPT_NAME);
-            try {
-                v8.createNodeRuntime(startupScript.getAbsolutePath());
-            } finally {
-                startupScript.delete();
+        v8.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                String fileName = parameters.getString(0);
+                try {
+                    String source = node.mounts.getSource(fileName);
+                    return source != null ? source : ModuleSourceCache.getShared().load(new File(fileName));
+                } catch (IOException e) {
+                    // let NodeJS read the file and report the error
+                    return null;
+                }
             }
+        }, LOAD_SOURCE_CALLBACK);
+        v8.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                return node.mounts.isEmpty() ? ModuleMounts.NOT_MOUNTED : node.mounts.stat(parameters.getString(0));
+            }
+        }, STAT_CALLBACK);
+        try {
+            v8.createNodeRuntime(node, getStartupScript().getAbsolutePath());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -111,6 +293,24 @@ public class NodeJS {
         return node;
     }
 
+    /**
+     * Creates a NodeJS runtime and executes a JS Script from memory. No
+     * file is read for the script, but modules it requires are resolved
+     * relative to the given file name.
+     *
+     * @param source The JavaScript to execute.
+     * @param fileName The absolute file name of the script.
+     * @return The NodeJS runtime.
+     *
+     * May throw an UnsupportedOperationException if node.js integration has not
+     * been compiled for your platform.
+     */
+    public static NodeJS createNodeJS(final String source, final String fileName) {
+        NodeJS node = createNodeJS();
+        node.exec(source, fileName);
+        return node;
+    }
+
     /**
      * Returns the V8 runtime being used for this NodeJS instance.
      *
@@ -120,6 +320,52 @@ public class NodeJS {
         return v8;
     }
 
+    /**
+     * Mounts a module source at an absolute path. Modules that are required
+     * below this path, directly or through a node_modules directory, are
+     * resolved and loaded from the module source instead of the file system.
+     * Modules that were already loaded are not affected.
+     *
+     * @param mountPoint The absolute path at which the modules are visible.
+     * @param source The module source.
+     */
+    public void mount(final String mountPoint, final ModuleSource source) {
+        v8.checkThread();
+        if (source == null) {
+            throw new NullPointerException("Module source is null");
+        }
+        mounts.mount(mountPoint, source);
+        updateMounts();
+    }
+
+    /**
+     * Removes the module source mounted at a path. The module source is
+     * not released.
+     *
+     * @param mountPoint The absolute path at which the source was mounted.
+     *
+     * @return The module source that was mounted, or null.
+     */
+    public ModuleSource unmount(final String mountPoint) {
+        v8.checkThread();
+        ModuleSource source = mounts.unmount(mountPoint);
+        updateMounts();
+        return source;
+    }
+
+    /*
+     * Module resolution only goes through the mounts while there are any,
+     * and resolutions cached before the mounts changed may be wrong now.
+     */
+    private void updateMounts() {
+        V8Array parameters = new V8Array(v8).push(!mounts.isEmpty());
+        try {
+            mountControl.executeVoidFunction(UPDATE, parameters);
+        } finally {
+            parameters.close();
+        }
+    }
+
     /**
      * Handles the next message in the message loop. Returns True
      * if there are more messages to handle, false otherwise.
@@ -128,7 +374,112 @@ public class NodeJS {
      */
     public boolean handleMessage() {
         v8.checkThread();
-        return v8.pumpMessageLoop();
+        if (loopControl == null) {
+            // submit() can only wake a blocked message loop through the wakeup connection
+            initLoopControl();
+        }
+        signalPending.set(false);
+        runTasks();
+        return v8.pumpMessageLoop() | hasTasks();
+    }
+
+    /*
+     * Handles the messages that are ready, and waits at most timeoutMillis
+     * for the next one. A negative timeout waits without a limit. Used by
+     * V8#awaitPromise, which has to return once its Promise settled.
+     */
+    boolean pumpMessageLoop(final long timeoutMillis) {
+        v8.checkThread();
+        if (loopControl == null) {
+            initLoopControl();
+        }
+        signalPending.set(false);
+        runTasks();
+        if (timeoutMillis >= 0) {
+            // an unreferenced timer bounds the wait without keeping the loop alive
+            armTimer(timeoutMillis);
+        }
+        return v8.pumpMessageLoop() | hasTasks();
+    }
+
+    /**
+     * Runs the message loop until it has no more work, the timeout elapsed,
+     * or {@link #wakeup()} was called. While there is nothing to do, the
+     * calling thread blocks in the event loop instead of spinning.
+     *
+     * @param timeoutMillis The maximum time to run the loop, 0 to only handle
+     * messages that are ready, or a negative value to run without a limit.
+     *
+     * @return True if the loop still has work, false if it finished.
+     */
+    public boolean runLoop(final long timeoutMillis) {
+        v8.checkThread();
+        if (loopControl == null) {
+            initLoopControl();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean first = true;
+        while (true) {
+            // cleared before draining, so work submitted from now on signals again
+            signalPending.set(false);
+            runTasks();
+            if (wakeup) {
+                wakeup = false;
+                return true;
+            }
+            long remaining = timeoutMillis < 0 ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+            if (!first && (remaining <= 0)) {
+                return true;
+            }
+            first = false;
+            if (wakeupSocket == null) {
+                // without a wakeup connection, wakeup() is noticed within the poll interval
+                remaining = Math.min(remaining, POLL_INTERVAL);
+            }
+            if (remaining != Long.MAX_VALUE) {
+                armTimer(Math.max(remaining, 0));
+            }
+            if (!v8.pumpMessageLoop() && !hasTasks() && !v8.isRunning()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Submits a task to be executed on the thread that runs the message
+     * loop. Tasks are executed in the order they were submitted, between
+     * the messages handled by {@link #runLoop(long)} or
+     * {@link #handleMessage()}. A {@link #runLoop(long)} or
+     * {@link #handleMessage()} that is blocked waiting for events is woken
+     * up. This method can be called from any thread.
+     *
+     * @param task The task to execute.
+     *
+     * @return A Future that completes once the task was executed, or that
+     * fails with the exception thrown by the task.
+     */
+    public Future<Void> submit(final V8Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("Task is null");
+        }
+        SubmittedTask submitted = new SubmittedTask(task);
+        synchronized (tasks) {
+            if (released) {
+                throw new IllegalStateException("NodeJS runtime released");
+            }
+            tasks.add(submitted);
+        }
+        signal();
+        return submitted.result;
+    }
+
+    /**
+     * Makes a pending or the next call to {@link #runLoop(long)} return
+     * as soon as possible. This method can be called from any thread.
+     */
+    public void wakeup() {
+        wakeup = true;
+        signal();
     }
 
     /**
@@ -136,9 +487,33 @@ public class NodeJS {
      */
     public void release() {
         v8.checkThread();
+        List<SubmittedTask> pending;
+        synchronized (tasks) {
+            released = true;
+            pending = new ArrayList<SubmittedTask>(tasks);
+            tasks.clear();
+        }
+        for (SubmittedTask task : pending) {
+            task.result.cancel(false);
+        }
+        if (loopControl != null) {
+            synchronized (wakeupLock) {
+                closeWakeupSocket();
+            }
+            if (!loopControl.isReleased()) {
+                loopControl.executeVoidFunction(CLOSE, null);
+                loopControl.close();
+            }
+        }
         if (!require.isReleased()) {
             require.close();
         }
+        if (!compile.isReleased()) {
+            compile.close();
+        }
+        if (!mountControl.isReleased()) {
+            mountControl.close();
+        }
         if (!v8.isReleased()) {
             v8.close();
         }
@@ -151,7 +526,7 @@ public class NodeJS {
      */
     public boolean isRunning() {
         v8.checkThread();
-        return v8.isRunning();
+        return hasTasks() || v8.isRunning();
     }
 
     /**
@@ -172,6 +547,59 @@ public class NodeJS {
         }
     }
 
+    /**
+     * Loads a module from memory, executes it and returns the exports object
+     * to the caller. Modules required by it are resolved relative to the given
+     * file name, which does not need to exist. The exports object must be released.
+     *
+     * @param source The source of the module.
+     * @param fileName The absolute file name of the module.
+     * @return The exports object.
+     */
+    public V8Object require(final String source, final String fileName) {
+        v8.checkThread();
+        return compile(source, fileName);
+    }
+
+    /**
+     * Loads a module from a buffer of UTF-8 encoded source, executes it and
+     * returns the exports object to the caller. The bytes between the position
+     * and the limit of the buffer are used. Direct buffers are passed to NodeJS
+     * without copying. The exports object must be released.
+     *
+     * @param source The UTF-8 encoded source of the module.
+     * @param fileName The absolute file name of the module.
+     * @return The exports object.
+     */
+    public V8Object require(final ByteBuffer source, final String fileName) {
+        v8.checkThread();
+        if (!source.isDirect()) {
+            return compile(decode(source), fileName);
+        }
+        V8ArrayBuffer buffer = new V8ArrayBuffer(v8, source.slice());
+        try {
+            return compile(buffer, fileName);
+        } finally {
+            buffer.close();
+        }
+    }
+
+    /**
+     * Executes a NodeJS script from memory on the next tick, the same way
+     * {@link #exec(File)} executes a file.
+     *
+     * @param source The script to execute.
+     * @param fileName The absolute file name of the script.
+     */
+    public void exec(final String source, final String fileName) {
+        nextTick(new JavaCallback() {
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                return compile(source, fileName);
+            }
+        });
+    }
+
     /**
      * Execute a NodeJS script. This will load the script and execute it on the
      * next tick. This is the same as how NodeJS executes scripts at startup. Since
@@ -181,7 +609,11 @@ public class NodeJS {
      * @param file The script to execute.
      */
     public void exec(final File file) {
-        V8Function scriptExecution = createScriptExecutionCallback(file);
+        nextTick(createScriptExecutionCallback(file));
+    }
+
+    private void nextTick(final JavaCallback callback) {
+        V8Function scriptExecution = new V8Function(v8, callback);
         V8Object process = null;
         V8Array parameters = null;
         try {
@@ -196,8 +628,8 @@ public class NodeJS {
         }
     }
 
-    private V8Function createScriptExecutionCallback(final File file) {
-        V8Function v8Function = new V8Function(v8, new JavaCallback() {
+    private JavaCallback createScriptExecutionCallback(final File file) {
+        return new JavaCallback() {
             @Override
             public Object invoke(final V8Object receiver, final V8Array parameters) {
                 V8Array requireParams = new V8Array(v8);
@@ -208,8 +640,152 @@ public class NodeJS {
                     requireParams.close();
                 }
             }
-        });
-        return v8Function;
+        };
+    }
+
+    private V8Object compile(final Object source, final String fileName) {
+        V8Array parameters = new V8Array(v8);
+        try {
+            if (source instanceof V8Value) {
+                parameters.push((V8Value) source);
+            } else {
+                parameters.push((String) source);
+            }
+            parameters.push(fileName);
+            return (V8Object) compile.call(null, parameters);
+        } finally {
+            parameters.close();
+        }
+    }
+
+    private static String decode(final ByteBuffer source) {
+        ByteBuffer bytes = source.duplicate();
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(), UTF_8);
+        }
+        return UTF_8.decode(bytes).toString();
+    }
+
+    /*
+     * The event loop can only be woken from another thread by an event that
+     * libuv polls for. A loopback connection to an unreferenced server is
+     * used for this, so it does not keep the loop alive.
+     */
+    private void initLoopControl() {
+        V8Function factory = null;
+        V8Object net = null;
+        V8Array parameters = new V8Array(v8);
+        try {
+            parameters.push(NET);
+            net = (V8Object) require.call(null, parameters);
+            parameters.close();
+            parameters = new V8Array(v8).push(net);
+            factory = (V8Function) v8.executeObjectScript(LOOP_CONTROL_SCRIPT);
+            loopControl = (V8Object) factory.call(null, parameters);
+        } finally {
+            safeRelease(parameters);
+            safeRelease(net);
+            safeRelease(factory);
+        }
+        int port = loopControl.executeIntegerFunction(PORT, null);
+        if (port < 0) {
+            // the server starts listening once the tick queue is processed
+            v8.isRunning();
+            port = loopControl.executeIntegerFunction(PORT, null);
+        }
+        if (port < 0) {
+            return;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(InetAddress.getByName(LOCALHOST), port), CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing to do
+            }
+            return;
+        }
+        synchronized (wakeupLock) {
+            wakeupSocket = socket;
+        }
+    }
+
+    private void armTimer(final long millis) {
+        V8Array parameters = new V8Array(v8).push((double) millis);
+        try {
+            loopControl.executeVoidFunction(ARM, parameters);
+        } finally {
+            parameters.close();
+        }
+    }
+
+    /*
+     * Writes at most one byte per drain of the loop. The write happens
+     * outside of wakeupLock, so a write that blocks cannot block release().
+     */
+    private void signal() {
+        if (!signalPending.compareAndSet(false, true)) {
+            return;
+        }
+        Socket socket = wakeupSocket;
+        if (socket == null) {
+            return;
+        }
+        try {
+            OutputStream output = socket.getOutputStream();
+            output.write(1);
+            output.flush();
+        } catch (IOException e) {
+            // the loop notices pending work within the poll interval
+            synchronized (wakeupLock) {
+                if (wakeupSocket == socket) {
+                    closeWakeupSocket();
+                }
+            }
+        }
+    }
+
+    private boolean hasTasks() {
+        synchronized (tasks) {
+            return !tasks.isEmpty();
+        }
+    }
+
+    private void runTasks() {
+        List<SubmittedTask> ready;
+        synchronized (tasks) {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            ready = new ArrayList<SubmittedTask>(tasks);
+            tasks.clear();
+        }
+        for (SubmittedTask submitted : ready) {
+            if (submitted.result.isDone()) {
+                continue;
+            }
+            try {
+                submitted.task.run(v8);
+                submitted.result.complete(null);
+            } catch (Throwable t) {
+                // like FutureTask, a failing task must not keep the others from running
+                submitted.result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private void closeWakeupSocket() {
+        if (wakeupSocket != null) {
+            try {
+                wakeupSocket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+            wakeupSocket = null;
+        }
     }
 
     private void safeRelease(final Releasable releasable) {
@@ -222,8 +798,22 @@ public class NodeJS {
         this.v8 = v8;
     }
 
-    private void init(final V8Function require) {
+    private void init(final V8Function require, final V8Function compile, final V8Object mountControl) {
         this.require = require;
+        this.compile = compile;
+        this.mountControl = mountControl;
+    }
+
+    /*
+     * The native startup needs the main module as a file, so the startup
+     * script is written once per process and shared by all runtimes.
+     */
+    private static synchronized File getStartupScript() throws IOException {
+        if ((startupScript == null) || !startupScript.exists()) {
+            startupScript = createTemporaryScriptFile(STARTUP_SCRIPT, STARTUP_SCRIPT_NAME);
+            startupScript.deleteOnExit();
+        }
+        return startupScript;
     }
 
     private static File createTemporaryScriptFile(final String script, final String name) throws IOException {
@@ -236,4 +826,16 @@ public class NodeJS {
         }
         return tempFile;
     }
+
+    private static class SubmittedTask {
+
+        private final V8Runnable        task;
+        private final AsyncResult<Void> result = new AsyncResult<Void>();
+
+        SubmittedTask(final V8Runnable task) {
+            this.task = task;
+        }
+
+    }
+
 }
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Classes that implement this interface can be registered as a
+ * continuation of a JavaScript Promise using
+ * {@link V8#awaitPromise(V8Object, PromiseHandler)}.
+ *
+ * The handler is called on the thread that owns the runtime. Values passed
+ * to the handler are released once the handler returns.
+ */
+public interface PromiseHandler {
+
+    /**
+     * Called when the Promise is fulfilled.
+     *
+     * @param value The value of the Promise. Primitives are boxed.
+     */
+    public void onFulfilled(Object value);
+
+    /**
+     * Called when the Promise is rejected.
+     *
+     * @param reason The reason the Promise was rejected. Primitives are boxed.
+     */
+    public void onRejected(Object reason);
+
+}
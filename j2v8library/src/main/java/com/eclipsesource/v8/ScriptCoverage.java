@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The code coverage of a single script.
+ */
+public class ScriptCoverage {
+
+    private final String              scriptName;
+    private final int                 lineNumber;
+    private final long[]              lineCounts;
+    private final int[]               lineLengths;
+    private final List<CoverageRange> ranges;
+
+    ScriptCoverage(final String scriptName, final int lineNumber, final long[] lineCounts, final int[] lineLengths, final List<CoverageRange> ranges) {
+        this.scriptName = scriptName;
+        this.lineNumber = lineNumber;
+        this.lineCounts = lineCounts;
+        this.lineLengths = lineLengths;
+        this.ranges = Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * Returns the name the script was executed with.
+     *
+     * @return The name of the script.
+     */
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    /**
+     * Returns the line number the script was executed with, that is
+     * the line number of its first line.
+     *
+     * @return The line number of the first line.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the number of lines of the script.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount() {
+        return lineCounts.length;
+    }
+
+    /**
+     * Returns how often a line was executed. A line counts as executed
+     * as often as the innermost range that contains its first non
+     * whitespace character. Blank lines, and lines that are not part
+     * of any range, return -1.
+     *
+     * @param line The line, including the line number of the script.
+     * @return The execution count of the line, or -1.
+     */
+    public long getExecutionCount(final int line) {
+        int index = line - lineNumber;
+        if ((index < 0) || (index >= lineCounts.length)) {
+            return -1;
+        }
+        return lineCounts[index];
+    }
+
+    /**
+     * Returns the number of lines with an execution count.
+     *
+     * @return The number of executable lines.
+     */
+    public int getExecutableLineCount() {
+        int result = 0;
+        for (long count : lineCounts) {
+            if (count >= 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lines that were executed at least once.
+     *
+     * @return The number of covered lines.
+     */
+    public int getCoveredLineCount() {
+        int result = 0;
+        for (long count : lineCounts) {
+            if (count > 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ranges reported by V8, in the order they were reported.
+     *
+     * @return The ranges of this script.
+     */
+    public List<CoverageRange> getRanges() {
+        return ranges;
+    }
+
+    int getLineLength(final int line) {
+        return lineLengths[line - lineNumber];
+    }
+
+}
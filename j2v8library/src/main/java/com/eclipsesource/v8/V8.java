@@ -14,12 +14,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.eclipsesource.v8.utils.V8EventLoop;
 import com.eclipsesource.v8.utils.V8Executor;
 import com.eclipsesource.v8.utils.V8Map;
 import com.eclipsesource.v8.utils.V8Runnable;
@@ -52,6 +54,8 @@ public class V8 extends V8Object {
     private List<Releasable>             resources               = null;
     private V8Map<V8Executor>            executors               = null;
     private boolean                      forceTerminateExecutors = false;
+    private NodeJS                       nodeJS                  = null;
+    private CoverageCollector            coverage                = null;
     private Map<Long, MethodDescriptor>  functionRegistry        = new HashMap<Long, MethodDescriptor>();
     private LinkedList<ReferenceHandler> referenceHandlers       = new LinkedList<ReferenceHandler>();
     private LinkedList<V8Runnable>       releaseHandlers         = new LinkedList<V8Runnable>();
@@ -91,6 +95,18 @@ public class V8 extends V8Object {
         return nativeLibraryLoaded;
     }
 
+    /**
+     * Returns the time spent in each step of loading the native library,
+     * such as looking it up on the library path, checking a previously
+     * extracted copy, waiting for the extraction lock, extracting and
+     * loading it. Steps that were not needed are not included.
+     *
+     * @return The time in nanoseconds, by step name.
+     */
+    public static Map<String, Long> getNativeLibraryLoadTimes() {
+        return Collections.unmodifiableMap(LibraryLoader.getTimes());
+    }
+
     /**
      * Sets the V8 flags on the platform. All runtimes will be created
      * with the same flags. Flags must be set before the runtime is
@@ -384,6 +400,7 @@ public class V8 extends V8Object {
             _releaseRuntime(v8RuntimePtr);
             v8RuntimePtr = 0L;
             released = true;
+            locker.runtimeReleased();
             if (reportMemoryLeaks && (getObjectReferenceCount() > 0)) {
                 throw new IllegalStateException(getObjectReferenceCount() + " Object(s) still exist in runtime");
             }
@@ -518,6 +535,7 @@ public class V8 extends V8Object {
     public int executeIntegerScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         return executeIntegerScript(v8RuntimePtr, script, scriptName, lineNumber);
     }
 
@@ -554,6 +572,7 @@ public class V8 extends V8Object {
     public double executeDoubleScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         return executeDoubleScript(v8RuntimePtr, script, scriptName, lineNumber);
     }
 
@@ -585,6 +604,7 @@ public class V8 extends V8Object {
     public String executeStringScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         return executeStringScript(v8RuntimePtr, script, scriptName, lineNumber);
     }
 
@@ -616,6 +636,7 @@ public class V8 extends V8Object {
     public boolean executeBooleanScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         return executeBooleanScript(v8RuntimePtr, script, scriptName, lineNumber);
     }
 
@@ -679,6 +700,7 @@ public class V8 extends V8Object {
     public Object executeScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         return executeScript(getV8RuntimePtr(), UNKNOWN, script, scriptName, lineNumber);
     }
 
@@ -736,9 +758,238 @@ public class V8 extends V8Object {
     public void executeVoidScript(final String script, final String scriptName, final int lineNumber) {
         checkThread();
         checkScript(script);
+        scriptExecuted(script, scriptName, lineNumber);
         executeVoidScript(v8RuntimePtr, script, scriptName, lineNumber);
     }
 
+    /**
+     * Starts collecting code coverage. Scripts must be executed with a
+     * script name after coverage was started to be included in the results,
+     * and precise modes only count code that runs after they were started.
+     *
+     * Coverage uses V8 runtime functions, so V8.setFlags("--allow-natives-syntax")
+     * must be called before the runtime is created. This flag applies to the
+     * whole process and lets every script in every runtime call V8's
+     * %-intrinsics, which untrusted code can abuse. Only use coverage in test
+     * and development builds.
+     *
+     * While coverage is running, a copy of the source of every executed
+     * script is kept in memory until coverage is stopped.
+     *
+     * @param mode The mode in which to collect coverage.
+     */
+    public void startCoverage(final CoverageMode mode) {
+        checkThread();
+        if (coverage != null) {
+            throw new IllegalStateException("Coverage already started");
+        }
+        coverage = new CoverageCollector(this, mode);
+    }
+
+    /**
+     * Returns the code coverage collected so far. In precise modes, the
+     * execution counts are reset afterwards.
+     *
+     * @return The code coverage of all scripts executed since coverage was started.
+     */
+    public Coverage takeCoverage() {
+        checkThread();
+        if (coverage == null) {
+            throw new IllegalStateException("Coverage not started");
+        }
+        return coverage.collect();
+    }
+
+    /**
+     * Stops collecting code coverage and switches back to best effort
+     * coverage, which has no overhead.
+     */
+    public void stopCoverage() {
+        checkThread();
+        if (coverage != null) {
+            CoverageCollector collector = coverage;
+            coverage = null;
+            collector.stop();
+        }
+    }
+
+    /**
+     * Waits for a Promise to settle and returns its value. While waiting,
+     * pending microtasks are run, and so is the event loop of this runtime:
+     * a {@link V8EventLoop} if one is installed, or the NodeJS message loop
+     * for NodeJS runtimes. If the Promise is rejected, a
+     * V8PromiseRejectedException is thrown.
+     *
+     * Objects that are not Promises are treated like Promise.resolve(object).
+     * This method must not be called from within a JavaScript callback,
+     * since Promises only settle when the JavaScript stack is empty.
+     *
+     * @param promise The Promise to wait for.
+     * @param timeoutMillis The maximum time to wait, or a negative value to
+     * wait without a limit.
+     *
+     * @return The value of the Promise as a Java Object. Primitives will be boxed,
+     * and a returned V8Value must be released.
+     */
+    public Object awaitPromise(final V8Object promise, final long timeoutMillis) {
+        checkThread();
+        checkRuntime(promise);
+        PromiseState state = new PromiseState();
+        awaitPromise(promise, state.onFulfilled(), state.onRejected());
+        long deadline = timeoutMillis < 0 ? Long.MAX_VALUE : (System.nanoTime() / 1000000) + timeoutMillis;
+        try {
+            while (!state.settled) {
+                long remaining = deadline == Long.MAX_VALUE ? -1 : deadline - (System.nanoTime() / 1000000);
+                if ((deadline != Long.MAX_VALUE) && (remaining <= 0)) {
+                    throw new V8RuntimeException("Timeout while waiting for Promise");
+                }
+                if (!runPendingWork(remaining) && !state.settled) {
+                    throw new V8RuntimeException("Promise cannot settle, no pending work");
+                }
+            }
+        } catch (RuntimeException e) {
+            state.release();
+            throw e;
+        }
+        if (state.rejected) {
+            try {
+                throw createRejection(state.value);
+            } finally {
+                state.release();
+            }
+        }
+        return state.value;
+    }
+
+    /**
+     * Registers a continuation that is called once a Promise settles. This
+     * method does not block; the handler is called when the Promise settles
+     * while the runtime runs microtasks, for example from an event loop.
+     *
+     * @param promise The Promise to observe.
+     * @param handler The handler that is notified when the Promise settles.
+     */
+    public void awaitPromise(final V8Object promise, final PromiseHandler handler) {
+        checkThread();
+        checkRuntime(promise);
+        awaitPromise(promise, new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                Object value = parameters.length() > 0 ? parameters.get(0) : getUndefined();
+                try {
+                    handler.onFulfilled(value);
+                } finally {
+                    if (value instanceof Releasable) {
+                        ((Releasable) value).release();
+                    }
+                }
+                return null;
+            }
+        }, new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                Object reason = parameters.length() > 0 ? parameters.get(0) : getUndefined();
+                try {
+                    handler.onRejected(reason);
+                } finally {
+                    if (reason instanceof Releasable) {
+                        ((Releasable) reason).release();
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private void awaitPromise(final V8Object promise, final JavaCallback onFulfilled, final JavaCallback onRejected) {
+        V8Function resolver = (V8Function) executeObjectScript("(function(value, onFulfilled, onRejected) { Promise.resolve(value).then(onFulfilled, onRejected); })");
+        V8Function fulfilled = new V8Function(this, onFulfilled);
+        V8Function rejected = new V8Function(this, onRejected);
+        V8Array parameters = new V8Array(this);
+        try {
+            parameters.push(promise).push(fulfilled).push(rejected);
+            resolver.call(null, parameters);
+        } finally {
+            parameters.close();
+            rejected.close();
+            fulfilled.close();
+            resolver.close();
+        }
+    }
+
+    private boolean runPendingWork(final long timeoutMillis) {
+        V8EventLoop eventLoop = V8EventLoop.getEventLoop(this);
+        if (eventLoop != null) {
+            // runOnce would block until the timeout without any work to wake it
+            if (!eventLoop.hasPendingWork()) {
+                return false;
+            }
+            eventLoop.runOnce(timeoutMillis);
+            return true;
+        }
+        if (nodeJS != null) {
+            return nodeJS.pumpMessageLoop(timeoutMillis);
+        }
+        return false;
+    }
+
+    private V8PromiseRejectedException createRejection(final Object reason) {
+        String stack = null;
+        if ((reason instanceof V8Object) && !((V8Object) reason).isUndefined()) {
+            V8Object error = (V8Object) reason;
+            if (error.getType("stack") == V8Value.STRING) {
+                stack = error.getString("stack");
+            }
+            if (error.getType("message") == V8Value.STRING) {
+                return new V8PromiseRejectedException(error.getString("message"), stack);
+            }
+        }
+        return new V8PromiseRejectedException(String.valueOf(reason), stack);
+    }
+
+    private static class PromiseState {
+
+        private boolean settled  = false;
+        private boolean rejected = false;
+        private Object  value    = null;
+
+        JavaCallback onFulfilled() {
+            return new JavaCallback() {
+
+                @Override
+                public Object invoke(final V8Object receiver, final V8Array parameters) {
+                    settle(parameters, false);
+                    return null;
+                }
+            };
+        }
+
+        JavaCallback onRejected() {
+            return new JavaCallback() {
+
+                @Override
+                public Object invoke(final V8Object receiver, final V8Array parameters) {
+                    settle(parameters, true);
+                    return null;
+                }
+            };
+        }
+
+        void settle(final V8Array parameters, final boolean rejected) {
+            value = parameters.length() > 0 ? parameters.get(0) : V8.getUndefined();
+            this.rejected = rejected;
+            settled = true;
+        }
+
+        void release() {
+            if (value instanceof Releasable) {
+                ((Releasable) value).release();
+            }
+        }
+    }
+
     /**
      * Returns the locker associated with this runtime. The locker allows
      * threads to give up control of the runtime and other threads to acquire
@@ -788,6 +1039,12 @@ public class V8 extends V8Object {
         }
     }
 
+    private void scriptExecuted(final String script, final String scriptName, final int lineNumber) {
+        if (coverage != null) {
+            coverage.scriptExecuted(script, scriptName, lineNumber);
+        }
+    }
+
     static void checkScript(final String script) {
         if (script == null) {
             throw new NullPointerException("Script is null");
@@ -1023,7 +1280,8 @@ public class V8 extends V8Object {
         return null;
     }
 
-    void createNodeRuntime(final String fileName) {
+    void createNodeRuntime(final NodeJS node, final String fileName) {
+        nodeJS = node;
         _startNodeJS(v8RuntimePtr, fileName);
     }
 
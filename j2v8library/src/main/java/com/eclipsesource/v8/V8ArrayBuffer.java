@@ -469,4 +469,17 @@ public class V8ArrayBuffer extends V8Value {
         return byteBuffer.asDoubleBuffer().limit();
     }
 
+    /**
+     * Returns a view of the java.nio.ByteBuffer that backs this ArrayBuffer.
+     * The view shares its content with the ArrayBuffer, but has its own
+     * position and limit.
+     *
+     * @return A view of the backing store of this ArrayBuffer.
+     */
+    public ByteBuffer getBackingStore() {
+        v8.checkThread();
+        checkReleased();
+        return byteBuffer.duplicate().order(byteBuffer.order());
+    }
+
 }
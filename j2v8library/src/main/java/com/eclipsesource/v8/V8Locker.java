@@ -10,17 +10,34 @@
  ******************************************************************************/
 package com.eclipsesource.v8;
 
+import java.util.LinkedList;
+
 /**
  * Represents a lock for a V8Runtime that can be moved between
  * threads. When instantiated, the lock is automatically assigned
  * to the current thread. If another thread wishes to acquire the
  * lock, it must first be released.
+ *
+ * Threads that share a runtime can wait for the lock using
+ * {@link V8Locker#acquire(long)}. Waiting threads are queued and
+ * get the lock in the order they started waiting. The locker records
+ * how long the lock was held and waited for, and how often it moved
+ * between threads, which shows when a shared runtime becomes a bottleneck.
  */
 public class V8Locker {
 
-    private Thread  thread   = null;
-    private boolean released = false;
-    private V8      runtime;
+    private Thread                   thread          = null;
+    private boolean                  released        = false;
+    private V8                       runtime;
+    private final LinkedList<Thread> waiters         = new LinkedList<Thread>();
+    private Thread                   lastThread      = null;
+    private long                     acquiredAt      = 0;
+    private long                     acquireCount    = 0;
+    private long                     contendedCount  = 0;
+    private long                     handoffCount    = 0;
+    private long                     totalWaitTime   = 0;
+    private long                     maxWaitTime     = 0;
+    private long                     totalHoldTime   = 0;
 
     V8Locker(final V8 runtime) {
         this.runtime = runtime;
@@ -38,24 +55,25 @@ public class V8Locker {
 
     /**
      * Acquire the lock if it's currently not acquired by another
-     * thread. If it's currently held by another thread, an
-     * Error will be thrown.
+     * thread. If it's currently held by another thread, or other
+     * threads are waiting for it, an Error will be thrown.
      */
     public synchronized void acquire() {
         if ((thread != null) && (thread != Thread.currentThread())) {
             throw new Error("Invalid V8 thread access: current thread is " + Thread.currentThread() + " while the locker has thread " + thread);
         } else if ((thread == Thread.currentThread())) {
             return;
+        } else if (!waiters.isEmpty()) {
+            throw new Error("Invalid V8 thread access: current thread is " + Thread.currentThread() + " while the locker is reserved for thread " + waiters.getFirst());
         }
-        runtime.acquireLock(runtime.getV8RuntimePtr());
-        thread = Thread.currentThread();
-        released = false;
+        lock(0, false);
     }
 
     /**
      * Acquire the lock if it's currently not acquired by another
-     * thread. If it's currently held by another thread, tryAcquire
-     * will return false, otherwise true is returned.
+     * thread. If it's currently held by another thread, or other
+     * threads are waiting for it, tryAcquire will return false,
+     * otherwise true is returned.
      *
      * @return Returns true if the lock was acquired, false otherwise.
      */
@@ -64,13 +82,62 @@ public class V8Locker {
             return false;
         } else if (thread == Thread.currentThread()) {
             return true;
+        } else if (!waiters.isEmpty()) {
+            return false;
         }
-        runtime.acquireLock(runtime.getV8RuntimePtr());
-        thread = Thread.currentThread();
-        released = false;
+        lock(0, false);
         return true;
     }
 
+    /**
+     * Acquire the lock, waiting for at most the given time if it's
+     * currently held by another thread. Waiting threads are served in
+     * the order they called this method.
+     *
+     * @param timeoutMillis The maximum time to wait, 0 to not wait at all
+     * or a negative value to wait without a limit.
+     *
+     * @return Returns true if the lock was acquired, false if the timeout
+     * elapsed first.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public synchronized boolean acquire(final long timeoutMillis) throws InterruptedException {
+        Thread current = Thread.currentThread();
+        if (thread == current) {
+            return true;
+        } else if ((thread == null) && waiters.isEmpty()) {
+            lock(0, false);
+            return true;
+        } else if (timeoutMillis == 0) {
+            return false;
+        }
+        long start = System.nanoTime();
+        long deadline = timeoutMillis < 0 ? Long.MAX_VALUE : start + (timeoutMillis * 1000000);
+        waiters.add(current);
+        try {
+            while ((thread != null) || (waiters.getFirst() != current)) {
+                if (runtime.isReleased()) {
+                    throw new Error("Runtime disposed error");
+                }
+                if (deadline == Long.MAX_VALUE) {
+                    wait();
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining / 1000000, (int) (remaining % 1000000));
+            }
+            lock(System.nanoTime() - start, true);
+            return true;
+        } finally {
+            waiters.remove(current);
+            notifyAll();
+        }
+    }
+
     /**
      * Release the lock if it's currently held by the calling thread.
      * If the current thread does not hold the lock, and error will be
@@ -82,8 +149,10 @@ public class V8Locker {
         }
         checkThread();
         runtime.releaseLock(runtime.getV8RuntimePtr());
+        totalHoldTime += System.nanoTime() - acquiredAt;
         thread = null;
         released = true;
+        notifyAll();
     }
 
     /**
@@ -110,4 +179,105 @@ public class V8Locker {
         return thread == Thread.currentThread();
     }
 
+    /**
+     * Returns the number of threads currently waiting for the lock.
+     *
+     * @return The number of waiting threads.
+     */
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+
+    /**
+     * Returns how often the lock has been acquired.
+     *
+     * @return The number of acquisitions.
+     */
+    public synchronized long getAcquireCount() {
+        return acquireCount;
+    }
+
+    /**
+     * Returns how often a thread had to wait for the lock because it
+     * was held by, or reserved for, another thread.
+     *
+     * @return The number of contended acquisitions.
+     */
+    public synchronized long getContendedCount() {
+        return contendedCount;
+    }
+
+    /**
+     * Returns how often the lock was acquired by a different thread
+     * than the one that held it before.
+     *
+     * @return The number of handoffs between threads.
+     */
+    public synchronized long getHandoffCount() {
+        return handoffCount;
+    }
+
+    /**
+     * Returns the total time threads spent waiting for the lock.
+     *
+     * @return The total wait time in nanoseconds.
+     */
+    public synchronized long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the longest time a thread waited for the lock.
+     *
+     * @return The maximum wait time in nanoseconds.
+     */
+    public synchronized long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Returns the total time the lock was held. Time of the
+     * current hold is included once the lock is released.
+     *
+     * @return The total hold time in nanoseconds.
+     */
+    public synchronized long getTotalHoldTime() {
+        return totalHoldTime;
+    }
+
+    /**
+     * Resets all lock statistics to zero.
+     */
+    public synchronized void resetStatistics() {
+        acquireCount = 0;
+        contendedCount = 0;
+        handoffCount = 0;
+        totalWaitTime = 0;
+        maxWaitTime = 0;
+        totalHoldTime = 0;
+        acquiredAt = System.nanoTime();
+    }
+
+    synchronized void runtimeReleased() {
+        notifyAll();
+    }
+
+    private void lock(final long waitTime, final boolean contended) {
+        Thread current = Thread.currentThread();
+        runtime.acquireLock(runtime.getV8RuntimePtr());
+        thread = current;
+        released = false;
+        acquiredAt = System.nanoTime();
+        acquireCount++;
+        if (contended) {
+            contendedCount++;
+            totalWaitTime += waitTime;
+            maxWaitTime = Math.max(maxWaitTime, waitTime);
+        }
+        if ((lastThread != null) && (lastThread != current)) {
+            handoffCount++;
+        }
+        lastThread = current;
+    }
+
 }
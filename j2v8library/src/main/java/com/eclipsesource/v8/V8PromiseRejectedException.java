@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * An exception used to indicate that an awaited Promise was rejected.
+ */
+@SuppressWarnings("serial")
+public class V8PromiseRejectedException extends V8RuntimeException {
+
+    private final String jsStackTrace;
+
+    V8PromiseRejectedException(final String message, final String jsStackTrace) {
+        super(message);
+        this.jsStackTrace = jsStackTrace;
+    }
+
+    /**
+     * Get the JavaScript Stack as a String of the Error the Promise was
+     * rejected with, or null if the reason was not an Error.
+     *
+     * @return The JavaScript stack trace, or null.
+     */
+    public String getJSStackTrace() {
+        return jsStackTrace;
+    }
+
+}
@@ -51,6 +51,8 @@ abstract public class V8Value implements Releasable {
     protected V8      v8;
     protected long    objectHandle;
     protected boolean released = true;
+    private int       identityHash;
+    private boolean   identityHashComputed;
 
     protected V8Value() {
         super();
@@ -209,6 +211,8 @@ abstract public class V8Value implements Releasable {
         v8.checkReleased();
         V8Value twin = createTwin();
         v8.createTwin(this, twin);
+        twin.identityHash = identityHash;
+        twin.identityHashComputed = identityHashComputed;
         return twin;
     }
 
@@ -374,12 +378,19 @@ abstract public class V8Value implements Releasable {
     /*
      * (non-Javadoc)
      * @see java.lang.Object#hashCode()
+     *
+     * The identity hash of a JS object never changes, so it is computed
+     * once and then reused by this handle and its twins.
      */
     @Override
     public int hashCode() {
         v8.checkThread();
         checkReleased();
-        return v8.identityHash(v8.getV8RuntimePtr(), getHandle());
+        if (!identityHashComputed) {
+            identityHash = v8.identityHash(v8.getV8RuntimePtr(), getHandle());
+            identityHashComputed = true;
+        }
+        return identityHash;
     }
 
     protected void checkReleased() {
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A module source that reads module files from a zip or jar archive, for
+ * example modules packaged with the application. The entries are indexed
+ * once when the archive is opened, and sources are kept in a
+ * {@link ModuleSourceCache}, so each entry is only inflated once even if
+ * many runtimes require it.
+ *
+ * The archive stays open until the module source is released.
+ */
+public class ZipModuleSource implements ModuleSource, Releasable {
+
+    private static final Charset          UTF_8       = Charset.forName("UTF-8");
+    private static final int              BUFFER_SIZE = 8192;
+
+    private final ZipFile                 zipFile;
+    private final String                  cachePrefix;
+    private final ModuleSourceCache       cache;
+    private final Map<String, ZipEntry>   files       = new HashMap<String, ZipEntry>();
+    private final Set<String>             directories = new HashSet<String>();
+
+    /**
+     * Creates a module source for all entries of an archive, which uses
+     * the shared module source cache.
+     *
+     * @param file The zip or jar file.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    public ZipModuleSource(final File file) throws IOException {
+        this(file, "", ModuleSourceCache.getShared());
+    }
+
+    /**
+     * Creates a module source for the entries below a directory of an
+     * archive, which uses the shared module source cache.
+     *
+     * @param file The zip or jar file.
+     * @param root The directory inside the archive that contains the modules,
+     * or an empty String for the whole archive.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    public ZipModuleSource(final File file, final String root) throws IOException {
+        this(file, root, ModuleSourceCache.getShared());
+    }
+
+    /**
+     * Creates a module source for the entries below a directory of an
+     * archive.
+     *
+     * @param file The zip or jar file.
+     * @param root The directory inside the archive that contains the modules,
+     * or an empty String for the whole archive.
+     * @param cache The cache in which module sources are kept.
+     *
+     * @throws IOException If the archive cannot be opened.
+     */
+    public ZipModuleSource(final File file, final String root, final ModuleSourceCache cache) throws IOException {
+        this.cache = cache;
+        zipFile = new ZipFile(file);
+        // the modification time makes sure a replaced archive is not served from the cache
+        cachePrefix = file.getAbsolutePath() + "@" + file.lastModified() + "!/";
+        index(normalizeRoot(root));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#isFile(java.lang.String)
+     */
+    @Override
+    public boolean isFile(final String path) {
+        return files.containsKey(path);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#isDirectory(java.lang.String)
+     */
+    @Override
+    public boolean isDirectory(final String path) {
+        return directories.contains(path);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.ModuleSource#getSource(java.lang.String)
+     */
+    @Override
+    public String getSource(final String path) throws IOException {
+        ZipEntry entry = files.get(path);
+        if (entry == null) {
+            throw new FileNotFoundException(path);
+        }
+        String key = cachePrefix + entry.getName();
+        String source = cache.get(key);
+        if (source == null) {
+            source = read(entry);
+            cache.put(key, source);
+        }
+        return source;
+    }
+
+    /**
+     * Returns the number of files in this module source.
+     *
+     * @return The number of files.
+     */
+    public int getFileCount() {
+        return files.size();
+    }
+
+    /**
+     * Closes the archive.
+     */
+    @Override
+    public void close() {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+
+    /**
+     * Closes the archive.
+     *
+     * @deprecated use close() instead.
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private void index(final String root) {
+        directories.add("");
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (!name.startsWith(root) || (name.length() == root.length())) {
+                continue;
+            }
+            String path = name.substring(root.length());
+            if (entry.isDirectory()) {
+                path = path.substring(0, path.length() - 1);
+            } else {
+                files.put(path, entry);
+            }
+            // archives do not always contain entries for directories
+            int index = entry.isDirectory() ? path.length() : path.lastIndexOf('/');
+            while (index > 0) {
+                if (!directories.add(path.substring(0, index))) {
+                    break;
+                }
+                index = path.lastIndexOf('/', index - 1);
+            }
+        }
+    }
+
+    private String read(final ZipEntry entry) throws IOException {
+        InputStream input = zipFile.getInputStream(entry);
+        try {
+            int size = entry.getSize() > 0 ? (int) entry.getSize() : BUFFER_SIZE;
+            ByteArrayOutputStream output = new ByteArrayOutputStream(size);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), UTF_8);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static String normalizeRoot(final String root) {
+        String result = root.replace('\\', '/');
+        while (result.startsWith("/")) {
+            result = result.substring(1);
+        }
+        if ((result.length() > 0) && !result.endsWith("/")) {
+            result = result + "/";
+        }
+        return result;
+    }
+
+}
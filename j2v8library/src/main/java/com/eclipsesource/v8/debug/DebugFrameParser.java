@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Splits the byte stream of a V8 debug protocol connection into messages.
+ * Each message is preceded by a Content-Length header line and a tool info
+ * line. Bytes are read into a single reusable buffer, which only grows if
+ * a message does not fit. Messages longer than the maximum length fail
+ * the connection.
+ *
+ * This class is not considered API.
+ */
+class DebugFrameParser {
+
+    private static final Charset CHARSET                = Charset.forName("UTF-8");
+    private static final byte[]  EOL_BYTES              = "\r\n".getBytes(CHARSET);
+    private static final byte[]  CONTENT_LENGTH_BYTES   = "Content-Length:".getBytes(CHARSET);
+    private static final int     MIN_READ_SPACE         = 1024;
+    private static final int     MAX_MESSAGE_LENGTH     = 64 * 1024 * 1024;
+
+    private final int            maxMessageLength;
+    private ByteBuffer           buffer;
+    private int                  contentLength          = -1;
+
+    DebugFrameParser(final int initialCapacity) {
+        this(initialCapacity, MAX_MESSAGE_LENGTH);
+    }
+
+    DebugFrameParser(final int initialCapacity, final int maxMessageLength) {
+        buffer = ByteBuffer.allocate(initialCapacity);
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * Returns the buffer into which the next bytes should be read. The
+     * buffer is positioned after any pending bytes.
+     *
+     * @return The buffer to read into.
+     */
+    ByteBuffer getReadBuffer() {
+        int required = contentLength > 0 ? contentLength : MIN_READ_SPACE;
+        if ((buffer.remaining() < MIN_READ_SPACE) || (buffer.capacity() < required)) {
+            grow(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        }
+        return buffer;
+    }
+
+    /**
+     * Parses all complete messages from the bytes read so far. Incomplete
+     * messages are kept until more bytes are read.
+     *
+     * @param messages The list to which complete messages are added.
+     *
+     * @throws IOException If a Content-Length header is invalid or exceeds
+     * the maximum message length.
+     */
+    void parse(final List<String> messages) throws IOException {
+        buffer.flip();
+        try {
+            while (true) {
+                if ((contentLength < 0) && !readHeader()) {
+                    return;
+                }
+                if (buffer.remaining() < contentLength) {
+                    return;
+                }
+                int start = buffer.position();
+                messages.add(new String(buffer.array(), buffer.arrayOffset() + start, contentLength, CHARSET));
+                buffer.position(start + contentLength);
+                contentLength = -1;
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    private boolean readHeader() throws IOException {
+        int start = buffer.position();
+        int end = buffer.limit();
+        int pos = indexOf(CONTENT_LENGTH_BYTES, start, end);
+        if (pos < 0) {
+            checkPending(end - start);
+            return false;
+        }
+        pos += CONTENT_LENGTH_BYTES.length;
+        int eol = indexOf(EOL_BYTES, pos, end);
+        if (eol < 0) {
+            checkPending(end - start);
+            return false;
+        }
+        // skip the tool info line that follows the Content-Length header
+        int toolInfoEnd = indexOf(EOL_BYTES, eol + EOL_BYTES.length, end);
+        if (toolInfoEnd < 0) {
+            checkPending(end - start);
+            return false;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + pos, eol - pos, CHARSET).trim();
+        int length;
+        try {
+            length = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid content length header: '" + value + "'");
+        }
+        if (length < 0) {
+            throw new IOException("Invalid content length header: '" + value + "'");
+        }
+        if (length > maxMessageLength) {
+            throw new IOException("Message too large: " + length);
+        }
+        contentLength = length;
+        buffer.position(toolInfoEnd + EOL_BYTES.length);
+        return true;
+    }
+
+    // bounds the bytes buffered while no complete header has been received
+    private void checkPending(final int length) throws IOException {
+        if (length > maxMessageLength) {
+            throw new IOException("Header too large: " + length);
+        }
+    }
+
+    private int indexOf(final byte[] pattern, final int start, final int end) {
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int last = end - pattern.length;
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while ((j < pattern.length) && (array[offset + i + j] == pattern[j])) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void grow(final int capacity) {
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+}
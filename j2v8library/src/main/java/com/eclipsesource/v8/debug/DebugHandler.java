@@ -271,6 +271,10 @@ public class DebugHandler implements Releasable {
         close();
     }
 
+    V8 getRuntime() {
+        return runtime;
+    }
+
     private void setupDebugObject(final V8 runtime) {
         V8Object outerDebug = runtime.getObject(DEBUG_OBJECT_NAME);
         try {
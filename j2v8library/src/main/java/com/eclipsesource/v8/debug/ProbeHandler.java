@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+
+/**
+ * Manages log points and snapshot points on a runtime. Unlike breakpoints,
+ * probes never pause the runtime and never call back into Java. Each probe
+ * is a script breakpoint whose condition records the requested values into
+ * a bounded ring buffer and then evaluates to false, so the debug listener
+ * is not invoked. Records are collected with {@link #drain()}.
+ *
+ * When the buffer is full the oldest records are overwritten. Log points
+ * can be limited to a number of hits per second; hits above the limit are
+ * only counted. Snapshot points that have captured their values are
+ * removed, with their breakpoints, on the next call to {@link #drain()}.
+ */
+public class ProbeHandler implements Releasable {
+
+    private static final String PROBES_OBJECT_NAME = "__j2v8_probes";
+    private static final String DEFINE             = "define";
+    private static final String REMOVE             = "remove";
+    private static final String DRAIN              = "drain";
+    private static final String DROPPED_COUNT      = "droppedCount";
+    private static final String SUPPRESSED_COUNT   = "suppressedCount";
+    private static final int    LOG_POINT_DEPTH    = 2;
+    private static final String PROBES_SCRIPT      = "(function(capacity) {\n"
+            + "  var probes = {};\n"
+            + "  var buffer = [];\n"
+            + "  var head = 0;\n"
+            + "  var size = 0;\n"
+            + "  var dropped = 0;\n"
+            + "  var suppressed = 0;\n"
+            + "  var exhausted = [];\n"
+            + "  function describe(value, depth) {\n"
+            + "    var type = typeof value;\n"
+            + "    if ((value === null) || (value === undefined) || (type === 'boolean') || (type === 'number') || (type === 'symbol')) {\n"
+            + "      return String(value);\n"
+            + "    }\n"
+            + "    if (type === 'string') {\n"
+            + "      return JSON.stringify(value);\n"
+            + "    }\n"
+            + "    if (type === 'function') {\n"
+            + "      return 'function ' + (value.name || '') + '()';\n"
+            + "    }\n"
+            + "    if (depth <= 0) {\n"
+            + "      return Array.isArray(value) ? '[...]' : '{...}';\n"
+            + "    }\n"
+            + "    var parts = [];\n"
+            + "    var i;\n"
+            + "    if (Array.isArray(value)) {\n"
+            + "      for (i = 0; (i < value.length) && (i < 100); i++) {\n"
+            + "        parts.push(describe(value[i], depth - 1));\n"
+            + "      }\n"
+            + "      if (value.length > 100) {\n"
+            + "        parts.push('...');\n"
+            + "      }\n"
+            + "      return '[' + parts.join(', ') + ']';\n"
+            + "    }\n"
+            + "    var keys = Object.keys(value);\n"
+            + "    for (i = 0; (i < keys.length) && (i < 100); i++) {\n"
+            + "      var descriptor = Object.getOwnPropertyDescriptor(value, keys[i]);\n"
+            + "      parts.push(keys[i] + ': ' + ((descriptor && ('value' in descriptor)) ? describe(descriptor.value, depth - 1) : '<accessor>'));\n"
+            + "    }\n"
+            + "    if (keys.length > 100) {\n"
+            + "      parts.push('...');\n"
+            + "    }\n"
+            + "    return '{' + parts.join(', ') + '}';\n"
+            + "  }\n"
+            + "  function push(record) {\n"
+            + "    if (size < capacity) {\n"
+            + "      buffer[(head + size) % capacity] = record;\n"
+            + "      size++;\n"
+            + "    } else {\n"
+            + "      buffer[head] = record;\n"
+            + "      head = (head + 1) % capacity;\n"
+            + "      dropped++;\n"
+            + "    }\n"
+            + "  }\n"
+            + "  return {\n"
+            + "    define: function(id, parts, names, depth, maxCaptures, maxPerSecond) {\n"
+            + "      probes[id] = { parts: parts, names: names, depth: depth, maxCaptures: maxCaptures, maxPerSecond: maxPerSecond,\n"
+            + "          captures: 0, windowStart: 0, windowHits: 0 };\n"
+            + "    },\n"
+            + "    remove: function(id) {\n"
+            + "      delete probes[id];\n"
+            + "    },\n"
+            + "    hit: function(id) {\n"
+            + "      var probe = probes[id];\n"
+            + "      if (!probe || ((probe.maxCaptures > 0) && (probe.captures >= probe.maxCaptures))) {\n"
+            + "        return false;\n"
+            + "      }\n"
+            + "      if (probe.maxPerSecond > 0) {\n"
+            + "        var now = Date.now();\n"
+            + "        if ((now - probe.windowStart) >= 1000) {\n"
+            + "          probe.windowStart = now;\n"
+            + "          probe.windowHits = 0;\n"
+            + "        }\n"
+            + "        if (probe.windowHits >= probe.maxPerSecond) {\n"
+            + "          suppressed++;\n"
+            + "          return false;\n"
+            + "        }\n"
+            + "        probe.windowHits++;\n"
+            + "      }\n"
+            + "      probe.captures++;\n"
+            + "      if ((probe.maxCaptures > 0) && (probe.captures >= probe.maxCaptures)) {\n"
+            + "        exhausted.push(id);\n"
+            + "      }\n"
+            + "      return true;\n"
+            + "    },\n"
+            + "    record: function(id, thunks) {\n"
+            + "      var probe = probes[id];\n"
+            + "      var values = [];\n"
+            + "      for (var i = 0; i < thunks.length; i++) {\n"
+            + "        try {\n"
+            + "          var value = thunks[i]();\n"
+            + "          values.push((probe.parts && (typeof value === 'string')) ? value : describe(value, probe.depth));\n"
+            + "        } catch (e) {\n"
+            + "          values.push('<error: ' + e + '>');\n"
+            + "        }\n"
+            + "      }\n"
+            + "      var message = null;\n"
+            + "      if (probe.parts) {\n"
+            + "        message = probe.parts[0];\n"
+            + "        for (i = 0; i < values.length; i++) {\n"
+            + "          message += values[i] + probe.parts[i + 1];\n"
+            + "        }\n"
+            + "        values = [];\n"
+            + "      }\n"
+            + "      push({ id: id, time: Date.now(), message: message, values: values, names: probe.names });\n"
+            + "      return false;\n"
+            + "    },\n"
+            + "    drain: function() {\n"
+            + "      var tokens = [String(exhausted.length)];\n"
+            + "      for (var i = 0; i < exhausted.length; i++) {\n"
+            + "        tokens.push(String(exhausted[i]));\n"
+            + "        delete probes[exhausted[i]];\n"
+            + "      }\n"
+            + "      exhausted = [];\n"
+            + "      for (i = 0; i < size; i++) {\n"
+            + "        var record = buffer[(head + i) % capacity];\n"
+            + "        tokens.push(String(record.id), String(record.time), record.message === null ? 's' : 'l', record.message || '', String(record.values.length));\n"
+            + "        for (var j = 0; j < record.values.length; j++) {\n"
+            + "          tokens.push(record.names[j], record.values[j]);\n"
+            + "        }\n"
+            + "      }\n"
+            + "      buffer = [];\n"
+            + "      head = 0;\n"
+            + "      size = 0;\n"
+            + "      return tokens;\n"
+            + "    },\n"
+            + "    droppedCount: function() {\n"
+            + "      return dropped;\n"
+            + "    },\n"
+            + "    suppressedCount: function() {\n"
+            + "      return suppressed;\n"
+            + "    }\n"
+            + "  };\n"
+            + "})";
+
+    private final DebugHandler  debugHandler;
+    private final V8            runtime;
+    private final Set<Integer>  probeIDs           = new LinkedHashSet<Integer>();
+    private V8Object            probes;
+
+    /**
+     * Creates a ProbeHandler for the runtime of a DebugHandler.
+     *
+     * @param debugHandler The DebugHandler used to set the breakpoints.
+     * @param capacity The maximum number of records kept until they are drained.
+     */
+    public ProbeHandler(final DebugHandler debugHandler, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.debugHandler = debugHandler;
+        runtime = debugHandler.getRuntime();
+        V8Function factory = (V8Function) runtime.executeObjectScript(PROBES_SCRIPT);
+        V8Array parameters = new V8Array(runtime).push(capacity);
+        try {
+            probes = (V8Object) factory.call(null, parameters);
+            runtime.add(PROBES_OBJECT_NAME, probes);
+        } finally {
+            parameters.close();
+            factory.close();
+        }
+    }
+
+    /**
+     * Sets a log point. Each time the line is reached, the message is
+     * formatted and recorded. Expressions in curly braces are evaluated
+     * in the scope of the current frame, for example "x is {x}".
+     *
+     * @param scriptID The ID of the script on which to set the log point.
+     * @param lineNumber The line number on which to set the log point.
+     * @param message The message to record.
+     * @param maxHitsPerSecond The maximum number of records per second, or 0 for no limit.
+     * @return The ID of the probe.
+     */
+    public int setLogPoint(final String scriptID, final int lineNumber, final String message, final int maxHitsPerSecond) {
+        if (maxHitsPerSecond < 0) {
+            throw new IllegalArgumentException("Hit rate must not be negative: " + maxHitsPerSecond);
+        }
+        List<String> segments = parseMessage(message);
+        List<String> parts = new ArrayList<String>();
+        List<String> expressions = new ArrayList<String>();
+        for (int i = 0; i < segments.size(); i++) {
+            ((i % 2) == 0 ? parts : expressions).add(segments.get(i));
+        }
+        return addProbe(scriptID, lineNumber, parts, expressions, LOG_POINT_DEPTH, 0, maxHitsPerSecond);
+    }
+
+    /**
+     * Sets a snapshot point. The first time the line is reached, the
+     * expressions are evaluated in the scope of the current frame and
+     * recorded. Later hits are ignored, and the snapshot point is removed
+     * on the next call to {@link #drain()}.
+     *
+     * @param scriptID The ID of the script on which to set the snapshot point.
+     * @param lineNumber The line number on which to set the snapshot point.
+     * @param expressions The expressions to capture, for example the names of locals.
+     * @param depth The number of object levels to include in the captured values.
+     * @return The ID of the probe.
+     */
+    public int setSnapshotPoint(final String scriptID, final int lineNumber, final String[] expressions, final int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+        List<String> list = new ArrayList<String>();
+        Collections.addAll(list, expressions);
+        return addProbe(scriptID, lineNumber, null, list, depth, 1, 0);
+    }
+
+    /**
+     * Removes a probe. Records of the probe that have not been drained
+     * yet are kept.
+     *
+     * @param probeID The ID of the probe to remove.
+     */
+    public void removeProbe(final int probeID) {
+        if (!probeIDs.remove(probeID)) {
+            throw new IllegalArgumentException("Unknown probe: " + probeID);
+        }
+        V8Array parameters = new V8Array(runtime).push(probeID);
+        try {
+            probes.executeVoidFunction(REMOVE, parameters);
+        } finally {
+            parameters.close();
+        }
+        debugHandler.clearBreakPoint(probeID);
+    }
+
+    /**
+     * Returns the IDs of all probes.
+     *
+     * @return The IDs of all probes.
+     */
+    public int[] getProbeIDs() {
+        int[] result = new int[probeIDs.size()];
+        int i = 0;
+        for (Integer id : probeIDs) {
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Returns all records captured since the last call, oldest first,
+     * and empties the buffer. The records are transferred in one call.
+     * Snapshot points that have captured their values are removed.
+     *
+     * @return The captured records.
+     */
+    public List<ProbeRecord> drain() {
+        String[] tokens;
+        V8Array array = probes.executeArrayFunction(DRAIN, null);
+        try {
+            int length = array.length();
+            tokens = array.getStrings(0, length);
+        } finally {
+            array.close();
+        }
+        int exhausted = Integer.parseInt(tokens[0]);
+        int i = 1;
+        while (i <= exhausted) {
+            // the breakpoint cannot be cleared from its own condition
+            Integer probeID = Integer.valueOf(tokens[i++]);
+            if (probeIDs.remove(probeID)) {
+                debugHandler.clearBreakPoint(probeID);
+            }
+        }
+        List<ProbeRecord> result = new ArrayList<ProbeRecord>();
+        while (i < tokens.length) {
+            int probeID = Integer.parseInt(tokens[i++]);
+            long timestamp = Long.parseLong(tokens[i++]);
+            boolean logPoint = "l".equals(tokens[i++]);
+            String message = tokens[i++];
+            int count = Integer.parseInt(tokens[i++]);
+            Map<String, String> values = new LinkedHashMap<String, String>();
+            for (int j = 0; j < count; j++) {
+                values.put(tokens[i++], tokens[i++]);
+            }
+            result.add(new ProbeRecord(probeID, timestamp, logPoint ? message : null, values));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of records that were overwritten because the
+     * buffer was full.
+     *
+     * @return The number of lost records.
+     */
+    public int getDroppedCount() {
+        return probes.executeIntegerFunction(DROPPED_COUNT, null);
+    }
+
+    /**
+     * Returns the number of hits that were not recorded because a log
+     * point exceeded its hit rate.
+     *
+     * @return The number of suppressed hits.
+     */
+    public int getSuppressedCount() {
+        return probes.executeIntegerFunction(SUPPRESSED_COUNT, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        for (Integer id : probeIDs) {
+            debugHandler.clearBreakPoint(id);
+        }
+        probeIDs.clear();
+        runtime.addUndefined(PROBES_OBJECT_NAME);
+        probes.close();
+    }
+
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    /**
+     * Splits a log point message into literal text and expressions. The
+     * result always starts and ends with literal text, and alternates
+     * between text and expressions. Braces inside an expression are
+     * balanced, so object literals can be used.
+     */
+    static List<String> parseMessage(final String message) {
+        List<String> result = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < message.length()) {
+            char c = message.charAt(i);
+            int end = c == '{' ? findClosingBrace(message, i) : -1;
+            if (end < 0) {
+                text.append(c);
+                i++;
+                continue;
+            }
+            result.add(text.toString());
+            result.add(message.substring(i + 1, end));
+            text.setLength(0);
+            i = end + 1;
+        }
+        result.add(text.toString());
+        return result;
+    }
+
+    private static int findClosingBrace(final String message, final int start) {
+        int depth = 0;
+        for (int i = start; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if ((c == '}') && (--depth == 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int addProbe(final String scriptID, final int lineNumber, final List<String> parts, final List<String> expressions,
+            final int depth, final int maxCaptures, final int maxHitsPerSecond) {
+        int probeID = debugHandler.setScriptBreakpoint(scriptID, lineNumber);
+        V8Array parameters = new V8Array(runtime);
+        try {
+            parameters.push(probeID);
+            if (parts != null) {
+                pushStrings(parameters, parts);
+            } else {
+                parameters.pushNull();
+            }
+            pushStrings(parameters, expressions);
+            parameters.push(depth).push(maxCaptures).push(maxHitsPerSecond);
+            probes.executeVoidFunction(DEFINE, parameters);
+            debugHandler.changeBreakPointCondition(probeID, createCondition(probeID, expressions));
+        } catch (RuntimeException e) {
+            debugHandler.clearBreakPoint(probeID);
+            throw e;
+        } finally {
+            parameters.close();
+        }
+        probeIDs.add(probeID);
+        return probeID;
+    }
+
+    private void pushStrings(final V8Array parameters, final List<String> strings) {
+        V8Array array = new V8Array(runtime);
+        try {
+            for (String string : strings) {
+                array.push(string);
+            }
+            parameters.push(array);
+        } finally {
+            array.close();
+        }
+    }
+
+    static String createCondition(final int probeID, final List<String> expressions) {
+        StringBuilder condition = new StringBuilder();
+        condition.append(PROBES_OBJECT_NAME).append(".hit(").append(probeID).append(") && ");
+        condition.append(PROBES_OBJECT_NAME).append(".record(").append(probeID).append(", [");
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                condition.append(", ");
+            }
+            // the line break ends a trailing line comment in the expression
+            condition.append("function() { return (").append(expressions.get(i)).append("\n); }");
+        }
+        return condition.append("])").toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A single hit of a log point or snapshot point, as returned by
+ * {@link ProbeHandler#drain()}.
+ */
+public class ProbeRecord {
+
+    private final int                 probeID;
+    private final long                timestamp;
+    private final String              message;
+    private final Map<String, String> values;
+
+    ProbeRecord(final int probeID, final long timestamp, final String message, final Map<String, String> values) {
+        this.probeID = probeID;
+        this.timestamp = timestamp;
+        this.message = message;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns the ID of the probe that was hit.
+     *
+     * @return The ID of the probe.
+     */
+    public int getProbeID() {
+        return probeID;
+    }
+
+    /**
+     * Returns the time of the hit in milliseconds since the epoch.
+     *
+     * @return The time of the hit.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the formatted message of a log point, or null if the
+     * record was captured by a snapshot point.
+     *
+     * @return The message, or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the values captured by a snapshot point, keyed by expression
+     * in the order the expressions were given. Log points return an
+     * empty map.
+     *
+     * @return The captured values.
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "[" + probeID + "] " + (message != null ? message : values.toString());
+    }
+
+}
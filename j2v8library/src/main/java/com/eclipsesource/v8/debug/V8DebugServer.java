@@ -11,12 +11,20 @@
 package com.eclipsesource.v8.debug;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import com.eclipsesource.v8.JavaVoidCallback;
 import com.eclipsesource.v8.Releasable;
@@ -34,7 +42,7 @@ import com.eclipsesource.v8.V8Object;
  * debug object. If you do not intend to set other flags, than you can use {@link #configureV8ForDebugging()}
  * method, otherwise set {@code -expose-debug-as=__j2v8_Debug} flag through {@link V8#setFlags(String)}.
  *
- * <p>Client connection is handled in a separate thread, however, commands are processed in the V8 thread.
+ * <p>Client connection is handled by a selector in a separate thread, however, commands are processed in the V8 thread.
  * Therefore it is vital to provide an opportunity to process requests by calling
  * {@link #processRequests(long)} method from the V8 thread. This will for instance
  * allow to install breakpoints before the JavaScript code starts to execute. It is also good to call that
@@ -93,9 +101,7 @@ public class V8DebugServer {
     //Protocol consts
     private static final Charset PROTOCOL_CHARSET               = Charset.forName("UTF-8");
     private static final String  PROTOCOL_EOL                   = "\r\n";
-    private static final byte[]  PROTOCOL_EOL_BYTES             = PROTOCOL_EOL.getBytes(PROTOCOL_CHARSET);
     private static final String  PROTOCOL_CONTENT_LENGTH_HEADER = "Content-Length:";
-    private static final byte[]  PROTOCOL_CONTENT_LENGTH_BYTES  = PROTOCOL_CONTENT_LENGTH_HEADER.getBytes(PROTOCOL_CHARSET);
     private static final int     PROTOCOL_BUFFER_SIZE           = 4096;
 
     /**
@@ -109,18 +115,21 @@ public class V8DebugServer {
         }
     }
 
-    private ServerSocket server;
-    private Socket       client;
-    private Object       clientLock         = new Object();
+    private ServerSocketChannel              server;
+    private Selector                         selector;
+    private SocketChannel                    client;
+    private Object                           clientLock         = new Object();
 
-    private V8           runtime;
-    private V8Object     debugObject;
-    private V8Object     runningStateDcp;
-    private V8Object     stoppedStateDcp;
-    private boolean      waitForConnection;
-    private boolean      traceCommunication = false;
+    private V8                               runtime;
+    private V8Object                         debugObject;
+    private V8Object                         runningStateDcp;
+    private V8Object                         stoppedStateDcp;
+    private boolean                          waitForConnection;
+    private boolean                          traceCommunication = false;
+    private volatile boolean                 stopped            = false;
 
-    private List<String> requests           = new LinkedList<String>();
+    private BlockingQueue<String>            requests           = new LinkedBlockingQueue<String>();
+    private ConcurrentLinkedQueue<ByteBuffer> responses         = new ConcurrentLinkedQueue<ByteBuffer>();
 
     /**
      * Creates V8DebugServer.
@@ -159,9 +168,22 @@ public class V8DebugServer {
                 + " }\n"
                 + "})()");
         try {
-            server = new ServerSocket(port);
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.socket().bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
         } catch (Exception e) {
             logError(e);
+            closeQuietly();
+            server = null;
+            if (selector != null) {
+                try {
+                    selector.close();
+                } catch (IOException ex) {
+                    //ignore
+                }
+                selector = null;
+            }
         }
     }
 
@@ -170,7 +192,7 @@ public class V8DebugServer {
      * @return port or -1 if server failed to bound to a port
      */
     public int getPort() {
-        return (server != null) && server.isBound() ? server.getLocalPort() : -1;
+        return (server != null) && server.socket().isBound() ? server.socket().getLocalPort() : -1;
     }
 
     /**
@@ -190,6 +212,12 @@ public class V8DebugServer {
             return;
         }
         boolean waitForConnection = this.waitForConnection;
+        try {
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            logError(e);
+            return;
+        }
         Thread clientThread = new Thread(new ClientLoop(), "J2V8 Debugger Server");
         clientThread.setDaemon(true);
         clientThread.start();
@@ -221,18 +249,11 @@ public class V8DebugServer {
     }
 
     public void stop() {
-        try {
-            server.close();
-
-            synchronized (clientLock) {
-                if (client != null) {
-                    client.close();
-                    client = null;
-                }
-            }
-        } catch (IOException e) {
-            logError(e);
+        stopped = true;
+        if (selector != null) {
+            selector.wakeup();
         }
+        closeQuietly();
 
         //release resources
         if (runningStateDcp != null) {
@@ -258,6 +279,25 @@ public class V8DebugServer {
         t.printStackTrace();
     }
 
+    private void closeQuietly() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+            synchronized (clientLock) {
+                if (client != null) {
+                    client.close();
+                    client = null;
+                }
+            }
+            if ((selector != null) && stopped) {
+                selector.close();
+            }
+        } catch (IOException e) {
+            logError(e);
+        }
+    }
+
     private void sendMessage(final String header, final String contents) throws IOException {
         synchronized (clientLock) {
             if (!isConnected()) {
@@ -279,14 +319,13 @@ public class V8DebugServer {
             //skip tools info
             sb.append(PROTOCOL_EOL);
 
-            //send headers to the client
-            client.getOutputStream().write(sb.toString().getBytes(
-                    PROTOCOL_CHARSET));
+            byte[] headerBytes = sb.toString().getBytes(PROTOCOL_CHARSET);
+            ByteBuffer message = ByteBuffer.allocate(headerBytes.length + contentBytes.length);
+            message.put(headerBytes).put(contentBytes).flip();
 
-            //send contents to the client
-            if (contentBytes.length > 0) {
-                client.getOutputStream().write(contentBytes);
-            }
+            //the selector thread writes the message to the client
+            responses.add(message);
+            selector.wakeup();
         }
     }
 
@@ -296,30 +335,39 @@ public class V8DebugServer {
         }
     }
 
+    /**
+     * Processes requests from the debugger on the V8 thread. Requests that
+     * are already queued are processed immediately. If a timeout is given,
+     * the calling thread keeps processing requests as they arrive until the
+     * timeout elapses.
+     *
+     * @param timeout The time in milliseconds to keep processing requests.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
     public void processRequests(final long timeout) throws InterruptedException {
         if (server == null) {
             return;
         }
-        long start = System.currentTimeMillis();
-        do {
-            String[] reqs;
-            do {
-                synchronized (requests) {
-                    reqs = requests.toArray(new String[requests.size()]);
-                    requests.clear();
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            String request = requests.poll();
+            if (request == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if ((timeout <= 0) || (remaining <= 0)) {
+                    return;
                 }
-                for (String req : reqs) {
-                    try {
-                        processRequest(req);
-                    } catch (Exception e) {
-                        logError(e);
-                    }
+                request = requests.poll(remaining, TimeUnit.MILLISECONDS);
+                if (request == null) {
+                    return;
                 }
-            } while (reqs.length > 0);
-            if (timeout > 0) {
-                Thread.sleep(10);
             }
-        } while ((timeout > 0) && ((start + timeout) > System.currentTimeMillis()));
+            try {
+                processRequest(request);
+            } catch (Exception e) {
+                logError(e);
+            }
+        }
     }
 
     private void processRequest(final String message) throws IOException {
@@ -525,37 +573,115 @@ public class V8DebugServer {
 
     private class ClientLoop implements Runnable {
 
-        private int from;
+        private DebugFrameParser       parser   = new DebugFrameParser(PROTOCOL_BUFFER_SIZE);
+        private final List<String>     messages = new ArrayList<String>();
+        private SelectionKey           clientKey;
 
         @Override
         public void run() {
-            while (true) {
+            while (!stopped) {
                 try {
-                    Socket socket = server.accept();
-                    socket.setTcpNoDelay(true);
-                    synchronized (clientLock) {
-                        client = socket;
-                        waitForConnection = false;
-                        clientLock.notifyAll();
+                    selector.select();
+                    if (stopped) {
+                        break;
                     }
-                    startHandshake();
-                    processClientRequests();
-                } catch (Exception e) {
-                    synchronized (clientLock) {
-                        if (client != null) {
-                            try {
-                                client.close();
-                            } catch (IOException ex) {
-                                //ignore
-                            }
-                            client = null;
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(key);
+                        } else if (key.isReadable()) {
+                            read();
                         }
                     }
-                    logError(e);
+                    writeResponses();
+                } catch (Exception e) {
+                    if (!stopped) {
+                        logError(e);
+                    }
+                    disconnect();
                 }
             }
         }
 
+        private void accept(final SelectionKey serverKey) throws IOException {
+            SocketChannel socket = server.accept();
+            if (socket == null) {
+                return;
+            }
+            socket.configureBlocking(false);
+            socket.socket().setTcpNoDelay(true);
+            clientKey = socket.register(selector, SelectionKey.OP_READ);
+            // serve one client at a time
+            serverKey.interestOps(0);
+            // requests of a previous client must not run on behalf of this one
+            requests.clear();
+            synchronized (clientLock) {
+                client = socket;
+                waitForConnection = false;
+                clientLock.notifyAll();
+            }
+            startHandshake();
+        }
+
+        private void read() throws IOException {
+            int bytesRead = client.read(parser.getReadBuffer());
+            if (bytesRead < 0) {
+                disconnect();
+                return;
+            }
+            parser.parse(messages);
+            requests.addAll(messages);
+            messages.clear();
+        }
+
+        private void writeResponses() throws IOException {
+            if ((clientKey == null) || !clientKey.isValid()) {
+                responses.clear();
+                return;
+            }
+            ByteBuffer response;
+            while ((response = responses.peek()) != null) {
+                client.write(response);
+                if (response.hasRemaining()) {
+                    clientKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                responses.poll();
+            }
+            clientKey.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void disconnect() {
+            if (clientKey != null) {
+                clientKey.cancel();
+                clientKey = null;
+            }
+            synchronized (clientLock) {
+                if (client != null) {
+                    try {
+                        client.close();
+                    } catch (IOException ex) {
+                        //ignore
+                    }
+                    client = null;
+                }
+            }
+            responses.clear();
+            requests.clear();
+            // drop any partial frame, the next client starts a new stream
+            parser = new DebugFrameParser(PROTOCOL_BUFFER_SIZE);
+            messages.clear();
+            SelectionKey serverKey = server.keyFor(selector);
+            if ((serverKey != null) && serverKey.isValid()) {
+                serverKey.interestOps(SelectionKey.OP_ACCEPT);
+            }
+        }
+
         private void startHandshake() throws IOException {
             StringBuilder sb = new StringBuilder();
 
@@ -579,115 +705,5 @@ public class V8DebugServer {
             sendMessage(sb.toString(), "");
         }
 
-        private void processClientRequests() throws IOException {
-            final byte[] EMPTY_ARR = new byte[] {};
-
-            byte[] buf = new byte[PROTOCOL_BUFFER_SIZE];
-            int bytesRead;
-            int offset = 0;
-
-            //Message data
-            boolean toolInfoSkipped = false;
-            byte[] messageBytes = EMPTY_ARR;
-            int contentLength = -1;
-
-            InputStream cIn;
-            synchronized (clientLock) {
-                cIn = client.getInputStream();
-            }
-
-            while ((bytesRead = cIn.read(buf, offset, PROTOCOL_BUFFER_SIZE - offset)) > 0) {
-                bytesRead += offset;
-                from = 0;
-                do {
-                    if (contentLength < 0) {
-                        contentLength = readContentLength(buf, bytesRead);
-                        if (contentLength < 0) {
-                            break;
-                        }
-                    }
-                    if (!toolInfoSkipped) {
-                        toolInfoSkipped = skipToolInfo(buf, bytesRead);
-                        if (!toolInfoSkipped) {
-                            break;
-                        }
-                    }
-                    int length = Math.min(contentLength - messageBytes.length, bytesRead - from);
-                    messageBytes = join(messageBytes, buf, from, length);
-                    from += length;
-                    if (messageBytes.length == contentLength) {
-                        String message = new String(messageBytes, PROTOCOL_CHARSET);
-                        synchronized (requests) {
-                            requests.add(message);
-                        }
-                        contentLength = -1;
-                        toolInfoSkipped = false;
-                        messageBytes = EMPTY_ARR;
-                    }
-                } while (from < bytesRead);
-                if (from < bytesRead) {
-                    System.arraycopy(buf, from, buf, 0, bytesRead - from);
-                    offset = bytesRead - from;
-                } else {
-                    offset = 0;
-                }
-            }
-        }
-
-        private int readContentLength(final byte[] bytes, final int to) throws IOException {
-            int pos = indexOf(PROTOCOL_CONTENT_LENGTH_BYTES, bytes, from, to);
-            if (pos < 0) {
-                return -1;
-            }
-            pos += PROTOCOL_CONTENT_LENGTH_BYTES.length;
-            int end = indexOf(PROTOCOL_EOL_BYTES, bytes, pos, to);
-            if (end < 0) {
-                return -1;
-            }
-            String str = new String(bytes, pos, end - pos, PROTOCOL_CHARSET);
-            int contentLength;
-            try {
-                contentLength = Integer.parseInt(str.trim());
-            } catch (Exception ex) {
-                throw new IOException("Invalid content length header: '" + str + "' in message" +
-                        new String(bytes, PROTOCOL_CHARSET));
-            }
-            from = end + PROTOCOL_EOL_BYTES.length;
-            return contentLength;
-        }
-
-        private boolean skipToolInfo(final byte[] bytes, final int n) {
-            int end = indexOf(PROTOCOL_EOL_BYTES, bytes, from, n);
-            if (end < 0) {
-                return false;
-            }
-            from = end + PROTOCOL_EOL_BYTES.length;
-            return true;
-        }
-
-        private int indexOf(final byte[] pattern, final byte[] array, final int start, final int end) {
-            int len = pattern.length;
-            for (int i = start; i < end; i++) {
-                for (int j = 0; j <= len; j++) {
-                    if (j == len) {
-                        //pattern matches at i
-                        return i;
-                    }
-                    if (((i + j) >= end) || (array[i + j] != pattern[j])) {
-                        //pattern does not match at i
-                        break;
-                    }
-                }
-            }
-            return -1;
-        }
-
-        private byte[] join(final byte[] arr1, final byte[] arr2, final int startPos, final int length) {
-            byte[] res = new byte[arr1.length + length];
-            System.arraycopy(arr1, 0, res, 0, arr1.length);
-            System.arraycopy(arr2, startPos, res, arr1.length, length);
-            return res;
-        }
-
     };
 }
@@ -0,0 +1,835 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.eclipsesource.v8.JavaCallback;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * <p>V8Inspector lets tools that speak the Chrome DevTools Protocol, such as
+ * Chrome DevTools or IDE debuggers, connect to a J2V8 runtime. The inspector
+ * listens on the loopback interface only. Tools discover it through the
+ * usual {@code /json} endpoints and connect over a WebSocket. Each inspector
+ * uses a random WebSocket path. Requests that carry an {@code Origin} header,
+ * or whose {@code Host} is not the loopback address, are refused.
+ *
+ * <p>The Runtime domain is always available. The Debugger domain requires
+ * the V8 debug object, see {@link V8DebugServer#configureV8ForDebugging()}.
+ * It cannot be used together with a {@link V8DebugServer} or
+ * {@link DebugHandler} on the same runtime. This runtime does not support
+ * CPU profiling, so the Profiler domain is not advertised; enabling it
+ * succeeds, but starting a profile fails.
+ *
+ * <p>As with {@link V8DebugServer}, the connection is handled on a separate
+ * thread, while protocol messages are processed on the V8 thread. Call
+ * {@link #processMessages(long)} from the V8 thread whenever it is idle.
+ * While the runtime is paused at a breakpoint, messages are processed
+ * automatically until the debugger resumes execution.
+ */
+public class V8Inspector {
+
+    private static final String  DEBUG_OBJECT        = "Debug";
+    private static final String  SET_LISTENER        = "setListener";
+    private static final String  DISPATCH            = "dispatch";
+    private static final String  IS_PAUSED           = "isPaused";
+    private static final String  DETACH              = "detach";
+    private static final Charset CHARSET             = Charset.forName("UTF-8");
+    private static final int     BUFFER_SIZE         = 4096;
+    private static final long    PAUSE_POLL_MILLIS   = 100;
+
+    private static final String AGENT_SCRIPT = "(function(debug, send, pause) {\n"
+            + "  var objects = {};\n"
+            + "  var nextObjectId = 1;\n"
+            + "  var state = null;\n"
+            + "  var action = null;\n"
+            + "  var debuggerEnabled = false;\n"
+            + "  var breakpointsActive = true;\n"
+            + "  var scopeTypes = ['global', 'local', 'with', 'closure', 'catch', 'block', 'script'];\n"
+            + "  function emit(method, params) {\n"
+            + "    send(JSON.stringify({method: method, params: params}));\n"
+            + "  }\n"
+            + "  function className(value) {\n"
+            + "    var constructor = value.constructor;\n"
+            + "    return (constructor && constructor.name) || 'Object';\n"
+            + "  }\n"
+            + "  function describe(value) {\n"
+            + "    if (typeof value === 'function') return String(value);\n"
+            + "    if (Array.isArray(value)) return 'Array(' + value.length + ')';\n"
+            + "    if (value instanceof Error) return value.stack || String(value);\n"
+            + "    if ((value instanceof RegExp) || (value instanceof Date)) return String(value);\n"
+            + "    return className(value);\n"
+            + "  }\n"
+            + "  function remote(value, byValue) {\n"
+            + "    if (value === null) return {type: 'object', subtype: 'null', value: null};\n"
+            + "    var type = typeof value;\n"
+            + "    if (type === 'undefined') return {type: 'undefined'};\n"
+            + "    if (type === 'symbol') return {type: 'symbol', description: String(value)};\n"
+            + "    if ((type === 'number') && !isFinite(value)) return {type: 'number', unserializableValue: String(value), description: String(value)};\n"
+            + "    if (byValue || ((type !== 'object') && (type !== 'function'))) return {type: type, value: value, description: String(value)};\n"
+            + "    var id = String(nextObjectId++);\n"
+            + "    objects[id] = value;\n"
+            + "    var result = {type: type, objectId: id, className: className(value), description: describe(value)};\n"
+            + "    if (Array.isArray(value)) result.subtype = 'array';\n"
+            + "    else if (value instanceof Error) result.subtype = 'error';\n"
+            + "    else if (value instanceof RegExp) result.subtype = 'regexp';\n"
+            + "    else if (value instanceof Date) result.subtype = 'date';\n"
+            + "    return result;\n"
+            + "  }\n"
+            + "  function evaluate(fn, params) {\n"
+            + "    try {\n"
+            + "      return {result: remote(fn(), params.returnByValue)};\n"
+            + "    } catch (e) {\n"
+            + "      return {result: remote(e), exceptionDetails: {exceptionId: 1, text: 'Uncaught', lineNumber: 0, columnNumber: 0, exception: remote(e)}};\n"
+            + "    }\n"
+            + "  }\n"
+            + "  function lookup(objectId) {\n"
+            + "    if (!objects.hasOwnProperty(objectId)) throw new Error('Could not find object with given id');\n"
+            + "    return objects[objectId];\n"
+            + "  }\n"
+            + "  function argument(arg) {\n"
+            + "    if (arg.objectId) return lookup(arg.objectId);\n"
+            + "    if (arg.unserializableValue) return Number(arg.unserializableValue);\n"
+            + "    return arg.value;\n"
+            + "  }\n"
+            + "  function checkDebugger() {\n"
+            + "    if (!debug) throw new Error('Debugger is not available, expose the V8 debug object to enable it');\n"
+            + "  }\n"
+            + "  function checkPaused() {\n"
+            + "    if (state === null) throw new Error('Can only perform operation while paused.');\n"
+            + "  }\n"
+            + "  function scriptInfo(id, name, source, lineOffset, columnOffset) {\n"
+            + "    var lines = source ? String(source).split('\\n') : [''];\n"
+            + "    return {scriptId: String(id), url: name || '', startLine: lineOffset || 0, startColumn: columnOffset || 0,\n"
+            + "      endLine: (lineOffset || 0) + lines.length - 1, endColumn: lines[lines.length - 1].length, executionContextId: 1, hash: ''};\n"
+            + "  }\n"
+            + "  function callFrames(execState) {\n"
+            + "    var frames = [];\n"
+            + "    for (var i = 0; i < execState.frameCount(); i++) {\n"
+            + "      var frame = execState.frame(i);\n"
+            + "      var func = frame.func();\n"
+            + "      var script = func.script ? func.script() : undefined;\n"
+            + "      var scopes = [];\n"
+            + "      for (var j = 0; j < frame.scopeCount(); j++) {\n"
+            + "        var scope = frame.scope(j);\n"
+            + "        scopes.push({type: scopeTypes[scope.scopeType()] || 'local', object: remote(scope.scopeObject().value())});\n"
+            + "      }\n"
+            + "      frames.push({callFrameId: String(i), functionName: func.name() || '',\n"
+            + "        location: {scriptId: script ? String(script.id()) : '0', lineNumber: frame.sourceLine(), columnNumber: frame.sourceColumn()},\n"
+            + "        url: script ? (script.name() || '') : '', scopeChain: scopes, this: remote(frame.receiver().value())});\n"
+            + "    }\n"
+            + "    return frames;\n"
+            + "  }\n"
+            + "  function hitBreakpoints(eventData) {\n"
+            + "    var result = [];\n"
+            + "    var hits = (eventData && eventData.breakPointsHit) ? eventData.breakPointsHit() : undefined;\n"
+            + "    for (var i = 0; hits && (i < hits.length); i++) {\n"
+            + "      result.push(String(hits[i].number ? hits[i].number() : hits[i]));\n"
+            + "    }\n"
+            + "    return result;\n"
+            + "  }\n"
+            + "  function resume(next) {\n"
+            + "    checkPaused();\n"
+            + "    action = next;\n"
+            + "    state = null;\n"
+            + "    return {};\n"
+            + "  }\n"
+            + "  function onPause(execState, reason, data, hits) {\n"
+            + "    state = execState;\n"
+            + "    action = null;\n"
+            + "    var params = {callFrames: callFrames(execState), reason: reason, hitBreakpoints: hits};\n"
+            + "    if (data !== undefined) params.data = data;\n"
+            + "    emit('Debugger.paused', params);\n"
+            + "    pause();\n"
+            + "    var step = action;\n"
+            + "    state = null;\n"
+            + "    action = null;\n"
+            + "    objects = {};\n"
+            + "    if (step === 'stepOver') execState.prepareStep(1);\n"
+            + "    else if (step === 'stepInto') execState.prepareStep(2);\n"
+            + "    else if (step === 'stepOut') execState.prepareStep(0);\n"
+            + "    emit('Debugger.resumed', {});\n"
+            + "  }\n"
+            + "  var handlers = {\n"
+            + "    'Runtime.enable': function() {\n"
+            + "      emit('Runtime.executionContextCreated', {context: {id: 1, origin: '', name: 'J2V8'}});\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Runtime.disable': function() { return {}; },\n"
+            + "    'Runtime.runIfWaitingForDebugger': function() { return {}; },\n"
+            + "    'Runtime.getIsolateId': function() { return {id: 'j2v8'}; },\n"
+            + "    'Runtime.evaluate': function(params) {\n"
+            + "      return evaluate(function() { return (0, eval)(params.expression); }, params);\n"
+            + "    },\n"
+            + "    'Runtime.callFunctionOn': function(params) {\n"
+            + "      var fn = (0, eval)('(' + params.functionDeclaration + ')');\n"
+            + "      var receiver = params.objectId ? lookup(params.objectId) : undefined;\n"
+            + "      var args = (params.arguments || []).map(argument);\n"
+            + "      return evaluate(function() { return fn.apply(receiver, args); }, params);\n"
+            + "    },\n"
+            + "    'Runtime.getProperties': function(params) {\n"
+            + "      var object = lookup(params.objectId);\n"
+            + "      var result = [];\n"
+            + "      var names = Object.getOwnPropertyNames(object);\n"
+            + "      for (var i = 0; i < names.length; i++) {\n"
+            + "        var descriptor = Object.getOwnPropertyDescriptor(object, names[i]);\n"
+            + "        var property = {name: names[i], configurable: descriptor.configurable, enumerable: descriptor.enumerable, isOwn: true};\n"
+            + "        if ('value' in descriptor) {\n"
+            + "          property.value = remote(descriptor.value);\n"
+            + "          property.writable = descriptor.writable;\n"
+            + "        } else {\n"
+            + "          if (descriptor.get) property.get = remote(descriptor.get);\n"
+            + "          if (descriptor.set) property.set = remote(descriptor.set);\n"
+            + "        }\n"
+            + "        result.push(property);\n"
+            + "      }\n"
+            + "      var prototype = Object.getPrototypeOf(object);\n"
+            + "      if (prototype && !params.ownProperties) {\n"
+            + "        result.push({name: '__proto__', value: remote(prototype), configurable: true, enumerable: false, isOwn: true});\n"
+            + "      }\n"
+            + "      return {result: result};\n"
+            + "    },\n"
+            + "    'Runtime.releaseObject': function(params) {\n"
+            + "      delete objects[params.objectId];\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Runtime.releaseObjectGroup': function() {\n"
+            + "      if (state === null) objects = {};\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Debugger.enable': function() {\n"
+            + "      checkDebugger();\n"
+            + "      debuggerEnabled = true;\n"
+            + "      var scripts = debug.scripts();\n"
+            + "      for (var i = 0; i < scripts.length; i++) {\n"
+            + "        var script = scripts[i];\n"
+            + "        emit('Debugger.scriptParsed', scriptInfo(script.id, script.name, script.source, script.line_offset, script.column_offset));\n"
+            + "      }\n"
+            + "      return {debuggerId: 'j2v8'};\n"
+            + "    },\n"
+            + "    'Debugger.disable': function() {\n"
+            + "      debuggerEnabled = false;\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Debugger.setBreakpointsActive': function(params) {\n"
+            + "      breakpointsActive = !!params.active;\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Debugger.setPauseOnExceptions': function(params) {\n"
+            + "      checkDebugger();\n"
+            + "      debug.clearBreakOnException();\n"
+            + "      debug.clearBreakOnUncaughtException();\n"
+            + "      if (params.state === 'all') debug.setBreakOnException();\n"
+            + "      else if (params.state === 'uncaught') debug.setBreakOnUncaughtException();\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Debugger.setBreakpointByUrl': function(params) {\n"
+            + "      checkDebugger();\n"
+            + "      var id = debug.setScriptBreakPointByName(params.url, params.lineNumber, params.columnNumber || 0, params.condition || undefined);\n"
+            + "      return {breakpointId: String(id), locations: []};\n"
+            + "    },\n"
+            + "    'Debugger.removeBreakpoint': function(params) {\n"
+            + "      checkDebugger();\n"
+            + "      debug.clearBreakPoint(Number(params.breakpointId));\n"
+            + "      return {};\n"
+            + "    },\n"
+            + "    'Debugger.getScriptSource': function(params) {\n"
+            + "      checkDebugger();\n"
+            + "      var scripts = debug.scripts();\n"
+            + "      for (var i = 0; i < scripts.length; i++) {\n"
+            + "        if (String(scripts[i].id) === params.scriptId) return {scriptSource: String(scripts[i].source)};\n"
+            + "      }\n"
+            + "      throw new Error('No script for id: ' + params.scriptId);\n"
+            + "    },\n"
+            + "    'Debugger.evaluateOnCallFrame': function(params) {\n"
+            + "      checkPaused();\n"
+            + "      var frame = state.frame(Number(params.callFrameId));\n"
+            + "      return evaluate(function() { return frame.evaluate(params.expression, true).value(); }, params);\n"
+            + "    },\n"
+            + "    'Debugger.resume': function() { return resume('resume'); },\n"
+            + "    'Debugger.stepOver': function() { return resume('stepOver'); },\n"
+            + "    'Debugger.stepInto': function() { return resume('stepInto'); },\n"
+            + "    'Debugger.stepOut': function() { return resume('stepOut'); },\n"
+            + "    'Profiler.enable': function() { return {}; },\n"
+            + "    'Profiler.disable': function() { return {}; },\n"
+            + "    'Profiler.setSamplingInterval': function() { return {}; },\n"
+            + "    'Profiler.start': function() { throw new Error('CPU profiling is not supported by this runtime'); },\n"
+            + "    'Profiler.stop': function() { throw new Error('CPU profiling is not supported by this runtime'); },\n"
+            + "    'Schema.getDomains': function() {\n"
+            + "      return {domains: [{name: 'Runtime', version: '1.3'}, {name: 'Debugger', version: '1.3'}]};\n"
+            + "    }\n"
+            + "  };\n"
+            + "  if (debug) {\n"
+            + "    debug.setListener(function(event, execState, eventData) {\n"
+            + "      if (!debuggerEnabled || (state !== null)) return;\n"
+            + "      if ((event === 1) && breakpointsActive) {\n"
+            + "        onPause(execState, 'other', undefined, hitBreakpoints(eventData));\n"
+            + "      } else if (event === 2) {\n"
+            + "        onPause(execState, 'exception', remote(eventData.exception()), []);\n"
+            + "      } else if (event === 5) {\n"
+            + "        var script = eventData.script();\n"
+            + "        emit('Debugger.scriptParsed', scriptInfo(script.id(), script.name(), script.source(), script.lineOffset(), script.columnOffset()));\n"
+            + "      }\n"
+            + "    });\n"
+            + "  }\n"
+            + "  return {\n"
+            + "    dispatch: function(json) {\n"
+            + "      var message = JSON.parse(json);\n"
+            + "      if (!handlers.hasOwnProperty(message.method)) {\n"
+            + "        return JSON.stringify({id: message.id, error: {code: -32601, message: '\\'' + message.method + '\\' wasn\\'t found'}});\n"
+            + "      }\n"
+            + "      try {\n"
+            + "        return JSON.stringify({id: message.id, result: handlers[message.method](message.params || {})});\n"
+            + "      } catch (e) {\n"
+            + "        return JSON.stringify({id: message.id, error: {code: -32000, message: String((e && e.message) || e)}});\n"
+            + "      }\n"
+            + "    },\n"
+            + "    isPaused: function() {\n"
+            + "      return state !== null;\n"
+            + "    },\n"
+            + "    detach: function() {\n"
+            + "      debuggerEnabled = false;\n"
+            + "      objects = {};\n"
+            + "      if (state !== null) resume('resume');\n"
+            + "    }\n"
+            + "  };\n"
+            + "})\n";
+
+    private final V8                          runtime;
+    private V8Object                          debugObject;
+    private V8Object                          agent;
+    private V8Function                        sendFunction;
+    private V8Function                        pauseFunction;
+    private ServerSocketChannel               server;
+    private Selector                          selector;
+    private volatile boolean                  stopped   = false;
+    private volatile int                      sessionId = 0;
+    private int                               attachedSessionId;
+    private Object                            clientLock = new Object();
+    private Connection                        session;
+    private final String                      targetId  = UUID.randomUUID().toString();
+
+    private BlockingQueue<String>             messages  = new LinkedBlockingQueue<String>();
+    private ConcurrentLinkedQueue<ByteBuffer> responses = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * Creates a V8Inspector for the given runtime. The inspector must be
+     * created on the V8 thread. The inspector listens on the loopback
+     * interface once {@link #start()} is called.
+     *
+     * @param runtime The runtime to inspect.
+     * @param port The port to listen on, or 0 to pick a free port.
+     */
+    public V8Inspector(final V8 runtime, final int port) {
+        this.runtime = runtime;
+        if (runtime.getType(DebugHandler.DEBUG_OBJECT_NAME) == V8Value.V8_OBJECT) {
+            V8Object debugScope = runtime.getObject(DebugHandler.DEBUG_OBJECT_NAME);
+            try {
+                debugObject = debugScope.getObject(DEBUG_OBJECT);
+            } finally {
+                debugScope.close();
+            }
+        }
+        sendFunction = new V8Function(runtime, new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                send(parameters.getString(0));
+                return null;
+            }
+        });
+        pauseFunction = new V8Function(runtime, new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Object receiver, final V8Array parameters) {
+                pauseLoop();
+                return null;
+            }
+        });
+        V8Function factory = (V8Function) runtime.executeObjectScript(AGENT_SCRIPT);
+        V8Array parameters = new V8Array(runtime);
+        try {
+            if (debugObject != null) {
+                parameters.push(debugObject);
+            } else {
+                parameters.pushUndefined();
+            }
+            parameters.push(sendFunction).push(pauseFunction);
+            agent = (V8Object) factory.call(null, parameters);
+        } finally {
+            parameters.close();
+            factory.close();
+        }
+        attachedSessionId = sessionId;
+        try {
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port));
+            server.configureBlocking(false);
+        } catch (IOException e) {
+            logError(e);
+            closeChannels();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns port on which the inspector is listening or -1 if it failed to bind to a port.
+     *
+     * @return port or -1 if the inspector failed to bind to a port
+     */
+    public int getPort() {
+        return (server != null) && server.socket().isBound() ? server.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * Returns the WebSocket URL tools use to connect to this inspector.
+     *
+     * @return The WebSocket URL.
+     */
+    public String getWebSocketUrl() {
+        return "ws://127.0.0.1:" + getPort() + "/" + targetId;
+    }
+
+    /**
+     * Returns a URL that opens Chrome DevTools connected to this inspector.
+     *
+     * @return The DevTools URL.
+     */
+    public String getDevToolsUrl() {
+        return "devtools://devtools/bundled/js_app.html?experiments=true&v8only=true&ws=127.0.0.1:" + getPort() + "/" + targetId;
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        if (server == null) {
+            return;
+        }
+        try {
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            logError(e);
+            return;
+        }
+        Thread selectorThread = new Thread(new SelectorLoop(), "J2V8 Inspector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Stops the inspector, disconnects all tools and releases its resources.
+     * This must be called on the V8 thread.
+     */
+    public void stop() {
+        stopped = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        closeChannels();
+        if (agent != null) {
+            agent.executeVoidFunction(DETACH, null);
+            agent.close();
+            agent = null;
+        }
+        if (debugObject != null) {
+            V8Array parameters = new V8Array(runtime);
+            try {
+                parameters.pushNull();
+                debugObject.executeVoidFunction(SET_LISTENER, parameters);
+            } finally {
+                parameters.close();
+            }
+            debugObject.close();
+            debugObject = null;
+        }
+        if (sendFunction != null) {
+            sendFunction.close();
+            sendFunction = null;
+        }
+        if (pauseFunction != null) {
+            pauseFunction.close();
+            pauseFunction = null;
+        }
+    }
+
+    /**
+     * Returns true if a tool is attached over a WebSocket.
+     *
+     * @return True if a tool is attached, false otherwise.
+     */
+    public boolean isConnected() {
+        synchronized (clientLock) {
+            return session != null;
+        }
+    }
+
+    /**
+     * Processes protocol messages on the V8 thread. Messages that are
+     * already queued are processed immediately. If a timeout is given, the
+     * calling thread keeps processing messages as they arrive until the
+     * timeout elapses.
+     *
+     * @param timeout The time in milliseconds to keep processing messages.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void processMessages(final long timeout) throws InterruptedException {
+        if ((server == null) || (agent == null)) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            String message = messages.poll();
+            if (message == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if ((timeout <= 0) || (remaining <= 0)) {
+                    return;
+                }
+                message = messages.poll(remaining, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    return;
+                }
+            }
+            dispatch(message);
+        }
+    }
+
+    protected void logError(final Throwable t) {
+        t.printStackTrace();
+    }
+
+    private void dispatch(final String message) {
+        if (attachedSessionId != sessionId) {
+            // a new tool attached, forget the state of the previous one
+            attachedSessionId = sessionId;
+            agent.executeVoidFunction(DETACH, null);
+        }
+        V8Array parameters = new V8Array(runtime);
+        try {
+            parameters.push(message);
+            send(agent.executeStringFunction(DISPATCH, parameters));
+        } catch (Exception e) {
+            logError(e);
+        } finally {
+            parameters.close();
+        }
+    }
+
+    private void pauseLoop() {
+        while (agent.executeBooleanFunction(IS_PAUSED, null)) {
+            if (stopped || !isConnected() || (attachedSessionId != sessionId)) {
+                agent.executeVoidFunction(DETACH, null);
+                return;
+            }
+            try {
+                String message = messages.poll(PAUSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    dispatch(message);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                agent.executeVoidFunction(DETACH, null);
+                return;
+            }
+        }
+    }
+
+    private void send(final String json) {
+        if (!isConnected()) {
+            return;
+        }
+        responses.add(WebSocketCodec.encodeText(json));
+        selector.wakeup();
+    }
+
+    private void closeChannels() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+            if ((selector != null) && stopped) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+        } catch (Exception e) {
+            logError(e);
+        }
+    }
+
+    private String getTargetList() {
+        return "[{\"description\":\"J2V8 instance\","
+                + "\"devtoolsFrontendUrl\":\"" + getDevToolsUrl() + "\","
+                + "\"id\":\"" + targetId + "\","
+                + "\"title\":\"J2V8\","
+                + "\"type\":\"node\","
+                + "\"url\":\"\","
+                + "\"webSocketDebuggerUrl\":\"" + getWebSocketUrl() + "\"}]";
+    }
+
+    private static class Connection {
+        private final SocketChannel          channel;
+        private final WebSocketCodec         codec    = new WebSocketCodec(BUFFER_SIZE);
+        private final LinkedList<ByteBuffer> outgoing = new LinkedList<ByteBuffer>();
+        private boolean                      upgraded;
+        private boolean                      closeAfterWrite;
+
+        Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private class SelectorLoop implements Runnable {
+
+        private final List<String>     received = new ArrayList<String>();
+        private final List<ByteBuffer> replies  = new ArrayList<ByteBuffer>();
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    selector.select();
+                    if (stopped) {
+                        break;
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        try {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(key, (Connection) key.attachment());
+                            }
+                        } catch (IOException e) {
+                            close(key);
+                        }
+                    }
+                    writeResponses();
+                } catch (Exception e) {
+                    if (!stopped) {
+                        logError(e);
+                    }
+                }
+            }
+        }
+
+        private void accept() {
+            SocketChannel channel = null;
+            try {
+                channel = server.accept();
+                if (channel == null) {
+                    return;
+                }
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+            } catch (IOException e) {
+                logError(e);
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ex) {
+                        // ignore
+                    }
+                }
+            }
+        }
+
+        private void read(final SelectionKey key) throws IOException {
+            Connection connection = (Connection) key.attachment();
+            if (connection.channel.read(connection.codec.getReadBuffer()) < 0) {
+                close(key);
+                return;
+            }
+            if (!connection.upgraded) {
+                String request = connection.codec.readHttpRequest();
+                if (request == null) {
+                    return;
+                }
+                handleHttpRequest(connection, request);
+                if (!connection.upgraded) {
+                    flush(key, connection);
+                    return;
+                }
+            }
+            connection.codec.parse(received, replies);
+            messages.addAll(received);
+            received.clear();
+            connection.outgoing.addAll(replies);
+            replies.clear();
+            if (connection.codec.isClosed()) {
+                connection.closeAfterWrite = true;
+            }
+            flush(key, connection);
+        }
+
+        private void handleHttpRequest(final Connection connection, final String request) {
+            String[] lines = request.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            String path = requestLine.length > 1 ? requestLine[1] : "/";
+            Map<String, String> headers = new HashMap<String, String>();
+            for (int i = 1; i < lines.length; i++) {
+                int separator = lines[i].indexOf(':');
+                if (separator > 0) {
+                    headers.put(lines[i].substring(0, separator).trim().toLowerCase(Locale.US), lines[i].substring(separator + 1).trim());
+                }
+            }
+            // browsers send an Origin, tools do not. Checking the Host stops DNS rebinding.
+            if (headers.containsKey("origin") || !isLocalHost(headers.get("host"))) {
+                respond(connection, "403 Forbidden", "text/plain", "Forbidden");
+            } else if (("/" + targetId).equals(path) && "websocket".equalsIgnoreCase(headers.get("upgrade"))
+                    && headers.containsKey("sec-websocket-key")) {
+                synchronized (clientLock) {
+                    if (session != null) {
+                        respond(connection, "409 Conflict", "text/plain", "A debugger is already attached");
+                        return;
+                    }
+                    session = connection;
+                    sessionId++;
+                }
+                String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                        + "Upgrade: websocket\r\n"
+                        + "Connection: Upgrade\r\n"
+                        + "Sec-WebSocket-Accept: " + WebSocketCodec.acceptKey(headers.get("sec-websocket-key")) + "\r\n\r\n";
+                connection.outgoing.add(ByteBuffer.wrap(response.getBytes(CHARSET)));
+                connection.upgraded = true;
+            } else if ("/json".equals(path) || "/json/list".equals(path)) {
+                respond(connection, "200 OK", "application/json", getTargetList());
+            } else if ("/json/version".equals(path)) {
+                respond(connection, "200 OK", "application/json", "{\"Browser\":\"J2V8\",\"Protocol-Version\":\"1.3\"}");
+            } else {
+                respond(connection, "404 Not Found", "text/plain", "Not found");
+            }
+        }
+
+        private boolean isLocalHost(final String host) {
+            if (host == null) {
+                return false;
+            }
+            String name = host;
+            int separator = host.lastIndexOf(':');
+            if (separator >= 0) {
+                if (!host.substring(separator + 1).equals(String.valueOf(getPort()))) {
+                    return false;
+                }
+                name = host.substring(0, separator);
+            }
+            return "localhost".equalsIgnoreCase(name) || "127.0.0.1".equals(name);
+        }
+
+        private void respond(final Connection connection, final String status, final String contentType, final String body) {
+            byte[] content = body.getBytes(CHARSET);
+            String header = "HTTP/1.1 " + status + "\r\n"
+                    + "Content-Type: " + contentType + "; charset=UTF-8\r\n"
+                    + "Content-Length: " + content.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            byte[] headerBytes = header.getBytes(CHARSET);
+            ByteBuffer response = ByteBuffer.allocate(headerBytes.length + content.length);
+            response.put(headerBytes).put(content).flip();
+            connection.outgoing.add(response);
+            connection.closeAfterWrite = true;
+        }
+
+        private void writeResponses() {
+            Connection current;
+            synchronized (clientLock) {
+                current = session;
+            }
+            if (current == null) {
+                responses.clear();
+                return;
+            }
+            ByteBuffer response;
+            while ((response = responses.poll()) != null) {
+                current.outgoing.add(response);
+            }
+            SelectionKey key = current.channel.keyFor(selector);
+            if (key != null) {
+                flush(key, current);
+            }
+        }
+
+        private void flush(final SelectionKey key, final Connection connection) {
+            try {
+                while (!connection.outgoing.isEmpty()) {
+                    ByteBuffer buffer = connection.outgoing.getFirst();
+                    connection.channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    connection.outgoing.removeFirst();
+                }
+                if (connection.closeAfterWrite) {
+                    close(key);
+                } else if (key.isValid()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (IOException e) {
+                close(key);
+            }
+        }
+
+        private void close(final SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            synchronized (clientLock) {
+                if (session == connection) {
+                    session = null;
+                }
+            }
+        }
+    }
+
+}
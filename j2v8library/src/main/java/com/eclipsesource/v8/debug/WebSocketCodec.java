@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Reads the HTTP upgrade request and the WebSocket frames (RFC 6455) of a
+ * single connection, and encodes frames sent by the server. Bytes are read
+ * into one reusable buffer, which only grows if a frame does not fit.
+ *
+ * This class is not considered API.
+ */
+class WebSocketCodec {
+
+    static final int             OPCODE_CONTINUATION = 0x0;
+    static final int             OPCODE_TEXT         = 0x1;
+    static final int             OPCODE_BINARY       = 0x2;
+    static final int             OPCODE_CLOSE        = 0x8;
+    static final int             OPCODE_PING         = 0x9;
+    static final int             OPCODE_PONG         = 0xA;
+
+    private static final Charset CHARSET             = Charset.forName("UTF-8");
+    private static final String  WEBSOCKET_GUID      = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final byte[]  HEADER_END          = "\r\n\r\n".getBytes(CHARSET);
+    private static final char[]  BASE64              = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int     MIN_READ_SPACE      = 1024;
+    private static final int     MAX_MESSAGE_LENGTH  = 64 * 1024 * 1024;
+    private static final int     MAX_REQUEST_LENGTH  = 8 * 1024;
+
+    private final int             maxMessageLength;
+    private ByteBuffer            buffer;
+    private int                   required           = MIN_READ_SPACE;
+    private int                   requestScanned     = 0;
+    private ByteArrayOutputStream fragments          = new ByteArrayOutputStream();
+    private boolean               fragmented         = false;
+    private boolean               closed             = false;
+
+    WebSocketCodec(final int initialCapacity) {
+        this(initialCapacity, MAX_MESSAGE_LENGTH);
+    }
+
+    WebSocketCodec(final int initialCapacity, final int maxMessageLength) {
+        buffer = ByteBuffer.allocate(initialCapacity);
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * Returns the buffer into which the next bytes should be read. The
+     * buffer is positioned after any pending bytes.
+     *
+     * @return The buffer to read into.
+     */
+    ByteBuffer getReadBuffer() {
+        if ((buffer.remaining() < MIN_READ_SPACE) || (buffer.capacity() < required)) {
+            grow(Math.max(buffer.capacity() * 2, buffer.position() + Math.max(required, MIN_READ_SPACE)));
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads the HTTP request that opens the connection, if it has been
+     * received completely.
+     *
+     * @return The request line and headers, or null if more bytes are needed.
+     *
+     * @throws IOException If the request is longer than 8 KB.
+     */
+    String readHttpRequest() throws IOException {
+        buffer.flip();
+        try {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int start = buffer.position();
+            int last = Math.min(buffer.limit(), start + MAX_REQUEST_LENGTH + HEADER_END.length) - HEADER_END.length;
+            // resume where the previous read stopped instead of rescanning the request
+            for (int i = start + requestScanned; i <= last; i++) {
+                int j = 0;
+                while ((j < HEADER_END.length) && (array[offset + i + j] == HEADER_END[j])) {
+                    j++;
+                }
+                if (j == HEADER_END.length) {
+                    String request = new String(array, offset + start, i - start, CHARSET);
+                    buffer.position(i + HEADER_END.length);
+                    requestScanned = 0;
+                    return request;
+                }
+            }
+            if ((buffer.limit() - start) >= (MAX_REQUEST_LENGTH + HEADER_END.length)) {
+                throw new IOException("Request too large");
+            }
+            requestScanned = Math.max(0, (last + 1) - start);
+            return null;
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Parses all complete frames read so far. Text and binary messages are
+     * added to the message list, and replies to control frames are added to
+     * the reply list. Incomplete frames are kept until more bytes are read.
+     *
+     * @param messages The list to which complete messages are added.
+     * @param replies The list to which frames that must be sent back are added.
+     *
+     * @throws IOException If a frame violates the protocol.
+     */
+    void parse(final List<String> messages, final List<ByteBuffer> replies) throws IOException {
+        buffer.flip();
+        try {
+            while (!closed && parseFrame(messages, replies)) {
+                // continue with the next frame
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Returns true once a close frame has been received.
+     *
+     * @return True if the connection was closed by the client.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Encodes a text message as a single, unmasked frame.
+     *
+     * @param message The message to encode.
+     *
+     * @return The encoded frame, ready to be written.
+     */
+    static ByteBuffer encodeText(final String message) {
+        return encode(OPCODE_TEXT, message.getBytes(CHARSET));
+    }
+
+    /**
+     * Encodes a frame as sent by a server, that is without a mask.
+     *
+     * @param opcode The opcode of the frame.
+     * @param payload The payload of the frame.
+     *
+     * @return The encoded frame, ready to be written.
+     */
+    static ByteBuffer encode(final int opcode, final byte[] payload) {
+        int headerLength = payload.length < 126 ? 2 : (payload.length <= 0xFFFF ? 4 : 10);
+        ByteBuffer frame = ByteBuffer.allocate(headerLength + payload.length);
+        frame.put((byte) (0x80 | opcode));
+        if (payload.length < 126) {
+            frame.put((byte) payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.put((byte) 126);
+            frame.putShort((short) payload.length);
+        } else {
+            frame.put((byte) 127);
+            frame.putLong(payload.length);
+        }
+        frame.put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Computes the Sec-WebSocket-Accept value for a Sec-WebSocket-Key.
+     *
+     * @param key The key sent by the client.
+     *
+     * @return The value to send in the handshake response.
+     */
+    static String acceptKey(final String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return base64(sha1.digest((key.trim() + WEBSOCKET_GUID).getBytes(CHARSET)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String base64(final byte[] bytes) {
+        StringBuilder result = new StringBuilder(((bytes.length + 2) / 3) * 4);
+        for (int i = 0; i < bytes.length; i += 3) {
+            int b0 = bytes[i] & 0xFF;
+            int b1 = (i + 1) < bytes.length ? bytes[i + 1] & 0xFF : 0;
+            int b2 = (i + 2) < bytes.length ? bytes[i + 2] & 0xFF : 0;
+            result.append(BASE64[b0 >> 2]);
+            result.append(BASE64[((b0 & 0x03) << 4) | (b1 >> 4)]);
+            result.append((i + 1) < bytes.length ? BASE64[((b1 & 0x0F) << 2) | (b2 >> 6)] : '=');
+            result.append((i + 2) < bytes.length ? BASE64[b2 & 0x3F] : '=');
+        }
+        return result.toString();
+    }
+
+    private boolean parseFrame(final List<String> messages, final List<ByteBuffer> replies) throws IOException {
+        int start = buffer.position();
+        if (buffer.remaining() < 2) {
+            return false;
+        }
+        int b0 = buffer.get(start) & 0xFF;
+        int b1 = buffer.get(start + 1) & 0xFF;
+        boolean fin = (b0 & 0x80) != 0;
+        int opcode = b0 & 0x0F;
+        if ((b1 & 0x80) == 0) {
+            throw new IOException("Client frames must be masked");
+        }
+        int headerLength = 2;
+        long length = b1 & 0x7F;
+        if (length == 126) {
+            headerLength += 2;
+            if (buffer.remaining() < headerLength) {
+                return false;
+            }
+            length = buffer.getShort(start + 2) & 0xFFFF;
+        } else if (length == 127) {
+            headerLength += 8;
+            if (buffer.remaining() < headerLength) {
+                return false;
+            }
+            length = buffer.getLong(start + 2);
+        }
+        if ((length < 0) || (length > maxMessageLength)) {
+            throw new IOException("Frame too large: " + length);
+        }
+        headerLength += 4;
+        int frameLength = headerLength + (int) length;
+        if (buffer.remaining() < frameLength) {
+            required = frameLength;
+            return false;
+        }
+        required = MIN_READ_SPACE;
+        byte[] array = buffer.array();
+        int maskOffset = buffer.arrayOffset() + start + (headerLength - 4);
+        int payloadOffset = buffer.arrayOffset() + start + headerLength;
+        for (int i = 0; i < length; i++) {
+            array[payloadOffset + i] ^= array[maskOffset + (i & 3)];
+        }
+        buffer.position(start + frameLength);
+        handleFrame(fin, opcode, array, payloadOffset, (int) length, messages, replies);
+        return true;
+    }
+
+    private void handleFrame(final boolean fin, final int opcode, final byte[] array, final int offset, final int length,
+            final List<String> messages, final List<ByteBuffer> replies) throws IOException {
+        switch (opcode) {
+            case OPCODE_TEXT:
+            case OPCODE_BINARY:
+                if (fragmented) {
+                    throw new IOException("Expected a continuation frame");
+                }
+                if (fin) {
+                    messages.add(new String(array, offset, length, CHARSET));
+                } else {
+                    fragments.reset();
+                    fragments.write(array, offset, length);
+                    fragmented = true;
+                }
+                break;
+            case OPCODE_CONTINUATION:
+                if (!fragmented) {
+                    throw new IOException("Unexpected continuation frame");
+                }
+                if ((fragments.size() + length) > maxMessageLength) {
+                    throw new IOException("Message too large: " + (fragments.size() + length));
+                }
+                fragments.write(array, offset, length);
+                if (fin) {
+                    messages.add(new String(fragments.toByteArray(), CHARSET));
+                    fragments.reset();
+                    fragmented = false;
+                }
+                break;
+            case OPCODE_PING:
+                replies.add(encode(OPCODE_PONG, copy(array, offset, length)));
+                break;
+            case OPCODE_PONG:
+                break;
+            case OPCODE_CLOSE:
+                replies.add(encode(OPCODE_CLOSE, copy(array, offset, Math.min(length, 2))));
+                closed = true;
+                break;
+            default:
+                throw new IOException("Unknown opcode: " + opcode);
+        }
+    }
+
+    private static byte[] copy(final byte[] array, final int offset, final int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(array, offset, result, 0, length);
+        return result;
+    }
+
+    private void grow(final int capacity) {
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+}
@@ -10,7 +10,9 @@
  ******************************************************************************/
 package com.eclipsesource.v8.debug.mirror;
 
+import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
 import com.eclipsesource.v8.V8Object;
 
 /**
@@ -35,6 +37,77 @@ public class Frame extends Mirror {
     private static final String LOCAL_NAME      = "localName";
     private static final String LOCAL_VALUE     = "localValue";
     private static final String SOURCE_LOCATION = "sourceLocation";
+    private static final String SNAPSHOT_SCRIPT = "(function(frame, depth) {\n"
+            + "  var tokens = [];\n"
+            + "  function properties(object, level) {\n"
+            + "    var names = Object.getOwnPropertyNames(object);\n"
+            + "    tokens.push(String(names.length));\n"
+            + "    for (var i = 0; i < names.length; i++) {\n"
+            + "      var descriptor = Object.getOwnPropertyDescriptor(object, names[i]);\n"
+            + "      tokens.push(names[i]);\n"
+            + "      if (descriptor && ('value' in descriptor)) {\n"
+            + "        value(descriptor.value, level);\n"
+            + "      } else {\n"
+            + "        tokens.push('g');\n"
+            + "      }\n"
+            + "    }\n"
+            + "  }\n"
+            + "  function value(v, level) {\n"
+            + "    var type = typeof v;\n"
+            + "    if (v === undefined) {\n"
+            + "      tokens.push('u');\n"
+            + "    } else if (v === null) {\n"
+            + "      tokens.push('n');\n"
+            + "    } else if (type === 'boolean') {\n"
+            + "      tokens.push('b', String(v));\n"
+            + "    } else if (type === 'number') {\n"
+            + "      tokens.push('d', String(v));\n"
+            + "    } else if (type === 'string') {\n"
+            + "      tokens.push('s', v);\n"
+            + "    } else if (type === 'symbol') {\n"
+            + "      tokens.push('y', String(v));\n"
+            + "    } else {\n"
+            + "      var constructor = v.constructor;\n"
+            + "      var className = (typeof constructor === 'function') && constructor.name;\n"
+            + "      tokens.push(type === 'function' ? 'f' : (Array.isArray(v) ? 'a' : 'o'), className || 'Object');\n"
+            + "      if (level >= depth) {\n"
+            + "        tokens.push('-1');\n"
+            + "      } else {\n"
+            + "        properties(v, level + 1);\n"
+            + "      }\n"
+            + "    }\n"
+            + "  }\n"
+            + "  var func = frame.func();\n"
+            + "  var location = frame.sourceLocation();\n"
+            + "  var script = location && location.script;\n"
+            + "  tokens.push((func && func.name && func.name()) || '', (script && script.name) || '',\n"
+            + "      String(location ? location.line : -1), String(location ? location.column : -1));\n"
+            + "  var count = frame.argumentCount();\n"
+            + "  tokens.push(String(count));\n"
+            + "  for (var i = 0; i < count; i++) {\n"
+            + "    tokens.push(frame.argumentName(i) || String(i));\n"
+            + "    value(frame.argumentValue(i).value(), 0);\n"
+            + "  }\n"
+            + "  count = frame.localCount();\n"
+            + "  tokens.push(String(count));\n"
+            + "  for (i = 0; i < count; i++) {\n"
+            + "    tokens.push(frame.localName(i));\n"
+            + "    value(frame.localValue(i).value(), 0);\n"
+            + "  }\n"
+            + "  count = frame.scopeCount();\n"
+            + "  tokens.push(String(count));\n"
+            + "  for (i = 0; i < count; i++) {\n"
+            + "    var scope = frame.scope(i);\n"
+            + "    var object = scope.scopeObject().value();\n"
+            + "    tokens.push(String(scope.scopeType()));\n"
+            + "    if ((object !== null) && (typeof object === 'object')) {\n"
+            + "      properties(object, 0);\n"
+            + "    } else {\n"
+            + "      tokens.push('0');\n"
+            + "    }\n"
+            + "  }\n"
+            + "  return tokens;\n"
+            + "})";
 
     public Frame(final V8Object v8Object) {
         super(v8Object);
@@ -217,6 +290,44 @@ public class Frame extends Mirror {
         }
     }
 
+    /**
+     * Captures the location, arguments, locals and scope chain of this
+     * frame as plain Java objects. The values are collected by a single
+     * script and returned as one array of strings, instead of creating and
+     * releasing a mirror for every value. Objects are expanded up to the
+     * given depth; a depth of 0 only captures the variables themselves.
+     *
+     * Only data properties are read, so getters are never invoked.
+     *
+     * @param depth The number of object levels to expand.
+     * @return A snapshot of this frame.
+     */
+    public FrameSnapshot snapshot(final int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+        V8 runtime = v8Object.getRuntime();
+        V8Function collector = null;
+        V8Array parameters = null;
+        V8Array tokens = null;
+        try {
+            collector = (V8Function) runtime.executeObjectScript(SNAPSHOT_SCRIPT);
+            parameters = new V8Array(runtime).push(v8Object).push(depth);
+            tokens = (V8Array) collector.call(null, parameters);
+            return new SnapshotReader(tokens.getStrings(0, tokens.length())).readFrame();
+        } finally {
+            if (tokens != null) {
+                tokens.close();
+            }
+            if (parameters != null) {
+                parameters.close();
+            }
+            if (collector != null) {
+                collector.close();
+            }
+        }
+    }
+
     @Override
     public boolean isFrame() {
         return true;
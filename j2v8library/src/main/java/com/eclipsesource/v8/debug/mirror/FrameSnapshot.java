@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug.mirror;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A plain Java copy of a stack frame, created by {@link Frame#snapshot(int)}.
+ * The snapshot can be inspected after the runtime has resumed.
+ */
+public class FrameSnapshot {
+
+    private final String                     functionName;
+    private final String                     scriptName;
+    private final int                        line;
+    private final int                        column;
+    private final Map<String, ValueSnapshot> arguments;
+    private final Map<String, ValueSnapshot> locals;
+    private final List<ScopeSnapshot>        scopes;
+
+    FrameSnapshot(final String functionName, final String scriptName, final int line, final int column,
+            final Map<String, ValueSnapshot> arguments, final Map<String, ValueSnapshot> locals, final List<ScopeSnapshot> scopes) {
+        this.functionName = functionName;
+        this.scriptName = scriptName;
+        this.line = line;
+        this.column = column;
+        this.arguments = Collections.unmodifiableMap(arguments);
+        this.locals = Collections.unmodifiableMap(locals);
+        this.scopes = Collections.unmodifiableList(scopes);
+    }
+
+    /**
+     * Returns the name of the function of this frame, or an empty
+     * String for anonymous functions.
+     *
+     * @return The name of the function.
+     */
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * Returns the name of the script of this frame, or an empty
+     * String if the script has no name.
+     *
+     * @return The name of the script.
+     */
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    /**
+     * Returns the line the frame is currently executing.
+     *
+     * @return The current line.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the column the frame is currently executing.
+     *
+     * @return The current column.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the arguments passed to the frame in declaration order.
+     *
+     * @return The arguments of the frame.
+     */
+    public Map<String, ValueSnapshot> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns the local variables of the frame in declaration order.
+     *
+     * @return The local variables of the frame.
+     */
+    public Map<String, ValueSnapshot> getLocals() {
+        return locals;
+    }
+
+    /**
+     * Returns the scope chain of the frame, from the innermost scope
+     * to the global scope.
+     *
+     * @return The scope chain.
+     */
+    public List<ScopeSnapshot> getScopes() {
+        return scopes;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug.mirror;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.eclipsesource.v8.debug.mirror.Scope.ScopeType;
+
+/**
+ * A plain Java copy of a scope in the scope chain of a frame.
+ */
+public class ScopeSnapshot {
+
+    private final ScopeType                  type;
+    private final Map<String, ValueSnapshot> variables;
+
+    ScopeSnapshot(final ScopeType type, final Map<String, ValueSnapshot> variables) {
+        this.type = type;
+        this.variables = Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Returns the type of this scope.
+     *
+     * @return The type of scope.
+     */
+    public ScopeType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the variables of this scope in the order they are defined.
+     *
+     * @return The variables of this scope.
+     */
+    public Map<String, ValueSnapshot> getVariables() {
+        return variables;
+    }
+
+}
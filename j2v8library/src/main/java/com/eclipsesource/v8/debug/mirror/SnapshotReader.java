@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug.mirror;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.v8.debug.mirror.Scope.ScopeType;
+import com.eclipsesource.v8.debug.mirror.ValueSnapshot.Type;
+
+/**
+ * Decodes the flat list of tokens produced by the snapshot script into
+ * snapshot objects. The frame is written as its function name, script
+ * name, line and column, followed by the arguments, the locals and the
+ * scopes. Each list is preceded by its length; each scope by its type.
+ *
+ * A value starts with a one character type code, followed by its payload.
+ * Objects, arrays and functions carry their class name and the number of
+ * properties, or -1 if they were truncated, followed by name/value pairs.
+ *
+ * This class is not considered API.
+ */
+class SnapshotReader {
+
+    private final String[] tokens;
+    private int            position = 0;
+
+    SnapshotReader(final String[] tokens) {
+        this.tokens = tokens;
+    }
+
+    FrameSnapshot readFrame() {
+        String functionName = next();
+        String scriptName = next();
+        int line = nextInt();
+        int column = nextInt();
+        Map<String, ValueSnapshot> arguments = readProperties(nextInt());
+        Map<String, ValueSnapshot> locals = readProperties(nextInt());
+        int scopeCount = nextInt();
+        List<ScopeSnapshot> scopes = new ArrayList<ScopeSnapshot>(scopeCount);
+        for (int i = 0; i < scopeCount; i++) {
+            ScopeType type = ScopeType.values()[nextInt()];
+            scopes.add(new ScopeSnapshot(type, readProperties(nextInt())));
+        }
+        if (position != tokens.length) {
+            throw new IllegalStateException("Unexpected tokens after frame snapshot");
+        }
+        return new FrameSnapshot(functionName, scriptName, line, column, arguments, locals, scopes);
+    }
+
+    ValueSnapshot readValue() {
+        String code = next();
+        if (code.length() != 1) {
+            throw new IllegalStateException("Invalid value type: " + code);
+        }
+        switch (code.charAt(0)) {
+            case 'u':
+                return new ValueSnapshot(Type.UNDEFINED, null);
+            case 'n':
+                return new ValueSnapshot(Type.NULL, null);
+            case 'g':
+                return new ValueSnapshot(Type.ACCESSOR, null);
+            case 'b':
+                return new ValueSnapshot(Type.BOOLEAN, Boolean.valueOf(next()));
+            case 'd':
+                return new ValueSnapshot(Type.NUMBER, Double.valueOf(next()));
+            case 's':
+                return new ValueSnapshot(Type.STRING, next());
+            case 'y':
+                return new ValueSnapshot(Type.SYMBOL, next());
+            case 'o':
+                return readObject(Type.OBJECT);
+            case 'a':
+                return readObject(Type.ARRAY);
+            case 'f':
+                return readObject(Type.FUNCTION);
+            default:
+                throw new IllegalStateException("Invalid value type: " + code);
+        }
+    }
+
+    private ValueSnapshot readObject(final Type type) {
+        String className = next();
+        int count = nextInt();
+        if (count < 0) {
+            return new ValueSnapshot(type, null, className, new LinkedHashMap<String, ValueSnapshot>(), true);
+        }
+        return new ValueSnapshot(type, null, className, readProperties(count), false);
+    }
+
+    private Map<String, ValueSnapshot> readProperties(final int count) {
+        Map<String, ValueSnapshot> result = new LinkedHashMap<String, ValueSnapshot>();
+        for (int i = 0; i < count; i++) {
+            String name = next();
+            result.put(name, readValue());
+        }
+        return result;
+    }
+
+    private String next() {
+        if (position >= tokens.length) {
+            throw new IllegalStateException("Frame snapshot ended unexpectedly");
+        }
+        return tokens[position++];
+    }
+
+    private int nextInt() {
+        String token = next();
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid count in frame snapshot: " + token);
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug.mirror;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A plain Java copy of a JavaScript value, taken while the runtime
+ * is paused. Snapshots do not hold any V8 handles, and do not need
+ * to be released.
+ *
+ * Objects, arrays and functions include their own properties up to
+ * the depth the snapshot was taken with. Deeper values are truncated.
+ */
+public class ValueSnapshot {
+
+    /**
+     * The types of values a snapshot can hold.
+     */
+    public static enum Type {
+        UNDEFINED, NULL, BOOLEAN, NUMBER, STRING, SYMBOL, OBJECT, ARRAY, FUNCTION, ACCESSOR
+    }
+
+    private final Type                       type;
+    private final Object                     value;
+    private final String                     className;
+    private final Map<String, ValueSnapshot> properties;
+    private final boolean                    truncated;
+
+    ValueSnapshot(final Type type, final Object value) {
+        this(type, value, null, Collections.<String, ValueSnapshot> emptyMap(), false);
+    }
+
+    ValueSnapshot(final Type type, final Object value, final String className, final Map<String, ValueSnapshot> properties, final boolean truncated) {
+        this.type = type;
+        this.value = value;
+        this.className = className;
+        this.properties = Collections.unmodifiableMap(properties);
+        this.truncated = truncated;
+    }
+
+    /**
+     * Returns the type of this value.
+     *
+     * @return The type of this value.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value of a primitive. Booleans are returned as Boolean,
+     * numbers as Double, strings and symbol descriptions as String. For
+     * all other types null is returned.
+     *
+     * @return The primitive value, or null.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the name of the constructor of an object, array or function,
+     * or null for primitives.
+     *
+     * @return The class name, or null.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the own properties of an object, array or function in the
+     * order they are defined. The map is empty for primitives, and for
+     * values beyond the depth of the snapshot.
+     *
+     * @return The properties of this value.
+     */
+    public Map<String, ValueSnapshot> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns true if this value is an object whose properties were not
+     * collected because it is beyond the depth of the snapshot.
+     *
+     * @return True if the properties were not collected.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case UNDEFINED:
+                return "undefined";
+            case NULL:
+                return "null";
+            case ACCESSOR:
+                return "<accessor>";
+            case OBJECT:
+            case ARRAY:
+            case FUNCTION:
+                return className + (truncated ? " {...}" : " " + properties);
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A Future that can be completed explicitly from any thread, and that
+ * notifies listeners once it completes. It is used to hand results of
+ * asynchronous Java work back to a V8 runtime.
+ */
+public class AsyncResult<T> implements Future<T> {
+
+    /**
+     * A Listener that is notified when an AsyncResult completes.
+     */
+    public interface Listener {
+
+        /**
+         * Called once the result completed. The listener is called on the
+         * thread that completed the result, or on the thread that added the
+         * listener if the result had already completed.
+         *
+         * @param result The completed result.
+         */
+        public void completed(AsyncResult<?> result);
+
+    }
+
+    private boolean        done      = false;
+    private boolean        cancelled = false;
+    private T              value     = null;
+    private Throwable      failure   = null;
+    private List<Listener> listeners = new ArrayList<Listener>();
+
+    /**
+     * Creates an AsyncResult that has already completed with the given value.
+     *
+     * @param value The value of the result.
+     *
+     * @return A completed AsyncResult.
+     */
+    public static <T> AsyncResult<T> completed(final T value) {
+        AsyncResult<T> result = new AsyncResult<T>();
+        result.complete(value);
+        return result;
+    }
+
+    /**
+     * Creates an AsyncResult that has already failed with the given exception.
+     *
+     * @param failure The reason for the failure.
+     *
+     * @return A failed AsyncResult.
+     */
+    public static <T> AsyncResult<T> failed(final Throwable failure) {
+        AsyncResult<T> result = new AsyncResult<T>();
+        result.completeExceptionally(failure);
+        return result;
+    }
+
+    /**
+     * Completes the result with a value, if it's not already completed.
+     *
+     * @param value The value of the result.
+     *
+     * @return True if this call completed the result, false otherwise.
+     */
+    public boolean complete(final T value) {
+        return finish(value, null, false);
+    }
+
+    /**
+     * Completes the result with an exception, if it's not already completed.
+     *
+     * @param failure The reason for the failure.
+     *
+     * @return True if this call completed the result, false otherwise.
+     */
+    public boolean completeExceptionally(final Throwable failure) {
+        if (failure == null) {
+            throw new NullPointerException("Failure is null");
+        }
+        return finish(null, failure, false);
+    }
+
+    /**
+     * Adds a listener that is notified once the result completes. If the
+     * result has already completed, the listener is notified immediately.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(final Listener listener) {
+        synchronized (this) {
+            if (!done) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.completed(this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Future#cancel(boolean)
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return finish(null, new CancellationException(), true);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Future#isCancelled()
+     */
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Future#isDone()
+     */
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Future#get()
+     */
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getResult();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public synchronized T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getResult();
+    }
+
+    /**
+     * Returns the value of a completed result without blocking. If the
+     * result has not completed, or failed, null is returned.
+     *
+     * @return The value of the result, or null.
+     */
+    public synchronized T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the reason a completed result failed without blocking. If the
+     * result has not completed, or completed with a value, null is returned.
+     *
+     * @return The reason for the failure, or null.
+     */
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    /*
+     * Sets the outcome in a single synchronized block, so a racing call
+     * can never see a partially completed result.
+     */
+    private boolean finish(final T value, final Throwable failure, final boolean cancelled) {
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            this.value = value;
+            this.failure = failure;
+            this.cancelled = cancelled;
+            done = true;
+            notifyAll();
+        }
+        notifyListeners();
+        return true;
+    }
+
+    private T getResult() throws ExecutionException {
+        if (cancelled) {
+            throw (CancellationException) failure;
+        }
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return value;
+    }
+
+    private void notifyListeners() {
+        List<Listener> toNotify;
+        synchronized (this) {
+            toNotify = listeners;
+            listeners = new ArrayList<Listener>();
+        }
+        for (Listener listener : toNotify) {
+            listener.completed(this);
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.BitSet;
+
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * Properties of an array of JS objects, stored column by column. Each
+ * column holds one property of every object in a primitive array, along
+ * with a bitmap of the rows in which the property was missing or had
+ * another type.
+ *
+ * Columns are created by {@link V8ObjectUtils#toColumns(com.eclipsesource.v8.V8Array, String[], int[])}
+ * or {@link V8ObjectReader#readColumns(com.eclipsesource.v8.V8Array)}.
+ */
+public class Columns {
+
+    private final String[] keys;
+    private final int[]    types;
+    private final int      rowCount;
+    private final Object[] values;
+    private final BitSet[] nulls;
+
+    Columns(final String[] keys, final int[] types, final int rowCount, final Object[] values, final BitSet[] nulls) {
+        this.keys = keys;
+        this.types = types;
+        this.rowCount = rowCount;
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Returns the number of rows, which is the number of objects read.
+     *
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of columns, which is the number of keys read.
+     *
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the key of a column.
+     *
+     * @param column The index of the column.
+     *
+     * @return The key whose values the column holds.
+     */
+    public String getKey(final int column) {
+        return keys[column];
+    }
+
+    /**
+     * Returns the index of the column that holds the values of a key.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The index of the column, or -1 if the key was not read.
+     */
+    public int indexOf(final String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the type of a column, as defined in V8Value.
+     *
+     * @param column The index of the column.
+     *
+     * @return The type of the values in the column.
+     */
+    public int getType(final int column) {
+        return types[column];
+    }
+
+    /**
+     * Returns the values of an INTEGER column. Rows that are null hold 0.
+     * The array is not copied.
+     *
+     * @param column The index of the column.
+     *
+     * @return The values of the column.
+     */
+    public int[] getIntegers(final int column) {
+        return (int[]) getValues(column, V8Value.INTEGER);
+    }
+
+    /**
+     * Returns the values of a DOUBLE column. Rows that are null hold 0.
+     * The array is not copied.
+     *
+     * @param column The index of the column.
+     *
+     * @return The values of the column.
+     */
+    public double[] getDoubles(final int column) {
+        return (double[]) getValues(column, V8Value.DOUBLE);
+    }
+
+    /**
+     * Returns the values of a BOOLEAN column. Rows that are null hold false.
+     * The array is not copied.
+     *
+     * @param column The index of the column.
+     *
+     * @return The values of the column.
+     */
+    public boolean[] getBooleans(final int column) {
+        return (boolean[]) getValues(column, V8Value.BOOLEAN);
+    }
+
+    /**
+     * Returns the values of a STRING column. Rows that are null hold null.
+     * The array is not copied.
+     *
+     * @param column The index of the column.
+     *
+     * @return The values of the column.
+     */
+    public String[] getStrings(final int column) {
+        return (String[]) getValues(column, V8Value.STRING);
+    }
+
+    /**
+     * Returns the rows of a column whose property was missing, or had
+     * another type than the column. The bitmap is not copied.
+     *
+     * @param column The index of the column.
+     *
+     * @return A bitmap with a bit set for every null row.
+     */
+    public BitSet getNulls(final int column) {
+        return nulls[column];
+    }
+
+    /**
+     * Returns true if the property of a row was missing, or had another
+     * type than the column.
+     *
+     * @param column The index of the column.
+     * @param row The index of the row.
+     *
+     * @return True if the value is null, false otherwise.
+     */
+    public boolean isNull(final int column, final int row) {
+        if ((row < 0) || (row >= rowCount)) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + rowCount);
+        }
+        return nulls[column].get(row);
+    }
+
+    private Object getValues(final int column, final int type) {
+        if (types[column] != type) {
+            throw new IllegalArgumentException("Column '" + keys[column] + "' is of type " + V8Value.getStringRepresentation(types[column])
+                    + ", not " + V8Value.getStringRepresentation(type));
+        }
+        return values[column];
+    }
+
+}
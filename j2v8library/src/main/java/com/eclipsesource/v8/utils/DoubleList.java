@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-size List backed by a double[]. It is returned by
+ * {@link V8ObjectUtils} for JavaScript arrays whose elements are all of
+ * type {@link com.eclipsesource.v8.V8Value#DOUBLE}. Converting such an
+ * array takes a single bulk read, and no Double is created until an
+ * element is accessed through the List API.
+ *
+ * Elements can be replaced with {@link #set(int, Double)}, but elements
+ * cannot be added or removed.
+ */
+public class DoubleList extends AbstractList<Double> implements RandomAccess {
+
+    private final double[] values;
+
+    /**
+     * Creates a List backed by the given array. The array is not copied.
+     *
+     * @param values The elements of the List.
+     */
+    public DoubleList(final double[] values) {
+        if (values == null) {
+            throw new NullPointerException("Values are null");
+        }
+        this.values = values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public Double get(final int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the element at the given index without boxing it.
+     *
+     * @param index The index of the element.
+     *
+     * @return The element at the index.
+     */
+    public double getDouble(final int index) {
+        return values[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractList#set(int, java.lang.Object)
+     */
+    @Override
+    public Double set(final int index, final Double element) {
+        double previous = values[index];
+        values[index] = element;
+        return previous;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns a copy of the elements as a double[].
+     *
+     * @return The elements of the List.
+     */
+    public double[] toDoubleArray() {
+        return values.clone();
+    }
+
+}
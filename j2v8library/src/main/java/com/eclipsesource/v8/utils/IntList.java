@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-size List backed by an int[]. It is returned by
+ * {@link V8ObjectUtils} for JavaScript arrays whose elements are all of
+ * type {@link com.eclipsesource.v8.V8Value#INTEGER}. Converting such an
+ * array takes a single bulk read, and no Integer is created until an
+ * element is accessed through the List API.
+ *
+ * Elements can be replaced with {@link #set(int, Integer)}, but elements
+ * cannot be added or removed.
+ */
+public class IntList extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] values;
+
+    /**
+     * Creates a List backed by the given array. The array is not copied.
+     *
+     * @param values The elements of the List.
+     */
+    public IntList(final int[] values) {
+        if (values == null) {
+            throw new NullPointerException("Values are null");
+        }
+        this.values = values;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public Integer get(final int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the element at the given index without boxing it.
+     *
+     * @param index The index of the element.
+     *
+     * @return The element at the index.
+     */
+    public int getInt(final int index) {
+        return values[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractList#set(int, java.lang.Object)
+     */
+    @Override
+    public Integer set(final int index, final Integer element) {
+        int previous = values[index];
+        values[index] = element;
+        return previous;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns a copy of the elements as a int[].
+     *
+     * @return The elements of the List.
+     */
+    public int[] toIntArray() {
+        return values.clone();
+    }
+
+}
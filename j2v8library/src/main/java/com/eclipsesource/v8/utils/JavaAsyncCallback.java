@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+
+/**
+ * Classes can implement this interface to provide a Java method that
+ * completes asynchronously. In JavaScript, the method returns a Promise
+ * which is settled on the runtime's thread once the AsyncResult completes.
+ *
+ * Async callbacks are registered with
+ * {@link V8EventLoop#registerAsyncMethod(V8Object, JavaAsyncCallback, String)}.
+ */
+public interface JavaAsyncCallback {
+
+    /**
+     * Called when a JS Function is invoked. The receiver and parameters are
+     * released once this method returns, so any data needed by the
+     * asynchronous work must be copied to Java first.
+     *
+     * The AsyncResult may be completed from any thread. Values are
+     * converted with {@link V8ObjectUtils#getV8Result(com.eclipsesource.v8.V8, Object)}.
+     *
+     * @param receiver The V8Object that the function was called on.
+     * @param parameters The parameters passed to the JS Function.
+     *
+     * @return The result that will settle the Promise.
+     */
+    public AsyncResult<?> invoke(V8Object receiver, V8Array parameters);
+
+}
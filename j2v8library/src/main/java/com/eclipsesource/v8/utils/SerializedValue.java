@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A JavaScript value that has been serialized by the {@link V8Serializer}.
+ * A SerializedValue is not bound to any runtime or thread and can be
+ * handed to another runtime, where it can be deserialized again.
+ *
+ * ArrayBuffers that were transferred during serialization are not written
+ * into the serialized data. Instead, the SerializedValue holds a copy of
+ * their contents, which is copied again into a new ArrayBuffer when the
+ * value is deserialized. The transferred ArrayBuffers are not detached.
+ */
+public class SerializedValue {
+
+    private final ByteBuffer   data;
+    private final ByteBuffer[] transferred;
+
+    /**
+     * Create a SerializedValue from data previously obtained from
+     * {@link SerializedValue#getData()}.
+     *
+     * @param data The serialized data.
+     */
+    public SerializedValue(final ByteBuffer data) {
+        this(data, new ByteBuffer[0]);
+    }
+
+    SerializedValue(final ByteBuffer data, final ByteBuffer[] transferred) {
+        this.data = data;
+        this.transferred = transferred;
+    }
+
+    /**
+     * Returns a read-only view of the serialized data. Transferred
+     * ArrayBuffers are not part of the data.
+     *
+     * @return The serialized data.
+     */
+    public ByteBuffer getData() {
+        return data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of ArrayBuffers that were transferred
+     * rather than copied.
+     *
+     * @return The number of transferred ArrayBuffers.
+     */
+    public int getTransferredCount() {
+        return transferred.length;
+    }
+
+    ByteBuffer getTransferred(final int index) {
+        if ((index < 0) || (index >= transferred.length)) {
+            throw new IllegalStateException("Invalid transferred ArrayBuffer index: " + index);
+        }
+        return transferred[index];
+    }
+
+}
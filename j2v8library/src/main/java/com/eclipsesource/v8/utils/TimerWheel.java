@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A hashed timer wheel. Timeouts are stored in one of a fixed number of
+ * buckets, selected by the tick in which they expire, so scheduling and
+ * cancelling are constant time and expiring only visits the buckets of
+ * the ticks that have passed.
+ *
+ * The wheel is not thread safe.
+ *
+ * This class is not considered API.
+ */
+class TimerWheel<T> {
+
+    private static final Comparator<Timeout<?>> DEADLINE_ORDER = new Comparator<Timeout<?>>() {
+        @Override
+        public int compare(final Timeout<?> a, final Timeout<?> b) {
+            if (a.deadlineTick != b.deadlineTick) {
+                return a.deadlineTick < b.deadlineTick ? -1 : 1;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    };
+
+    private final Timeout<T>[] buckets;
+    private final int          mask;
+    private final long         tickMillis;
+    private final long         startMillis;
+    private long               lastTick;
+    private long               sequence;
+    private int                size;
+
+    /**
+     * A scheduled timeout.
+     */
+    static class Timeout<T> {
+        private final T    value;
+        private long       deadlineTick;
+        private long       sequence;
+        private Timeout<T> next;
+        private Timeout<T> previous;
+        private boolean    scheduled;
+
+        Timeout(final T value) {
+            this.value = value;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        boolean isScheduled() {
+            return scheduled;
+        }
+    }
+
+    /**
+     * Creates a timer wheel.
+     *
+     * @param ticksPerWheel The number of buckets, rounded up to a power of two.
+     * @param tickMillis The duration of a tick in milliseconds.
+     * @param startMillis The time at which tick 0 starts.
+     */
+    TimerWheel(final int ticksPerWheel, final long tickMillis, final long startMillis) {
+        if ((ticksPerWheel <= 0) || (tickMillis <= 0)) {
+            throw new IllegalArgumentException("Invalid timer wheel configuration");
+        }
+        int normalized = 1;
+        while (normalized < ticksPerWheel) {
+            normalized <<= 1;
+        }
+        @SuppressWarnings("unchecked")
+        Timeout<T>[] wheel = (Timeout<T>[]) new Timeout<?>[normalized];
+        buckets = wheel;
+        mask = normalized - 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        lastTick = 0;
+    }
+
+    /**
+     * Schedules a value to expire at the given time. Timeouts that are
+     * already due expire on the next call to expire.
+     */
+    Timeout<T> schedule(final T value, final long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<T>(value);
+        reschedule(timeout, deadlineMillis);
+        return timeout;
+    }
+
+    /**
+     * Schedules an existing timeout again, for example for repeating timers.
+     */
+    void reschedule(final Timeout<T> timeout, final long deadlineMillis) {
+        if (timeout.scheduled) {
+            cancel(timeout);
+        }
+        long elapsed = Math.max(0, deadlineMillis - startMillis);
+        long deadlineTick = (elapsed + tickMillis - 1) / tickMillis;
+        timeout.deadlineTick = Math.max(deadlineTick, lastTick + 1);
+        timeout.sequence = sequence++;
+        int index = (int) (timeout.deadlineTick & mask);
+        Timeout<T> head = buckets[index];
+        if (head == null) {
+            timeout.next = timeout;
+            timeout.previous = timeout;
+            buckets[index] = timeout;
+        } else {
+            timeout.next = head;
+            timeout.previous = head.previous;
+            head.previous.next = timeout;
+            head.previous = timeout;
+        }
+        timeout.scheduled = true;
+        size++;
+    }
+
+    /**
+     * Removes a timeout from the wheel.
+     *
+     * @return True if the timeout was scheduled, false otherwise.
+     */
+    boolean cancel(final Timeout<T> timeout) {
+        if (!timeout.scheduled) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Removes all timeouts that are due at the given time and adds their
+     * values to the result, ordered by deadline.
+     */
+    void expire(final long nowMillis, final List<T> result) {
+        long nowTick = Math.max(0, nowMillis - startMillis) / tickMillis;
+        if (nowTick <= lastTick) {
+            return;
+        }
+        List<Timeout<T>> expired = new ArrayList<Timeout<T>>();
+        if ((nowTick - lastTick) > mask) {
+            for (int i = 0; i < buckets.length; i++) {
+                collect(i, nowTick, expired);
+            }
+            Collections.sort(expired, DEADLINE_ORDER);
+        } else {
+            for (long tick = lastTick + 1; tick <= nowTick; tick++) {
+                collect((int) (tick & mask), nowTick, expired);
+            }
+        }
+        lastTick = nowTick;
+        for (Timeout<T> timeout : expired) {
+            result.add(timeout.value);
+        }
+    }
+
+    /**
+     * Returns the time at which the next timeout expires, or -1 if no
+     * timeouts are scheduled.
+     */
+    long nextDeadline() {
+        if (size == 0) {
+            return -1;
+        }
+        for (long tick = lastTick + 1; tick <= (lastTick + buckets.length); tick++) {
+            Timeout<T> head = buckets[(int) (tick & mask)];
+            if (head == null) {
+                continue;
+            }
+            Timeout<T> timeout = head;
+            do {
+                if (timeout.deadlineTick == tick) {
+                    return startMillis + (tick * tickMillis);
+                }
+                timeout = timeout.next;
+            } while (timeout != head);
+        }
+        long min = Long.MAX_VALUE;
+        for (Timeout<T> head : buckets) {
+            if (head == null) {
+                continue;
+            }
+            Timeout<T> timeout = head;
+            do {
+                min = Math.min(min, timeout.deadlineTick);
+                timeout = timeout.next;
+            } while (timeout != head);
+        }
+        return startMillis + (min * tickMillis);
+    }
+
+    /**
+     * Returns the number of scheduled timeouts.
+     */
+    int size() {
+        return size;
+    }
+
+    private void collect(final int index, final long nowTick, final List<Timeout<T>> expired) {
+        Timeout<T> head = buckets[index];
+        if (head == null) {
+            return;
+        }
+        Timeout<T> timeout = head;
+        Timeout<T> last = head.previous;
+        while (true) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadlineTick <= nowTick) {
+                unlink(timeout);
+                expired.add(timeout);
+            }
+            if (timeout == last) {
+                break;
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlink(final Timeout<T> timeout) {
+        int index = (int) (timeout.deadlineTick & mask);
+        if (timeout.next == timeout) {
+            buckets[index] = null;
+        } else {
+            timeout.previous.next = timeout.next;
+            timeout.next.previous = timeout.previous;
+            if (buckets[index] == timeout) {
+                buckets[index] = timeout.next;
+            }
+        }
+        timeout.next = null;
+        timeout.previous = null;
+        timeout.scheduled = false;
+        size--;
+    }
+
+}
@@ -0,0 +1,580 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eclipsesource.v8.JavaCallback;
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+import com.eclipsesource.v8.utils.TimerWheel.Timeout;
+
+/**
+ * A lightweight event loop for plain V8 runtimes. Once installed, the
+ * runtime provides setTimeout, setInterval, clearTimeout and clearInterval.
+ * Timers are kept on a hashed timer wheel. Other threads can post tasks to
+ * the loop, and the tasks are executed on the thread that owns the runtime.
+ *
+ * The loop is driven by {@link V8EventLoop#runLoop()}, which must be called
+ * on the thread that owns the runtime. While there is nothing to do, the
+ * loop blocks until the next timer is due or a task is posted. Pending
+ * microtasks (such as Promise reactions) are drained after every iteration.
+ *
+ * Java methods that complete asynchronously can be exposed to JavaScript
+ * with {@link V8EventLoop#registerAsyncMethod(V8Object, JavaAsyncCallback, String)}.
+ * Such methods return a Promise, and the loop keeps running until all of
+ * these Promises have been settled.
+ *
+ * The event loop is registered as a resource of its runtime, and is
+ * released together with it.
+ */
+public class V8EventLoop implements Releasable {
+
+    private static final String           EVENT_LOOP_KEY  = V8EventLoop.class.getName();
+    private static final int              TICKS_PER_WHEEL = 512;
+    private static final long             TICK_MILLIS     = 1;
+    private static final String           DEFERRED_SCRIPT = "(function() {\n"
+            + "  var deferred = {};\n"
+            + "  deferred.promise = new Promise(function(resolve, reject) {\n"
+            + "    deferred.resolve = resolve;\n"
+            + "    deferred.reject = function(message) { reject(new Error(message)); };\n"
+            + "  });\n"
+            + "  return deferred;\n"
+            + "})";
+
+    private final V8                      runtime;
+    private final TimerWheel<Timer>       timers;
+    private final Map<Integer, Timer>     activeTimers    = new HashMap<Integer, Timer>();
+    private final LinkedList<V8Runnable>  tasks           = new LinkedList<V8Runnable>();
+    // Keyed by identity: V8Value.equals() is a strictEquals() call into V8
+    private final Set<V8Object>           pendingPromises = Collections.newSetFromMap(new IdentityHashMap<V8Object, Boolean>());
+    private V8Function                    checkpoint;
+    private V8Function                    deferredFactory;
+    private int                           nextTimerId     = 1;
+    private boolean                       keepAlive       = false;
+    private volatile boolean              stopped         = false;
+    private volatile boolean              released        = false;
+
+    /**
+     * Installs an event loop on the given runtime. This must be called
+     * on the thread that owns the runtime. If an event loop is already
+     * installed, it is returned.
+     *
+     * @param runtime The runtime on which to install the event loop.
+     *
+     * @return The event loop of this runtime.
+     */
+    public static V8EventLoop install(final V8 runtime) {
+        V8EventLoop eventLoop = getEventLoop(runtime);
+        if (eventLoop == null) {
+            eventLoop = new V8EventLoop(runtime);
+        }
+        return eventLoop;
+    }
+
+    /**
+     * Returns the event loop installed on a runtime, or null if no
+     * event loop has been installed.
+     *
+     * @param runtime The runtime whose event loop to return.
+     *
+     * @return The installed event loop, or null.
+     */
+    public static V8EventLoop getEventLoop(final V8 runtime) {
+        V8EventLoop eventLoop = (V8EventLoop) runtime.getData(EVENT_LOOP_KEY);
+        if ((eventLoop != null) && eventLoop.released) {
+            return null;
+        }
+        return eventLoop;
+    }
+
+    private V8EventLoop(final V8 runtime) {
+        this.runtime = runtime;
+        runtime.getLocker().checkThread();
+        timers = new TimerWheel<Timer>(TICKS_PER_WHEEL, TICK_MILLIS, now());
+        runtime.registerJavaMethod(new TimerCallback(false), "setTimeout");
+        runtime.registerJavaMethod(new TimerCallback(true), "setInterval");
+        runtime.registerJavaMethod(new ClearTimerCallback(), "clearTimeout");
+        runtime.registerJavaMethod(new ClearTimerCallback(), "clearInterval");
+        checkpoint = (V8Function) runtime.executeObjectScript("(function() {})");
+        deferredFactory = (V8Function) runtime.executeObjectScript(DEFERRED_SCRIPT);
+        runtime.registerResource(this);
+        runtime.setData(EVENT_LOOP_KEY, this);
+    }
+
+    /**
+     * Returns the runtime this event loop belongs to.
+     *
+     * @return The runtime of this event loop.
+     */
+    public V8 getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Registers an asynchronous Java method on the given object. When called
+     * from JavaScript, the method returns a Promise. Once the AsyncResult
+     * returned by the callback completes, the Promise is resolved with the
+     * converted value, or rejected with an Error carrying the failure's
+     * message. The Promise is always settled on the thread that runs the
+     * loop, regardless of the thread that completed the result.
+     *
+     * Exceptions thrown by the callback itself also reject the Promise.
+     *
+     * @param object The object on which to register the method.
+     * @param callback The Java callback to invoke.
+     * @param jsFunctionName The name of the JavaScript function.
+     */
+    public void registerAsyncMethod(final V8Object object, final JavaAsyncCallback callback, final String jsFunctionName) {
+        runtime.getLocker().checkThread();
+        checkReleased();
+        object.registerJavaMethod(new AsyncCallback(callback), jsFunctionName);
+    }
+
+    /**
+     * Returns the number of Promises returned by asynchronous Java methods
+     * that have not been settled yet.
+     *
+     * @return The number of pending Promises.
+     */
+    public int getPendingPromiseCount() {
+        return pendingPromises.size();
+    }
+
+    /**
+     * Posts a task to the event loop. The task will be executed on the
+     * thread that runs the loop. This method can be called from any thread.
+     *
+     * @param task The task to execute.
+     */
+    public void post(final V8Runnable task) {
+        synchronized (tasks) {
+            if (released) {
+                throw new IllegalStateException("Event loop released");
+            }
+            tasks.add(task);
+            tasks.notifyAll();
+        }
+    }
+
+    /**
+     * Determines if the loop keeps running when there are no pending
+     * timers or tasks. A loop that is kept alive waits for tasks to be
+     * posted until {@link V8EventLoop#stop()} is called.
+     *
+     * @param keepAlive True to keep the loop running while idle.
+     */
+    public void setKeepAlive(final boolean keepAlive) {
+        synchronized (tasks) {
+            this.keepAlive = keepAlive;
+            tasks.notifyAll();
+        }
+    }
+
+    /**
+     * Stops a running loop after the current task completes. This
+     * method can be called from any thread.
+     */
+    public void stop() {
+        synchronized (tasks) {
+            stopped = true;
+            tasks.notifyAll();
+        }
+    }
+
+    /**
+     * Runs the loop until there are no more pending timers or tasks, or
+     * until {@link V8EventLoop#stop()} is called.
+     */
+    public void runLoop() {
+        try {
+            while (!stopped && (hasPendingWork() || isKeptAlive())) {
+                runOnce(-1);
+            }
+        } finally {
+            stopped = false;
+        }
+    }
+
+    /**
+     * Runs one iteration of the loop. All due timers and all posted tasks
+     * are executed. If nothing was ready, the calling thread blocks until
+     * the next timer is due, a task is posted or the timeout elapses.
+     *
+     * @param timeoutMillis The maximum time to block, 0 to not block at all
+     * or a negative value to block until there is work.
+     *
+     * @return True if there is still pending work, false otherwise.
+     */
+    public boolean runOnce(final long timeoutMillis) {
+        runtime.getLocker().checkThread();
+        checkReleased();
+        boolean ran = runExpiredTimers();
+        ran |= runTasks();
+        if (ran) {
+            drainMicrotasks();
+        } else if (timeoutMillis != 0) {
+            await(timeoutMillis);
+        }
+        return hasPendingWork();
+    }
+
+    /**
+     * Determines if there are pending timers, posted tasks or unsettled
+     * Promises of asynchronous Java methods.
+     *
+     * @return True if work is pending, false otherwise.
+     */
+    public boolean hasPendingWork() {
+        synchronized (tasks) {
+            if (!tasks.isEmpty()) {
+                return true;
+            }
+        }
+        return (timers.size() > 0) || !pendingPromises.isEmpty();
+    }
+
+    /**
+     * Returns the number of active timers.
+     *
+     * @return The number of active timers.
+     */
+    public int getTimerCount() {
+        return activeTimers.size();
+    }
+
+    /**
+     * Runs all pending microtasks, such as Promise reactions. V8 runs
+     * microtasks whenever a call from Java into JavaScript completes, so
+     * this forces a checkpoint by calling an empty function.
+     */
+    public void drainMicrotasks() {
+        runtime.getLocker().checkThread();
+        checkReleased();
+        Object result = checkpoint.call(null, null);
+        if (result instanceof Releasable) {
+            ((Releasable) result).release();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        synchronized (tasks) {
+            released = true;
+            tasks.clear();
+            tasks.notifyAll();
+        }
+        for (Timer timer : new ArrayList<Timer>(activeTimers.values())) {
+            clearTimer(timer);
+        }
+        for (V8Object deferred : pendingPromises) {
+            deferred.close();
+        }
+        pendingPromises.clear();
+        checkpoint.close();
+        deferredFactory.close();
+    }
+
+    /**
+     * Releases the event loop and all pending timers.
+     *
+     * @deprecated use close() instead.
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private boolean isKeptAlive() {
+        synchronized (tasks) {
+            return keepAlive;
+        }
+    }
+
+    private void await(final long timeoutMillis) {
+        long nextDeadline = timers.nextDeadline();
+        long waitMillis = timeoutMillis < 0 ? Long.MAX_VALUE : timeoutMillis;
+        if (nextDeadline >= 0) {
+            waitMillis = Math.min(waitMillis, Math.max(1, nextDeadline - now()));
+        }
+        synchronized (tasks) {
+            if (!tasks.isEmpty() || stopped || released) {
+                return;
+            }
+            if ((waitMillis == Long.MAX_VALUE) && !keepAlive && pendingPromises.isEmpty()) {
+                return;
+            }
+            try {
+                if (waitMillis == Long.MAX_VALUE) {
+                    tasks.wait();
+                } else {
+                    tasks.wait(waitMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+        }
+    }
+
+    private boolean runExpiredTimers() {
+        if (timers.size() == 0) {
+            return false;
+        }
+        List<Timer> expired = new ArrayList<Timer>();
+        timers.expire(now(), expired);
+        RuntimeException failure = null;
+        for (Timer timer : expired) {
+            if (timer.cleared) {
+                continue;
+            }
+            if (timer.interval >= 0) {
+                timers.reschedule(timer.timeout, now() + timer.interval);
+            } else {
+                removeTimer(timer);
+            }
+            // the remaining timers are already off the wheel, so they must run even if this one fails
+            try {
+                Object result = timer.function.call(null, timer.arguments);
+                if (result instanceof Releasable) {
+                    ((Releasable) result).release();
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                if (timer.interval < 0) {
+                    timer.release();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return !expired.isEmpty();
+    }
+
+    private boolean runTasks() {
+        List<V8Runnable> ready;
+        synchronized (tasks) {
+            if (tasks.isEmpty()) {
+                return false;
+            }
+            ready = new ArrayList<V8Runnable>(tasks);
+            tasks.clear();
+        }
+        for (V8Runnable task : ready) {
+            task.run(runtime);
+        }
+        return true;
+    }
+
+    private void settle(final V8Object deferred, final AsyncResult<?> result) {
+        if (!pendingPromises.remove(deferred)) {
+            return;
+        }
+        V8Array parameters = new V8Array(runtime);
+        Object value = null;
+        try {
+            Throwable failure = result.getFailure();
+            if (failure != null) {
+                String message = failure.getMessage();
+                parameters.push(message != null ? message : failure.toString());
+                deferred.executeVoidFunction("reject", parameters);
+            } else {
+                value = V8ObjectUtils.getV8Result(runtime, result.getValue());
+                parameters.push(value);
+                deferred.executeVoidFunction("resolve", parameters);
+            }
+        } finally {
+            if (value instanceof Releasable) {
+                ((Releasable) value).release();
+            }
+            parameters.close();
+            deferred.close();
+        }
+    }
+
+    private int addTimer(final V8Function function, final V8Array arguments, final long delay, final boolean repeat) {
+        Timer timer = new Timer(nextTimerId++, function, arguments, repeat ? delay : -1);
+        timer.timeout = timers.schedule(timer, now() + delay);
+        activeTimers.put(timer.id, timer);
+        return timer.id;
+    }
+
+    private void clearTimer(final Timer timer) {
+        timers.cancel(timer.timeout);
+        removeTimer(timer);
+        timer.release();
+    }
+
+    private void removeTimer(final Timer timer) {
+        activeTimers.remove(timer.id);
+        timer.cleared = true;
+    }
+
+    private void checkReleased() {
+        if (released) {
+            throw new IllegalStateException("Event loop released");
+        }
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private static class Timer {
+        private final int                  id;
+        private final V8Function           function;
+        private final V8Array              arguments;
+        private final long                 interval;
+        private Timeout<Timer>             timeout;
+        private boolean                    cleared;
+
+        Timer(final int id, final V8Function function, final V8Array arguments, final long interval) {
+            this.id = id;
+            this.function = function;
+            this.arguments = arguments;
+            this.interval = interval;
+        }
+
+        void release() {
+            if (!function.isReleased()) {
+                function.close();
+            }
+            if (!arguments.isReleased()) {
+                arguments.close();
+            }
+        }
+    }
+
+    private class TimerCallback implements JavaCallback {
+
+        private final boolean repeat;
+
+        TimerCallback(final boolean repeat) {
+            this.repeat = repeat;
+        }
+
+        @Override
+        public Object invoke(final V8Object receiver, final V8Array parameters) {
+            if ((parameters.length() == 0) || (parameters.getType(0) != V8Value.V8_FUNCTION)) {
+                throw new IllegalArgumentException("Callback must be a function");
+            }
+            long delay = 0;
+            if (parameters.length() > 1) {
+                Object value = parameters.get(1);
+                if (value instanceof Number) {
+                    delay = Math.max(0, ((Number) value).longValue());
+                } else if (value instanceof Releasable) {
+                    ((Releasable) value).release();
+                }
+            }
+            V8Function function = (V8Function) parameters.get(0);
+            V8Array arguments = new V8Array(runtime);
+            for (int i = 2; i < parameters.length(); i++) {
+                Object argument = parameters.get(i);
+                try {
+                    arguments.push(argument);
+                } finally {
+                    if (argument instanceof Releasable) {
+                        ((Releasable) argument).release();
+                    }
+                }
+            }
+            return addTimer(function, arguments, delay, repeat);
+        }
+    }
+
+    private class AsyncCallback implements JavaCallback {
+
+        private final JavaAsyncCallback callback;
+
+        AsyncCallback(final JavaAsyncCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public Object invoke(final V8Object receiver, final V8Array parameters) {
+            final V8Object deferred = (V8Object) deferredFactory.call(null, null);
+            V8Object promise = deferred.getObject("promise");
+            AsyncResult<?> result;
+            try {
+                result = callback.invoke(receiver, parameters);
+            } catch (RuntimeException e) {
+                result = AsyncResult.failed(e);
+            }
+            if (result == null) {
+                result = AsyncResult.completed(null);
+            }
+            pendingPromises.add(deferred);
+            result.addListener(new AsyncResult.Listener() {
+                @Override
+                public void completed(final AsyncResult<?> completed) {
+                    synchronized (tasks) {
+                        if (released) {
+                            return;
+                        }
+                        tasks.add(new V8Runnable() {
+                            @Override
+                            public void run(final V8 runtime) {
+                                settle(deferred, completed);
+                            }
+                        });
+                        tasks.notifyAll();
+                    }
+                }
+            });
+            return promise;
+        }
+    }
+
+    private class ClearTimerCallback implements JavaCallback {
+
+        @Override
+        public Object invoke(final V8Object receiver, final V8Array parameters) {
+            if (parameters.length() == 0) {
+                return null;
+            }
+            Object id = parameters.get(0);
+            if (id instanceof Number) {
+                Timer timer = activeTimers.get(((Number) id).intValue());
+                if (timer != null) {
+                    clearTimer(timer);
+                }
+            } else if (id instanceof Releasable) {
+                ((Releasable) id).release();
+            }
+            return null;
+        }
+    }
+
+}
@@ -17,6 +17,7 @@ import com.eclipsesource.v8.Releasable;
 import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Array;
 import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
 
 /**
  * Executes a JS Script on a new V8 runtime in its own thread, and once finished,
@@ -40,7 +41,7 @@ public class V8Executor extends Thread {
     private volatile boolean     shuttingDown     = false;
     private volatile boolean     forceTerminating = false;
     private Exception            exception        = null;
-    private LinkedList<String[]> messageQueue     = new LinkedList<String[]>();
+    private LinkedList<Object>   messageQueue     = new LinkedList<Object>();
     private boolean              longRunning;
     private String               messageHandler;
 
@@ -105,6 +106,21 @@ public class V8Executor extends Thread {
         }
     }
 
+    /**
+     * Posts a serialized JavaScript value to the receiver to be processed by
+     * the executor. The value is deserialized on the executor's runtime and
+     * passed to the messageHandler as its only argument.
+     *
+     * @param message The value to send to the messageHandler, created with
+     * {@link V8Serializer#serialize(V8, Object, com.eclipsesource.v8.V8ArrayBuffer...)}.
+     */
+    public void postMessage(final SerializedValue message) {
+        synchronized (this) {
+            messageQueue.add(message);
+            notify();
+        }
+    }
+
     /*
      * (non-Javadoc)
      * @see java.lang.Thread#run()
@@ -136,18 +152,11 @@ public class V8Executor extends Thread {
                     }
                 }
                 if (!messageQueue.isEmpty()) {
-                    String[] message = messageQueue.remove(0);
-                    V8Array parameters = new V8Array(runtime);
-                    V8Array strings = new V8Array(runtime);
-                    try {
-                        for (String string : message) {
-                            strings.push(string);
-                        }
-                        parameters.push(strings);
-                        runtime.executeVoidFunction(messageHandler, parameters);
-                    } finally {
-                        strings.close();
-                        parameters.close();
+                    Object message = messageQueue.remove(0);
+                    if (message instanceof SerializedValue) {
+                        handleMessage((SerializedValue) message);
+                    } else {
+                        handleMessage((String[]) message);
                     }
                 }
             }
@@ -164,6 +173,35 @@ public class V8Executor extends Thread {
         }
     }
 
+    private void handleMessage(final String[] message) {
+        V8Array parameters = new V8Array(runtime);
+        V8Array strings = new V8Array(runtime);
+        try {
+            for (String string : message) {
+                strings.push(string);
+            }
+            parameters.push(strings);
+            runtime.executeVoidFunction(messageHandler, parameters);
+        } finally {
+            strings.close();
+            parameters.close();
+        }
+    }
+
+    private void handleMessage(final SerializedValue message) {
+        Object value = V8Serializer.deserialize(runtime, message);
+        V8Array parameters = new V8Array(runtime);
+        try {
+            parameters.push(value);
+            runtime.executeVoidFunction(messageHandler, parameters);
+        } finally {
+            parameters.close();
+            if (value instanceof V8Value) {
+                ((V8Value) value).close();
+            }
+        }
+    }
+
     /**
      * Determines if an exception was thrown during the JavaScript execution.
      *
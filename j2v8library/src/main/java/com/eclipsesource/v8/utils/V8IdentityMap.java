@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * A compact Map from V8Values to arbitrary Java Objects, intended for
+ * large caches of JS objects. Entries are stored in parallel arrays using
+ * open addressing on the identity hash of the key, which each V8Value
+ * computes only once. JS strict equality is only checked natively when
+ * two keys share an identity hash.
+ *
+ * Unlike {@link V8Map}, keys are not twinned. The map takes ownership of
+ * every key passed to {@link #put(V8Value, Object)}, and releases it when
+ * the entry is removed or the map is closed. If the key is already in the
+ * map under a different handle, the new handle is released right away. To
+ * keep using a key after putting it, put a twin.
+ *
+ * The entry set does not support removal through its iterator. Once the
+ * map is no longer needed, it should be released.
+ */
+public class V8IdentityMap<V> extends AbstractMap<V8Value, V> implements Releasable {
+
+    private static final int       MIN_CAPACITY = 16;
+
+    private int[]                  hashes;
+    private V8Value[]              keys;
+    private Object[]               values;
+    private int                    size;
+    private Set<Entry<V8Value, V>> entrySet;
+
+    /**
+     * Creates an empty V8IdentityMap.
+     */
+    public V8IdentityMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty V8IdentityMap sized to hold the given number of
+     * entries without growing.
+     *
+     * @param expectedSize The number of entries the map is expected to hold.
+     */
+    public V8IdentityMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final V8Value key, final V value) {
+        if (key == null) {
+            throw new NullPointerException("Key is null");
+        }
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        int index = mix(hash) & mask;
+        while (keys[index] != null) {
+            if (matches(index, hash, key)) {
+                V previous = (V) values[index];
+                values[index] = value;
+                if (keys[index] != key) {
+                    key.close();
+                }
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        hashes[index] = hash;
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold()) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V8Value removed = keys[index];
+        V previous = (V) values[index];
+        deleteSlot(index);
+        removed.close();
+        return previous;
+    }
+
+    /**
+     * Removes all entries and releases their keys. The map can be used
+     * again afterwards.
+     */
+    @Override
+    public void clear() {
+        try {
+            for (V8Value key : keys) {
+                if (key != null) {
+                    key.close();
+                }
+            }
+        } finally {
+            Arrays.fill(hashes, 0);
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Entry<V8Value, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Releases all the resources associated with this map. A
+     * map can be used again once it's released, although
+     * if it's used again it should be released again.
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private int indexOf(final Object key) {
+        if (!(key instanceof V8Value)) {
+            return -1;
+        }
+        V8Value value = (V8Value) key;
+        int hash = value.hashCode();
+        int mask = keys.length - 1;
+        int index = mix(hash) & mask;
+        while (keys[index] != null) {
+            if (matches(index, hash, value)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean matches(final int index, final int hash, final V8Value key) {
+        // only keys with the same identity hash need the native comparison
+        return (hashes[index] == hash) && ((keys[index] == key) || keys[index].strictEquals(key));
+    }
+
+    /*
+     * Empties a slot and moves later entries of the same probe sequence
+     * back, so that lookups never stop early at the emptied slot.
+     */
+    private void deleteSlot(final int slot) {
+        int mask = keys.length - 1;
+        int empty = slot;
+        int index = (slot + 1) & mask;
+        while (keys[index] != null) {
+            int home = mix(hashes[index]) & mask;
+            if (((index - home) & mask) >= ((index - empty) & mask)) {
+                hashes[empty] = hashes[index];
+                keys[empty] = keys[index];
+                values[empty] = values[index];
+                empty = index;
+            }
+            index = (index + 1) & mask;
+        }
+        hashes[empty] = 0;
+        keys[empty] = null;
+        values[empty] = null;
+        size--;
+    }
+
+    private void resize(final int capacity) {
+        int[] oldHashes = hashes;
+        V8Value[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = mix(oldHashes[i]) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                hashes[index] = oldHashes[i];
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        hashes = new int[capacity];
+        keys = new V8Value[capacity];
+        values = new Object[capacity];
+    }
+
+    private int threshold() {
+        return (keys.length / 4) * 3;
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (((capacity / 4) * 3) < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int mix(final int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class EntrySet extends AbstractSet<Entry<V8Value, V>> {
+
+        @Override
+        public Iterator<Entry<V8Value, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            V8IdentityMap.this.clear();
+        }
+
+    }
+
+    private class EntryIterator implements Iterator<Entry<V8Value, V>> {
+
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<V8Value, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<V8Value, V> result = new SimpleImmutableEntry<V8Value, V>(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private int advance(final int from) {
+            int index = from;
+            while ((index < keys.length) && (keys[index] == null)) {
+                index++;
+            }
+            return index;
+        }
+
+    }
+
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * A read-only List view of a V8Array. Unlike
+ * {@link V8ObjectUtils#toList(V8Array)}, elements are not copied up front.
+ * They are read in chunks when first accessed. Each chunk is split into
+ * runs of elements with the same type, found with
+ * {@link V8Array#getType(int, int)}. Runs of integers, doubles, booleans or
+ * Strings are read with a single bulk call into reusable buffers. Only
+ * mixed runs are read element by element.
+ *
+ * The length of the array is read once, and only the most recently read
+ * chunk is kept, so the view does not reflect later changes to the array.
+ * Values are converted like {@link V8ObjectUtils#getValue(V8Array, int, TypeAdapter)}
+ * does. Functions are represented by null, rather than removed as in
+ * toList, so that indices match the array.
+ *
+ * The list holds a handle to the array, which must be released with
+ * {@link #close()}.
+ */
+public class V8LazyList extends AbstractList<Object> implements RandomAccess, Releasable {
+
+    /**
+     * The default number of elements read at once.
+     */
+    public static final int   DEFAULT_CHUNK_SIZE = 1024;
+
+    // mixed runs shorter than this are read element by element
+    private static final int  MIN_RUN_LENGTH     = 16;
+
+    private final V8Array     array;
+    private final TypeAdapter adapter;
+    private final int         size;
+    private final Object[]    chunk;
+    private int               chunkStart         = -1;
+    private int               chunkLength        = 0;
+    private int               bulkReads          = 0;
+    private int[]             integers;
+    private double[]          doubles;
+    private boolean[]         booleans;
+    private String[]          strings;
+
+    /**
+     * Creates a lazy view of a V8Array. The array is not released by the
+     * view; it keeps its own handle until it is closed.
+     *
+     * @param array The array to view.
+     */
+    public V8LazyList(final V8Array array) {
+        this(array, V8ObjectUtils.DEFAULT_TYPE_ADAPTER, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a lazy view of a V8Array that uses a TypeAdapter to convert
+     * elements.
+     *
+     * @param array The array to view.
+     * @param adapter The {@link TypeAdapter} to use for the element conversions.
+     */
+    public V8LazyList(final V8Array array, final TypeAdapter adapter) {
+        this(array, adapter, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a lazy view of a V8Array that reads the given number of
+     * elements at once.
+     *
+     * @param array The array to view.
+     * @param adapter The {@link TypeAdapter} to use for the element conversions.
+     * @param chunkSize The number of elements to read at once.
+     */
+    public V8LazyList(final V8Array array, final TypeAdapter adapter, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.array = array.twin();
+        this.adapter = adapter;
+        size = this.array.length();
+        chunk = new Object[Math.min(chunkSize, Math.max(size, 1))];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public Object get(final int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if ((index < chunkStart) || (index >= (chunkStart + chunkLength))) {
+            loadChunk((index / chunk.length) * chunk.length);
+        }
+        return chunk[index - chunkStart];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bulk reads that were used to read elements.
+     *
+     * @return The number of bulk reads.
+     */
+    public int getBulkReadCount() {
+        return bulkReads;
+    }
+
+    /**
+     * Releases the handle to the V8Array.
+     */
+    @Override
+    public void close() {
+        if (!array.isReleased()) {
+            array.close();
+        }
+    }
+
+    /**
+     * Releases the handle to the V8Array.
+     *
+     * @deprecated use close() instead.
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private void loadChunk(final int start) {
+        int length = Math.min(chunk.length, size - start);
+        // invalidate first, so a failed read does not leave a partial chunk behind
+        chunkStart = -1;
+        chunkLength = 0;
+        loadRun(start, length, 0);
+        chunkStart = start;
+        chunkLength = length;
+    }
+
+    private void loadRun(final int start, final int length, final int offset) {
+        int type = array.getType(start, length);
+        switch (type) {
+            case V8Value.INTEGER:
+                if (integers == null) {
+                    integers = new int[chunk.length];
+                }
+                array.getIntegers(start, length, integers);
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = adapt(type, integers[i]);
+                }
+                bulkReads++;
+                return;
+            case V8Value.DOUBLE:
+                if (doubles == null) {
+                    doubles = new double[chunk.length];
+                }
+                array.getDoubles(start, length, doubles);
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = adapt(type, doubles[i]);
+                }
+                bulkReads++;
+                return;
+            case V8Value.BOOLEAN:
+                if (booleans == null) {
+                    booleans = new boolean[chunk.length];
+                }
+                array.getBooleans(start, length, booleans);
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = adapt(type, booleans[i]);
+                }
+                bulkReads++;
+                return;
+            case V8Value.STRING:
+                if (strings == null) {
+                    strings = new String[chunk.length];
+                }
+                array.getStrings(start, length, strings);
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = adapt(type, strings[i]);
+                    strings[i] = null;
+                }
+                bulkReads++;
+                return;
+            case V8Value.UNDEFINED:
+                // either mixed or all undefined, narrow it down
+                if (length > MIN_RUN_LENGTH) {
+                    int half = length / 2;
+                    loadRun(start, half, offset);
+                    loadRun(start + half, length - half, offset + half);
+                    return;
+                }
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = readElement(start + i, array.getType(start + i));
+                }
+                return;
+            default:
+                // a run of objects, arrays or functions, each needs its own handle
+                for (int i = 0; i < length; i++) {
+                    chunk[offset + i] = readElement(start + i, type);
+                }
+        }
+    }
+
+    private Object readElement(final int index, final int type) {
+        if ((type == V8Value.INTEGER) || (type == V8Value.DOUBLE) || (type == V8Value.BOOLEAN) || (type == V8Value.STRING)) {
+            return adapt(type, array.get(index));
+        }
+        Object value = array.get(index);
+        try {
+            Object result = V8ObjectUtils.getValue(value, type, adapter);
+            return result == V8ObjectUtils.IGNORE ? null : result;
+        } finally {
+            if (value instanceof Releasable) {
+                ((Releasable) value).release();
+            }
+        }
+    }
+
+    private Object adapt(final int type, final Object value) {
+        if (adapter == V8ObjectUtils.DEFAULT_TYPE_ADAPTER) {
+            return value;
+        }
+        Object result = adapter.adapt(type, value);
+        return result == TypeAdapter.DEFAULT ? value : result;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8Object;
+
+/**
+ * A read-only Map view of a V8Object. Unlike
+ * {@link V8ObjectUtils#toMap(V8Object)}, values are not copied up front.
+ * The keys are fetched once, and each value is fetched and converted the
+ * first time it is accessed. Converted values are cached, so the view does
+ * not reflect later changes to the object.
+ *
+ * Values are converted like {@link V8ObjectUtils#getValue(V8Object, String, TypeAdapter)}
+ * does, so nested objects and arrays become deep copies. Properties whose
+ * values are functions are not part of the map. Since the type of a
+ * property is only known once its value is fetched, size() and iterating
+ * the map fetch all values, while get() and containsKey() only fetch the
+ * requested property.
+ *
+ * The map holds a handle to the object, which must be released with
+ * {@link #close()}. Values that were already accessed remain readable.
+ */
+public class V8LazyMap extends AbstractMap<String, Object> implements Releasable {
+
+    private final V8Object                   object;
+    private final TypeAdapter                adapter;
+    private final Map<String, Object>        values = new HashMap<String, Object>();
+    private String[]                         keys;
+    private Set<String>                      keySet;
+    private Set<Entry<String, Object>>       entrySet;
+
+    /**
+     * Creates a lazy view of a V8Object. The object is not released
+     * by the view; it keeps its own handle until it is closed.
+     *
+     * @param object The object to view.
+     */
+    public V8LazyMap(final V8Object object) {
+        this(object, V8ObjectUtils.DEFAULT_TYPE_ADAPTER);
+    }
+
+    /**
+     * Creates a lazy view of a V8Object that uses a TypeAdapter to convert
+     * values.
+     *
+     * @param object The object to view.
+     * @param adapter The {@link TypeAdapter} to use for the value conversions.
+     */
+    public V8LazyMap(final V8Object object, final TypeAdapter adapter) {
+        this.object = object.twin();
+        this.adapter = adapter;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public Object get(final Object key) {
+        Object value = fetch(key);
+        return value == V8ObjectUtils.IGNORE ? null : value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return fetch(key) != V8ObjectUtils.IGNORE;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+        return !entrySet().iterator().hasNext();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator(getKeys());
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (String key : getKeys()) {
+                        if (fetch(key) != V8ObjectUtils.IGNORE) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Returns the number of values that have been fetched from the
+     * V8Object so far.
+     *
+     * @return The number of fetched values.
+     */
+    public int getFetchedCount() {
+        return values.size();
+    }
+
+    /**
+     * Releases the handle to the V8Object.
+     */
+    @Override
+    public void close() {
+        if (!object.isReleased()) {
+            object.close();
+        }
+    }
+
+    /**
+     * Releases the handle to the V8Object.
+     *
+     * @deprecated use close() instead.
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private String[] getKeys() {
+        if (keys == null) {
+            keys = object.getKeys();
+            keySet = new HashSet<String>(keys.length * 2);
+            for (String key : keys) {
+                keySet.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private Object fetch(final Object key) {
+        if (values.containsKey(key)) {
+            return values.get(key);
+        }
+        getKeys();
+        if (!keySet.contains(key)) {
+            return V8ObjectUtils.IGNORE;
+        }
+        String name = (String) key;
+        Object value = V8ObjectUtils.getValue(object, name, adapter);
+        values.put(name, value);
+        return value;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private final String[]        iteratedKeys;
+        private int                   index = 0;
+        private Entry<String, Object> next;
+
+        EntryIterator(final String[] keys) {
+            iteratedKeys = keys;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((next == null) && (index < iteratedKeys.length)) {
+                String key = iteratedKeys[index++];
+                Object value = fetch(key);
+                if (value != V8ObjectUtils.IGNORE) {
+                    next = new SimpleImmutableEntry<String, Object>(key, value);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Object> result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
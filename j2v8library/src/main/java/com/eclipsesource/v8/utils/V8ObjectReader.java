@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * Reads a fixed list of properties from many JS objects that share the
+ * same layout, such as the records of a large array. The reader is built
+ * once for the keys and their types. It compiles a JS function that
+ * extracts every field of a batch of records, so a whole batch is read
+ * with a constant number of native calls instead of several calls per
+ * field.
+ *
+ * Fields can be of type {@link V8Value#INTEGER}, {@link V8Value#DOUBLE},
+ * {@link V8Value#BOOLEAN} or {@link V8Value#STRING}. Fields that are
+ * missing, or hold a value of another type, are read as null.
+ *
+ * Once the reader is no longer needed, it should be released. To tie a
+ * reader to the lifecycle of a V8 runtime, it can be registered as a
+ * resource with V8.registerResource.
+ */
+public class V8ObjectReader implements Releasable {
+
+    private static final String FACTORY_SCRIPT = "(function(keys, types) {\n"
+            + "  var columns = {i: 'ints', d: 'doubles', b: 'booleans', s: 'strings'};\n"
+            + "  var tests = {i: \"typeof v === 'number' && (v | 0) === v\", d: \"typeof v === 'number'\",\n"
+            + "      b: \"typeof v === 'boolean'\", s: \"typeof v === 'string'\"};\n"
+            + "  var empty = {i: '0', d: '0', b: 'false', s: \"''\"};\n"
+            + "  var slots = {i: 0, d: 0, b: 0, s: 0};\n"
+            + "  var code = '';\n"
+            + "  for (var f = 0; f < keys.length; f++) {\n"
+            + "    var t = types.charAt(f);\n"
+            + "    var column = columns[t] + '[' + (slots[t]++) + ' * n + r]';\n"
+            + "    var isNull = 'nulls[' + f + ' * n + r]';\n"
+            + "    code += '  v = missing ? undefined : o[' + JSON.stringify(keys[f]) + '];\\n'\n"
+            + "        + '  if (' + tests[t] + ') { ' + column + ' = v; ' + isNull + ' = false; }'\n"
+            + "        + ' else { ' + column + ' = ' + empty[t] + '; ' + isNull + ' = true; }\\n';\n"
+            + "  }\n"
+            + "  return new Function('rows', 'start', 'count', 'single',\n"
+            + "      'var n = single ? 1 : Math.max(0, Math.min(count, rows.length - start));\\n'\n"
+            + "      + 'var ints = new Array(' + slots.i + ' * n), doubles = new Array(' + slots.d + ' * n);\\n'\n"
+            + "      + 'var booleans = new Array(' + slots.b + ' * n), strings = new Array(' + slots.s + ' * n);\\n'\n"
+            + "      + 'var nulls = new Array(' + keys.length + ' * n);\\n'\n"
+            + "      + 'for (var r = 0; r < n; r++) {\\n'\n"
+            + "      + '  var o = single ? rows : rows[start + r], missing = (o === null) || (o === undefined), v;\\n'\n"
+            + "      + code\n"
+            + "      + '}\\n'\n"
+            + "      + 'return [n, ints, doubles, booleans, strings, nulls];');\n"
+            + "})";
+
+    private static final int    INTS           = 1;
+    private static final int    DOUBLES        = 2;
+    private static final int    BOOLEANS       = 3;
+    private static final int    STRINGS        = 4;
+    private static final int    NULLS          = 5;
+    private static final String COLUMN_CODES   = "?idbs";
+
+    private final V8            v8;
+    private final String[]      keys;
+    private final int[]         types;
+    private final int[]         slots;
+    private final int[]         slotCounts     = new int[NULLS + 1];
+    private V8Function          extractor;
+    private int                 count;
+    private int[]               ints           = new int[0];
+    private double[]            doubles        = new double[0];
+    private boolean[]           booleans       = new boolean[0];
+    private String[]            strings        = new String[0];
+    private boolean[]           nulls          = new boolean[0];
+
+    /**
+     * Creates a reader for the given properties.
+     *
+     * @param v8 The runtime of the objects to read.
+     * @param keys The keys of the properties to read.
+     * @param types The type of each property, one of V8Value.INTEGER,
+     * V8Value.DOUBLE, V8Value.BOOLEAN or V8Value.STRING.
+     */
+    public V8ObjectReader(final V8 v8, final String[] keys, final int[] types) {
+        if ((keys == null) || (types == null) || (keys.length != types.length)) {
+            throw new IllegalArgumentException("Each key needs exactly one type");
+        }
+        this.v8 = v8;
+        this.keys = keys.clone();
+        this.types = types.clone();
+        slots = new int[keys.length];
+        StringBuilder typeCodes = new StringBuilder(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            int column = getColumn(types[i]);
+            slots[i] = slotCounts[column]++;
+            typeCodes.append(COLUMN_CODES.charAt(column));
+        }
+        extractor = createExtractor(typeCodes.toString());
+    }
+
+    /**
+     * Returns the number of properties read from each object.
+     *
+     * @return The number of fields.
+     */
+    public int getFieldCount() {
+        return keys.length;
+    }
+
+    /**
+     * Reads the properties of one object. The value of the i-th key is
+     * stored at out[i].
+     *
+     * @param object The object to read.
+     * @param out The array to store the values in. It must hold at least
+     * {@link #getFieldCount()} elements.
+     */
+    public void read(final V8Object object, final Object[] out) {
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output array too small: " + out.length);
+        }
+        extract(object, 0, 1, true);
+        for (int field = 0; field < keys.length; field++) {
+            out[field] = getValue(field, 0);
+        }
+    }
+
+    /**
+     * Reads the properties of all objects in an array. The value of the
+     * i-th key of the r-th object is stored at index r * getFieldCount() + i
+     * of the result.
+     *
+     * @param rows The objects to read.
+     *
+     * @return The values of all objects.
+     */
+    public Object[] readAll(final V8Array rows) {
+        Object[] result = new Object[rows.length() * keys.length];
+        readAll(rows, 0, result);
+        return result;
+    }
+
+    /**
+     * Reads the properties of a batch of objects in an array, as many as
+     * fit into the output array. The value of the i-th key of the r-th
+     * object read is stored at index r * getFieldCount() + i of the output
+     * array, which can be reused for the next batch.
+     *
+     * @param rows The objects to read.
+     * @param start The index of the first object to read.
+     * @param out The array to store the values in.
+     *
+     * @return The number of objects read, which is 0 once start reaches
+     * the end of the array.
+     */
+    public int readAll(final V8Array rows, final int start, final Object[] out) {
+        if (start < 0) {
+            throw new IllegalArgumentException("Start must not be negative: " + start);
+        }
+        if (keys.length == 0) {
+            return 0;
+        }
+        int read = extract(rows, start, out.length / keys.length, false);
+        for (int row = 0; row < read; row++) {
+            for (int field = 0; field < keys.length; field++) {
+                out[(row * keys.length) + field] = getValue(field, row);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Reads the properties of all objects in an array into columns, one
+     * primitive array per key.
+     *
+     * @param rows The objects to read.
+     *
+     * @return The values of all objects, column by column.
+     */
+    public Columns readColumns(final V8Array rows) {
+        // the extractor stops at the end of the array, which saves asking for its length
+        int rowCount = extract(rows, 0, Integer.MAX_VALUE, false);
+        Object[] values = new Object[keys.length];
+        BitSet[] nullRows = new BitSet[keys.length];
+        for (int field = 0; field < keys.length; field++) {
+            values[field] = copyColumn(field);
+            nullRows[field] = copyNulls(field);
+        }
+        return new Columns(keys.clone(), types.clone(), rowCount, values, nullRows);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        if (extractor != null) {
+            extractor.close();
+            extractor = null;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.Releasable#release()
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    /*
+     * Extracts the fields of a batch into the column buffers, with one
+     * call into JS and one bulk read per non-empty column.
+     */
+    int extract(final V8Value rows, final int start, final int length, final boolean single) {
+        if (extractor == null) {
+            throw new IllegalStateException("Reader released");
+        }
+        V8Array parameters = new V8Array(v8);
+        V8Array result = null;
+        try {
+            parameters.push(rows).push(start).push(length).push(single);
+            result = (V8Array) extractor.call(null, parameters);
+            count = result.getInteger(0);
+            ints = readIntegers(result, slotCounts[INTS] * count, ints);
+            doubles = readDoubles(result, slotCounts[DOUBLES] * count, doubles);
+            booleans = readBooleans(result, BOOLEANS, slotCounts[BOOLEANS] * count, booleans);
+            strings = readStrings(result, slotCounts[STRINGS] * count, strings);
+            nulls = readBooleans(result, NULLS, keys.length * count, nulls);
+            return count;
+        } finally {
+            parameters.close();
+            if (result != null) {
+                result.close();
+            }
+        }
+    }
+
+    Object getValue(final int field, final int row) {
+        if (nulls[(field * count) + row]) {
+            return null;
+        }
+        int index = (slots[field] * count) + row;
+        switch (types[field]) {
+            case V8Value.INTEGER:
+                return ints[index];
+            case V8Value.DOUBLE:
+                return doubles[index];
+            case V8Value.BOOLEAN:
+                return booleans[index];
+            default:
+                return strings[index];
+        }
+    }
+
+    private Object copyColumn(final int field) {
+        int from = slots[field] * count;
+        switch (types[field]) {
+            case V8Value.INTEGER:
+                return Arrays.copyOfRange(ints, from, from + count);
+            case V8Value.DOUBLE:
+                return Arrays.copyOfRange(doubles, from, from + count);
+            case V8Value.BOOLEAN:
+                return Arrays.copyOfRange(booleans, from, from + count);
+            default:
+                String[] result = Arrays.copyOfRange(strings, from, from + count);
+                for (int row = 0; row < count; row++) {
+                    if (nulls[(field * count) + row]) {
+                        result[row] = null;
+                    }
+                }
+                return result;
+        }
+    }
+
+    private BitSet copyNulls(final int field) {
+        BitSet result = new BitSet(count);
+        int from = field * count;
+        for (int row = 0; row < count; row++) {
+            if (nulls[from + row]) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    private static int[] readIntegers(final V8Array result, final int length, final int[] buffer) {
+        if (length == 0) {
+            return buffer;
+        }
+        int[] values = buffer.length >= length ? buffer : new int[length];
+        V8Array column = result.getArray(INTS);
+        try {
+            column.getIntegers(0, length, values);
+        } finally {
+            column.close();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(final V8Array result, final int length, final double[] buffer) {
+        if (length == 0) {
+            return buffer;
+        }
+        double[] values = buffer.length >= length ? buffer : new double[length];
+        V8Array column = result.getArray(DOUBLES);
+        try {
+            column.getDoubles(0, length, values);
+        } finally {
+            column.close();
+        }
+        return values;
+    }
+
+    private static boolean[] readBooleans(final V8Array result, final int index, final int length, final boolean[] buffer) {
+        if (length == 0) {
+            return buffer;
+        }
+        boolean[] values = buffer.length >= length ? buffer : new boolean[length];
+        V8Array column = result.getArray(index);
+        try {
+            column.getBooleans(0, length, values);
+        } finally {
+            column.close();
+        }
+        return values;
+    }
+
+    private static String[] readStrings(final V8Array result, final int length, final String[] buffer) {
+        if (length == 0) {
+            return buffer;
+        }
+        String[] values = buffer.length >= length ? buffer : new String[length];
+        V8Array column = result.getArray(STRINGS);
+        try {
+            column.getStrings(0, length, values);
+        } finally {
+            column.close();
+        }
+        return values;
+    }
+
+    private V8Function createExtractor(final String typeCodes) {
+        V8Function factory = (V8Function) v8.executeObjectScript(FACTORY_SCRIPT);
+        V8Array parameters = new V8Array(v8);
+        try {
+            V8Array keyArray = new V8Array(v8);
+            try {
+                for (String key : keys) {
+                    keyArray.push(key);
+                }
+                parameters.push(keyArray).push(typeCodes);
+            } finally {
+                keyArray.close();
+            }
+            return (V8Function) factory.call(null, parameters);
+        } finally {
+            parameters.close();
+            factory.close();
+        }
+    }
+
+    private static int getColumn(final int type) {
+        switch (type) {
+            case V8Value.INTEGER:
+                return INTS;
+            case V8Value.DOUBLE:
+                return DOUBLES;
+            case V8Value.BOOLEAN:
+                return BOOLEANS;
+            case V8Value.STRING:
+                return STRINGS;
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + V8Value.getStringRepresentation(type));
+        }
+    }
+
+}
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.eclipsesource.v8.utils;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Hashtable;
@@ -29,11 +30,17 @@ import com.eclipsesource.v8.V8Value;
  * A set of static helper methods to convert V8Objects / V8Arrays to
  * java.util Maps and Lists and back again. These conversions
  * perform a deep copy.
+ *
+ * Arrays whose elements all have the same primitive type are read with a
+ * single bulk call. The resulting Lists are growable Lists of boxed values.
+ * Callers that only read the result can pass true for the primitiveLists
+ * parameter to get arrays of integers or doubles as a fixed-size
+ * {@link IntList} or {@link DoubleList} instead.
  */
 public class V8ObjectUtils {
 
-    private static final Object      IGNORE               = new Object();
-    private static final TypeAdapter DEFAULT_TYPE_ADAPTER = new DefaultTypeAdapter();
+    static final Object              IGNORE               = new Object();
+    static final TypeAdapter         DEFAULT_TYPE_ADAPTER = new DefaultTypeAdapter();
 
     /**
      * Create a Java Object from a result from V8. V8 can return
@@ -71,11 +78,31 @@ public class V8ObjectUtils {
      * @return A Java object representing the input.
      */
     public static Object getValue(final Object v8Object, final TypeAdapter adapter) {
-        V8Map<Object> cache = new V8Map<Object>();
+        return getValue(v8Object, adapter, false);
+    }
+
+    /**
+     * Create a Java Object from a result from V8 using a {@link TypeAdapter} to convert
+     * objects, and choosing how arrays of numbers are converted. V8 can return basic
+     * Java types or V8Values (V8Object, V8Array, etc...). This method will attempt to
+     * convert the result into a pure Java object using a deep copy.
+     *
+     * All elements in the V8Object are released after they are accessed.
+     * However, the root object itself is not released.
+     *
+     * @param v8Object The input to convert.
+     * @param adapter The {@link TypeAdapter} to use for the object conversions.
+     * @param primitiveLists True to convert arrays of integers or doubles to
+     * an {@link IntList} or {@link DoubleList}, false to always create
+     * growable Lists of boxed values.
+     * @return A Java object representing the input.
+     */
+    public static Object getValue(final Object v8Object, final TypeAdapter adapter, final boolean primitiveLists) {
+        V8VisitedMap cache = new V8VisitedMap();
         try {
             if (v8Object instanceof V8Value) {
                 int type = ((V8Value) v8Object).getV8Type();
-                return getValue(v8Object, type, cache, adapter);
+                return getValue(v8Object, type, cache, adapter, primitiveLists);
             } else {
                 return v8Object;
             }
@@ -108,9 +135,27 @@ public class V8ObjectUtils {
      * @return A map representing a deep copy of the V8Object rooted at 'object'.
      */
     public static Map<String, ? super Object> toMap(final V8Object object, final TypeAdapter adapter) {
-        V8Map<Object> cache = new V8Map<Object>();
+        return toMap(object, adapter, false);
+    }
+
+    /**
+     * Creates a Map from a V8Object using a deep copy and a TypeAdapter to handle
+     * type conversions, choosing how arrays of numbers are converted. All elements
+     * in the V8Object are released after they are accessed. However, the root
+     * object itself is not released.
+     *
+     * @param object The root of the V8Object graph.
+     * @param adapter The {@link TypeAdapter} to use for the object conversions.
+     * @param primitiveLists True to convert arrays of integers or doubles to
+     * an {@link IntList} or {@link DoubleList}, false to always create
+     * growable Lists of boxed values.
+     *
+     * @return A map representing a deep copy of the V8Object rooted at 'object'.
+     */
+    public static Map<String, ? super Object> toMap(final V8Object object, final TypeAdapter adapter, final boolean primitiveLists) {
+        V8VisitedMap cache = new V8VisitedMap();
         try {
-            return toMap(object, cache, adapter);
+            return toMap(object, cache, adapter, primitiveLists);
         } finally {
             cache.close();
         }
@@ -140,14 +185,58 @@ public class V8ObjectUtils {
      * @return A list representing a deep copy of the V8Array rooted at 'array'.
      */
     public static List<? super Object> toList(final V8Array array, final TypeAdapter adapter) {
-        V8Map<Object> cache = new V8Map<Object>();
+        return toList(array, adapter, false);
+    }
+
+    /**
+     * Creates a List from a V8Array using a deep copy and a TypeAdapter to handle
+     * type conversions, choosing how arrays of numbers are converted. All elements
+     * in the V8Array are released after they are accessed. However, the root
+     * array itself is not released.
+     *
+     * @param array The root of the V8Array graph.
+     * @param adapter The {@link TypeAdapter} to use for the object conversions.
+     * @param primitiveLists True to convert arrays of integers or doubles to
+     * an {@link IntList} or {@link DoubleList}, false to always create
+     * growable Lists of boxed values.
+     *
+     * @return A list representing a deep copy of the V8Array rooted at 'array'.
+     */
+    public static List<? super Object> toList(final V8Array array, final TypeAdapter adapter, final boolean primitiveLists) {
+        V8VisitedMap cache = new V8VisitedMap();
         try {
-            return toList(array, cache, adapter);
+            return toList(array, cache, adapter, primitiveLists);
         } finally {
             cache.close();
         }
     }
 
+    /**
+     * Reads properties of the objects in a V8Array into columns. For each
+     * key, the values of all objects are stored in a primitive array of the
+     * given type: int[] for INTEGER, double[] for DOUBLE, boolean[] for
+     * BOOLEAN and String[] for STRING. A bitmap per column marks the rows
+     * in which the property was missing or had another type.
+     *
+     * The objects are read in a single pass in JavaScript, without creating
+     * a handle per object. To read many arrays with the same keys, create a
+     * {@link V8ObjectReader} once and use {@link V8ObjectReader#readColumns(V8Array)}.
+     *
+     * @param rows The objects to read. The array is not released.
+     * @param keys The keys of the properties to read.
+     * @param types The type of each property.
+     *
+     * @return The values of the properties, column by column.
+     */
+    public static Columns toColumns(final V8Array rows, final String[] keys, final int[] types) {
+        V8ObjectReader reader = new V8ObjectReader(rows.getRuntime(), keys, types);
+        try {
+            return reader.readColumns(rows);
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * Populates a Java array from a V8Array. The type of the array must be specified.
      * Currently, only INTEGER, DOUBLE, BOOLEAN and STRING are supported.
@@ -271,12 +360,93 @@ public class V8ObjectUtils {
         }
     }
 
+    /**
+     * Creates an Int32Array from a Java int[]. The values are copied with a
+     * single bulk copy into the backing store of a new ArrayBuffer, which is
+     * allocated and owned by V8.
+     *
+     * The resulting V8TypedArray must be released.
+     *
+     * @param v8 The runtime on which to create the typed array.
+     * @param array The values of the typed array.
+     *
+     * @return A V8TypedArray containing the values.
+     */
+    public static V8TypedArray toV8TypedArray(final V8 v8, final int[] array) {
+        return createV8TypedArray(v8, array);
+    }
+
+    /**
+     * Creates an Float64Array from a Java double[]. The values are copied with a
+     * single bulk copy into the backing store of a new ArrayBuffer, which is
+     * allocated and owned by V8.
+     *
+     * The resulting V8TypedArray must be released.
+     *
+     * @param v8 The runtime on which to create the typed array.
+     * @param array The values of the typed array.
+     *
+     * @return A V8TypedArray containing the values.
+     */
+    public static V8TypedArray toV8TypedArray(final V8 v8, final double[] array) {
+        return createV8TypedArray(v8, array);
+    }
+
+    /**
+     * Creates an Float32Array from a Java float[]. The values are copied with a
+     * single bulk copy into the backing store of a new ArrayBuffer, which is
+     * allocated and owned by V8.
+     *
+     * The resulting V8TypedArray must be released.
+     *
+     * @param v8 The runtime on which to create the typed array.
+     * @param array The values of the typed array.
+     *
+     * @return A V8TypedArray containing the values.
+     */
+    public static V8TypedArray toV8TypedArray(final V8 v8, final float[] array) {
+        return createV8TypedArray(v8, array);
+    }
+
+    /**
+     * Creates an Int16Array from a Java short[]. The values are copied with a
+     * single bulk copy into the backing store of a new ArrayBuffer, which is
+     * allocated and owned by V8.
+     *
+     * The resulting V8TypedArray must be released.
+     *
+     * @param v8 The runtime on which to create the typed array.
+     * @param array The values of the typed array.
+     *
+     * @return A V8TypedArray containing the values.
+     */
+    public static V8TypedArray toV8TypedArray(final V8 v8, final short[] array) {
+        return createV8TypedArray(v8, array);
+    }
+
+    /**
+     * Creates an Int8Array from a Java byte[]. The values are copied with a
+     * single bulk copy into the backing store of a new ArrayBuffer, which is
+     * allocated and owned by V8.
+     *
+     * The resulting V8TypedArray must be released.
+     *
+     * @param v8 The runtime on which to create the typed array.
+     * @param array The values of the typed array.
+     *
+     * @return A V8TypedArray containing the values.
+     */
+    public static V8TypedArray toV8TypedArray(final V8 v8, final byte[] array) {
+        return createV8TypedArray(v8, array);
+    }
+
     /**
      * Returns an object usable with a V8 Runtime which represents
      * the parameter 'value'. If 'value' is an Integer, Boolean, Double
      * or String, then 'value' is simply returned as these are directly
      * usable on V8. If 'value' is a map / list, then it's converted to
-     * a V8Object / V8Array first.
+     * a V8Object / V8Array first. Arrays of int, double, float, short or
+     * byte are converted to a V8TypedArray.
      *
      * If the result is a V8Value, it must be released.
      *
@@ -337,13 +507,13 @@ public class V8ObjectUtils {
      * @return A Java Object representing the value at a given index.
      */
     public static Object getValue(final V8Array array, final int index) {
-        V8Map<Object> cache = new V8Map<Object>();
+        V8VisitedMap cache = new V8VisitedMap();
         Object object = null;
         int type = V8Value.UNDEFINED;
         try {
             object = array.get(index);
             type = array.getType(index);
-            Object result = getValue(object, type, cache, DEFAULT_TYPE_ADAPTER);
+            Object result = getValue(object, type, cache, DEFAULT_TYPE_ADAPTER, false);
             if ((result == object) && (result instanceof V8Value)) {
                 return ((V8Value) result).twin();
             }
@@ -371,13 +541,13 @@ public class V8ObjectUtils {
      * @return A Java Object representing the value at a given index.
      */
     public static Object getValue(final V8Array array, final int index, final TypeAdapter adapter) {
-        V8Map<Object> cache = new V8Map<Object>();
+        V8VisitedMap cache = new V8VisitedMap();
         Object object = null;
         int type = V8Value.UNDEFINED;
         try {
             object = array.get(index);
             type = array.getType(index);
-            Object result = getValue(object, type, cache, adapter);
+            Object result = getValue(object, type, cache, adapter, false);
             if ((result == object) && (result instanceof V8Value)) {
                 return ((V8Value) result).twin();
             }
@@ -421,13 +591,13 @@ public class V8ObjectUtils {
      * @return A Java Object representing the value at a given key.
      */
     public static Object getValue(final V8Object v8Object, final String key, final TypeAdapter adapter) {
-        V8Map<Object> cache = new V8Map<Object>();
+        V8VisitedMap cache = new V8VisitedMap();
         Object object = null;
         int type = V8Value.UNDEFINED;
         try {
             object = v8Object.get(key);
             type = v8Object.getType(key);
-            Object result = getValue(object, type, cache, adapter);
+            Object result = getValue(object, type, cache, adapter, false);
             if ((result == object) && (result instanceof V8Value)) {
                 return ((V8Value) result).twin();
             }
@@ -441,12 +611,13 @@ public class V8ObjectUtils {
     }
 
     @SuppressWarnings("unchecked")
-    private static Map<String, ? super Object> toMap(final V8Object v8Object, final V8Map<Object> cache, final TypeAdapter adapter) {
+    private static Map<String, ? super Object> toMap(final V8Object v8Object, final V8VisitedMap cache, final TypeAdapter adapter, final boolean primitiveLists) {
         if (v8Object == null) {
             return Collections.emptyMap();
         }
-        if (cache.containsKey(v8Object)) {
-            return (Map<String, ? super Object>) cache.get(v8Object);
+        Object visited = cache.get(v8Object);
+        if (visited != null) {
+            return (Map<String, ? super Object>) visited;
         }
         Map<String, ? super Object> result = new V8PropertyMap<Object>();
         cache.put(v8Object, result);
@@ -457,12 +628,13 @@ public class V8ObjectUtils {
             try {
                 object = v8Object.get(key);
                 type = v8Object.getType(key);
-                Object value = getValue(object, type, cache, adapter);
+                Object value = getValue(object, type, cache, adapter, primitiveLists);
                 if (value != IGNORE) {
                     result.put(key, value);
                 }
             } finally {
-                if (object instanceof Releasable) {
+                // visited objects stay alive until the conversion is done, so they need no twin
+                if ((object instanceof Releasable) && !cache.adopt(object)) {
                     ((Releasable) object).release();
                 }
             }
@@ -471,27 +643,35 @@ public class V8ObjectUtils {
     }
 
     @SuppressWarnings("unchecked")
-    private static List<? super Object> toList(final V8Array array, final V8Map<Object> cache, final TypeAdapter adapter) {
+    private static List<? super Object> toList(final V8Array array, final V8VisitedMap cache, final TypeAdapter adapter, final boolean primitiveLists) {
         if (array == null) {
             return Collections.emptyList();
         }
-        if (cache.containsKey(array)) {
-            return (List<? super Object>) cache.get(array);
+        Object visited = cache.get(array);
+        if (visited != null) {
+            return (List<? super Object>) visited;
+        }
+        int length = array.length();
+        List<? super Object> result = length > 0 ? toHomogeneousList(array, length, adapter, primitiveLists) : null;
+        if (result != null) {
+            cache.put(array, result);
+            return result;
         }
-        List<? super Object> result = new ArrayList<Object>();
+        result = new ArrayList<Object>(length);
         cache.put(array, result);
-        for (int i = 0; i < array.length(); i++) {
+        for (int i = 0; i < length; i++) {
             Object object = null;
             int type = V8Value.UNDEFINED;
             try {
                 object = array.get(i);
                 type = array.getType(i);
-                Object value = getValue(object, type, cache, adapter);
+                Object value = getValue(object, type, cache, adapter, primitiveLists);
                 if (value != IGNORE) {
                     result.add(value);
                 }
             } finally {
-                if (object instanceof Releasable) {
+                // visited objects stay alive until the conversion is done, so they need no twin
+                if ((object instanceof Releasable) && !cache.adopt(object)) {
                     ((Releasable) object).release();
                 }
             }
@@ -499,6 +679,138 @@ public class V8ObjectUtils {
         return result;
     }
 
+    /*
+     * Reads an array whose elements all have the same primitive type with a
+     * single bulk call. Returns null if the elements have different types.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static List<? super Object> toHomogeneousList(final V8Array array, final int length, final TypeAdapter adapter, final boolean primitiveLists) {
+        int type = array.getType();
+        boolean compact = primitiveLists && (adapter == DEFAULT_TYPE_ADAPTER);
+        List<? super Object> result;
+        switch (type) {
+            case V8Value.INTEGER:
+                int[] integers = array.getIntegers(0, length);
+                if (compact) {
+                    return (List) new IntList(integers);
+                }
+                result = new ArrayList<Object>(length);
+                for (int value : integers) {
+                    addAdapted(result, type, value, adapter);
+                }
+                return result;
+            case V8Value.DOUBLE:
+                double[] doubles = array.getDoubles(0, length);
+                if (containsIntegers(doubles)) {
+                    // getType() reports mixed arrays of integers and doubles as DOUBLE
+                    return null;
+                }
+                if (compact) {
+                    return (List) new DoubleList(doubles);
+                }
+                result = new ArrayList<Object>(length);
+                for (double value : doubles) {
+                    addAdapted(result, type, value, adapter);
+                }
+                return result;
+            case V8Value.BOOLEAN:
+                // boxed booleans are shared instances, so a boxed List costs nothing extra
+                result = new ArrayList<Object>(length);
+                for (boolean value : array.getBooleans(0, length)) {
+                    addAdapted(result, type, value, adapter);
+                }
+                return result;
+            case V8Value.STRING:
+                result = new ArrayList<Object>(length);
+                for (String value : array.getStrings(0, length)) {
+                    addAdapted(result, type, value, adapter);
+                }
+                return result;
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * Returns true if one of the values would be reported as an INTEGER
+     * by V8Array#getType(int).
+     */
+    private static boolean containsIntegers(final double[] values) {
+        for (double value : values) {
+            if ((value == (int) value) && ((value != 0) || (1 / value > 0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addAdapted(final List<? super Object> result, final int type, final Object value, final TypeAdapter adapter) {
+        Object adapterResult = adapter.adapt(type, value);
+        result.add(TypeAdapter.DEFAULT != adapterResult ? adapterResult : value);
+    }
+
+    private static V8TypedArray toV8TypedArray(final V8 v8, final Object primitiveArray, final Map<Object, V8Value> cache) {
+        if (cache.containsKey(primitiveArray)) {
+            return (V8TypedArray) cache.get(primitiveArray);
+        }
+        V8TypedArray result = createV8TypedArray(v8, primitiveArray);
+        cache.put(primitiveArray, result);
+        return result;
+    }
+
+    private static boolean isPrimitiveArray(final Object value) {
+        return (value instanceof int[]) || (value instanceof double[]) || (value instanceof float[])
+                || (value instanceof short[]) || (value instanceof byte[]);
+    }
+
+    private static V8TypedArray createV8TypedArray(final V8 v8, final Object array) {
+        int type;
+        int length;
+        int elementSize;
+        if (array instanceof int[]) {
+            type = V8Value.INT_32_ARRAY;
+            length = ((int[]) array).length;
+            elementSize = 4;
+        } else if (array instanceof double[]) {
+            type = V8Value.FLOAT_64_ARRAY;
+            length = ((double[]) array).length;
+            elementSize = 8;
+        } else if (array instanceof float[]) {
+            type = V8Value.FLOAT_32_ARRAY;
+            length = ((float[]) array).length;
+            elementSize = 4;
+        } else if (array instanceof short[]) {
+            type = V8Value.INT_16_ARRAY;
+            length = ((short[]) array).length;
+            elementSize = 2;
+        } else if (array instanceof byte[]) {
+            type = V8Value.INT_8_ARRAY;
+            length = ((byte[]) array).length;
+            elementSize = 1;
+        } else {
+            throw new IllegalArgumentException("Unsupported array of type: " + array.getClass());
+        }
+        // V8 owns the memory, so the typed array stays valid however long JavaScript keeps it
+        V8ArrayBuffer arrayBuffer = new V8ArrayBuffer(v8, length * elementSize);
+        try {
+            ByteBuffer backingStore = arrayBuffer.getBackingStore();
+            if (array instanceof int[]) {
+                backingStore.asIntBuffer().put((int[]) array);
+            } else if (array instanceof double[]) {
+                backingStore.asDoubleBuffer().put((double[]) array);
+            } else if (array instanceof float[]) {
+                backingStore.asFloatBuffer().put((float[]) array);
+            } else if (array instanceof short[]) {
+                backingStore.asShortBuffer().put((short[]) array);
+            } else {
+                backingStore.put((byte[]) array);
+            }
+            return new V8TypedArray(v8, arrayBuffer, type, 0, length);
+        } finally {
+            arrayBuffer.close();
+        }
+    }
+
     private static V8TypedArray toV8TypedArray(final V8 v8, final TypedArray typeArray, final Map<Object, V8Value> cache) {
         if (cache.containsKey(typeArray)) {
             return (V8TypedArray) cache.get(typeArray);
@@ -565,6 +877,8 @@ public class V8ObjectUtils {
             return toV8TypedArray(v8, (TypedArray) value, cache);
         } else if (value instanceof ArrayBuffer) {
             return toV8ArrayBuffer(v8, (ArrayBuffer) value, cache);
+        } else if (isPrimitiveArray(value)) {
+            return toV8TypedArray(v8, value, cache);
         }
         return value;
     }
@@ -599,6 +913,9 @@ public class V8ObjectUtils {
         } else if (value instanceof List) {
             V8Array array = toV8Array(v8, (List) value, cache);
             result.push(array);
+        } else if (isPrimitiveArray(value)) {
+            V8TypedArray v8TypedArray = toV8TypedArray(v8, value, cache);
+            result.push(v8TypedArray);
         } else {
             throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
         }
@@ -634,12 +951,32 @@ public class V8ObjectUtils {
         } else if (value instanceof List) {
             V8Array array = toV8Array(v8, (List) value, cache);
             result.add(key, array);
+        } else if (isPrimitiveArray(value)) {
+            V8TypedArray v8TypedArray = toV8TypedArray(v8, value, cache);
+            result.add(key, v8TypedArray);
         } else {
             throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
         }
     }
 
-    private static Object getValue(final Object value, final int valueType, final V8Map<Object> cache, final TypeAdapter adapter) {
+    /*
+     * Converts a value whose type is already known. The value is not
+     * released, and V8Values returned by the adapter are twinned.
+     */
+    static Object getValue(final Object value, final int valueType, final TypeAdapter adapter) {
+        V8VisitedMap cache = new V8VisitedMap();
+        try {
+            Object result = getValue(value, valueType, cache, adapter, false);
+            if ((result == value) && (result instanceof V8Value)) {
+                return ((V8Value) result).twin();
+            }
+            return result;
+        } finally {
+            cache.close();
+        }
+    }
+
+    private static Object getValue(final Object value, final int valueType, final V8VisitedMap cache, final TypeAdapter adapter, final boolean primitiveLists) {
         Object adapterResult = adapter.adapt(valueType, value);
         if (TypeAdapter.DEFAULT != adapterResult) {
             return adapterResult;
@@ -657,9 +994,9 @@ public class V8ObjectUtils {
             case V8Value.V8_TYPED_ARRAY:
                 return new TypedArray((V8TypedArray) value);
             case V8Value.V8_ARRAY:
-                return toList((V8Array) value, cache, adapter);
+                return toList((V8Array) value, cache, adapter, primitiveLists);
             case V8Value.V8_OBJECT:
-                return toMap((V8Object) value, cache, adapter);
+                return toMap((V8Object) value, cache, adapter, primitiveLists);
             case V8Value.NULL:
                 return null;
             case V8Value.UNDEFINED:
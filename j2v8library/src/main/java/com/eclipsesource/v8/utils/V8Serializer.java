@@ -0,0 +1,554 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8ArrayBuffer;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8TypedArray;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * Serializes JavaScript values into a compact binary form that can be
+ * passed between runtimes, and deserializes them again. The format follows
+ * the structure of the V8 ValueSerializer: plain Objects, Arrays, Maps,
+ * Sets, Dates, RegExps, ArrayBuffers and TypedArrays are supported, and
+ * shared or cyclic references are preserved. Functions and other objects,
+ * such as boxed primitives, Errors or class instances, cannot be
+ * serialized and fail with a DataCloneError.
+ *
+ * ArrayBuffers can be transferred instead of being written into the
+ * serialized data. A transfer does not detach the source and does not
+ * share memory: the contents are copied into the SerializedValue, and the
+ * receiving runtime copies them into a new ArrayBuffer that V8 allocates.
+ * The sending runtime may therefore be released before the receiver is
+ * done with the value.
+ */
+public class V8Serializer {
+
+    private static final Charset UTF8                   = Charset.forName("UTF-8");
+    private static final int     HEADER                 = 0xFF;
+    private static final int     VERSION                = 1;
+
+    private static final byte    UNDEFINED              = '_';
+    private static final byte    NULL                   = '0';
+    private static final byte    TRUE                   = 'T';
+    private static final byte    FALSE                  = 'F';
+    private static final byte    INT32                  = 'I';
+    private static final byte    DOUBLE                 = 'N';
+    private static final byte    STRING                 = 'S';
+    private static final byte    OBJECT                 = 'o';
+    private static final byte    ARRAY                  = 'A';
+    private static final byte    MAP                    = ';';
+    private static final byte    SET                    = '\'';
+    private static final byte    ARRAY_BUFFER           = 'B';
+    private static final byte    TRANSFERRED_BUFFER     = 't';
+    private static final byte    TYPED_ARRAY            = 'V';
+    private static final byte    DATE                   = 'D';
+    private static final byte    REGEXP                 = 'R';
+    private static final byte    OBJECT_REFERENCE       = '^';
+
+    private static final String  MAP_KIND               = "Map";
+    private static final String  SET_KIND               = "Set";
+    private static final String  DATE_KIND              = "Date";
+    private static final String  REGEXP_KIND            = "RegExp";
+    private static final String  OBJECT_KIND            = "Object";
+    private static final String  KIND_SCRIPT            = "(function(value) {\n"
+            + "  var prototype = Object.getPrototypeOf(value);\n"
+            + "  var tag = Object.prototype.toString.call(value).slice(8, -1);\n"
+            + "  if ((tag === 'Object') && (prototype !== Object.prototype) && (prototype !== null)) {\n"
+            + "    return 'class ' + ((value.constructor && value.constructor.name) || 'instance');\n"
+            + "  }\n"
+            + "  return tag;\n"
+            + "})";
+    private static final String  BUILTIN_SCRIPT         = "(function(tag, a, b) {\n"
+            + "  return tag === 'D' ? new Date(a) : new RegExp(a, b);\n"
+            + "})";
+
+    /**
+     * Serializes a value. The value can be a primitive (Integer, Double,
+     * Boolean, String), null, undefined or a V8Value.
+     *
+     * @param v8 The runtime the value belongs to.
+     * @param value The value to serialize.
+     * @param transfer The ArrayBuffers to transfer instead of copying.
+     *
+     * @return The serialized value.
+     */
+    public static SerializedValue serialize(final V8 v8, final Object value, final V8ArrayBuffer... transfer) {
+        Serializer serializer = new Serializer(v8, transfer);
+        try {
+            return serializer.serialize(value);
+        } finally {
+            serializer.close();
+        }
+    }
+
+    /**
+     * Deserializes a value on the given runtime. If the result is a
+     * V8Value it must be released.
+     *
+     * @param v8 The runtime on which to create the value.
+     * @param value The serialized value.
+     *
+     * @return The deserialized value.
+     */
+    public static Object deserialize(final V8 v8, final SerializedValue value) {
+        Deserializer deserializer = new Deserializer(v8, value);
+        try {
+            Object result = deserializer.readValue();
+            if (result instanceof V8Value) {
+                return ((V8Value) result).twin();
+            }
+            return result;
+        } finally {
+            deserializer.close();
+        }
+    }
+
+    private V8Serializer() {
+
+    }
+
+    private static class Serializer {
+
+        private final V8                    v8;
+        private final ByteArrayOutputStream bytes     = new ByteArrayOutputStream();
+        private final DataOutputStream      out       = new DataOutputStream(bytes);
+        private final V8Map<Integer>        ids       = new V8Map<Integer>();
+        private final V8Map<Integer>        transfers = new V8Map<Integer>();
+        private final ByteBuffer[]          backingStores;
+        private V8Object                    arrayConstructor;
+        private V8Function                  kindFunction;
+
+        Serializer(final V8 v8, final V8ArrayBuffer[] transfer) {
+            this.v8 = v8;
+            backingStores = new ByteBuffer[transfer.length];
+            for (int i = 0; i < transfer.length; i++) {
+                transfers.put(transfer[i], i);
+                backingStores[i] = copy(transfer[i].getBackingStore());
+            }
+        }
+
+        // the backing store may belong to V8, so it must not outlive the sending runtime
+        private static ByteBuffer copy(final ByteBuffer backingStore) {
+            backingStore.clear();
+            ByteBuffer result = ByteBuffer.allocate(backingStore.remaining());
+            result.put(backingStore);
+            result.clear();
+            return result;
+        }
+
+        SerializedValue serialize(final Object value) {
+            try {
+                out.writeByte(HEADER);
+                out.writeByte(VERSION);
+                writeValue(value);
+                out.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new SerializedValue(ByteBuffer.wrap(bytes.toByteArray()), backingStores);
+        }
+
+        void close() {
+            ids.close();
+            transfers.close();
+            if (arrayConstructor != null) {
+                arrayConstructor.close();
+            }
+            if (kindFunction != null) {
+                kindFunction.close();
+            }
+        }
+
+        private void writeValue(final Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Integer) {
+                out.writeByte(INT32);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Number) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                out.writeByte(((Boolean) value) ? TRUE : FALSE);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof V8Value) {
+                if (((V8Value) value).isUndefined()) {
+                    out.writeByte(UNDEFINED);
+                } else {
+                    writeObject((V8Value) value);
+                }
+            } else {
+                throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            byte[] data = value.getBytes(UTF8);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        private void writeObject(final V8Value value) throws IOException {
+            Integer id = ids.get(value);
+            if (id != null) {
+                out.writeByte(OBJECT_REFERENCE);
+                out.writeInt(id);
+                return;
+            }
+            if (value instanceof V8Function) {
+                throw new IllegalStateException("DataCloneError: functions cannot be serialized");
+            }
+            ids.put(value, ids.size());
+            if (value instanceof V8ArrayBuffer) {
+                writeArrayBuffer((V8ArrayBuffer) value);
+            } else if (value instanceof V8TypedArray) {
+                writeTypedArray((V8TypedArray) value);
+            } else if (value instanceof V8Array) {
+                writeArray((V8Array) value);
+            } else if (value instanceof V8Object) {
+                String kind = getKind((V8Object) value);
+                if (OBJECT_KIND.equals(kind)) {
+                    writeProperties((V8Object) value);
+                } else if (MAP_KIND.equals(kind)) {
+                    writeCollection(MAP, (V8Object) value);
+                } else if (SET_KIND.equals(kind)) {
+                    writeCollection(SET, (V8Object) value);
+                } else if (DATE_KIND.equals(kind)) {
+                    out.writeByte(DATE);
+                    out.writeDouble(((V8Object) value).executeDoubleFunction("getTime", null));
+                } else if (REGEXP_KIND.equals(kind)) {
+                    out.writeByte(REGEXP);
+                    writeString(((V8Object) value).getString("source"));
+                    writeString(((V8Object) value).getString("flags"));
+                } else {
+                    throw new IllegalStateException("DataCloneError: " + kind + " objects cannot be serialized");
+                }
+            } else {
+                throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
+            }
+        }
+
+        private void writeArrayBuffer(final V8ArrayBuffer buffer) throws IOException {
+            Integer transferIndex = transfers.get(buffer);
+            if (transferIndex != null) {
+                out.writeByte(TRANSFERRED_BUFFER);
+                out.writeInt(transferIndex);
+                return;
+            }
+            ByteBuffer backingStore = buffer.getBackingStore();
+            backingStore.clear();
+            byte[] data = new byte[backingStore.remaining()];
+            backingStore.get(data);
+            out.writeByte(ARRAY_BUFFER);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        private void writeTypedArray(final V8TypedArray typedArray) throws IOException {
+            out.writeByte(TYPED_ARRAY);
+            out.writeByte(typedArray.getType());
+            out.writeInt(typedArray.getInteger("byteOffset"));
+            out.writeInt(typedArray.length());
+            V8ArrayBuffer buffer = typedArray.getBuffer();
+            try {
+                writeObject(buffer);
+            } finally {
+                buffer.close();
+            }
+        }
+
+        private void writeArray(final V8Array array) throws IOException {
+            int length = array.length();
+            out.writeByte(ARRAY);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                Object element = array.get(i);
+                try {
+                    writeValue(element);
+                } finally {
+                    release(element);
+                }
+            }
+        }
+
+        private void writeProperties(final V8Object object) throws IOException {
+            String[] keys = object.getKeys();
+            out.writeByte(OBJECT);
+            out.writeInt(keys.length);
+            for (String key : keys) {
+                writeString(key);
+                Object property = object.get(key);
+                try {
+                    writeValue(property);
+                } finally {
+                    release(property);
+                }
+            }
+        }
+
+        private void writeCollection(final byte tag, final V8Object collection) throws IOException {
+            V8Array entries = toArray(collection);
+            try {
+                int length = entries.length();
+                out.writeByte(tag);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    Object entry = entries.get(i);
+                    try {
+                        if (tag == MAP) {
+                            writeEntry((V8Array) entry);
+                        } else {
+                            writeValue(entry);
+                        }
+                    } finally {
+                        release(entry);
+                    }
+                }
+            } finally {
+                entries.close();
+            }
+        }
+
+        private void writeEntry(final V8Array entry) throws IOException {
+            for (int i = 0; i < 2; i++) {
+                Object object = entry.get(i);
+                try {
+                    writeValue(object);
+                } finally {
+                    release(object);
+                }
+            }
+        }
+
+        private String getKind(final V8Object object) {
+            if (kindFunction == null) {
+                kindFunction = (V8Function) v8.executeObjectScript(KIND_SCRIPT);
+            }
+            V8Array parameters = new V8Array(v8).push(object);
+            try {
+                return (String) kindFunction.call(null, parameters);
+            } finally {
+                parameters.close();
+            }
+        }
+
+        private V8Array toArray(final V8Object collection) {
+            if (arrayConstructor == null) {
+                arrayConstructor = v8.getObject("Array");
+            }
+            V8Array parameters = new V8Array(v8).push(collection);
+            try {
+                return arrayConstructor.executeArrayFunction("from", parameters);
+            } finally {
+                parameters.close();
+            }
+        }
+
+        private static void release(final Object object) {
+            if (object instanceof V8Value) {
+                ((V8Value) object).close();
+            }
+        }
+    }
+
+    private static class Deserializer {
+
+        private final V8              v8;
+        private final SerializedValue value;
+        private final ByteBuffer      in;
+        private final List<V8Value>   objects = new ArrayList<V8Value>();
+        private V8Function            builtinFunction;
+
+        Deserializer(final V8 v8, final SerializedValue value) {
+            this.v8 = v8;
+            this.value = value;
+            in = value.getData().order(ByteOrder.BIG_ENDIAN);
+            if (((in.get() & 0xFF) != HEADER) || (in.get() != VERSION)) {
+                throw new IllegalStateException("Unsupported serialization format");
+            }
+        }
+
+        void close() {
+            if (builtinFunction != null) {
+                builtinFunction.close();
+            }
+            for (V8Value object : objects) {
+                if (object != null) {
+                    object.close();
+                }
+            }
+            objects.clear();
+        }
+
+        Object readValue() {
+            byte tag = in.get();
+            switch (tag) {
+                case UNDEFINED:
+                    return V8.getUndefined();
+                case NULL:
+                    return null;
+                case TRUE:
+                    return true;
+                case FALSE:
+                    return false;
+                case INT32:
+                    return in.getInt();
+                case DOUBLE:
+                    return in.getDouble();
+                case STRING:
+                    return readString();
+                case OBJECT_REFERENCE:
+                    return objects.get(in.getInt());
+                case ARRAY_BUFFER:
+                    return readArrayBuffer();
+                case TRANSFERRED_BUFFER:
+                    return readTransferredBuffer();
+                case TYPED_ARRAY:
+                    return readTypedArray();
+                case DATE:
+                    return readBuiltin(DATE, in.getDouble(), null);
+                case REGEXP:
+                    return readBuiltin(REGEXP, readString(), readString());
+                case ARRAY:
+                    return readArray();
+                case OBJECT:
+                    return readProperties();
+                case MAP:
+                    return readCollection("new Map()", "set", 2);
+                case SET:
+                    return readCollection("new Set()", "add", 1);
+                default:
+                    throw new IllegalStateException("Unknown serialization tag: " + (char) tag);
+            }
+        }
+
+        private String readString() {
+            byte[] data = new byte[in.getInt()];
+            in.get(data);
+            return new String(data, UTF8);
+        }
+
+        private V8ArrayBuffer readArrayBuffer() {
+            int length = in.getInt();
+            V8ArrayBuffer buffer = register(new V8ArrayBuffer(v8, length));
+            ByteBuffer data = in.slice();
+            data.limit(length);
+            buffer.put(data);
+            buffer.rewind();
+            in.position(in.position() + length);
+            return buffer;
+        }
+
+        private V8ArrayBuffer readTransferredBuffer() {
+            ByteBuffer data = value.getTransferred(in.getInt()).duplicate();
+            data.clear();
+            // V8 owns the memory, so JavaScript can keep the buffer after the SerializedValue is gone
+            V8ArrayBuffer buffer = register(new V8ArrayBuffer(v8, data.remaining()));
+            buffer.put(data);
+            buffer.rewind();
+            return buffer;
+        }
+
+        private V8Object readBuiltin(final byte tag, final Object first, final String second) {
+            if (builtinFunction == null) {
+                builtinFunction = (V8Function) v8.executeObjectScript(BUILTIN_SCRIPT);
+            }
+            V8Array parameters = new V8Array(v8);
+            try {
+                parameters.push(String.valueOf((char) tag)).push(first).push(second);
+                return register((V8Object) builtinFunction.call(null, parameters));
+            } finally {
+                parameters.close();
+            }
+        }
+
+        private V8TypedArray readTypedArray() {
+            int index = objects.size();
+            objects.add(null);
+            int type = in.get();
+            int offset = in.getInt();
+            int length = in.getInt();
+            V8ArrayBuffer buffer = (V8ArrayBuffer) readValue();
+            V8TypedArray result = new V8TypedArray(v8, buffer, type, offset, length);
+            objects.set(index, result);
+            return result;
+        }
+
+        private V8Array readArray() {
+            V8Array result = register(new V8Array(v8));
+            int length = in.getInt();
+            for (int i = 0; i < length; i++) {
+                result.push(readValue());
+            }
+            return result;
+        }
+
+        private V8Object readProperties() {
+            V8Object result = register(new V8Object(v8));
+            int length = in.getInt();
+            for (int i = 0; i < length; i++) {
+                String key = readString();
+                Object property = readValue();
+                if (property instanceof V8Value) {
+                    result.add(key, (V8Value) property);
+                } else if (property instanceof Integer) {
+                    result.add(key, (Integer) property);
+                } else if (property instanceof Double) {
+                    result.add(key, (Double) property);
+                } else if (property instanceof Boolean) {
+                    result.add(key, (Boolean) property);
+                } else {
+                    result.add(key, (String) property);
+                }
+            }
+            return result;
+        }
+
+        private V8Object readCollection(final String constructor, final String adder, final int arity) {
+            V8Object result = register(v8.executeObjectScript(constructor));
+            int length = in.getInt();
+            for (int i = 0; i < length; i++) {
+                V8Array parameters = new V8Array(v8);
+                try {
+                    for (int j = 0; j < arity; j++) {
+                        parameters.push(readValue());
+                    }
+                    result.executeVoidFunction(adder, parameters);
+                } finally {
+                    parameters.close();
+                }
+            }
+            return result;
+        }
+
+        private <T extends V8Value> T register(final T object) {
+            objects.add(object);
+            return object;
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * Remembers the JS objects that were visited while converting a graph of
+ * V8Values, along with the Java object each was converted to. Unlike a
+ * {@link V8Map}, keys are not twinned. Entries are found by the identity
+ * hash of the V8Value, and JS strict equality is only checked when two
+ * visited objects share a hash.
+ *
+ * The handles passed to {@link #put(V8Value, Object)} must remain valid
+ * while the map is used. Handles that would otherwise be released can be
+ * handed to the map with {@link #adopt(Object)}, and are released when the
+ * map is closed.
+ *
+ * This class is not considered API.
+ */
+class V8VisitedMap implements Releasable {
+
+    private Map<Integer, Entry> entries = new HashMap<Integer, Entry>();
+
+    /**
+     * Returns the Java object the given V8Value was converted to.
+     *
+     * @param key The V8Value to lookup.
+     *
+     * @return The converted object, or null if the V8Value was not visited.
+     */
+    Object get(final V8Value key) {
+        Entry entry = find(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Records the Java object a V8Value was converted to. The V8Value is
+     * not twinned, so the handle must not be released while the map is
+     * used, unless it is adopted.
+     *
+     * @param key The visited V8Value.
+     * @param value The Java object the V8Value was converted to.
+     */
+    void put(final V8Value key, final Object value) {
+        Integer hash = key.hashCode();
+        Entry entry = entries.get(hash);
+        for (Entry next = entry; next != null; next = next.next) {
+            if ((next.key == key) || next.key.strictEquals(key)) {
+                next.value = value;
+                return;
+            }
+        }
+        entries.put(hash, new Entry(key, value, entry));
+    }
+
+    /**
+     * Hands a handle that was used as a key over to the map, which releases
+     * it when the map is closed.
+     *
+     * @param object The handle to adopt.
+     *
+     * @return True if the handle was used as a key and is now owned by the
+     * map, false if the caller remains responsible for releasing it.
+     */
+    boolean adopt(final Object object) {
+        if (!(object instanceof V8Value) || ((V8Value) object).isReleased()) {
+            return false;
+        }
+        for (Entry entry = entries.get(object.hashCode()); entry != null; entry = entry.next) {
+            if (entry.key == object) {
+                entry.owned = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of visited V8Values.
+     *
+     * @return The number of entries.
+     */
+    int size() {
+        int result = 0;
+        for (Entry entry : entries.values()) {
+            for (Entry next = entry; next != null; next = next.next) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases all adopted handles and removes all entries.
+     */
+    @Override
+    public void close() {
+        try {
+            for (Entry entry : entries.values()) {
+                for (Entry next = entry; next != null; next = next.next) {
+                    if (next.owned) {
+                        next.key.close();
+                    }
+                }
+            }
+        } finally {
+            entries.clear();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.Releasable#release()
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private Entry find(final V8Value key) {
+        for (Entry entry = entries.get(key.hashCode()); entry != null; entry = entry.next) {
+            if ((entry.key == key) || entry.key.strictEquals(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+
+        private final V8Value key;
+        private final Entry   next;
+        private Object        value;
+        private boolean       owned;
+
+        Entry(final V8Value key, final Object value, final Entry next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+    }
+
+}
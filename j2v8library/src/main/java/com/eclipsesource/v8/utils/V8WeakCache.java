@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.eclipsesource.v8.Releasable;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * A bounded cache of JS values, such as compiled template functions or
+ * lookup tables, that does not keep the values alive in V8. The cache
+ * holds a weak handle to each value ({@link V8Value#setWeak()}), so an
+ * entry disappears once V8's garbage collector reclaims a value that is
+ * no longer referenced from JS. When the cache is full, the least
+ * recently used entry is evicted.
+ *
+ * Hit, miss and eviction counters show how effective the cache is.
+ * Entries evicted by the garbage collector are counted separately from
+ * entries evicted because the cache was full.
+ *
+ * The cache must only be used on the thread of its runtime. Once the
+ * cache is no longer needed, it should be released. To tie a cache to
+ * the lifecycle of a V8 runtime, it can be registered as a resource with
+ * V8.registerResource.
+ */
+public class V8WeakCache<K, V extends V8Value> implements Releasable {
+
+    private final int                       maximumSize;
+    private final LinkedHashMap<K, V8Value> entries        = new LinkedHashMap<K, V8Value>(16, 0.75f, true);
+    private long                            hitCount       = 0;
+    private long                            missCount      = 0;
+    private long                            evictionCount  = 0;
+    private long                            collectedCount = 0;
+
+    /**
+     * Creates a cache that holds up to the given number of values.
+     *
+     * @param maximumSize The maximum number of values to keep.
+     */
+    public V8WeakCache(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Adds a value to the cache, replacing any value cached for the same
+     * key. The cache keeps its own weak handle to the value, so the given
+     * handle is not affected and must still be released by the caller.
+     *
+     * @param key The key of the value.
+     * @param value The value to cache.
+     */
+    public void put(final K key, final V value) {
+        if (value == null) {
+            throw new NullPointerException("Value is null");
+        }
+        V8Value handle = value.twin().setWeak();
+        V8Value previous = entries.put(key, handle);
+        if (previous != null) {
+            dispose(previous);
+        }
+        if (entries.size() > maximumSize) {
+            purgeCollected();
+        }
+        Iterator<V8Value> iterator = entries.values().iterator();
+        while (entries.size() > maximumSize) {
+            V8Value eldest = iterator.next();
+            iterator.remove();
+            dispose(eldest);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Returns the value cached for a key, unless it was evicted or
+     * reclaimed by the garbage collector. The returned handle is a strong
+     * reference to the value and must be released by the caller.
+     *
+     * @param key The key of the value.
+     *
+     * @return A new handle to the value, or null if it is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final K key) {
+        V8Value handle = entries.get(key);
+        if ((handle != null) && handle.isReleased()) {
+            entries.remove(key);
+            collectedCount++;
+            handle = null;
+        }
+        if (handle == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return (V) handle.twin();
+    }
+
+    /**
+     * Removes the value cached for a key.
+     *
+     * @param key The key of the value.
+     */
+    public void invalidate(final K key) {
+        V8Value handle = entries.remove(key);
+        if (handle != null) {
+            dispose(handle);
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        try {
+            for (V8Value handle : entries.values()) {
+                dispose(handle);
+            }
+        } finally {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached values. Values reclaimed by the garbage
+     * collector are removed first, so they are not counted.
+     *
+     * @return The number of cached values.
+     */
+    public int size() {
+        purgeCollected();
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of values that were evicted because the cache
+     * was full.
+     *
+     * @return The number of evicted values.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of values that were removed because the garbage
+     * collector reclaimed them.
+     *
+     * @return The number of collected values.
+     */
+    public long getCollectedCount() {
+        return collectedCount;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.eclipsesource.v8.Releasable#release()
+     */
+    @Override
+    @Deprecated
+    public void release() {
+        close();
+    }
+
+    private void purgeCollected() {
+        Iterator<Entry<K, V8Value>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isReleased()) {
+                iterator.remove();
+                collectedCount++;
+            }
+        }
+    }
+
+    private void dispose(final V8Value handle) {
+        // handles reclaimed by the garbage collector were already released
+        if (!handle.isReleased()) {
+            handle.clearWeak();
+            handle.close();
+        }
+    }
+
+}
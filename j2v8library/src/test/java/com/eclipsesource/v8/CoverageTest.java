@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.eclipsesource.v8.CoverageRange.Kind;
+
+public class CoverageTest {
+
+    private Coverage createCoverage() {
+        List<CoverageRange> ranges = new ArrayList<CoverageRange>();
+        ranges.add(new CoverageRange(Kind.SCRIPT, null, 10, 0, 14, 0, 1));
+        ranges.add(new CoverageRange(Kind.FUNCTION, "foo", 10, 0, 12, 1, 2));
+        ranges.add(new CoverageRange(Kind.FUNCTION, "", 13, 8, 13, 20, 0));
+        long[] lineCounts = new long[] { 2, 2, 2, 0, -1 };
+        int[] lineLengths = new int[] { 17, 10, 1, 21, 0 };
+        ScriptCoverage script = new ScriptCoverage("foo.js", 10, lineCounts, lineLengths, ranges);
+        return new Coverage(CoverageMode.PRECISE_COUNT, Arrays.asList(script));
+    }
+
+    @Test
+    public void testScriptCoverage() {
+        ScriptCoverage script = createCoverage().getScript("foo.js");
+
+        assertEquals(5, script.getLineCount());
+        assertEquals(4, script.getExecutableLineCount());
+        assertEquals(3, script.getCoveredLineCount());
+        assertEquals(2, script.getExecutionCount(10));
+        assertEquals(0, script.getExecutionCount(13));
+        assertEquals(-1, script.getExecutionCount(14));
+        assertEquals(-1, script.getExecutionCount(9));
+    }
+
+    @Test
+    public void testGetUnknownScript() {
+        assertNull(createCoverage().getScript("bar.js"));
+    }
+
+    @Test
+    public void testGetMode() {
+        assertSame(CoverageMode.PRECISE_COUNT, createCoverage().getMode());
+    }
+
+    @Test
+    public void testToLcov() {
+        String expected = "TN:\n"
+                + "SF:foo.js\n"
+                + "FN:11,foo\n"
+                + "FN:14,(anonymous_2)\n"
+                + "FNDA:2,foo\n"
+                + "FNDA:0,(anonymous_2)\n"
+                + "FNF:2\n"
+                + "FNH:1\n"
+                + "DA:11,2\n"
+                + "DA:12,2\n"
+                + "DA:13,2\n"
+                + "DA:14,0\n"
+                + "LF:4\n"
+                + "LH:3\n"
+                + "end_of_record\n";
+
+        assertEquals(expected, createCoverage().toLcov());
+    }
+
+    @Test
+    public void testToLcovWithDuplicateFunctionNames() {
+        List<CoverageRange> ranges = new ArrayList<CoverageRange>();
+        ranges.add(new CoverageRange(Kind.FUNCTION, "foo", 0, 0, 0, 10, 1));
+        ranges.add(new CoverageRange(Kind.FUNCTION, "foo", 1, 0, 1, 10, 1));
+        ScriptCoverage script = new ScriptCoverage("foo.js", 0, new long[] { 1, 1 }, new int[] { 10, 10 }, ranges);
+
+        String lcov = new Coverage(CoverageMode.PRECISE_COUNT, Arrays.asList(script)).toLcov();
+
+        assertTrue(lcov.contains("FN:1,foo\n"));
+        assertTrue(lcov.contains("FN:2,foo_1\n"));
+    }
+
+    @Test
+    public void testToIstanbulJson() {
+        String expected = "{\"foo.js\":{\"path\":\"foo.js\","
+                + "\"statementMap\":{"
+                + "\"0\":{\"start\":{\"line\":11,\"column\":0},\"end\":{\"line\":11,\"column\":17}},"
+                + "\"1\":{\"start\":{\"line\":12,\"column\":0},\"end\":{\"line\":12,\"column\":10}},"
+                + "\"2\":{\"start\":{\"line\":13,\"column\":0},\"end\":{\"line\":13,\"column\":1}},"
+                + "\"3\":{\"start\":{\"line\":14,\"column\":0},\"end\":{\"line\":14,\"column\":21}}},"
+                + "\"fnMap\":{"
+                + "\"0\":{\"name\":\"foo\",\"decl\":{\"start\":{\"line\":11,\"column\":0},\"end\":{\"line\":11,\"column\":0}},"
+                + "\"loc\":{\"start\":{\"line\":11,\"column\":0},\"end\":{\"line\":13,\"column\":1}},\"line\":11},"
+                + "\"1\":{\"name\":\"(anonymous_2)\",\"decl\":{\"start\":{\"line\":14,\"column\":8},\"end\":{\"line\":14,\"column\":8}},"
+                + "\"loc\":{\"start\":{\"line\":14,\"column\":8},\"end\":{\"line\":14,\"column\":20}},\"line\":14}},"
+                + "\"branchMap\":{},"
+                + "\"s\":{\"0\":2,\"1\":2,\"2\":2,\"3\":0},"
+                + "\"f\":{\"0\":2,\"1\":0},"
+                + "\"b\":{}}}";
+
+        assertEquals(expected, createCoverage().toIstanbulJson());
+    }
+
+    @Test
+    public void testToIstanbulJsonEscapesNames() {
+        ScriptCoverage script = new ScriptCoverage("a\"b\\c.js", 0, new long[0], new int[0], Collections.<CoverageRange> emptyList());
+
+        String json = new Coverage(CoverageMode.BEST_EFFORT, Arrays.asList(script)).toIstanbulJson();
+
+        assertEquals("{\"a\\\"b\\\\c.js\":{\"path\":\"a\\\"b\\\\c.js\",\"statementMap\":{},\"fnMap\":{},\"branchMap\":{},\"s\":{},\"f\":{},\"b\":{}}}", json);
+    }
+
+    @Test
+    public void testBlockRangesAreNotFunctions() {
+        List<CoverageRange> ranges = new ArrayList<CoverageRange>();
+        ranges.add(new CoverageRange(Kind.BLOCK, null, 0, 0, 0, 10, 0));
+        ScriptCoverage script = new ScriptCoverage("foo.js", 0, new long[] { 0 }, new int[] { 10 }, ranges);
+
+        String lcov = new Coverage(CoverageMode.PRECISE_BLOCK, Arrays.asList(script)).toLcov();
+
+        assertTrue(lcov.contains("FNF:0\n"));
+    }
+
+}
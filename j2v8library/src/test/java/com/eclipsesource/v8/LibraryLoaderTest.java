@@ -12,12 +12,22 @@
 package com.eclipsesource.v8;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeFalse;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.After;
 import org.junit.Before;
@@ -32,6 +42,9 @@ public class LibraryLoaderTest {
     private Field releaseFilesField;
     private String[] releaseFiles;
 
+    private File tempDirectory;
+    private byte[] library;
+
     static void makeFinalStaticAccessible(final Field field) {
         field.setAccessible(true);
 
@@ -56,6 +69,14 @@ public class LibraryLoaderTest {
         makeFinalStaticAccessible(releaseFilesField);
 
         releaseFiles = (String[]) releaseFilesField.get(null);
+
+        tempDirectory = File.createTempFile("j2v8test", "");
+        tempDirectory.delete();
+        tempDirectory.mkdirs();
+        library = new byte[100000];
+        for (int i = 0; i < library.length; i++) {
+            library[i] = (byte) (i * 31);
+        }
     }
 
     @After
@@ -65,6 +86,8 @@ public class LibraryLoaderTest {
         System.setProperty("os.arch", arch);
 
         releaseFilesField.set(null, releaseFiles);
+
+        delete(tempDirectory);
     }
 
     private static boolean skipTest() {
@@ -172,4 +195,137 @@ public class LibraryLoaderTest {
         assertTrue(libName.startsWith("libj2v8"));
         assertTrue(libName.endsWith(expectedLibExtension));
     }
+
+    @Test
+    public void testExtractFromFile() throws IOException {
+        URL resource = createLibraryFile().toURI().toURL();
+
+        File extracted = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+
+        assertTrue(extracted.getParentFile().getName().startsWith("j2v8-" + toKey(library)));
+        assertEquals(library.length, extracted.length());
+    }
+
+    @Test
+    public void testExtractFromJar() throws IOException {
+        File jar = new File(tempDirectory, "natives.jar");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            output.putNextEntry(new ZipEntry("libtest.so"));
+            output.write(library);
+            output.closeEntry();
+        } finally {
+            output.close();
+        }
+        URL resource = new URL("jar:" + jar.toURI().toURL() + "!/libtest.so");
+
+        File extracted = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+
+        assertEquals("j2v8-" + toKey(library), extracted.getParentFile().getName());
+        assertEquals(library.length, extracted.length());
+    }
+
+    @Test
+    public void testComputeKeyMatchesContent() throws IOException {
+        URL resource = createLibraryFile().toURI().toURL();
+
+        assertEquals(toKey(library), LibraryLoader.computeKey(resource).toString());
+    }
+
+    @Test
+    public void testExtractTwiceSkipsExtraction() throws IOException {
+        URL resource = createLibraryFile().toURI().toURL();
+        File first = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+        first.setLastModified(1000);
+        Long extractTime = LibraryLoader.getTimes().get(LibraryLoader.STEP_EXTRACT);
+
+        File second = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+
+        assertEquals(first, second);
+        assertEquals(1000, second.lastModified());
+        assertEquals(extractTime, LibraryLoader.getTimes().get(LibraryLoader.STEP_EXTRACT));
+    }
+
+    @Test
+    public void testExtractReplacesTruncatedLibrary() throws IOException {
+        URL resource = createLibraryFile().toURI().toURL();
+        File first = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+        RandomAccessFile file = new RandomAccessFile(first, "rw");
+        file.setLength(10);
+        file.close();
+
+        File second = LibraryLoader.extract(resource, "libtest.so", new File(tempDirectory, "extract"));
+
+        assertEquals(library.length, second.length());
+    }
+
+    @Test
+    public void testCreatePrivateDirectory() throws IOException {
+        assumeFalse(PlatformDetector.OS.isWindows());
+        File directory = new File(tempDirectory, "private");
+
+        LibraryLoader.createPrivateDirectory(directory);
+        LibraryLoader.createPrivateDirectory(directory);
+
+        assertTrue(directory.isDirectory());
+        assertTrue(directory.canWrite());
+    }
+
+    @Test
+    public void testExtractLeavesNoStagingFiles() throws IOException {
+        URL resource = createLibraryFile().toURI().toURL();
+        File parent = new File(tempDirectory, "extract");
+
+        LibraryLoader.extract(resource, "libtest.so", parent);
+
+        for (String name : parent.list()) {
+            assertFalse(name.contains(".tmp"));
+        }
+    }
+
+    @Test
+    public void testDifferentContentExtractsToDifferentDirectories() throws IOException {
+        File parent = new File(tempDirectory, "extract");
+        File first = LibraryLoader.extract(createLibraryFile().toURI().toURL(), "libtest.so", parent);
+        library[0]++;
+
+        File second = LibraryLoader.extract(createLibraryFile().toURI().toURL(), "libtest.so", parent);
+
+        assertNotEquals(first.getParentFile(), second.getParentFile());
+    }
+
+    @Test
+    public void testLoadTimesRecorded() throws IOException {
+        LibraryLoader.extract(createLibraryFile().toURI().toURL(), "libtest.so", new File(tempDirectory, "extract"));
+
+        assertTrue(LibraryLoader.getTimes().containsKey(LibraryLoader.STEP_HASH));
+        assertTrue(LibraryLoader.getTimes().containsKey(LibraryLoader.STEP_CHECK));
+    }
+
+    private File createLibraryFile() throws IOException {
+        File file = new File(tempDirectory, "libtest.so");
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(library);
+        } finally {
+            output.close();
+        }
+        return file;
+    }
+
+    private static String toKey(final byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return String.format("%08x-%d", crc.getValue(), bytes.length);
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
 }
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModuleMountsTest {
+
+    private File         root;
+    private ModuleMounts mounts;
+
+    @Before
+    public void setup() throws IOException {
+        root = File.createTempFile("modules", "");
+        root.delete();
+        new File(root, "lib").mkdirs();
+        write(new File(root, "index.js"), "exports.foo = 7;");
+        write(new File(root, "lib/bar.js"), "exports.bar = 8;");
+        mounts = new ModuleMounts();
+        mounts.mount("/app/", new DirectoryModuleSource(root, new ModuleSourceCache(1000)));
+    }
+
+    @After
+    public void tearDown() {
+        new File(root, "lib/bar.js").delete();
+        new File(root, "lib").delete();
+        new File(root, "index.js").delete();
+        root.delete();
+    }
+
+    @Test
+    public void testStat() {
+        assertEquals(ModuleMounts.DIRECTORY, mounts.stat("/app"));
+        assertEquals(ModuleMounts.FILE, mounts.stat("/app/index.js"));
+        assertEquals(ModuleMounts.DIRECTORY, mounts.stat("/app/lib"));
+        assertEquals(ModuleMounts.FILE, mounts.stat("/app/lib/bar.js"));
+        assertEquals(ModuleMounts.MISSING, mounts.stat("/app/lib/baz.js"));
+    }
+
+    @Test
+    public void testStatNotMounted() {
+        assertEquals(ModuleMounts.NOT_MOUNTED, mounts.stat("/application/index.js"));
+        assertEquals(ModuleMounts.NOT_MOUNTED, mounts.stat("/"));
+    }
+
+    @Test
+    public void testStatWithBackslashes() {
+        assertEquals(ModuleMounts.FILE, mounts.stat("\\app\\lib\\bar.js"));
+    }
+
+    @Test
+    public void testGetSource() throws IOException {
+        assertEquals("exports.bar = 8;", mounts.getSource("/app/lib/bar.js"));
+        assertNull(mounts.getSource("/app/lib/baz.js"));
+        assertNull(mounts.getSource("/other/lib/bar.js"));
+    }
+
+    @Test
+    public void testNestedMountTakesPrecedence() throws IOException {
+        DirectoryModuleSource lib = new DirectoryModuleSource(new File(root, "lib"));
+        mounts.mount("/app/vendor", lib);
+
+        assertEquals(ModuleMounts.FILE, mounts.stat("/app/vendor/bar.js"));
+        assertEquals("exports.bar = 8;", mounts.getSource("/app/vendor/bar.js"));
+    }
+
+    @Test
+    public void testMountAtRoot() {
+        mounts.mount("/", new DirectoryModuleSource(root));
+
+        assertEquals(ModuleMounts.FILE, mounts.stat("/lib/bar.js"));
+        assertEquals(ModuleMounts.FILE, mounts.stat("/app/index.js"));
+    }
+
+    @Test
+    public void testUnmount() {
+        ModuleSource source = new DirectoryModuleSource(root);
+        mounts.mount("/other", source);
+
+        assertSame(source, mounts.unmount("/other/"));
+        assertEquals(ModuleMounts.NOT_MOUNTED, mounts.stat("/other/index.js"));
+        assertNull(mounts.unmount("/other"));
+    }
+
+    @Test
+    public void testIsEmpty() {
+        mounts.unmount("/app");
+
+        assertTrue(mounts.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMountRelativePathFails() {
+        mounts.mount("app", new DirectoryModuleSource(root));
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try {
+            writer.print(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
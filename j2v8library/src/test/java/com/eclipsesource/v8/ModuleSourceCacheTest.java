@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModuleSourceCacheTest {
+
+    private ModuleSourceCache cache;
+    private File              file;
+
+    @Before
+    public void setup() throws IOException {
+        cache = new ModuleSourceCache(100);
+        file = File.createTempFile("module", ".js");
+        write(file, "exports.foo = 7;");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        cache.put("/virtual/foo.js", "exports.foo = 7;");
+
+        assertEquals("exports.foo = 7;", cache.get("/virtual/foo.js"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testGetMissing() {
+        assertNull(cache.get("/virtual/foo.js"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLoadReadsFile() throws IOException {
+        assertEquals("exports.foo = 7;", cache.load(file));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLoadTwiceUsesCache() throws IOException {
+        String first = cache.load(file);
+
+        assertSame(first, cache.load(file));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLoadReadsChangedFile() throws IOException {
+        cache.load(file);
+
+        write(file, "exports.foo = 'changed';");
+
+        assertEquals("exports.foo = 'changed';", cache.load(file));
+    }
+
+    @Test
+    public void testLoadDecodesUTF8() throws IOException {
+        write(file, "exports.foo = 'ä€';");
+
+        assertEquals("exports.foo = 'ä€';", cache.load(file));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testLoadMissingFile() throws IOException {
+        cache.load(new File(file.getAbsolutePath() + ".missing"));
+    }
+
+    @Test
+    public void testPutReplacesSource() {
+        cache.put("/virtual/foo.js", "a");
+        cache.put("/virtual/foo.js", "bc");
+
+        assertEquals("bc", cache.get("/virtual/foo.js"));
+        assertEquals(2, cache.getCharacterCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSourcesAreEvicted() {
+        cache.put("/a.js", repeat('a', 40));
+        cache.put("/b.js", repeat('b', 40));
+        cache.get("/a.js");
+
+        cache.put("/c.js", repeat('c', 40));
+
+        assertNull(cache.get("/b.js"));
+        assertEquals(40, cache.get("/a.js").length());
+        assertEquals(80, cache.getCharacterCount());
+    }
+
+    @Test
+    public void testSourceLargerThanCacheIsNotKept() {
+        cache.put("/a.js", repeat('a', 101));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCharacterCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.put("/a.js", "a");
+
+        cache.invalidate("/a.js");
+
+        assertNull(cache.get("/a.js"));
+        assertEquals(0, cache.getCharacterCount());
+    }
+
+    @Test
+    public void testClear() {
+        cache.put("/a.js", "a");
+        cache.put("/b.js", "b");
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCharacterCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSizeFails() {
+        new ModuleSourceCache(-1);
+    }
+
+    private static String repeat(final char c, final int count) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try {
+            writer.print(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -11,19 +11,32 @@
 package com.eclipsesource.v8;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeFalse;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.eclipsesource.v8.utils.V8Runnable;
+
 @Ignore
 public class NodeJSTest {
 
@@ -185,6 +198,319 @@ public class NodeJSTest {
 
     }
 
+    @Test
+    public void testRequireFromString() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        V8Object exports = nodeJS.require("exports.foo = 7; exports.file = __filename;", "/virtual/foo.js");
+
+        assertEquals(7, exports.getInteger("foo"));
+        assertEquals("/virtual/foo.js", exports.getString("file"));
+        exports.close();
+    }
+
+    @Test
+    public void testRequireFromStringResolvesRelativeModules() throws IOException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        File module = createTemporaryScriptFile("exports.bar = 8;", "testModule");
+
+        V8Object exports = nodeJS.require("exports.bar = require('./" + module.getName() + "').bar;",
+                new File(module.getParentFile(), "main.js").getAbsolutePath());
+
+        assertEquals(8, exports.getInteger("bar"));
+        exports.close();
+        module.delete();
+    }
+
+    @Test
+    public void testRequireFromDirectByteBuffer() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        byte[] bytes = "xx exports.foo = '\u00e4';".getBytes(Charset.forName("UTF-8"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        buffer.position(3);
+
+        V8Object exports = nodeJS.require(buffer, "/virtual/foo.js");
+
+        assertEquals("\u00e4", exports.getString("foo"));
+        assertEquals(3, buffer.position());
+        exports.close();
+    }
+
+    @Test
+    public void testRequireFromHeapByteBuffer() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        ByteBuffer buffer = ByteBuffer.wrap("exports.foo = 7;".getBytes(Charset.forName("UTF-8")));
+
+        V8Object exports = nodeJS.require(buffer, "/virtual/foo.js");
+
+        assertEquals(7, exports.getInteger("foo"));
+        exports.close();
+    }
+
+    @Test
+    public void testExecFromString() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.passed = true;", "/virtual/main.js");
+        runMessageLoop();
+
+        assertEquals(true, nodeJS.getRuntime().getBoolean("passed"));
+    }
+
+    @Test
+    public void testCreateNodeJSFromString() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.release();
+
+        nodeJS = NodeJS.createNodeJS("global.passed = true;", "/virtual/main.js");
+        runMessageLoop();
+
+        assertEquals(true, nodeJS.getRuntime().getBoolean("passed"));
+    }
+
+    @Test
+    public void testRequiredFilesAreCached() throws IOException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        File testScript = createTemporaryScriptFile("exports.foo = 7;", "testScript");
+        nodeJS.require(testScript).close();
+        NodeJS other = NodeJS.createNodeJS();
+        long hits = ModuleSourceCache.getShared().getHitCount();
+
+        other.require(testScript).close();
+
+        assertEquals(hits + 1, ModuleSourceCache.getShared().getHitCount());
+        other.release();
+        testScript.delete();
+    }
+
+    @Test
+    public void testRunLoopFinishes() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("setTimeout(function() { global.passed = true; }, 10);", "/virtual/main.js");
+
+        assertFalse(nodeJS.runLoop(-1));
+        assertEquals(true, nodeJS.getRuntime().getBoolean("passed"));
+    }
+
+    @Test
+    public void testRunLoopReturnsAfterTimeout() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.timer = setTimeout(function() {}, 100000);", "/virtual/main.js");
+        long start = System.currentTimeMillis();
+
+        boolean running = nodeJS.runLoop(50);
+
+        assertTrue(running);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        nodeJS.getRuntime().executeVoidScript("clearTimeout(timer);");
+        assertFalse(nodeJS.runLoop(-1));
+    }
+
+    @Test
+    public void testRunLoopWithZeroTimeoutDoesNotBlock() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.timer = setTimeout(function() {}, 100000);", "/virtual/main.js");
+
+        assertTrue(nodeJS.runLoop(0));
+        nodeJS.getRuntime().executeVoidScript("clearTimeout(timer);");
+    }
+
+    @Test
+    public void testWakeupFromAnotherThread() throws InterruptedException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.timer = setTimeout(function() {}, 100000);", "/virtual/main.js");
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    // wake up early
+                }
+                nodeJS.wakeup();
+            }
+        });
+        long start = System.currentTimeMillis();
+        thread.start();
+
+        boolean running = nodeJS.runLoop(-1);
+        thread.join();
+
+        assertTrue(running);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        nodeJS.getRuntime().executeVoidScript("clearTimeout(timer);");
+    }
+
+    @Test
+    public void testSubmitFromAnotherThread() throws Exception {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.count = 0; global.timer = setTimeout(function() {}, 100000);", "/virtual/main.js");
+        final Future<?>[] futures = new Future<?>[10];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < futures.length; i++) {
+                    futures[i] = nodeJS.submit(new V8Runnable() {
+                        @Override
+                        public void run(final V8 runtime) {
+                            runtime.executeVoidScript("count++;");
+                        }
+                    });
+                }
+                nodeJS.submit(new V8Runnable() {
+                    @Override
+                    public void run(final V8 runtime) {
+                        runtime.executeVoidScript("clearTimeout(timer);");
+                    }
+                });
+            }
+        });
+        thread.start();
+        thread.join();
+
+        nodeJS.runLoop(-1);
+
+        for (Future<?> future : futures) {
+            assertTrue(future.isDone());
+            future.get(0, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(10, nodeJS.getRuntime().getInteger("count"));
+    }
+
+    @Test
+    public void testSubmitWakesBlockedLoop() throws Exception {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.exec("global.timer = setTimeout(function() {}, 100000);", "/virtual/main.js");
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    // submit early
+                }
+                nodeJS.submit(new V8Runnable() {
+                    @Override
+                    public void run(final V8 runtime) {
+                        runtime.executeVoidScript("clearTimeout(timer);");
+                    }
+                });
+            }
+        });
+        long start = System.currentTimeMillis();
+        thread.start();
+
+        assertFalse(nodeJS.runLoop(-1));
+        thread.join();
+
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    public void testSubmittedTaskFailure() throws InterruptedException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        final RuntimeException failure = new RuntimeException("failed");
+        Future<Void> future = nodeJS.submit(new V8Runnable() {
+            @Override
+            public void run(final V8 runtime) {
+                throw failure;
+            }
+        });
+
+        nodeJS.runLoop(0);
+
+        try {
+            future.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testSubmittedTasksCancelledOnRelease() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        NodeJS other = NodeJS.createNodeJS();
+        Future<Void> future = other.submit(new V8Runnable() {
+            @Override
+            public void run(final V8 runtime) {
+            }
+        });
+
+        other.release();
+
+        assertTrue(future.isCancelled());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSubmitAfterReleaseFails() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        NodeJS other = NodeJS.createNodeJS();
+        other.release();
+
+        other.submit(new V8Runnable() {
+            @Override
+            public void run(final V8 runtime) {
+            }
+        });
+    }
+
+    @Test
+    public void testRequireFromMountedZip() throws IOException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        File zip = File.createTempFile("modules", ".zip");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            addZipEntry(output, "index.js", "exports.result = require('./lib/foo').foo + require('dep').bar + require('./data').baz;");
+            addZipEntry(output, "lib/foo.js", "exports.foo = 'foo';");
+            addZipEntry(output, "data.json", "{\"baz\": \"baz\"}");
+            addZipEntry(output, "node_modules/dep/package.json", "{\"main\": \"lib/main\"}");
+            addZipEntry(output, "node_modules/dep/lib/main.js", "exports.bar = 'bar';");
+        } finally {
+            output.close();
+        }
+        ZipModuleSource source = new ZipModuleSource(zip);
+        nodeJS.mount("/virtual/app", source);
+
+        V8Object exports = nodeJS.require("module.exports = require('/virtual/app');", "/virtual/main.js");
+
+        assertEquals("foobarbaz", exports.getString("result"));
+        exports.close();
+        source.close();
+        zip.delete();
+    }
+
+    @Test
+    public void testRequireFromMountedDirectory() throws IOException {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        File testScript = createTemporaryScriptFile("exports.foo = 7;", "testScript");
+        nodeJS.mount("/virtual/lib", new DirectoryModuleSource(testScript.getParentFile()));
+
+        V8Object exports = nodeJS.require("module.exports = require('./lib/" + testScript.getName() + "');", "/virtual/main.js");
+
+        assertEquals(7, exports.getInteger("foo"));
+        exports.close();
+        testScript.delete();
+    }
+
+    @Test
+    public void testRequireMissingMountedModuleFails() {
+        assumeFalse(skipMessage, skipTest()); // conditional skip
+        nodeJS.mount("/virtual/app", new DirectoryModuleSource(new File(System.getProperty("java.io.tmpdir"))));
+
+        try {
+            nodeJS.require("require('/virtual/app/missing-module');", "/virtual/main.js");
+            fail("Expected V8ScriptExecutionException");
+        } catch (V8ScriptExecutionException e) {
+            assertTrue(e.getMessage().contains("missing-module"));
+        }
+    }
+
+    private static void addZipEntry(final ZipOutputStream output, final String name, final String content) throws IOException {
+        output.putNextEntry(new ZipEntry(name));
+        output.write(content.getBytes(Charset.forName("UTF-8")));
+        output.closeEntry();
+    }
+
     private void runMessageLoop() {
         while (nodeJS.isRunning()) {
             nodeJS.handleMessage();
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.CoverageRange.Kind;
+
+public class V8CoverageTest {
+
+    private static String script = "function foo(x) {  // 0 \n"
+            + "  if (x) {           // 1 \n"
+            + "    return 1;        // 2 \n"
+            + "  }                  // 3 \n"
+            + "  return 2;          // 4 \n"
+            + "}                    // 5 \n"
+            + "function bar() {     // 6 \n"
+            + "}                    // 7 \n"
+            + "foo(true);           // 8 \n";
+    private V8            v8;
+
+    @Before
+    public void setup() {
+        V8.setFlags("--allow-natives-syntax");
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.stopCoverage();
+            v8.close();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPreciseCountReportsFunctions() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+        v8.executeVoidScript(script, "foo.js", 0);
+
+        ScriptCoverage coverage = v8.takeCoverage().getScript("foo.js");
+
+        assertNotNull(coverage);
+        CoverageRange foo = findFunction(coverage, "foo");
+        assertEquals(1, foo.getCount());
+        assertEquals(0, foo.getStartLine());
+        assertEquals(0, findFunction(coverage, "bar").getCount());
+        assertEquals(0, coverage.getExecutionCount(6));
+        assertEquals(1, coverage.getExecutionCount(8));
+    }
+
+    @Test
+    public void testPreciseBlockReportsUncoveredBlocks() {
+        v8.startCoverage(CoverageMode.PRECISE_BLOCK);
+        v8.executeVoidScript(script, "foo.js", 0);
+
+        ScriptCoverage coverage = v8.takeCoverage().getScript("foo.js");
+
+        assertEquals(1, coverage.getExecutionCount(2));
+        assertEquals(0, coverage.getExecutionCount(4));
+        assertEquals(Kind.SCRIPT, coverage.getRanges().get(0).getKind());
+    }
+
+    @Test
+    public void testTakeCoverageResetsPreciseCounts() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+        v8.executeVoidScript(script, "foo.js", 0);
+        v8.takeCoverage();
+
+        v8.executeVoidScript("foo(false);");
+
+        assertEquals(1, findFunction(v8.takeCoverage().getScript("foo.js"), "foo").getCount());
+    }
+
+    @Test
+    public void testLineNumberIsApplied() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+        v8.executeVoidScript(script, "foo.js", 10);
+
+        ScriptCoverage coverage = v8.takeCoverage().getScript("foo.js");
+
+        assertEquals(10, coverage.getLineNumber());
+        assertEquals(10, findFunction(coverage, "foo").getStartLine());
+        assertEquals(1, coverage.getExecutionCount(18));
+    }
+
+    @Test
+    public void testUnnamedScriptsAreNotReported() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+        v8.executeVoidScript(script);
+
+        assertTrue(v8.takeCoverage().getScripts().isEmpty());
+    }
+
+    @Test
+    public void testScriptsBeforeStartAreNotReported() {
+        v8.executeVoidScript(script, "foo.js", 0);
+        v8.startCoverage(CoverageMode.BEST_EFFORT);
+
+        assertNull(v8.takeCoverage().getScript("foo.js"));
+    }
+
+    @Test
+    public void testLcovExport() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+        v8.executeVoidScript(script, "foo.js", 0);
+
+        String lcov = v8.takeCoverage().toLcov();
+
+        assertTrue(lcov.startsWith("TN:\nSF:foo.js\n"));
+        assertTrue(lcov.contains("FNDA:1,foo\n"));
+        assertTrue(lcov.contains("FNDA:0,bar\n"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartTwiceFails() {
+        v8.startCoverage(CoverageMode.PRECISE_COUNT);
+
+        v8.startCoverage(CoverageMode.PRECISE_BLOCK);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTakeWithoutStartFails() {
+        v8.takeCoverage();
+    }
+
+    private CoverageRange findFunction(final ScriptCoverage coverage, final String name) {
+        for (CoverageRange range : coverage.getRanges()) {
+            if (name.equals(range.getFunctionName())) {
+                return range;
+            }
+        }
+        throw new AssertionError("Function not found: " + name);
+    }
+
+}
@@ -16,6 +16,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -194,4 +199,151 @@ public class V8LockerTest {
         v8.getLocker().acquire();
     }
 
+    @Test
+    public void testTimedAcquireWhenReleased() throws InterruptedException {
+        v8.getLocker().release();
+
+        boolean result = v8.getLocker().acquire(0);
+
+        assertTrue(result);
+        v8.getLocker().checkThread();
+    }
+
+    @Test
+    public void testTimedAcquireTimesOut() throws InterruptedException {
+        final boolean result[] = new boolean[] { true };
+        Thread t = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    result[0] = v8.getLocker().acquire(10);
+                } catch (InterruptedException e) {
+                    // do nothing
+                }
+            }
+        });
+        t.start();
+        t.join();
+
+        assertFalse(result[0]);
+        assertEquals(0, v8.getLocker().getQueueLength());
+    }
+
+    @Test
+    public void testTimedAcquireWaitsForRelease() throws InterruptedException {
+        final V8Locker locker = v8.getLocker();
+        final boolean result[] = new boolean[1];
+        Thread t = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    result[0] = locker.acquire(-1);
+                    locker.release();
+                } catch (InterruptedException e) {
+                    // do nothing
+                }
+            }
+        });
+        t.start();
+        waitForQueueLength(locker, 1);
+        locker.release();
+        t.join();
+
+        assertTrue(result[0]);
+        assertTrue(locker.acquire(-1));
+        assertEquals(1, locker.getContendedCount());
+        assertEquals(2, locker.getHandoffCount());
+        assertTrue(locker.getTotalWaitTime() > 0);
+        assertTrue(locker.getMaxWaitTime() <= locker.getTotalWaitTime());
+    }
+
+    @Test
+    public void testWaitingThreadsAreServedInOrder() throws InterruptedException {
+        final V8Locker locker = v8.getLocker();
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        Thread first = createWaitingThread(locker, "first", order);
+        Thread second = createWaitingThread(locker, "second", order);
+        first.start();
+        waitForQueueLength(locker, 1);
+        second.start();
+        waitForQueueLength(locker, 2);
+
+        locker.release();
+        first.join();
+        second.join();
+
+        assertEquals(Arrays.asList("first", "second"), order);
+        locker.acquire();
+    }
+
+    @Test
+    public void testTryAcquireFailsWhileThreadsAreWaiting() throws InterruptedException {
+        final V8Locker locker = v8.getLocker();
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        Thread waiting = createWaitingThread(locker, "waiting", order);
+        waiting.start();
+        waitForQueueLength(locker, 1);
+
+        boolean result;
+        synchronized (locker) {
+            locker.release();
+            result = locker.tryAcquire();
+        }
+        waiting.join();
+
+        assertFalse(result);
+        assertEquals(Arrays.asList("waiting"), order);
+        locker.acquire();
+    }
+
+    @Test
+    public void testHoldTimeRecordedOnRelease() throws InterruptedException {
+        V8Locker locker = v8.getLocker();
+        locker.resetStatistics();
+        Thread.sleep(5);
+
+        locker.release();
+
+        assertTrue(locker.getTotalHoldTime() >= 5000000);
+        locker.acquire();
+        assertEquals(1, locker.getAcquireCount());
+    }
+
+    @Test
+    public void testResetStatistics() {
+        V8Locker locker = v8.getLocker();
+        locker.release();
+        locker.acquire();
+
+        locker.resetStatistics();
+
+        assertEquals(0, locker.getAcquireCount());
+        assertEquals(0, locker.getHandoffCount());
+        assertEquals(0, locker.getTotalHoldTime());
+    }
+
+    private Thread createWaitingThread(final V8Locker locker, final String name, final List<String> order) {
+        return new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    locker.acquire(-1);
+                    order.add(name);
+                    locker.release();
+                } catch (InterruptedException e) {
+                    // do nothing
+                }
+            }
+        });
+    }
+
+    private void waitForQueueLength(final V8Locker locker, final int length) throws InterruptedException {
+        while (locker.getQueueLength() < length) {
+            Thread.sleep(1);
+        }
+    }
+
 }
@@ -1919,4 +1919,16 @@ public class V8ObjectTest {
         object.close();
     }
 
+    @Test
+    public void testHashCodeSharedWithTwin() {
+        V8Object object = new V8Object(v8);
+        int hashCode = object.hashCode();
+
+        V8Object twin = object.twin();
+
+        assertEquals(hashCode, twin.hashCode());
+        object.close();
+        twin.close();
+    }
+
 }
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.utils.V8EventLoop;
+
+public class V8PromiseTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testAwaitResolvedPromise() {
+        V8Object promise = v8.executeObjectScript("Promise.resolve(7)");
+
+        Object result = v8.awaitPromise(promise, -1);
+
+        assertEquals(7, result);
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitPromiseResolvedByMicrotask() {
+        V8Object promise = v8.executeObjectScript("Promise.resolve('foo').then(function(value) { return value + 'bar'; })");
+
+        Object result = v8.awaitPromise(promise, -1);
+
+        assertEquals("foobar", result);
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitPromiseResolvedWithObject() {
+        V8Object promise = v8.executeObjectScript("Promise.resolve({ foo: 'bar' })");
+
+        V8Object result = (V8Object) v8.awaitPromise(promise, -1);
+
+        assertEquals("bar", result.getString("foo"));
+        result.close();
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitPromiseResolvedWithNull() {
+        V8Object promise = v8.executeObjectScript("Promise.resolve(null)");
+
+        Object result = v8.awaitPromise(promise, -1);
+
+        assertNull(result);
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitPromiseResolvedWithUndefined() {
+        V8Object promise = v8.executeObjectScript("Promise.resolve()");
+
+        Object result = v8.awaitPromise(promise, -1);
+
+        assertEquals(V8.getUndefined(), result);
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitRejectedPromise() {
+        V8Object promise = v8.executeObjectScript("Promise.reject(new Error('boom'))");
+
+        try {
+            v8.awaitPromise(promise, -1);
+        } catch (V8PromiseRejectedException e) {
+            assertEquals("boom", e.getMessage());
+            assertTrue(e.getJSStackTrace().contains("boom"));
+            return;
+        } finally {
+            promise.close();
+        }
+        throw new AssertionError("V8PromiseRejectedException expected");
+    }
+
+    @Test
+    public void testAwaitPromiseRejectedWithString() {
+        V8Object promise = v8.executeObjectScript("Promise.reject('boom')");
+
+        try {
+            v8.awaitPromise(promise, -1);
+        } catch (V8PromiseRejectedException e) {
+            assertEquals("boom", e.getMessage());
+            return;
+        } finally {
+            promise.close();
+        }
+        throw new AssertionError("V8PromiseRejectedException expected");
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testAwaitPromiseThatCannotSettle() {
+        V8Object promise = v8.executeObjectScript("new Promise(function() {})");
+
+        try {
+            v8.awaitPromise(promise, -1);
+        } finally {
+            promise.close();
+        }
+    }
+
+    @Test
+    public void testAwaitPromiseRunsEventLoop() {
+        V8EventLoop.install(v8);
+        V8Object promise = v8.executeObjectScript("new Promise(function(resolve) { setTimeout(function() { resolve(42); }, 10); })");
+
+        Object result = v8.awaitPromise(promise, -1);
+
+        assertEquals(42, result);
+        promise.close();
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testAwaitPromiseTimeout() {
+        V8EventLoop.install(v8);
+        V8Object promise = v8.executeObjectScript("new Promise(function(resolve) { setTimeout(function() { resolve(42); }, 100000); })");
+
+        try {
+            v8.awaitPromise(promise, 10);
+        } finally {
+            promise.close();
+        }
+    }
+
+    @Test
+    public void testAwaitPromiseWithHandler() {
+        final Object[] result = new Object[1];
+        V8Object promise = v8.executeObjectScript("Promise.resolve(7)");
+
+        v8.awaitPromise(promise, new PromiseHandler() {
+
+            @Override
+            public void onFulfilled(final Object value) {
+                result[0] = value;
+            }
+
+            @Override
+            public void onRejected(final Object reason) {
+                result[0] = reason;
+            }
+        });
+
+        assertEquals(7, result[0]);
+        promise.close();
+    }
+
+    @Test
+    public void testAwaitPromiseWithHandlerDoesNotBlock() {
+        V8EventLoop eventLoop = V8EventLoop.install(v8);
+        final Object[] result = new Object[1];
+        V8Object promise = v8.executeObjectScript("new Promise(function(resolve, reject) { setTimeout(function() { reject('boom'); }, 10); })");
+
+        v8.awaitPromise(promise, new PromiseHandler() {
+
+            @Override
+            public void onFulfilled(final Object value) {
+                result[0] = value;
+            }
+
+            @Override
+            public void onRejected(final Object reason) {
+                result[0] = "rejected: " + reason;
+            }
+        });
+        assertNull(result[0]);
+        eventLoop.runLoop();
+
+        assertEquals("rejected: boom", result[0]);
+        promise.close();
+    }
+
+}
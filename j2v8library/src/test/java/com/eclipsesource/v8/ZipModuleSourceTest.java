@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZipModuleSourceTest {
+
+    private ModuleSourceCache cache;
+    private File              file;
+    private ZipModuleSource   source;
+
+    @Before
+    public void setup() throws IOException {
+        cache = new ModuleSourceCache(1000);
+        file = File.createTempFile("modules", ".jar");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            addEntry(output, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n");
+            addEntry(output, "node/", null);
+            addEntry(output, "node/index.js", "exports.foo = 7;");
+            addEntry(output, "node/node_modules/dep/package.json", "{\"main\": \"main.js\"}");
+        } finally {
+            output.close();
+        }
+        source = new ZipModuleSource(file, "node", cache);
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        file.delete();
+    }
+
+    @Test
+    public void testIsFile() {
+        assertTrue(source.isFile("index.js"));
+        assertTrue(source.isFile("node_modules/dep/package.json"));
+        assertFalse(source.isFile("node_modules/dep"));
+        assertFalse(source.isFile("META-INF/MANIFEST.MF"));
+    }
+
+    @Test
+    public void testImplicitDirectories() {
+        assertTrue(source.isDirectory(""));
+        assertTrue(source.isDirectory("node_modules"));
+        assertTrue(source.isDirectory("node_modules/dep"));
+        assertFalse(source.isDirectory("index.js"));
+        assertFalse(source.isDirectory("node"));
+    }
+
+    @Test
+    public void testFileCount() {
+        assertEquals(2, source.getFileCount());
+    }
+
+    @Test
+    public void testGetSource() throws IOException {
+        assertEquals("exports.foo = 7;", source.getSource("index.js"));
+    }
+
+    @Test
+    public void testGetSourceUsesCache() throws IOException {
+        String first = source.getSource("index.js");
+
+        assertSame(first, source.getSource("index.js"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testSourceSharedBetweenInstances() throws IOException {
+        String first = source.getSource("index.js");
+        ZipModuleSource other = new ZipModuleSource(file, "/node/", cache);
+
+        try {
+            assertSame(first, other.getSource("index.js"));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void testWholeArchive() throws IOException {
+        ZipModuleSource other = new ZipModuleSource(file, "", cache);
+
+        try {
+            assertTrue(other.isFile("node/index.js"));
+            assertTrue(other.isDirectory("META-INF"));
+            assertEquals(3, other.getFileCount());
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testGetMissingSource() throws IOException {
+        source.getSource("missing.js");
+    }
+
+    private static void addEntry(final ZipOutputStream output, final String name, final String content) throws IOException {
+        output.putNextEntry(new ZipEntry(name));
+        if (content != null) {
+            output.write(content.getBytes(Charset.forName("UTF-8")));
+        }
+        output.closeEntry();
+    }
+
+}
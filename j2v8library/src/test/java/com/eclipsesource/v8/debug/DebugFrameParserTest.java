@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DebugFrameParserTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testParseSingleMessage() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, frame("{\"seq\":1}"));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("{\"seq\":1}"), messages);
+    }
+
+    @Test
+    public void testParseMultipleMessagesInOneRead() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, frame("a") + frame("bc") + frame("def"));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("a", "bc", "def"), messages);
+    }
+
+    @Test
+    public void testParseMessageSplitAcrossReads() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+        String frame = frame("{\"command\":\"continue\"}");
+
+        for (int i = 0; i < frame.length(); i++) {
+            feed(parser, frame.substring(i, i + 1));
+            parser.parse(messages);
+        }
+
+        assertEquals(Arrays.asList("{\"command\":\"continue\"}"), messages);
+    }
+
+    @Test
+    public void testParseMessageLargerThanBuffer() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(16);
+        List<String> messages = new ArrayList<String>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append((char) ('a' + (i % 26)));
+        }
+
+        feed(parser, frame(content.toString()));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList(content.toString()), messages);
+    }
+
+    @Test
+    public void testParseMultiByteCharacters() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, frame("ü€"));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("ü€"), messages);
+    }
+
+    @Test
+    public void testParseEmptyMessage() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, frame("") + frame("x"));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("", "x"), messages);
+    }
+
+    @Test
+    public void testIncompleteHeaderIsKept() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, "Content-Len");
+        parser.parse(messages);
+        assertTrue(messages.isEmpty());
+        feed(parser, "gth:1\r\n\r\nz");
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("z"), messages);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidContentLength() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+
+        feed(parser, "Content-Length:abc\r\n\r\n");
+        parser.parse(new ArrayList<String>());
+    }
+
+    @Test(expected = IOException.class)
+    public void testContentLengthAboveMaximum() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64, 100);
+
+        feed(parser, "Content-Length:101\r\n\r\n");
+        parser.parse(new ArrayList<String>());
+    }
+
+    @Test(expected = IOException.class)
+    public void testContentLengthOverflow() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64);
+
+        feed(parser, "Content-Length:2147483647\r\n\r\n");
+        parser.parse(new ArrayList<String>());
+    }
+
+    @Test(expected = IOException.class)
+    public void testPendingHeaderAboveMaximum() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(64, 100);
+        List<String> messages = new ArrayList<String>();
+
+        for (int i = 0; i < 20; i++) {
+            feed(parser, "0123456789");
+            parser.parse(messages);
+        }
+    }
+
+    @Test
+    public void testMessageAtMaximum() throws IOException {
+        DebugFrameParser parser = new DebugFrameParser(16, 5);
+        List<String> messages = new ArrayList<String>();
+
+        feed(parser, frame("12345"));
+        parser.parse(messages);
+
+        assertEquals(Arrays.asList("12345"), messages);
+    }
+
+    private static String frame(final String content) {
+        return "Content-Length:" + content.getBytes(UTF8).length + "\r\n\r\n" + content;
+    }
+
+    private static void feed(final DebugFrameParser parser, final String data) {
+        byte[] bytes = data.getBytes(UTF8);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ByteBuffer buffer = parser.getReadBuffer();
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+}
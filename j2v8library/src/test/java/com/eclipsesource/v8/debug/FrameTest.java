@@ -28,10 +28,13 @@ import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Object;
 import com.eclipsesource.v8.debug.DebugHandler.DebugEvent;
 import com.eclipsesource.v8.debug.mirror.Frame;
+import com.eclipsesource.v8.debug.mirror.FrameSnapshot;
 import com.eclipsesource.v8.debug.mirror.FunctionMirror;
 import com.eclipsesource.v8.debug.mirror.Scope;
+import com.eclipsesource.v8.debug.mirror.Scope.ScopeType;
 import com.eclipsesource.v8.debug.mirror.SourceLocation;
 import com.eclipsesource.v8.debug.mirror.ValueMirror;
+import com.eclipsesource.v8.debug.mirror.ValueSnapshot;
 
 @Ignore("Debugging changed on upstream V8")
 public class FrameTest {
@@ -284,6 +287,51 @@ public class FrameTest {
         assertTrue((Boolean) result);
     }
 
+    @Test
+    public void testSnapshot() {
+        handleBreak(new BreakHandler() {
+
+            @Override
+            public void onBreak(final DebugEvent event, final ExecutionState state, final EventData eventData, final V8Object data) {
+                Frame frame = state.getFrame(0);
+                result = frame.snapshot(1);
+                frame.close();
+            }
+        });
+
+        v8.executeScript(script, "script", 0);
+
+        FrameSnapshot snapshot = (FrameSnapshot) result;
+        assertEquals("foo", snapshot.getFunctionName());
+        assertEquals("script", snapshot.getScriptName());
+        assertEquals(5, snapshot.getLine());
+        assertEquals(1.0, snapshot.getArguments().get("a").getValue());
+        assertEquals("yes", snapshot.getArguments().get("c").getValue());
+        assertEquals(7.0, snapshot.getLocals().get("x").getValue());
+        assertEquals(3.0, snapshot.getLocals().get("z").getProperties().get("foo").getValue());
+        assertEquals(ScopeType.Local, snapshot.getScopes().get(0).getType());
+    }
+
+    @Test
+    public void testSnapshotTruncatesObjects() {
+        handleBreak(new BreakHandler() {
+
+            @Override
+            public void onBreak(final DebugEvent event, final ExecutionState state, final EventData eventData, final V8Object data) {
+                Frame frame = state.getFrame(0);
+                result = frame.snapshot(0);
+                frame.close();
+            }
+        });
+
+        v8.executeScript("function foo(o) {\n\n\n\n\n  return o;\n}\nfoo({ 'bar' : { 'baz' : 1 } });", "script", 0);
+
+        ValueSnapshot value = ((FrameSnapshot) result).getArguments().get("o");
+        assertEquals(ValueSnapshot.Type.OBJECT, value.getType());
+        assertTrue(value.isTruncated());
+        assertTrue(value.getProperties().isEmpty());
+    }
+
     private void handleBreak(final BreakHandler handler) {
         doAnswer(new Answer<Object>() {
 
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.debug.DebugHandler.DebugEvent;
+
+@Ignore("Debugging changed on upstream V8")
+public class ProbeHandlerTest {
+
+    private static String script = "// 0 \n"
+            + "function foo(i) {              // 1 \n"
+            + "  var x = { 'a' : i, 'b' : [1, 2] }; // 2 \n"
+            + "  return x;                    // 3 \n"
+            + "}                              // 4 \n"
+            + "for (var i = 0; i < 5; i++) {  // 5 \n"
+            + "  foo(i);                      // 6 \n"
+            + "}                              // 7 \n";
+    private V8            v8;
+    private DebugHandler  debugHandler;
+    private ProbeHandler  probeHandler;
+
+    @Before
+    public void setup() {
+        V8.setFlags("--expose-debug-as=" + DebugHandler.DEBUG_OBJECT_NAME);
+        v8 = V8.createV8Runtime();
+        debugHandler = new DebugHandler(v8);
+        probeHandler = new ProbeHandler(debugHandler, 3);
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            probeHandler.close();
+            debugHandler.close();
+            v8.close();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLogPointDoesNotBreak() {
+        BreakHandler breakHandler = mock(BreakHandler.class);
+        debugHandler.addBreakHandler(breakHandler);
+        probeHandler.setLogPoint("script", 3, "a is {x.a}", 0);
+
+        v8.executeScript(script, "script", 0);
+
+        verify(breakHandler, never()).onBreak(eq(DebugEvent.Break), any(ExecutionState.class), any(EventData.class), any(V8Object.class));
+    }
+
+    @Test
+    public void testLogPointRecordsMessages() {
+        int probeID = probeHandler.setLogPoint("script", 3, "a is {x.a}", 0);
+
+        v8.executeScript(script, "script", 0);
+
+        List<ProbeRecord> records = probeHandler.drain();
+        assertEquals(3, records.size());
+        assertEquals(probeID, records.get(0).getProbeID());
+        assertEquals("a is 2", records.get(0).getMessage());
+        assertEquals("a is 4", records.get(2).getMessage());
+        assertEquals(2, probeHandler.getDroppedCount());
+    }
+
+    @Test
+    public void testDrainEmptiesBuffer() {
+        probeHandler.setLogPoint("script", 3, "hit", 0);
+        v8.executeScript(script, "script", 0);
+
+        probeHandler.drain();
+
+        assertTrue(probeHandler.drain().isEmpty());
+    }
+
+    @Test
+    public void testLogPointHitRate() {
+        probeHandler.setLogPoint("script", 3, "a is {x.a}", 2);
+
+        v8.executeScript(script, "script", 0);
+
+        assertEquals(2, probeHandler.drain().size());
+        assertEquals(3, probeHandler.getSuppressedCount());
+    }
+
+    @Test
+    public void testSnapshotPointCapturesOnce() {
+        probeHandler.setSnapshotPoint("script", 3, new String[] { "i", "x" }, 1);
+
+        v8.executeScript(script, "script", 0);
+
+        List<ProbeRecord> records = probeHandler.drain();
+        assertEquals(1, records.size());
+        assertNull(records.get(0).getMessage());
+        assertEquals("0", records.get(0).getValues().get("i"));
+        assertEquals("{a: 0, b: [...]}", records.get(0).getValues().get("x"));
+    }
+
+    @Test
+    public void testDrainRemovesCapturedSnapshotPoint() {
+        probeHandler.setSnapshotPoint("script", 3, new String[] { "i" }, 0);
+        v8.executeScript(script, "script", 0);
+
+        probeHandler.drain();
+
+        assertEquals(0, probeHandler.getProbeIDs().length);
+        assertEquals(0, debugHandler.getScriptBreakPointCount());
+    }
+
+    @Test
+    public void testSnapshotPointRecordsErrors() {
+        probeHandler.setSnapshotPoint("script", 3, new String[] { "missing.value" }, 0);
+
+        v8.executeScript(script, "script", 0);
+
+        assertTrue(probeHandler.drain().get(0).getValues().get("missing.value").startsWith("<error:"));
+    }
+
+    @Test
+    public void testRemoveProbe() {
+        int probeID = probeHandler.setLogPoint("script", 3, "hit", 0);
+
+        probeHandler.removeProbe(probeID);
+        v8.executeScript(script, "script", 0);
+
+        assertTrue(probeHandler.drain().isEmpty());
+        assertEquals(0, probeHandler.getProbeIDs().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveUnknownProbe() {
+        probeHandler.removeProbe(42);
+    }
+
+    @Test
+    public void testParseMessage() {
+        assertEquals(Arrays.asList("x is ", "x", ", o is ", "{ a : 1 }.a", ""), ProbeHandler.parseMessage("x is {x}, o is {{ a : 1 }.a}"));
+    }
+
+    @Test
+    public void testParseMessageWithUnbalancedBrace() {
+        assertEquals(Arrays.asList("a { b"), ProbeHandler.parseMessage("a { b"));
+    }
+
+    @Test
+    public void testGetProbeIDs() {
+        int first = probeHandler.setLogPoint("script", 2, "first", 0);
+        int second = probeHandler.setSnapshotPoint("script", 3, new String[] { "x" }, 0);
+
+        assertArrayEquals(new int[] { first, second }, probeHandler.getProbeIDs());
+    }
+
+}
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+
+public class V8InspectorTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private V8                   v8;
+    private V8Inspector          inspector;
+    private Socket               socket;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+        inspector = new V8Inspector(v8, 0);
+        inspector.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+        inspector.stop();
+        v8.close();
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testListensOnPort() {
+        assertTrue(inspector.getPort() > 0);
+        assertTrue(inspector.getWebSocketUrl().matches("ws://127\\.0\\.0\\.1:" + inspector.getPort() + "/[0-9a-f-]{36}"));
+    }
+
+    @Test
+    public void testJsonList() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + inspector.getPort() + "/json/list").openConnection();
+
+        String response = read(connection.getInputStream());
+
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(response.contains("\"webSocketDebuggerUrl\":\"" + inspector.getWebSocketUrl() + "\""));
+    }
+
+    @Test
+    public void testUnknownPath() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + inspector.getPort() + "/foo").openConnection();
+
+        assertEquals(404, connection.getResponseCode());
+    }
+
+    @Test
+    public void testWebSocketPathIsUnique() {
+        V8Inspector other = new V8Inspector(v8, 0);
+
+        assertFalse(getPath(inspector).equals(getPath(other)));
+    }
+
+    @Test
+    public void testUpgradeOnWrongPathFails() throws Exception {
+        String response = handshake("/j2v8", "127.0.0.1");
+
+        assertTrue(response.startsWith("HTTP/1.1 404"));
+        assertFalse(inspector.isConnected());
+    }
+
+    @Test
+    public void testUpgradeWithForeignHostFails() throws Exception {
+        String response = handshake(getPath(inspector), "attacker.example:" + inspector.getPort());
+
+        assertTrue(response.startsWith("HTTP/1.1 403"));
+        assertFalse(inspector.isConnected());
+    }
+
+    @Test
+    public void testUpgradeWithWrongPortFails() throws Exception {
+        String response = handshake(getPath(inspector), "localhost:" + (inspector.getPort() + 1));
+
+        assertTrue(response.startsWith("HTTP/1.1 403"));
+    }
+
+    @Test
+    public void testUpgradeWithOriginFails() throws Exception {
+        String response = handshake(getPath(inspector), "127.0.0.1\r\nOrigin: http://127.0.0.1");
+
+        assertTrue(response.startsWith("HTTP/1.1 403"));
+        assertFalse(inspector.isConnected());
+    }
+
+    @Test
+    public void testJsonListWithOriginFails() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + inspector.getPort() + "/json/list").openConnection();
+        connection.setRequestProperty("Origin", "http://example.com");
+
+        assertEquals(403, connection.getResponseCode());
+    }
+
+    @Test
+    public void testConnectWithLocalhost() throws Exception {
+        String response = handshake(getPath(inspector), "localhost:" + inspector.getPort());
+
+        assertTrue(response.startsWith("HTTP/1.1 101"));
+    }
+
+    @Test
+    public void testConnect() throws Exception {
+        connect();
+
+        assertTrue(inspector.isConnected());
+    }
+
+    @Test
+    public void testRuntimeEvaluate() throws Exception {
+        connect();
+
+        String response = request("{\"id\":1,\"method\":\"Runtime.evaluate\",\"params\":{\"expression\":\"1 + 2\"}}");
+
+        assertEquals("{\"id\":1,\"result\":{\"result\":{\"type\":\"number\",\"value\":3,\"description\":\"3\"}}}", response);
+    }
+
+    @Test
+    public void testRuntimeEvaluateSeesGlobals() throws Exception {
+        v8.executeVoidScript("var foo = 'bar';");
+        connect();
+
+        String response = request("{\"id\":2,\"method\":\"Runtime.evaluate\",\"params\":{\"expression\":\"foo\"}}");
+
+        assertTrue(response.contains("\"value\":\"bar\""));
+    }
+
+    @Test
+    public void testRuntimeEvaluateException() throws Exception {
+        connect();
+
+        String response = request("{\"id\":3,\"method\":\"Runtime.evaluate\",\"params\":{\"expression\":\"undefinedVariable\"}}");
+
+        assertTrue(response.contains("\"exceptionDetails\""));
+    }
+
+    @Test
+    public void testUnknownMethod() throws Exception {
+        connect();
+
+        String response = request("{\"id\":4,\"method\":\"Foo.bar\"}");
+
+        assertTrue(response.contains("\"code\":-32601"));
+    }
+
+    @Test
+    public void testDebuggerRequiresDebugObject() throws Exception {
+        connect();
+
+        String response = request("{\"id\":5,\"method\":\"Debugger.enable\"}");
+
+        assertTrue(response.contains("\"error\""));
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        connect();
+
+        socket.close();
+        socket = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (inspector.isConnected() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(1);
+        }
+
+        assertFalse(inspector.isConnected());
+    }
+
+    private void connect() throws Exception {
+        String headers = handshake(getPath(inspector), "127.0.0.1");
+        assertTrue(headers.startsWith("HTTP/1.1 101"));
+        assertTrue(headers.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo="));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!inspector.isConnected() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(1);
+        }
+    }
+
+    private String handshake(final String path, final String host) throws IOException {
+        socket = new Socket("127.0.0.1", inspector.getPort());
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(UTF8));
+        InputStream in = socket.getInputStream();
+        StringBuilder headers = new StringBuilder();
+        while (!headers.toString().endsWith("\r\n\r\n")) {
+            headers.append((char) in.read());
+        }
+        return headers.toString();
+    }
+
+    private static String getPath(final V8Inspector inspector) {
+        String url = inspector.getWebSocketUrl();
+        return url.substring(url.indexOf('/', "ws://".length()));
+    }
+
+    private String request(final String message) throws Exception {
+        byte[] payload = message.getBytes(UTF8);
+        byte[] mask = new byte[] { 1, 2, 3, 4 };
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x81);
+        if (payload.length < 126) {
+            frame.write(0x80 | payload.length);
+        } else {
+            frame.write(0x80 | 126);
+            frame.write(payload.length >> 8);
+            frame.write(payload.length & 0xFF);
+        }
+        frame.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i & 3]);
+        }
+        socket.getOutputStream().write(frame.toByteArray());
+        InputStream in = socket.getInputStream();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((in.available() == 0) && (System.currentTimeMillis() < deadline)) {
+            inspector.processMessages(10);
+        }
+        return readFrame(new DataInputStream(in));
+    }
+
+    private String readFrame(final DataInputStream in) throws IOException {
+        in.readUnsignedByte();
+        int length = in.readUnsignedByte();
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = (int) in.readLong();
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new String(payload, UTF8);
+    }
+
+    private String read(final InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            result.write(buffer, 0, read);
+        }
+        in.close();
+        return new String(result.toByteArray(), UTF8);
+    }
+
+}
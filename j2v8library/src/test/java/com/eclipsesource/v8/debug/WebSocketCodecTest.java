@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class WebSocketCodecTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[]  MASK = new byte[] { 0x37, (byte) 0xfa, 0x21, 0x3d };
+
+    @Test
+    public void testAcceptKey() {
+        // example from RFC 6455
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocketCodec.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    public void testBase64Padding() {
+        assertEquals("", WebSocketCodec.base64(new byte[0]));
+        assertEquals("Zg==", WebSocketCodec.base64("f".getBytes(UTF8)));
+        assertEquals("Zm8=", WebSocketCodec.base64("fo".getBytes(UTF8)));
+        assertEquals("Zm9v", WebSocketCodec.base64("foo".getBytes(UTF8)));
+    }
+
+    @Test
+    public void testReadHttpRequest() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        feed(codec, "GET /json HTTP/1.1\r\nHost: localhost\r\n");
+
+        assertNull(codec.readHttpRequest());
+        feed(codec, "\r\n");
+
+        assertEquals("GET /json HTTP/1.1\r\nHost: localhost", codec.readHttpRequest());
+    }
+
+    @Test
+    public void testReadHttpRequestWithTerminatorSplitAcrossReads() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        feed(codec, "GET / HTTP/1.1\r\n\r");
+
+        assertNull(codec.readHttpRequest());
+        feed(codec, "\n");
+
+        assertEquals("GET / HTTP/1.1", codec.readHttpRequest());
+    }
+
+    @Test(expected = IOException.class)
+    public void testHttpRequestTooLargeFails() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        StringBuilder header = new StringBuilder("GET / HTTP/1.1\r\nX-Padding: ");
+        while (header.length() < 9000) {
+            header.append("0123456789");
+        }
+        feed(codec, header.toString());
+
+        codec.readHttpRequest();
+    }
+
+    @Test
+    public void testParseMaskedTextFrame() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        List<String> messages = new ArrayList<String>();
+        feed(codec, frame(0x81, "Hello".getBytes(UTF8)));
+
+        codec.parse(messages, new ArrayList<ByteBuffer>());
+
+        assertEquals(Arrays.asList("Hello"), messages);
+    }
+
+    @Test
+    public void testParseFramesSplitAcrossReads() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        List<String> messages = new ArrayList<String>();
+        byte[] frames = concat(frame(0x81, "foo".getBytes(UTF8)), frame(0x81, "bar".getBytes(UTF8)));
+
+        for (byte b : frames) {
+            feed(codec, new byte[] { b });
+            codec.parse(messages, new ArrayList<ByteBuffer>());
+        }
+
+        assertEquals(Arrays.asList("foo", "bar"), messages);
+    }
+
+    @Test
+    public void testParseFragmentedMessage() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        List<String> messages = new ArrayList<String>();
+        feed(codec, concat(frame(0x01, "foo".getBytes(UTF8)), frame(0x80, "bar".getBytes(UTF8))));
+
+        codec.parse(messages, new ArrayList<ByteBuffer>());
+
+        assertEquals(Arrays.asList("foobar"), messages);
+    }
+
+    @Test
+    public void testParseLargeFrame() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(16);
+        List<String> messages = new ArrayList<String>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            content.append((char) ('a' + (i % 26)));
+        }
+        feed(codec, frame(0x81, content.toString().getBytes(UTF8)));
+
+        codec.parse(messages, new ArrayList<ByteBuffer>());
+
+        assertEquals(Arrays.asList(content.toString()), messages);
+    }
+
+    @Test(expected = IOException.class)
+    public void testFragmentedMessageTooLargeFails() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64, 5);
+        feed(codec, concat(frame(0x01, "foo".getBytes(UTF8)), frame(0x80, "bar".getBytes(UTF8))));
+
+        codec.parse(new ArrayList<String>(), new ArrayList<ByteBuffer>());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFrameTooLargeFails() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64, 2);
+        feed(codec, frame(0x81, "foo".getBytes(UTF8)));
+
+        codec.parse(new ArrayList<String>(), new ArrayList<ByteBuffer>());
+    }
+
+    @Test
+    public void testPingIsAnsweredWithPong() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        List<ByteBuffer> replies = new ArrayList<ByteBuffer>();
+        feed(codec, frame(0x89, new byte[] { 1, 2 }));
+
+        codec.parse(new ArrayList<String>(), replies);
+
+        assertEquals(1, replies.size());
+        assertArrayEquals(new byte[] { (byte) 0x8A, 2, 1, 2 }, toArray(replies.get(0)));
+    }
+
+    @Test
+    public void testCloseFrame() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        List<ByteBuffer> replies = new ArrayList<ByteBuffer>();
+        feed(codec, frame(0x88, new byte[] { 0x03, (byte) 0xe8 }));
+
+        codec.parse(new ArrayList<String>(), replies);
+
+        assertTrue(codec.isClosed());
+        assertArrayEquals(new byte[] { (byte) 0x88, 2, 0x03, (byte) 0xe8 }, toArray(replies.get(0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnmaskedFrameFails() throws IOException {
+        WebSocketCodec codec = new WebSocketCodec(64);
+        feed(codec, new byte[] { (byte) 0x81, 0x01, 0x41 });
+
+        codec.parse(new ArrayList<String>(), new ArrayList<ByteBuffer>());
+    }
+
+    @Test
+    public void testEncodeShortText() {
+        ByteBuffer frame = WebSocketCodec.encodeText("Hi");
+
+        assertArrayEquals(new byte[] { (byte) 0x81, 2, 'H', 'i' }, toArray(frame));
+    }
+
+    @Test
+    public void testEncodeMediumLength() {
+        ByteBuffer frame = WebSocketCodec.encode(WebSocketCodec.OPCODE_TEXT, new byte[300]);
+
+        assertEquals(304, frame.remaining());
+        assertEquals(126, frame.get(1));
+        assertEquals(300, frame.getShort(2));
+    }
+
+    @Test
+    public void testEncodeLongLength() {
+        ByteBuffer frame = WebSocketCodec.encode(WebSocketCodec.OPCODE_BINARY, new byte[70000]);
+
+        assertEquals(70010, frame.remaining());
+        assertEquals(127, frame.get(1));
+        assertEquals(70000, frame.getLong(2));
+    }
+
+    @Test
+    public void testNotClosedInitially() {
+        assertFalse(new WebSocketCodec(64).isClosed());
+    }
+
+    private static byte[] frame(final int b0, final byte[] payload) {
+        int headerLength = payload.length < 126 ? 2 : (payload.length <= 0xFFFF ? 4 : 10);
+        ByteBuffer frame = ByteBuffer.allocate(headerLength + 4 + payload.length);
+        frame.put((byte) b0);
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else if (payload.length <= 0xFFFF) {
+            frame.put((byte) (0x80 | 126));
+            frame.putShort((short) payload.length);
+        } else {
+            frame.put((byte) (0x80 | 127));
+            frame.putLong(payload.length);
+        }
+        frame.put(MASK);
+        for (int i = 0; i < payload.length; i++) {
+            frame.put((byte) (payload[i] ^ MASK[i & 3]));
+        }
+        return frame.array();
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+
+    private static void feed(final WebSocketCodec codec, final String data) {
+        feed(codec, data.getBytes(UTF8));
+    }
+
+    private static void feed(final WebSocketCodec codec, final byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ByteBuffer buffer = codec.getReadBuffer();
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.debug.mirror;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.eclipsesource.v8.debug.mirror.Scope.ScopeType;
+import com.eclipsesource.v8.debug.mirror.ValueSnapshot.Type;
+
+public class SnapshotReaderTest {
+
+    private static final String[] FRAME = new String[] {
+            "foo", "script", "4", "2",
+            "2", "a", "d", "1", "b", "o", "Object", "1", "x", "o", "Object", "-1",
+            "2", "z", "o", "Object", "2", "foo", "d", "3", "g", "g", "s", "s", "str",
+            "1", "1", "2", "x", "d", "7", "arr", "a", "Array", "4", "0", "d", "1", "1", "n", "2", "u", "length", "d", "3" };
+
+    @Test
+    public void testReadLocation() {
+        FrameSnapshot frame = new SnapshotReader(FRAME).readFrame();
+
+        assertEquals("foo", frame.getFunctionName());
+        assertEquals("script", frame.getScriptName());
+        assertEquals(4, frame.getLine());
+        assertEquals(2, frame.getColumn());
+    }
+
+    @Test
+    public void testReadArguments() {
+        FrameSnapshot frame = new SnapshotReader(FRAME).readFrame();
+
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(frame.getArguments().keySet().toArray()));
+        assertEquals(1.0, frame.getArguments().get("a").getValue());
+        ValueSnapshot x = frame.getArguments().get("b").getProperties().get("x");
+        assertEquals(Type.OBJECT, x.getType());
+        assertTrue(x.isTruncated());
+    }
+
+    @Test
+    public void testReadLocals() {
+        FrameSnapshot frame = new SnapshotReader(FRAME).readFrame();
+
+        ValueSnapshot z = frame.getLocals().get("z");
+        assertEquals("Object", z.getClassName());
+        assertFalse(z.isTruncated());
+        assertEquals(3.0, z.getProperties().get("foo").getValue());
+        assertEquals(Type.ACCESSOR, z.getProperties().get("g").getType());
+        assertEquals(Type.STRING, frame.getLocals().get("s").getType());
+        assertEquals("str", frame.getLocals().get("s").getValue());
+    }
+
+    @Test
+    public void testReadScopes() {
+        FrameSnapshot frame = new SnapshotReader(FRAME).readFrame();
+
+        assertEquals(1, frame.getScopes().size());
+        ScopeSnapshot scope = frame.getScopes().get(0);
+        assertEquals(ScopeType.Local, scope.getType());
+        ValueSnapshot array = scope.getVariables().get("arr");
+        assertEquals(Type.ARRAY, array.getType());
+        assertEquals(Type.NULL, array.getProperties().get("1").getType());
+        assertEquals(Type.UNDEFINED, array.getProperties().get("2").getType());
+        assertNull(array.getProperties().get("2").getValue());
+    }
+
+    @Test
+    public void testReadSpecialNumbers() {
+        String[] tokens = new String[] { "", "", "0", "0", "3", "a", "d", "NaN", "b", "d", "-Infinity", "c", "b", "true", "0", "0" };
+
+        FrameSnapshot frame = new SnapshotReader(tokens).readFrame();
+
+        assertTrue(((Double) frame.getArguments().get("a").getValue()).isNaN());
+        assertEquals(Double.NEGATIVE_INFINITY, frame.getArguments().get("b").getValue());
+        assertEquals(Boolean.TRUE, frame.getArguments().get("c").getValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTruncatedInputFails() {
+        new SnapshotReader(new String[] { "foo", "script", "4", "2", "1", "a" }).readFrame();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownTypeFails() {
+        new SnapshotReader(new String[] { "foo", "script", "4", "2", "1", "a", "x", "0", "0" }).readFrame();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTrailingTokensFail() {
+        new SnapshotReader(new String[] { "foo", "script", "4", "2", "0", "0", "0", "extra" }).readFrame();
+    }
+
+}
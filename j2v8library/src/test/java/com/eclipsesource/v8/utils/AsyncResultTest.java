@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class AsyncResultTest {
+
+    @Test
+    public void testComplete() throws Exception {
+        AsyncResult<String> result = new AsyncResult<String>();
+
+        assertTrue(result.complete("foo"));
+
+        assertTrue(result.isDone());
+        assertEquals("foo", result.get());
+        assertEquals("foo", result.getValue());
+        assertNull(result.getFailure());
+    }
+
+    @Test
+    public void testCompleteOnlyOnce() throws Exception {
+        AsyncResult<String> result = new AsyncResult<String>();
+        result.complete("foo");
+
+        assertFalse(result.complete("bar"));
+        assertFalse(result.completeExceptionally(new RuntimeException()));
+
+        assertEquals("foo", result.get());
+    }
+
+    @Test
+    public void testCompleteExceptionally() throws Exception {
+        AsyncResult<String> result = new AsyncResult<String>();
+        RuntimeException failure = new RuntimeException("failed");
+        result.completeExceptionally(failure);
+
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+            assertSame(failure, result.getFailure());
+            return;
+        }
+        throw new AssertionError("ExecutionException expected");
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws Exception {
+        AsyncResult<String> result = new AsyncResult<String>();
+
+        assertTrue(result.cancel(true));
+
+        assertTrue(result.isCancelled());
+        result.get();
+    }
+
+    @Test
+    public void testCancelRacingComplete() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            final AsyncResult<String> result = new AsyncResult<String>();
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    result.complete("foo");
+                }
+            });
+            thread.start();
+            result.cancel(false);
+            thread.join();
+
+            try {
+                assertEquals("foo", result.get());
+                assertFalse(result.isCancelled());
+            } catch (CancellationException e) {
+                assertTrue(result.isCancelled());
+                assertNull(result.getValue());
+            }
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetWithTimeout() throws Exception {
+        AsyncResult<String> result = new AsyncResult<String>();
+
+        result.get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testGetWaitsForOtherThread() throws Exception {
+        final AsyncResult<String> result = new AsyncResult<String>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.complete("foo");
+            }
+        });
+        thread.start();
+
+        String value = result.get(10, TimeUnit.SECONDS);
+        thread.join();
+
+        assertEquals("foo", value);
+    }
+
+    @Test
+    public void testListenerCalledOnCompletion() {
+        AsyncResult<String> result = new AsyncResult<String>();
+        final AsyncResult<?>[] notified = new AsyncResult<?>[1];
+        result.addListener(new AsyncResult.Listener() {
+            @Override
+            public void completed(final AsyncResult<?> completed) {
+                notified[0] = completed;
+            }
+        });
+
+        assertNull(notified[0]);
+        result.complete("foo");
+
+        assertSame(result, notified[0]);
+    }
+
+    @Test
+    public void testListenerCalledImmediatelyWhenDone() {
+        AsyncResult<String> result = AsyncResult.completed("foo");
+        final AsyncResult<?>[] notified = new AsyncResult<?>[1];
+
+        result.addListener(new AsyncResult.Listener() {
+            @Override
+            public void completed(final AsyncResult<?> completed) {
+                notified[0] = completed;
+            }
+        });
+
+        assertSame(result, notified[0]);
+    }
+
+    @Test
+    public void testFailed() {
+        RuntimeException failure = new RuntimeException();
+
+        AsyncResult<String> result = AsyncResult.failed(failure);
+
+        assertTrue(result.isDone());
+        assertSame(failure, result.getFailure());
+    }
+
+}
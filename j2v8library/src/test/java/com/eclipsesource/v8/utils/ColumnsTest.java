@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8Value;
+
+public class ColumnsTest {
+
+    private int[]    ids;
+    private String[] names;
+    private BitSet   nullIds;
+    private BitSet   nullNames;
+    private Columns  columns;
+
+    @Before
+    public void setup() {
+        ids = new int[] { 1, 0, 3 };
+        names = new String[] { "a", "b", null };
+        nullIds = new BitSet();
+        nullIds.set(1);
+        nullNames = new BitSet();
+        nullNames.set(2);
+        columns = new Columns(new String[] { "id", "name" }, new int[] { V8Value.INTEGER, V8Value.STRING }, 3,
+                new Object[] { ids, names }, new BitSet[] { nullIds, nullNames });
+    }
+
+    @Test
+    public void testCounts() {
+        assertEquals(3, columns.getRowCount());
+        assertEquals(2, columns.getColumnCount());
+    }
+
+    @Test
+    public void testKeysAndTypes() {
+        assertEquals("id", columns.getKey(0));
+        assertEquals(V8Value.STRING, columns.getType(1));
+    }
+
+    @Test
+    public void testIndexOf() {
+        assertEquals(1, columns.indexOf("name"));
+        assertEquals(-1, columns.indexOf("foo"));
+    }
+
+    @Test
+    public void testGetIntegers() {
+        assertArrayEquals(new int[] { 1, 0, 3 }, columns.getIntegers(0));
+        assertSame(ids, columns.getIntegers(0));
+    }
+
+    @Test
+    public void testGetStrings() {
+        assertArrayEquals(new String[] { "a", "b", null }, columns.getStrings(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetColumnWithWrongType() {
+        columns.getDoubles(0);
+    }
+
+    @Test
+    public void testIsNull() {
+        assertFalse(columns.isNull(0, 0));
+        assertTrue(columns.isNull(0, 1));
+        assertTrue(columns.isNull(1, 2));
+    }
+
+    @Test
+    public void testGetNulls() {
+        assertSame(nullNames, columns.getNulls(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIsNullOutOfRange() {
+        columns.isNull(0, 3);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DoubleListTest {
+
+    @Test
+    public void testGet() {
+        DoubleList list = new DoubleList(new double[] { 1.5, 2.5, 3.5 });
+
+        assertEquals(3, list.size());
+        assertEquals((Double) 2.5, list.get(1));
+        assertEquals(2.5, list.getDouble(1), 0);
+    }
+
+    @Test
+    public void testSet() {
+        DoubleList list = new DoubleList(new double[] { 1.5, 2.5, 3.5 });
+
+        assertEquals((Double) 1.5, list.set(0, 7.5));
+        assertEquals(7.5, list.getDouble(0), 0);
+    }
+
+    @Test
+    public void testBackedByArray() {
+        double[] values = new double[] { 1.5, 2.5, 3.5 };
+        DoubleList list = new DoubleList(values);
+
+        values[2] = 7.5;
+
+        assertEquals(7.5, list.getDouble(2), 0);
+    }
+
+    @Test
+    public void testToArrayCopies() {
+        DoubleList list = new DoubleList(new double[] { 1.5, 2.5, 3.5 });
+
+        double[] values = list.toDoubleArray();
+        values[0] = 7.5;
+
+        assertArrayEquals(new double[] { 1.5, 2.5, 3.5 }, list.toDoubleArray(), 0);
+    }
+
+    @Test
+    public void testEqualsBoxedList() {
+        List<Double> boxed = new ArrayList<Double>(Arrays.asList(new Double[] { 1.5, 2.5, 3.5 }));
+
+        assertEquals(boxed, new DoubleList(new double[] { 1.5, 2.5, 3.5 }));
+        assertEquals(new DoubleList(new double[] { 1.5, 2.5, 3.5 }), boxed);
+        assertEquals(boxed.hashCode(), new DoubleList(new double[] { 1.5, 2.5, 3.5 }).hashCode());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        new DoubleList(new double[] { 1.5, 2.5, 3.5 }).add(7.5);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        new DoubleList(new double[] { 1.5, 2.5, 3.5 }).get(3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullArray() {
+        new DoubleList(null);
+    }
+
+}
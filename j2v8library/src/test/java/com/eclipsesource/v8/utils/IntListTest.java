@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class IntListTest {
+
+    @Test
+    public void testGet() {
+        IntList list = new IntList(new int[] { 1, 2, 3 });
+
+        assertEquals(3, list.size());
+        assertEquals((Integer) 2, list.get(1));
+        assertEquals(2, list.getInt(1));
+    }
+
+    @Test
+    public void testSet() {
+        IntList list = new IntList(new int[] { 1, 2, 3 });
+
+        assertEquals((Integer) 1, list.set(0, 7));
+        assertEquals(7, list.getInt(0));
+    }
+
+    @Test
+    public void testBackedByArray() {
+        int[] values = new int[] { 1, 2, 3 };
+        IntList list = new IntList(values);
+
+        values[2] = 7;
+
+        assertEquals(7, list.getInt(2));
+    }
+
+    @Test
+    public void testToArrayCopies() {
+        IntList list = new IntList(new int[] { 1, 2, 3 });
+
+        int[] values = list.toIntArray();
+        values[0] = 7;
+
+        assertArrayEquals(new int[] { 1, 2, 3 }, list.toIntArray());
+    }
+
+    @Test
+    public void testEqualsBoxedList() {
+        List<Integer> boxed = new ArrayList<Integer>(Arrays.asList(new Integer[] { 1, 2, 3 }));
+
+        assertEquals(boxed, new IntList(new int[] { 1, 2, 3 }));
+        assertEquals(new IntList(new int[] { 1, 2, 3 }), boxed);
+        assertEquals(boxed.hashCode(), new IntList(new int[] { 1, 2, 3 }).hashCode());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        new IntList(new int[] { 1, 2, 3 }).add(7);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        new IntList(new int[] { 1, 2, 3 }).get(3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullArray() {
+        new IntList(null);
+    }
+
+}
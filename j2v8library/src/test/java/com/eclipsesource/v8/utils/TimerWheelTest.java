@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.eclipsesource.v8.utils.TimerWheel.Timeout;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testEmptyWheelHasNoDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+
+        assertEquals(-1, wheel.nextDeadline());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testExpireDueTimeouts() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("a", 5);
+        wheel.schedule("b", 10);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(5, result);
+
+        assertEquals(Arrays.asList("a"), result);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void testExpireInDeadlineOrder() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("c", 3);
+        wheel.schedule("a", 1);
+        wheel.schedule("b", 2);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(3, result);
+
+        assertEquals(Arrays.asList("a", "b", "c"), result);
+    }
+
+    @Test
+    public void testExpireSameDeadlineInScheduleOrder() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("a", 4);
+        wheel.schedule("b", 4);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(4, result);
+
+        assertEquals(Arrays.asList("a", "b"), result);
+    }
+
+    @Test
+    public void testExpireAfterMoreThanOneRevolution() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("b", 20);
+        wheel.schedule("a", 3);
+        wheel.schedule("c", 100);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(50, result);
+
+        assertEquals(Arrays.asList("a", "b"), result);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void testTimeoutInLaterRoundDoesNotExpireEarly() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("late", 9);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(1, result);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        Timeout<String> timeout = wheel.schedule("a", 5);
+        List<String> result = new ArrayList<String>();
+
+        assertTrue(wheel.cancel(timeout));
+        wheel.expire(10, result);
+
+        assertTrue(result.isEmpty());
+        assertFalse(timeout.isScheduled());
+        assertFalse(wheel.cancel(timeout));
+    }
+
+    @Test
+    public void testNextDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("a", 30);
+        wheel.schedule("b", 6);
+
+        assertEquals(6, wheel.nextDeadline());
+    }
+
+    @Test
+    public void testNextDeadlineBeyondOneRevolution() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        wheel.schedule("a", 30);
+
+        assertEquals(30, wheel.nextDeadline());
+    }
+
+    @Test
+    public void testPastDeadlineExpiresOnNextTick() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        List<String> result = new ArrayList<String>();
+        wheel.expire(10, result);
+        wheel.schedule("a", 2);
+
+        wheel.expire(11, result);
+
+        assertEquals(Arrays.asList("a"), result);
+    }
+
+    @Test
+    public void testReschedule() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 1, 0);
+        Timeout<String> timeout = wheel.schedule("a", 2);
+        List<String> result = new ArrayList<String>();
+
+        wheel.reschedule(timeout, 7);
+        wheel.expire(5, result);
+
+        assertTrue(result.isEmpty());
+        wheel.expire(7, result);
+        assertEquals(Arrays.asList("a"), result);
+    }
+
+    @Test
+    public void testTickDurationRoundsDeadlinesUp() {
+        TimerWheel<String> wheel = new TimerWheel<String>(8, 10, 0);
+        wheel.schedule("a", 15);
+        List<String> result = new ArrayList<String>();
+
+        wheel.expire(15, result);
+        assertTrue(result.isEmpty());
+        wheel.expire(20, result);
+
+        assertEquals(Arrays.asList("a"), result);
+    }
+
+}
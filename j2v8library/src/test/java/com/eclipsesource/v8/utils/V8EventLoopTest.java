@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8ScriptExecutionException;
+
+public class V8EventLoopTest {
+
+    private V8          v8;
+    private V8EventLoop eventLoop;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+        eventLoop = V8EventLoop.install(v8);
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testInstallTwiceReturnsSameLoop() {
+        assertSame(eventLoop, V8EventLoop.install(v8));
+        assertSame(eventLoop, V8EventLoop.getEventLoop(v8));
+    }
+
+    @Test
+    public void testNoEventLoopInstalled() {
+        V8 runtime = V8.createV8Runtime();
+
+        assertNull(V8EventLoop.getEventLoop(runtime));
+        runtime.close();
+    }
+
+    @Test
+    public void testSetTimeout() {
+        v8.executeVoidScript("var result = 0; setTimeout(function() { result = 7; }, 10);");
+
+        eventLoop.runLoop();
+
+        assertEquals(7, v8.getInteger("result"));
+    }
+
+    @Test
+    public void testSetTimeoutWithArguments() {
+        v8.executeVoidScript("var result = ''; setTimeout(function(a, b) { result = a + b; }, 0, 'foo', 'bar');");
+
+        eventLoop.runLoop();
+
+        assertEquals("foobar", v8.getString("result"));
+    }
+
+    @Test
+    public void testTimersFireInDeadlineOrder() {
+        v8.executeVoidScript("var result = '';"
+                + "setTimeout(function() { result += 'c'; }, 30);"
+                + "setTimeout(function() { result += 'a'; }, 0);"
+                + "setTimeout(function() { result += 'b'; }, 10);");
+
+        eventLoop.runLoop();
+
+        assertEquals("abc", v8.getString("result"));
+    }
+
+    @Test
+    public void testFailingTimerDoesNotSkipOtherTimers() {
+        v8.executeVoidScript("var result = 0;"
+                + "setTimeout(function() { throw new Error('failed'); }, 0);"
+                + "setTimeout(function() { result = 7; }, 0);");
+
+        try {
+            eventLoop.runLoop();
+            fail("Expected exception");
+        } catch (V8ScriptExecutionException e) {
+            assertTrue(e.getMessage().contains("failed"));
+        }
+
+        assertEquals(7, v8.getInteger("result"));
+        assertEquals(0, eventLoop.getTimerCount());
+    }
+
+    @Test
+    public void testClearTimeout() {
+        v8.executeVoidScript("var result = 0; var id = setTimeout(function() { result = 7; }, 10); clearTimeout(id);");
+
+        eventLoop.runLoop();
+
+        assertEquals(0, v8.getInteger("result"));
+        assertEquals(0, eventLoop.getTimerCount());
+    }
+
+    @Test
+    public void testSetInterval() {
+        v8.executeVoidScript("var count = 0; var id = setInterval(function() { if (++count === 3) { clearInterval(id); } }, 1);");
+
+        eventLoop.runLoop();
+
+        assertEquals(3, v8.getInteger("count"));
+    }
+
+    @Test
+    public void testNestedTimeout() {
+        v8.executeVoidScript("var result = 0; setTimeout(function() { setTimeout(function() { result = 2; }, 1); }, 1);");
+
+        eventLoop.runLoop();
+
+        assertEquals(2, v8.getInteger("result"));
+    }
+
+    @Test
+    public void testMicrotasksDrainedAfterTimer() {
+        v8.executeVoidScript("var result = ''; setTimeout(function() { Promise.resolve().then(function() { result += 'micro'; }); result += 'macro'; }, 0);");
+
+        eventLoop.runLoop();
+
+        assertEquals("macromicro", v8.getString("result"));
+    }
+
+    @Test
+    public void testPostFromAnotherThread() throws InterruptedException {
+        eventLoop.setKeepAlive(true);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                eventLoop.post(new V8Runnable() {
+                    @Override
+                    public void run(final V8 runtime) {
+                        runtime.executeVoidScript("var posted = true;");
+                        eventLoop.stop();
+                    }
+                });
+            }
+        });
+        thread.start();
+
+        eventLoop.runLoop();
+        thread.join();
+
+        assertTrue(v8.getBoolean("posted"));
+    }
+
+    @Test
+    public void testRunOnceDoesNotBlockWithZeroTimeout() {
+        v8.executeVoidScript("setTimeout(function() {}, 100000);");
+
+        assertTrue(eventLoop.runOnce(0));
+    }
+
+    @Test
+    public void testNoPendingWorkAfterLoop() {
+        v8.executeVoidScript("setTimeout(function() {}, 1);");
+
+        eventLoop.runLoop();
+
+        assertFalse(eventLoop.hasPendingWork());
+    }
+
+    @Test
+    public void testReleaseRuntimeWithPendingTimers() {
+        v8.executeVoidScript("setTimeout(function() {}, 100000); setInterval(function() {}, 100000);");
+
+        v8.close();
+        v8 = null;
+    }
+
+    @Test
+    public void testAsyncMethodResolvesPromise() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                return AsyncResult.completed(parameters.getInteger(0) + 1);
+            }
+        }, "increment");
+        v8.executeVoidScript("var result = 0; increment(41).then(function(value) { result = value; });");
+
+        eventLoop.runLoop();
+
+        assertEquals(42, v8.getInteger("result"));
+        assertEquals(0, eventLoop.getPendingPromiseCount());
+    }
+
+    @Test
+    public void testAsyncMethodCompletedOnAnotherThread() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                final String name = parameters.getString(0);
+                final AsyncResult<String> result = new AsyncResult<String>();
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        result.complete("hello " + name);
+                    }
+                }).start();
+                return result;
+            }
+        }, "greet");
+        v8.executeVoidScript("var result = ''; greet('world').then(function(value) { result = value; });");
+
+        eventLoop.runLoop();
+
+        assertEquals("hello world", v8.getString("result"));
+    }
+
+    @Test
+    public void testAsyncMethodRejectsPromise() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                return AsyncResult.failed(new RuntimeException("boom"));
+            }
+        }, "fail");
+        v8.executeVoidScript("var result = ''; fail().catch(function(e) { result = e.message; });");
+
+        eventLoop.runLoop();
+
+        assertEquals("boom", v8.getString("result"));
+    }
+
+    @Test
+    public void testAsyncMethodRejectsWithError() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                return AsyncResult.failed(new RuntimeException("boom"));
+            }
+        }, "fail");
+        v8.executeVoidScript("var result = false; fail().catch(function(e) { result = (e instanceof Error) && typeof e.stack === 'string'; });");
+
+        eventLoop.runLoop();
+
+        assertTrue(v8.getBoolean("result"));
+    }
+
+    @Test
+    public void testAsyncMethodExceptionRejectsPromise() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                throw new IllegalArgumentException("bad argument");
+            }
+        }, "fail");
+        v8.executeVoidScript("var result = ''; fail().catch(function(e) { result = e.message; });");
+
+        eventLoop.runLoop();
+
+        assertEquals("bad argument", v8.getString("result"));
+    }
+
+    @Test
+    public void testReleaseRuntimeWithPendingPromise() {
+        eventLoop.registerAsyncMethod(v8, new JavaAsyncCallback() {
+            @Override
+            public AsyncResult<?> invoke(final V8Object receiver, final V8Array parameters) {
+                return new AsyncResult<String>();
+            }
+        }, "never");
+        v8.executeVoidScript("never();");
+
+        assertEquals(1, eventLoop.getPendingPromiseCount());
+        v8.close();
+        v8 = null;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPostAfterReleaseFails() {
+        v8.close();
+        v8 = null;
+
+        eventLoop.post(new V8Runnable() {
+            @Override
+            public void run(final V8 runtime) {
+            }
+        });
+    }
+
+}
@@ -318,6 +318,27 @@ public class V8ExecutorTest {
         assertTrue(passed);
     }
 
+    @Test
+    public void testLongRunningExecutorWithSerializedMessage() throws InterruptedException {
+        V8Executor executor = new V8Executor("messageHandler = function(e) { postMessage(e.name, e.values[1], e.lookup.get('x')); }", true, "messageHandler") {
+            @Override
+            protected void setup(final V8 runtime) {
+                runtime.registerJavaMethod(V8ExecutorTest.this, "postMessage", "postMessage", new Class<?>[] { Object[].class });
+            }
+        };
+        executor.start();
+        V8 runtime = V8.createV8Runtime();
+        V8Object message = runtime.executeObjectScript("({name : 'foo', values : [1, 2, 3], lookup : new Map([['x', 'bar']])})");
+        executor.postMessage(V8Serializer.serialize(runtime, message));
+        message.close();
+        runtime.close();
+        waitForResult("foo2bar");
+        executor.forceTermination();
+        executor.join();
+
+        assertEquals("foo2bar", result);
+    }
+
     @Test
     public void testPostEmptyMessageToLongRunningTask() throws InterruptedException {
         V8Executor executor = new V8Executor("messageHandler = function(e) { postMessage(e); }", true, "messageHandler") {
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+
+public class V8IdentityMapTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testCreateMap() {
+        new V8IdentityMap<String>().close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExpectedSize() {
+        new V8IdentityMap<String>(-1);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object = new V8Object(v8);
+
+        map.put(object, "foo");
+
+        assertEquals("foo", map.get(object));
+        assertEquals(1, map.size());
+        map.close();
+    }
+
+    @Test
+    public void testPutDoesNotTwin() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object = new V8Object(v8);
+        long referenceCount = v8.getObjectReferenceCount();
+
+        map.put(object, "foo");
+
+        assertEquals(referenceCount, v8.getObjectReferenceCount());
+        map.close();
+    }
+
+    @Test
+    public void testGetWithOtherHandle() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        map.put(v8.executeObjectScript("var x = {}; x;"), "foo");
+        V8Object other = v8.getObject("x");
+
+        assertEquals("foo", map.get(other));
+        assertTrue(map.containsKey(other));
+        other.close();
+        map.close();
+    }
+
+    @Test
+    public void testGetMissing() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object = new V8Object(v8);
+
+        assertNull(map.get(object));
+        assertFalse(map.containsKey(object));
+        assertNull(map.get("foo"));
+        object.close();
+        map.close();
+    }
+
+    @Test
+    public void testPutEqualKeyReplacesValueAndReleasesHandle() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        map.put(v8.executeObjectScript("var x = {}; x;"), "foo");
+        V8Object other = v8.getObject("x");
+
+        assertEquals("foo", map.put(other, "bar"));
+
+        assertTrue(other.isReleased());
+        assertEquals(1, map.size());
+        V8Object key = v8.getObject("x");
+        assertEquals("bar", map.get(key));
+        key.close();
+        map.close();
+    }
+
+    @Test
+    public void testPutSameHandleTwice() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object = new V8Object(v8);
+
+        map.put(object, "foo");
+        map.put(object, "bar");
+
+        assertFalse(object.isReleased());
+        assertEquals("bar", map.get(object));
+        map.close();
+    }
+
+    @Test
+    public void testRemoveReleasesKey() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object = new V8Object(v8);
+        map.put(object, "foo");
+
+        assertEquals("foo", map.remove(object));
+
+        assertTrue(object.isReleased());
+        assertEquals(0, map.size());
+        map.close();
+    }
+
+    @Test
+    public void testCloseReleasesKeys() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        V8Object object1 = new V8Object(v8);
+        V8Object object2 = new V8Object(v8);
+        map.put(object1, "foo");
+        map.put(object2, "bar");
+
+        map.close();
+
+        assertTrue(object1.isReleased());
+        assertTrue(object2.isReleased());
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testMapCanBeUsedAfterClose() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        map.put(new V8Object(v8), "foo");
+        map.close();
+
+        V8Object object = new V8Object(v8);
+        map.put(object, "bar");
+
+        assertEquals("bar", map.get(object));
+        map.close();
+    }
+
+    @Test
+    public void testManyEntries() {
+        V8Array array = v8.executeArrayScript("var x = []; for (var i = 0; i < 10000; i++) { x.push({}); } x;");
+        V8IdentityMap<Integer> map = new V8IdentityMap<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(array.getObject(i), i);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            V8Object object = array.getObject(i);
+            assertEquals(Integer.valueOf(i), map.get(object));
+            object.close();
+        }
+        assertEquals(10000, map.size());
+        array.close();
+        map.close();
+    }
+
+    @Test
+    public void testRemoveKeepsOtherEntries() {
+        V8Array array = v8.executeArrayScript("var x = []; for (var i = 0; i < 1000; i++) { x.push({}); } x;");
+        V8IdentityMap<Integer> map = new V8IdentityMap<Integer>(1000);
+        for (int i = 0; i < 1000; i++) {
+            map.put(array.getObject(i), i);
+        }
+
+        for (int i = 0; i < 1000; i += 2) {
+            V8Object object = array.getObject(i);
+            map.remove(object);
+            object.close();
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            V8Object object = array.getObject(i);
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(object));
+            object.close();
+        }
+        assertEquals(500, map.size());
+        array.close();
+        map.close();
+    }
+
+    @Test
+    public void testEntrySet() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        map.put(new V8Object(v8), "foo");
+        map.put(new V8Object(v8), "bar");
+
+        List<String> values = new ArrayList<String>();
+        for (Entry<V8Value, String> entry : map.entrySet()) {
+            values.add(entry.getValue());
+        }
+
+        assertEquals(2, values.size());
+        assertTrue(values.contains("foo"));
+        assertTrue(values.contains("bar"));
+        map.close();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEntrySetIteratorRemoveNotSupported() {
+        V8IdentityMap<String> map = new V8IdentityMap<String>();
+        map.put(new V8Object(v8), "foo");
+        try {
+            map.entrySet().iterator().remove();
+        } finally {
+            map.close();
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Value;
+
+public class V8LazyListTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testIntegersReadInOneBulkRead() {
+        V8Array array = v8.executeArrayScript("var a = []; for (var i = 0; i < 1000; i++) { a.push(i); } a;");
+        V8LazyList list = new V8LazyList(array);
+
+        assertEquals(1000, list.size());
+        assertEquals(0, list.get(0));
+        assertEquals(999, list.get(999));
+        assertEquals(1, list.getBulkReadCount());
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testReadInChunks() {
+        V8Array array = v8.executeArrayScript("var a = []; for (var i = 0; i < 100; i++) { a.push(i + 0.5); } a;");
+        V8LazyList list = new V8LazyList(array, V8ObjectUtils.DEFAULT_TYPE_ADAPTER, 30);
+        double sum = 0;
+
+        for (Object value : list) {
+            sum += (Double) value;
+        }
+
+        assertEquals(5000, sum, 0.000001);
+        assertEquals(4, list.getBulkReadCount());
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testStringsAndBooleans() {
+        V8Array array = v8.executeArrayScript("['a', 'b', 'c']");
+        V8Array booleans = v8.executeArrayScript("[true, false]");
+        V8LazyList list = new V8LazyList(array);
+        V8LazyList booleanList = new V8LazyList(booleans);
+
+        assertEquals("c", list.get(2));
+        assertEquals(false, booleanList.get(1));
+        list.close();
+        booleanList.close();
+        array.close();
+        booleans.close();
+    }
+
+    @Test
+    public void testMixedArrayUsesHomogeneousRuns() {
+        V8Array array = v8.executeArrayScript("var a = []; for (var i = 0; i < 64; i++) { a.push(i); } a.push('x'); a;");
+        V8LazyList list = new V8LazyList(array);
+
+        assertEquals(63, list.get(63));
+        assertEquals("x", list.get(64));
+        assertTrue(list.getBulkReadCount() > 0);
+        list.close();
+        array.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNestedValuesAreConverted() {
+        V8Array array = v8.executeArrayScript("[{a: 1}, [1, 2], null, undefined]");
+        V8LazyList list = new V8LazyList(array);
+
+        assertEquals(1, ((Map<String, Object>) list.get(0)).get("a"));
+        assertEquals(2, ((List<Object>) list.get(1)).size());
+        assertNull(list.get(2));
+        assertEquals(V8.getUndefined(), list.get(3));
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testFunctionsAreNull() {
+        V8Array array = v8.executeArrayScript("[1, function() {}, 3]");
+        V8LazyList list = new V8LazyList(array);
+
+        assertEquals(3, list.size());
+        assertNull(list.get(1));
+        assertEquals(3, list.get(2));
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testEqualsEagerList() {
+        V8Array array = v8.executeArrayScript("[1, 2.5, 'three', true, [4]]");
+        V8LazyList list = new V8LazyList(array);
+
+        assertEquals(V8ObjectUtils.toList(array), list);
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testEmptyArray() {
+        V8Array array = new V8Array(v8);
+        V8LazyList list = new V8LazyList(array);
+
+        assertTrue(list.isEmpty());
+        assertFalse(list.iterator().hasNext());
+        list.close();
+        array.close();
+    }
+
+    @Test
+    public void testTypeAdapterAppliedToBulkReads() {
+        V8Array array = v8.executeArrayScript("[1, 2, 3]");
+        V8LazyList list = new V8LazyList(array, new TypeAdapter() {
+
+            @Override
+            public Object adapt(final int type, final Object value) {
+                return type == V8Value.INTEGER ? ((Integer) value) * 10 : TypeAdapter.DEFAULT;
+            }
+        });
+
+        assertEquals(30, list.get(2));
+        list.close();
+        array.close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        V8Array array = v8.executeArrayScript("[1]");
+        V8LazyList list = new V8LazyList(array);
+        try {
+            list.get(1);
+        } finally {
+            list.close();
+            array.close();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddNotSupported() {
+        V8Array array = v8.executeArrayScript("[1]");
+        V8LazyList list = new V8LazyList(array);
+        try {
+            list.add(2);
+        } finally {
+            list.close();
+            array.close();
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+
+public class V8LazyMapTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testGetFetchesOnlyRequestedValue() {
+        V8Object object = v8.executeObjectScript("({a: 1, b: 'two', c: 3.5, d: true})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertEquals(1, map.get("a"));
+        assertEquals(1, map.getFetchedCount());
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testValuesAreCached() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object);
+        map.get("a");
+        object.add("a", 2);
+
+        assertEquals(1, map.get("a"));
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testGetMissingKey() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertNull(map.get("b"));
+        assertFalse(map.containsKey("b"));
+        assertNull(map.get(7));
+        assertEquals(0, map.getFetchedCount());
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testNullValue() {
+        V8Object object = v8.executeObjectScript("({a: null})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertTrue(map.containsKey("a"));
+        assertNull(map.get("a"));
+        map.close();
+        object.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNestedValuesAreConverted() {
+        V8Object object = v8.executeObjectScript("({a: {b: [1, 2]}})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        Map<String, Object> a = (Map<String, Object>) map.get("a");
+
+        assertEquals(2, ((List<Object>) a.get("b")).size());
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testFunctionsAreSkipped() {
+        V8Object object = v8.executeObjectScript("({a: 1, f: function() {}})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertFalse(map.containsKey("f"));
+        assertNull(map.get("f"));
+        assertEquals(1, map.size());
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testEntrySet() {
+        V8Object object = v8.executeObjectScript("({a: 1, b: 'two', f: function() {}})");
+        V8LazyMap map = new V8LazyMap(object);
+        Map<String, Object> copy = new HashMap<String, Object>();
+
+        for (Entry<String, Object> entry : map.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(2, copy.size());
+        assertEquals(1, copy.get("a"));
+        assertEquals("two", copy.get("b"));
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testIsEmpty() {
+        V8Object object = v8.executeObjectScript("({f: function() {}})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertTrue(map.isEmpty());
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testEqualsEagerMap() {
+        V8Object object = v8.executeObjectScript("({a: 1, b: 'two', c: [1, 2, 3]})");
+        V8LazyMap map = new V8LazyMap(object);
+
+        assertTrue(map.equals(V8ObjectUtils.toMap(object)));
+        map.close();
+        object.close();
+    }
+
+    @Test
+    public void testCallerHandleCanBeReleased() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object);
+        object.close();
+
+        assertEquals(1, map.get("a"));
+        map.close();
+    }
+
+    @Test
+    public void testAccessedValuesRemainAfterClose() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object);
+        map.get("a");
+        map.close();
+        object.close();
+
+        assertEquals(1, map.get("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPutNotSupported() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object);
+        try {
+            map.put("b", 2);
+        } finally {
+            map.close();
+            object.close();
+        }
+    }
+
+    @Test
+    public void testTypeAdapter() {
+        V8Object object = v8.executeObjectScript("({a: 1})");
+        V8LazyMap map = new V8LazyMap(object, new TypeAdapter() {
+
+            @Override
+            public Object adapt(final int type, final Object value) {
+                return type == V8Value.INTEGER ? "int" : TypeAdapter.DEFAULT;
+            }
+        });
+
+        assertEquals("int", map.get("a"));
+        map.close();
+        object.close();
+    }
+
+}
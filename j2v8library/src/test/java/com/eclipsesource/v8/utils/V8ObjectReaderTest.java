@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8Value;
+
+public class V8ObjectReaderTest {
+
+    private static final String[] KEYS  = new String[] { "id", "score", "active", "name" };
+    private static final int[]    TYPES = new int[] { V8Value.INTEGER, V8Value.DOUBLE, V8Value.BOOLEAN, V8Value.STRING };
+
+    private V8                    v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeysAndTypesMismatch() {
+        new V8ObjectReader(v8, new String[] { "a" }, new int[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() {
+        new V8ObjectReader(v8, new String[] { "a" }, new int[] { V8Value.V8_OBJECT });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        new V8ObjectReader(v8, new String[] { null }, new int[] { V8Value.INTEGER });
+    }
+
+    @Test
+    public void testGetFieldCount() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+
+        assertEquals(4, reader.getFieldCount());
+        reader.close();
+    }
+
+    @Test
+    public void testRead() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Object object = v8.executeObjectScript("({id: 7, score: 1.5, active: true, name: 'foo'})");
+        Object[] out = new Object[4];
+
+        reader.read(object, out);
+
+        assertArrayEquals(new Object[] { 7, 1.5, true, "foo" }, out);
+        object.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadMissingAndMismatchedFieldsAsNull() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Object object = v8.executeObjectScript("({id: 1.5, score: 'foo', name: null})");
+        Object[] out = new Object[4];
+
+        reader.read(object, out);
+
+        assertArrayEquals(new Object[] { null, null, null, null }, out);
+        object.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadIntegerAsDouble() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Object object = v8.executeObjectScript("({score: 2})");
+        Object[] out = new Object[4];
+
+        reader.read(object, out);
+
+        assertEquals(2.0, out[1]);
+        object.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadReusesOutput() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Object first = v8.executeObjectScript("({id: 1, name: 'a'})");
+        V8Object second = v8.executeObjectScript("({id: 2})");
+        Object[] out = new Object[4];
+
+        reader.read(first, out);
+        reader.read(second, out);
+
+        assertArrayEquals(new Object[] { 2, null, null, null }, out);
+        first.close();
+        second.close();
+        reader.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadOutputTooSmall() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Object object = new V8Object(v8);
+        try {
+            reader.read(object, new Object[3]);
+        } finally {
+            object.close();
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testReadAll() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Array rows = v8.executeArrayScript("[{id: 1, score: 0.5, active: true, name: 'a'}, null, {id: 3, active: false, name: 'c'}]");
+
+        Object[] result = reader.readAll(rows);
+
+        assertArrayEquals(new Object[] { 1, 0.5, true, "a", null, null, null, null, 3, null, false, "c" }, result);
+        rows.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadAllInBatches() {
+        V8ObjectReader reader = new V8ObjectReader(v8, new String[] { "value" }, new int[] { V8Value.INTEGER });
+        V8Array rows = v8.executeArrayScript("var x = []; for (var i = 0; i < 1000; i++) { x.push({value: i}); } x;");
+        Object[] out = new Object[300];
+
+        int sum = 0;
+        int start = 0;
+        int read;
+        while ((read = reader.readAll(rows, start, out)) > 0) {
+            for (int i = 0; i < read; i++) {
+                sum += (Integer) out[i];
+            }
+            start += read;
+        }
+
+        assertEquals(1000, start);
+        assertEquals(499500, sum);
+        rows.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadAllEmptyArray() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Array rows = new V8Array(v8);
+
+        assertEquals(0, reader.readAll(rows).length);
+        rows.close();
+        reader.close();
+    }
+
+    @Test
+    public void testKeysWithSpecialCharacters() {
+        V8ObjectReader reader = new V8ObjectReader(v8, new String[] { "a\"b", "c'\\d" }, new int[] { V8Value.INTEGER, V8Value.INTEGER });
+        V8Object object = v8.executeObjectScript("({'a\"b': 1, 'c\\'\\\\d': 2})");
+        Object[] out = new Object[2];
+
+        reader.read(object, out);
+
+        assertArrayEquals(new Object[] { 1, 2 }, out);
+        object.close();
+        reader.close();
+    }
+
+    @Test
+    public void testReadDoesNotLeakHandles() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Array rows = v8.executeArrayScript("[{id: 1, score: 0.5, active: true, name: 'a'}]");
+        long referenceCount = v8.getObjectReferenceCount();
+
+        reader.readAll(rows);
+
+        assertEquals(referenceCount, v8.getObjectReferenceCount());
+        rows.close();
+        reader.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReadAfterClose() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        reader.close();
+        V8Object object = new V8Object(v8);
+        try {
+            reader.read(object, new Object[4]);
+        } finally {
+            object.close();
+        }
+    }
+
+    @Test
+    public void testReadColumns() {
+        V8ObjectReader reader = new V8ObjectReader(v8, KEYS, TYPES);
+        V8Array rows = v8.executeArrayScript("[{id: 1, score: 0.5, active: true, name: 'a'}, {id: 2}]");
+
+        Columns columns = reader.readColumns(rows);
+
+        assertEquals(2, columns.getRowCount());
+        assertEquals(4, columns.getColumnCount());
+        assertArrayEquals(new int[] { 1, 2 }, columns.getIntegers(0));
+        assertArrayEquals(new String[] { "a", null }, columns.getStrings(3));
+        assertEquals(1, columns.getNulls(1).cardinality());
+        rows.close();
+        reader.close();
+    }
+
+}
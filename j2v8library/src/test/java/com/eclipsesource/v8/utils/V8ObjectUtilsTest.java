@@ -10,10 +10,12 @@
  ******************************************************************************/
 package com.eclipsesource.v8.utils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
@@ -28,6 +30,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.eclipsesource.v8.ReferenceHandler;
 import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Array;
 import com.eclipsesource.v8.V8ArrayBuffer;
@@ -2916,4 +2919,369 @@ public class V8ObjectUtilsTest {
         return object.getKeys().length;
     }
 
+    @Test
+    public void testIntegerArrayConvertedToIntList() {
+        V8Array array = v8.executeArrayScript("[1, 2, 3]");
+
+        Object result = V8ObjectUtils.toList(array, new V8ObjectUtils.DefaultTypeAdapter(), true);
+
+        assertTrue(result instanceof IntList);
+        assertEquals(3, ((IntList) result).getInt(2));
+        array.close();
+    }
+
+    @Test
+    public void testDoubleArrayConvertedToDoubleList() {
+        V8Array array = v8.executeArrayScript("[1.5, 2.5, 3.5]");
+
+        Object result = V8ObjectUtils.toList(array, new V8ObjectUtils.DefaultTypeAdapter(), true);
+
+        assertTrue(result instanceof DoubleList);
+        assertEquals(3.5, ((DoubleList) result).getDouble(2), 0.000001);
+        array.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNestedIntegerArrayConvertedToIntList() {
+        V8Object object = v8.executeObjectScript("({a: [1, 2, 3]})");
+
+        Map<String, ? super Object> result = V8ObjectUtils.toMap(object, new V8ObjectUtils.DefaultTypeAdapter(), true);
+
+        assertTrue(result.get("a") instanceof IntList);
+        assertEquals(3, ((List<Object>) result.get("a")).size());
+        object.close();
+    }
+
+    @Test
+    public void testIntegerArrayIsGrowableByDefault() {
+        V8Array array = v8.executeArrayScript("[1, 2, 3]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array);
+        result.add(4);
+
+        assertTrue(result instanceof ArrayList);
+        assertEquals(4, result.size());
+        array.close();
+    }
+
+    @Test
+    public void testMixedIntegerAndDoubleArray() {
+        V8Array array = v8.executeArrayScript("[1, 2.5, 3]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array, new V8ObjectUtils.DefaultTypeAdapter(), true);
+
+        assertEquals(1, result.get(0));
+        assertEquals(2.5, result.get(1));
+        assertEquals(3, result.get(2));
+        array.close();
+    }
+
+    @Test
+    public void testMixedIntegerAndDoubleArrayWithTypeAdapter() {
+        V8Array array = v8.executeArrayScript("[1.5, 2]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array, new TypeAdapter() {
+
+            @Override
+            public Object adapt(final int type, final Object value) {
+                return type == V8Value.INTEGER ? "int" : TypeAdapter.DEFAULT;
+            }
+        });
+
+        assertEquals(1.5, result.get(0));
+        assertEquals("int", result.get(1));
+        array.close();
+    }
+
+    @Test
+    public void testIntegerArrayAsBoxedList() {
+        V8Array array = v8.executeArrayScript("[1, 2, 3]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array, new V8ObjectUtils.DefaultTypeAdapter(), false);
+        result.add("four");
+
+        assertTrue(result instanceof ArrayList);
+        assertEquals(1, result.get(0));
+        assertEquals(4, result.size());
+        array.close();
+    }
+
+    @Test
+    public void testHomogeneousArrayWithTypeAdapter() {
+        V8Array array = v8.executeArrayScript("[1, 2, 3]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array, new TypeAdapter() {
+
+            @Override
+            public Object adapt(final int type, final Object value) {
+                return type == V8Value.INTEGER ? ((Integer) value) * 2 : TypeAdapter.DEFAULT;
+            }
+        });
+
+        assertEquals(6, result.get(2));
+        array.close();
+    }
+
+    @Test
+    public void testStringArrayStaysGrowable() {
+        V8Array array = v8.executeArrayScript("['a', 'b']");
+
+        List<? super Object> result = V8ObjectUtils.toList(array);
+        result.add("c");
+
+        assertEquals(3, result.size());
+        assertEquals("b", result.get(1));
+        array.close();
+    }
+
+    @Test
+    public void testBooleanArray() {
+        V8Array array = v8.executeArrayScript("[true, false, true]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array);
+
+        assertEquals(false, result.get(1));
+        array.close();
+    }
+
+    @Test
+    public void testMixedArrayNotCompact() {
+        V8Array array = v8.executeArrayScript("[1, 'two', 3.5]");
+
+        List<? super Object> result = V8ObjectUtils.toList(array);
+
+        assertTrue(result instanceof ArrayList);
+        assertEquals("two", result.get(1));
+        array.close();
+    }
+
+    @Test
+    public void testIntArrayToV8TypedArray() {
+        V8TypedArray result = V8ObjectUtils.toV8TypedArray(v8, new int[] { 1, 2, Integer.MAX_VALUE });
+
+        assertEquals(V8Value.INT_32_ARRAY, result.getType());
+        assertEquals(3, result.length());
+        assertEquals(Integer.MAX_VALUE, result.get(2));
+        result.close();
+    }
+
+    @Test
+    public void testDoubleArrayToV8TypedArray() {
+        V8TypedArray result = V8ObjectUtils.toV8TypedArray(v8, new double[] { 1.5, 2.5 });
+        v8.add("result", result);
+
+        assertEquals("Float64Array", v8.executeStringScript("result.constructor.name"));
+        assertEquals(4.0, v8.executeDoubleScript("result[0] + result[1]"), 0.000001);
+        result.close();
+    }
+
+    @Test
+    public void testFloatShortAndByteArraysToV8TypedArray() {
+        V8TypedArray floats = V8ObjectUtils.toV8TypedArray(v8, new float[] { 1.5f });
+        V8TypedArray shorts = V8ObjectUtils.toV8TypedArray(v8, new short[] { -2 });
+        V8TypedArray bytes = V8ObjectUtils.toV8TypedArray(v8, new byte[] { -3 });
+
+        assertEquals(V8Value.FLOAT_32_ARRAY, floats.getType());
+        assertEquals((short) -2, shorts.get(0));
+        assertEquals((byte) -3, bytes.get(0));
+        floats.close();
+        shorts.close();
+        bytes.close();
+    }
+
+    @Test
+    public void testV8TypedArrayOutlivesJavaHandle() {
+        V8TypedArray result = V8ObjectUtils.toV8TypedArray(v8, new int[] { 3, 4 });
+        v8.add("result", result);
+        result.close();
+
+        assertEquals(7, v8.executeIntegerScript("result[0] + result[1]"));
+        assertEquals(8, v8.executeIntegerScript("result.buffer.byteLength"));
+    }
+
+    @Test
+    public void testEmptyArrayToV8TypedArray() {
+        V8TypedArray result = V8ObjectUtils.toV8TypedArray(v8, new int[0]);
+
+        assertEquals(0, result.length());
+        result.close();
+    }
+
+    @Test
+    public void testPushPrimitiveArray() {
+        V8Array array = new V8Array(v8);
+
+        V8ObjectUtils.pushValue(v8, array, new int[] { 1, 2, 3 });
+
+        assertEquals(V8Value.V8_TYPED_ARRAY, array.getType(0));
+        v8.add("array", array);
+        assertEquals(6, v8.executeIntegerScript("array[0][0] + array[0][1] + array[0][2]"));
+        array.close();
+    }
+
+    @Test
+    public void testMapWithPrimitiveArrayToV8Object() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("values", new double[] { 0.5, 0.25 });
+
+        V8Object object = V8ObjectUtils.toV8Object(v8, map);
+        v8.add("object", object);
+
+        assertEquals(0.75, v8.executeDoubleScript("object.values[0] + object.values[1]"), 0.000001);
+        object.close();
+    }
+
+    @Test
+    public void testSamePrimitiveArrayConvertedOnce() {
+        int[] values = new int[] { 1, 2 };
+        List<Object> list = new ArrayList<Object>();
+        list.add(values);
+        list.add(values);
+
+        V8Array array = V8ObjectUtils.toV8Array(v8, list);
+        v8.add("array", array);
+
+        assertTrue(v8.executeBooleanScript("array[0] === array[1]"));
+        array.close();
+    }
+
+    @Test
+    public void testGetV8ResultPrimitiveArray() {
+        Object result = V8ObjectUtils.getV8Result(v8, new float[] { 1, 2 });
+
+        assertTrue(result instanceof V8TypedArray);
+        ((V8TypedArray) result).close();
+    }
+
+    @Test
+    public void testSharedObjectConvertedOnce() {
+        V8Object object = v8.executeObjectScript("var shared = {a: 1}; var x = {first: shared, second: shared, list: [shared, shared]}; x;");
+
+        Map<String, ? super Object> map = V8ObjectUtils.toMap(object);
+
+        assertSame(map.get("first"), map.get("second"));
+        assertSame(map.get("first"), ((List<?>) map.get("list")).get(0));
+        assertSame(map.get("first"), ((List<?>) map.get("list")).get(1));
+        object.close();
+    }
+
+    @Test
+    public void testConversionReleasesVisitedHandles() {
+        V8Array array = v8.executeArrayScript("var shared = {a: 1}; var x = [];\n"
+                + "for (var i = 0; i < 1000; i++) { x.push({index: i, shared: shared, self: x}); }\n"
+                + "x;");
+        long referenceCount = v8.getObjectReferenceCount();
+
+        List<? super Object> list = V8ObjectUtils.toList(array);
+
+        assertEquals(1000, list.size());
+        assertSame(list, ((Map<?, ?>) list.get(999)).get("self"));
+        assertSame(((Map<?, ?>) list.get(0)).get("shared"), ((Map<?, ?>) list.get(999)).get("shared"));
+        assertEquals(referenceCount, v8.getObjectReferenceCount());
+        array.close();
+    }
+
+    @Test
+    public void testConversionDoesNotTwinVisitedObjects() {
+        V8Array array = v8.executeArrayScript("var x = [];\n"
+                + "for (var i = 0; i < 100; i++) { x.push({index: i}); }\n"
+                + "x;");
+        final int[] created = new int[1];
+        ReferenceHandler handler = new ReferenceHandler() {
+
+            @Override
+            public void v8HandleCreated(final V8Value object) {
+                created[0]++;
+            }
+
+            @Override
+            public void v8HandleDisposed(final V8Value object) {
+            }
+        };
+        v8.addReferenceHandler(handler);
+
+        V8ObjectUtils.toList(array);
+
+        v8.removeReferenceHandler(handler);
+        assertEquals(100, created[0]);
+        array.close();
+    }
+
+    @Test
+    public void testToColumns() {
+        V8Array rows = v8.executeArrayScript("[{id: 1, score: 0.5, active: true, name: 'a'}, {id: 2, score: 1.5, active: false, name: 'b'}]");
+
+        Columns columns = V8ObjectUtils.toColumns(rows, new String[] { "id", "score", "active", "name" },
+                new int[] { V8Value.INTEGER, V8Value.DOUBLE, V8Value.BOOLEAN, V8Value.STRING });
+
+        assertEquals(2, columns.getRowCount());
+        assertArrayEquals(new int[] { 1, 2 }, columns.getIntegers(0));
+        assertArrayEquals(new double[] { 0.5, 1.5 }, columns.getDoubles(1), 0.000001);
+        assertTrue(columns.getBooleans(2)[0]);
+        assertFalse(columns.getBooleans(2)[1]);
+        assertArrayEquals(new String[] { "a", "b" }, columns.getStrings(3));
+        assertTrue(columns.getNulls(0).isEmpty());
+        rows.close();
+    }
+
+    @Test
+    public void testToColumnsMarksNulls() {
+        V8Array rows = v8.executeArrayScript("[{id: 1, name: 'a'}, {id: 'x'}, null, {name: 7}]");
+
+        Columns columns = V8ObjectUtils.toColumns(rows, new String[] { "id", "name" }, new int[] { V8Value.INTEGER, V8Value.STRING });
+
+        assertEquals(4, columns.getRowCount());
+        assertArrayEquals(new int[] { 1, 0, 0, 0 }, columns.getIntegers(0));
+        assertArrayEquals(new String[] { "a", null, null, null }, columns.getStrings(1));
+        assertEquals(3, columns.getNulls(0).cardinality());
+        assertFalse(columns.isNull(1, 0));
+        assertTrue(columns.isNull(1, 3));
+        rows.close();
+    }
+
+    @Test
+    public void testToColumnsEmptyArray() {
+        V8Array rows = new V8Array(v8);
+
+        Columns columns = V8ObjectUtils.toColumns(rows, new String[] { "id" }, new int[] { V8Value.INTEGER });
+
+        assertEquals(0, columns.getRowCount());
+        assertEquals(0, columns.getIntegers(0).length);
+        rows.close();
+    }
+
+    @Test
+    public void testToColumnsDoesNotCreateHandlePerRow() {
+        V8Array rows = v8.executeArrayScript("var x = []; for (var i = 0; i < 1000; i++) { x.push({value: i}); } x;");
+        final int[] created = new int[1];
+        ReferenceHandler handler = new ReferenceHandler() {
+
+            @Override
+            public void v8HandleCreated(final V8Value object) {
+                created[0]++;
+            }
+
+            @Override
+            public void v8HandleDisposed(final V8Value object) {
+            }
+        };
+        v8.addReferenceHandler(handler);
+
+        Columns columns = V8ObjectUtils.toColumns(rows, new String[] { "value" }, new int[] { V8Value.INTEGER });
+
+        v8.removeReferenceHandler(handler);
+        assertEquals(499500, sum(columns.getIntegers(0)));
+        assertTrue(created[0] < 20);
+        rows.close();
+    }
+
+    private static int sum(final int[] values) {
+        int result = 0;
+        for (int value : values) {
+            result += value;
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8ArrayBuffer;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8TypedArray;
+import com.eclipsesource.v8.V8Value;
+
+public class V8SerializerTest {
+
+    private V8 v8;
+    private V8 other;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+        other = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (other != null) {
+            other.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testSerializeInteger() {
+        SerializedValue value = V8Serializer.serialize(v8, 7);
+
+        assertEquals(7, V8Serializer.deserialize(other, value));
+    }
+
+    @Test
+    public void testSerializeDouble() {
+        SerializedValue value = V8Serializer.serialize(v8, 3.14);
+
+        assertEquals(3.14, (Double) V8Serializer.deserialize(other, value), 0.000001);
+    }
+
+    @Test
+    public void testSerializeString() {
+        SerializedValue value = V8Serializer.serialize(v8, "hello é");
+
+        assertEquals("hello é", V8Serializer.deserialize(other, value));
+    }
+
+    @Test
+    public void testSerializeNull() {
+        SerializedValue value = V8Serializer.serialize(v8, null);
+
+        assertNull(V8Serializer.deserialize(other, value));
+    }
+
+    @Test
+    public void testSerializeUndefined() {
+        SerializedValue value = V8Serializer.serialize(v8, V8.getUndefined());
+
+        assertEquals(V8.getUndefined(), V8Serializer.deserialize(other, value));
+    }
+
+    @Test
+    public void testSerializeObject() {
+        V8Object object = v8.executeObjectScript("({a : 1, b : 'foo', c : true, d : 2.5, e : null})");
+        SerializedValue value = V8Serializer.serialize(v8, object);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+
+        assertEquals(1, result.getInteger("a"));
+        assertEquals("foo", result.getString("b"));
+        assertTrue(result.getBoolean("c"));
+        assertEquals(2.5, result.getDouble("d"), 0.000001);
+        assertEquals(V8Value.NULL, result.getType("e"));
+        object.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeNestedArray() {
+        V8Array array = v8.executeArrayScript("[1, [2, 3], {x : [4]}]");
+        SerializedValue value = V8Serializer.serialize(v8, array);
+
+        V8Array result = (V8Array) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertEquals("1,2,3,[object Object]", other.executeStringScript("result.toString()"));
+        assertEquals(4, other.executeIntegerScript("result[2].x[0]"));
+        array.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeSharedReference() {
+        V8Object object = v8.executeObjectScript("var shared = {}; ({a : shared, b : shared})");
+        SerializedValue value = V8Serializer.serialize(v8, object);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result.a === result.b"));
+        object.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeCycle() {
+        V8Object object = v8.executeObjectScript("var cycle = {}; cycle.self = cycle; cycle");
+        SerializedValue value = V8Serializer.serialize(v8, object);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result.self === result"));
+        object.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeMap() {
+        V8Object map = v8.executeObjectScript("new Map([['a', 1], [2, {b : 'c'}]])");
+        SerializedValue value = V8Serializer.serialize(v8, map);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result instanceof Map"));
+        assertEquals(1, other.executeIntegerScript("result.get('a')"));
+        assertEquals("c", other.executeStringScript("result.get(2).b"));
+        map.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeSet() {
+        V8Object set = v8.executeObjectScript("new Set(['a', 'b'])");
+        SerializedValue value = V8Serializer.serialize(v8, set);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result instanceof Set"));
+        assertTrue(other.executeBooleanScript("result.has('a') && result.has('b')"));
+        set.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeDate() {
+        V8Object date = v8.executeObjectScript("new Date(1500000000000)");
+        SerializedValue value = V8Serializer.serialize(v8, date);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result instanceof Date"));
+        assertEquals(1500000000000d, other.executeDoubleScript("result.getTime()"), 0);
+        date.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeRegExp() {
+        V8Object regExp = v8.executeObjectScript("/a+b/gi");
+        SerializedValue value = V8Serializer.serialize(v8, regExp);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+        other.add("result", result);
+
+        assertTrue(other.executeBooleanScript("result instanceof RegExp"));
+        assertEquals("/a+b/gi", other.executeStringScript("String(result)"));
+        regExp.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeObjectWithNullPrototype() {
+        V8Object object = v8.executeObjectScript("var o = Object.create(null); o.a = 1; o");
+        SerializedValue value = V8Serializer.serialize(v8, object);
+
+        V8Object result = (V8Object) V8Serializer.deserialize(other, value);
+
+        assertEquals(1, result.getInteger("a"));
+        object.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeClassInstanceFails() {
+        V8Object object = v8.executeObjectScript("class Point { constructor() { this.x = 1; } }; new Point()");
+
+        try {
+            V8Serializer.serialize(v8, object);
+        } catch (IllegalStateException e) {
+            assertEquals("DataCloneError: class Point objects cannot be serialized", e.getMessage());
+            return;
+        } finally {
+            object.close();
+        }
+        fail("Expected exception");
+    }
+
+    @Test
+    public void testSerializeBoxedPrimitiveFails() {
+        V8Object object = v8.executeObjectScript("({n : new Number(1)})");
+
+        try {
+            V8Serializer.serialize(v8, object);
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("DataCloneError"));
+            return;
+        } finally {
+            object.close();
+        }
+        fail("Expected exception");
+    }
+
+    @Test
+    public void testSerializeTypedArray() {
+        V8Array array = v8.executeArrayScript("var buf = new ArrayBuffer(16); var ints = new Int32Array(buf, 4, 2); ints[0] = 7; ints[1] = 8; ints");
+        SerializedValue value = V8Serializer.serialize(v8, array);
+
+        V8TypedArray result = (V8TypedArray) V8Serializer.deserialize(other, value);
+
+        assertEquals(V8Value.INT_32_ARRAY, result.getType());
+        assertEquals(2, result.length());
+        assertEquals(7, result.get(0));
+        assertEquals(8, result.get(1));
+        array.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeArrayBufferCopies() {
+        V8ArrayBuffer buffer = new V8ArrayBuffer(v8, 4);
+        buffer.put(0, (byte) 1);
+        SerializedValue value = V8Serializer.serialize(v8, buffer);
+        buffer.put(0, (byte) 2);
+
+        V8ArrayBuffer result = (V8ArrayBuffer) V8Serializer.deserialize(other, value);
+
+        assertEquals(0, value.getTransferredCount());
+        assertEquals(1, result.get(0));
+        buffer.close();
+        result.close();
+    }
+
+    @Test
+    public void testTransferArrayBufferDoesNotShareMemory() {
+        ByteBuffer backingStore = ByteBuffer.allocateDirect(4);
+        backingStore.put(0, (byte) 1);
+        V8ArrayBuffer buffer = new V8ArrayBuffer(v8, backingStore);
+        SerializedValue value = V8Serializer.serialize(v8, buffer, buffer);
+
+        V8ArrayBuffer result = (V8ArrayBuffer) V8Serializer.deserialize(other, value);
+        backingStore.put(0, (byte) 9);
+
+        assertEquals(1, value.getTransferredCount());
+        assertEquals(1, result.get(0));
+        buffer.close();
+        result.close();
+    }
+
+    @Test
+    public void testTransferArrayBufferOwnedByV8() {
+        V8ArrayBuffer buffer = new V8ArrayBuffer(v8, 4);
+        buffer.put(0, (byte) 7);
+        SerializedValue value = V8Serializer.serialize(v8, buffer, buffer);
+        buffer.close();
+        v8.close();
+        v8 = null;
+
+        V8ArrayBuffer result = (V8ArrayBuffer) V8Serializer.deserialize(other, value);
+
+        assertEquals(7, result.get(0));
+        result.close();
+    }
+
+    @Test
+    public void testDeserializeFromData() {
+        V8Array array = v8.executeArrayScript("['a', 'b']");
+        ByteBuffer data = V8Serializer.serialize(v8, array).getData();
+
+        V8Array result = (V8Array) V8Serializer.deserialize(other, new SerializedValue(data));
+
+        assertEquals("b", result.getString(1));
+        array.close();
+        result.close();
+    }
+
+    @Test
+    public void testSerializeFunctionFails() {
+        V8Object object = v8.executeObjectScript("({f : function() {}})");
+
+        try {
+            V8Serializer.serialize(v8, object);
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("DataCloneError"));
+            return;
+        } finally {
+            object.close();
+        }
+        fail("Expected exception");
+    }
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Object;
+
+public class V8VisitedMapTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test
+    public void testGetMissing() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = new V8Object(v8);
+
+        assertNull(map.get(object));
+        object.close();
+        map.close();
+    }
+
+    @Test
+    public void testPutDoesNotTwin() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = new V8Object(v8);
+        long referenceCount = v8.getObjectReferenceCount();
+
+        map.put(object, "foo");
+
+        assertEquals(referenceCount, v8.getObjectReferenceCount());
+        object.close();
+        map.close();
+    }
+
+    @Test
+    public void testGetWithOtherHandle() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = v8.executeObjectScript("var x = {}; x;");
+        V8Object other = v8.getObject("x");
+
+        map.put(object, "foo");
+
+        assertEquals("foo", map.get(other));
+        object.close();
+        other.close();
+        map.close();
+    }
+
+    @Test
+    public void testDifferentObjects() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object1 = new V8Object(v8);
+        V8Object object2 = new V8Object(v8);
+
+        map.put(object1, "foo");
+        map.put(object2, "bar");
+
+        assertEquals("foo", map.get(object1));
+        assertEquals("bar", map.get(object2));
+        assertEquals(2, map.size());
+        object1.close();
+        object2.close();
+        map.close();
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = new V8Object(v8);
+
+        map.put(object, "foo");
+        map.put(object, "bar");
+
+        assertEquals("bar", map.get(object));
+        assertEquals(1, map.size());
+        object.close();
+        map.close();
+    }
+
+    @Test
+    public void testAdoptedHandleReleasedOnClose() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = new V8Object(v8);
+        map.put(object, "foo");
+
+        assertTrue(map.adopt(object));
+        map.close();
+
+        assertTrue(object.isReleased());
+    }
+
+    @Test
+    public void testHandleNotAdoptedIsNotReleased() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = new V8Object(v8);
+        map.put(object, "foo");
+
+        map.close();
+
+        assertFalse(object.isReleased());
+        object.close();
+    }
+
+    @Test
+    public void testOtherHandleNotAdopted() {
+        V8VisitedMap map = new V8VisitedMap();
+        V8Object object = v8.executeObjectScript("var x = {}; x;");
+        V8Object other = v8.getObject("x");
+        map.put(object, "foo");
+
+        assertFalse(map.adopt(other));
+        assertFalse(map.adopt("foo"));
+        object.close();
+        other.close();
+        map.close();
+    }
+
+}
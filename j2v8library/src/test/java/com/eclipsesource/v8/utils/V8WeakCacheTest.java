@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Function;
+import com.eclipsesource.v8.V8Object;
+
+public class V8WeakCacheTest {
+
+    private V8 v8;
+
+    @Before
+    public void setup() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        if (v8 != null) {
+            v8.close();
+        }
+        if (V8.getActiveRuntimes() != 0) {
+            throw new IllegalStateException("V8Runtimes not properly released");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaximumSize() {
+        new V8WeakCache<String, V8Object>(-1);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        V8Object object = v8.executeObjectScript("var x = {foo: 7}; x;");
+        cache.put("x", object);
+        object.close();
+
+        V8Object result = cache.get("x");
+
+        assertEquals(7, result.getInteger("foo"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        result.close();
+        cache.close();
+    }
+
+    @Test
+    public void testGetMissing() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+
+        assertNull(cache.get("x"));
+        assertEquals(1, cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void testCachedFunction() {
+        V8WeakCache<String, V8Function> cache = new V8WeakCache<String, V8Function>(10);
+        V8Function function = (V8Function) v8.executeObjectScript("var f = function(a) { return a + 1; }; f;");
+        cache.put("increment", function);
+        function.close();
+
+        V8Function result = cache.get("increment");
+        V8Array parameters = new V8Array(v8).push(7);
+
+        assertEquals(8, result.call(null, parameters));
+        parameters.close();
+        result.close();
+        cache.close();
+    }
+
+    @Test
+    public void testCacheDoesNotCountAsStrongReference() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        V8Object object = new V8Object(v8);
+
+        cache.put("x", object);
+        object.close();
+
+        assertEquals(0, v8.getObjectReferenceCount());
+        cache.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(2);
+        v8.executeVoidScript("var a = {}; var b = {}; var c = {};");
+        put(cache, "a");
+        put(cache, "b");
+        cache.get("a").close();
+
+        put(cache, "c");
+
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get("a").close();
+        cache.get("c").close();
+        cache.close();
+    }
+
+    @Test
+    public void testCollectedValueRemoved() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        V8Object object = v8.executeObjectScript("var x = {}; x;");
+        cache.put("x", object);
+        object.close();
+
+        v8.executeVoidScript("x = null;");
+        v8.lowMemoryNotification();
+
+        assertNull(cache.get("x"));
+        assertEquals(1, cache.getCollectedCount());
+        assertEquals(0, cache.getEvictionCount());
+        cache.close();
+    }
+
+    @Test
+    public void testReferencedValueNotCollected() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        put(cache, "x", "var x = {}; x;");
+
+        v8.lowMemoryNotification();
+
+        V8Object result = cache.get("x");
+        assertNotNull(result);
+        result.close();
+        cache.close();
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        v8.executeVoidScript("var a = {name: 'a'}; var b = {name: 'b'};");
+        put(cache, "a");
+        V8Object b = v8.getObject("b");
+
+        cache.put("a", b);
+        b.close();
+
+        V8Object result = cache.get("a");
+        assertEquals("b", result.getString("name"));
+        assertEquals(1, cache.size());
+        result.close();
+        cache.close();
+    }
+
+    @Test
+    public void testInvalidate() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        v8.executeVoidScript("var a = {};");
+        put(cache, "a");
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        cache.close();
+    }
+
+    @Test
+    public void testCloseReleasesHandles() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        v8.executeVoidScript("var a = {}; var b = {};");
+        put(cache, "a");
+        put(cache, "b");
+        long referenceCount = v8.getObjectReferenceCount();
+
+        cache.close();
+
+        assertEquals(0, cache.size());
+        assertEquals(referenceCount, v8.getObjectReferenceCount());
+    }
+
+    @Test
+    public void testRegisteredAsResource() {
+        V8WeakCache<String, V8Object> cache = new V8WeakCache<String, V8Object>(10);
+        v8.registerResource(cache);
+        v8.executeVoidScript("var a = {};");
+        put(cache, "a");
+
+        v8.close();
+        v8 = null;
+    }
+
+    private void put(final V8WeakCache<String, V8Object> cache, final String name) {
+        V8Object object = v8.getObject(name);
+        cache.put(name, object);
+        object.close();
+    }
+
+    private void put(final V8WeakCache<String, V8Object> cache, final String name, final String script) {
+        V8Object object = v8.executeObjectScript(script);
+        cache.put(name, object);
+        object.close();
+    }
+
+}